@@ -0,0 +1,283 @@
+package io.github.roberto22palomar.pepenium.core.config;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary snapshots of parsed and validated configuration documents, shared by the JVM forks of a build.
+ *
+ * <p>A snapshot is keyed by a SHA-256 of the source bytes and the JVM class path, so editing the file or changing the
+ * dependencies makes it stale and the next fork parses the YAML again and replaces it. Snapshots hold the document as
+ * written: {@code ${ENV}} placeholders stay unresolved, so environment values are never copied to disk. Caching is
+ * disabled unless {@value #CACHE_DIR_KEY} names a directory.</p>
+ */
+public final class ConfigSnapshot {
+
+    public static final String CACHE_DIR_KEY = "PEPENIUM_CONFIG_CACHE_DIR";
+
+    private static final int MAGIC = 0x50504353;
+    private static final int FORMAT = 1;
+    private static final int MAX_DEPTH = 64;
+    private static final String SUFFIX = ".bin";
+    private static final ConfigSnapshot DISABLED = new ConfigSnapshot(null);
+
+    private static final byte NULL = 0;
+    private static final byte STRING = 1;
+    private static final byte TRUE = 2;
+    private static final byte FALSE = 3;
+    private static final byte INTEGER = 4;
+    private static final byte LONG = 5;
+    private static final byte DOUBLE = 6;
+    private static final byte LIST = 7;
+    private static final byte MAP = 8;
+
+    private final Path directory;
+
+    ConfigSnapshot(Path directory) {
+        this.directory = directory;
+    }
+
+    /**
+     * Snapshot cache configured through {@code -Dpepenium.config.cache.dir} or {@value #CACHE_DIR_KEY}.
+     *
+     * <p>Read directly instead of through {@link PepeniumConfig} because it is needed while that configuration is
+     * still loading.</p>
+     *
+     * @return the configured cache, or a disabled one
+     */
+    public static ConfigSnapshot fromEnvironment() {
+        String property = System.getProperty("pepenium.config.cache.dir");
+        String configured = property == null || property.isBlank() ? System.getenv(CACHE_DIR_KEY) : property;
+        return configured == null || configured.isBlank() ? DISABLED : new ConfigSnapshot(Path.of(configured.trim()));
+    }
+
+    static ConfigSnapshot disabled() {
+        return DISABLED;
+    }
+
+    public boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Reads the snapshot stored for {@code source}.
+     *
+     * @param name   snapshot name, such as the source file name
+     * @param source bytes of the source document the snapshot was taken from
+     * @return the stored document of maps, lists and scalars, or {@code null} when there is no current snapshot
+     */
+    public Object read(String name, byte[] source) {
+        if (directory == null) {
+            return null;
+        }
+        Path file = file(name, source);
+        if (!Files.isRegularFile(file)) {
+            return null;
+        }
+        try (DataInputStream input = new DataInputStream(new ByteArrayInputStream(Files.readAllBytes(file)))) {
+            if (input.readInt() != MAGIC || input.readInt() != FORMAT) {
+                return null;
+            }
+            Object document = decode(input, 0);
+            return input.available() == 0 ? document : null;
+        } catch (IOException | IllegalStateException error) {
+            return null;
+        }
+    }
+
+    /**
+     * Stores {@code document} as the snapshot of {@code source} and removes older snapshots of the same name.
+     *
+     * <p>Best effort: documents holding values other than maps, lists, strings, booleans and numbers are not cached,
+     * and a cache directory that cannot be written only costs the next fork a full parse.</p>
+     *
+     * @param name     snapshot name, such as the source file name
+     * @param source   bytes of the source document
+     * @param document parsed and validated document
+     * @return {@code true} when the snapshot was written
+     */
+    public boolean write(String name, byte[] source, Object document) {
+        if (directory == null) {
+            return false;
+        }
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            try (DataOutputStream output = new DataOutputStream(bytes)) {
+                output.writeInt(MAGIC);
+                output.writeInt(FORMAT);
+                encode(output, document, 0);
+            }
+            Files.createDirectories(directory);
+            Path file = file(name, source);
+            Path temporary = Files.createTempFile(directory, name + "-", ".tmp");
+            Files.write(temporary, bytes.toByteArray());
+            move(temporary, file);
+            removeStale(name, file);
+            return true;
+        } catch (IOException | IllegalArgumentException error) {
+            return false;
+        }
+    }
+
+    Path file(String name, byte[] source) {
+        return directory.resolve(name + "-" + key(source) + SUFFIX);
+    }
+
+    static String key(byte[] source) {
+        try {
+            MessageDigest digest = MessageDigest.getInstance("SHA-256");
+            digest.update(Integer.toString(FORMAT).getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(System.getProperty("java.class.path", "").getBytes(StandardCharsets.UTF_8));
+            digest.update((byte) 0);
+            digest.update(source);
+            StringBuilder hex = new StringBuilder();
+            for (byte value : digest.digest()) {
+                hex.append(String.format("%02x", value));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException error) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", error);
+        }
+    }
+
+    private static void encode(DataOutputStream output, Object value, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalArgumentException("Configuration document is nested too deeply to snapshot");
+        }
+        if (value == null) {
+            output.writeByte(NULL);
+        } else if (value instanceof String) {
+            output.writeByte(STRING);
+            writeString(output, (String) value);
+        } else if (value instanceof Boolean) {
+            output.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof Integer) {
+            output.writeByte(INTEGER);
+            output.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            output.writeByte(LONG);
+            output.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            output.writeByte(DOUBLE);
+            output.writeDouble((Double) value);
+        } else if (value instanceof List) {
+            List<?> values = (List<?>) value;
+            output.writeByte(LIST);
+            output.writeInt(values.size());
+            for (Object item : values) {
+                encode(output, item, depth + 1);
+            }
+        } else if (value instanceof Map) {
+            Map<?, ?> values = (Map<?, ?>) value;
+            output.writeByte(MAP);
+            output.writeInt(values.size());
+            for (Map.Entry<?, ?> entry : values.entrySet()) {
+                if (!(entry.getKey() instanceof String)) {
+                    throw new IllegalArgumentException("Only string keys can be snapshotted");
+                }
+                writeString(output, (String) entry.getKey());
+                encode(output, entry.getValue(), depth + 1);
+            }
+        } else {
+            throw new IllegalArgumentException("Cannot snapshot " + value.getClass().getName() + " values");
+        }
+    }
+
+    private static Object decode(DataInputStream input, int depth) throws IOException {
+        if (depth > MAX_DEPTH) {
+            throw new IllegalStateException("Snapshot is nested too deeply");
+        }
+        byte type = input.readByte();
+        switch (type) {
+            case NULL:
+                return null;
+            case STRING:
+                return readString(input);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case INTEGER:
+                return input.readInt();
+            case LONG:
+                return input.readLong();
+            case DOUBLE:
+                return input.readDouble();
+            case LIST:
+                int itemCount = count(input);
+                List<Object> items = new ArrayList<>(itemCount);
+                for (int index = 0; index < itemCount; index++) {
+                    items.add(decode(input, depth + 1));
+                }
+                return items;
+            case MAP:
+                int entryCount = count(input);
+                Map<String, Object> entries = new LinkedHashMap<>();
+                for (int index = 0; index < entryCount; index++) {
+                    entries.put(readString(input), decode(input, depth + 1));
+                }
+                return entries;
+            default:
+                throw new IllegalStateException("Unknown snapshot value type " + type);
+        }
+    }
+
+    private static int count(DataInputStream input) throws IOException {
+        int count = input.readInt();
+        if (count < 0 || count > input.available()) {
+            throw new IllegalStateException("Snapshot is truncated");
+        }
+        return count;
+    }
+
+    private static void writeString(DataOutputStream output, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        output.writeInt(bytes.length);
+        output.write(bytes);
+    }
+
+    private static String readString(DataInputStream input) throws IOException {
+        byte[] bytes = new byte[count(input)];
+        input.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static void move(Path temporary, Path file) throws IOException {
+        try {
+            Files.move(temporary, file, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+        } catch (AtomicMoveNotSupportedException error) {
+            Files.move(temporary, file, StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    private void removeStale(String name, Path current) {
+        try (DirectoryStream<Path> snapshots = Files.newDirectoryStream(directory, name + "-*" + SUFFIX)) {
+            for (Path snapshot : snapshots) {
+                if (!snapshot.equals(current)) {
+                    Files.deleteIfExists(snapshot);
+                }
+            }
+        } catch (IOException | UncheckedIOException error) {
+            // Another fork may be replacing the same snapshots; leftovers are cleaned up on the next write.
+        }
+    }
+}
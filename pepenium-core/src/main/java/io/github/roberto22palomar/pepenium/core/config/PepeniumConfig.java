@@ -6,8 +6,8 @@ import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.SafeConstructor;
 import org.yaml.snakeyaml.error.YAMLException;
 
+import java.io.ByteArrayInputStream;
 import java.io.IOException;
-import java.io.InputStream;
 import java.net.URI;
 import java.net.URISyntaxException;
 import java.nio.file.Files;
@@ -123,27 +123,53 @@ public final class PepeniumConfig {
     }
 
     static ResolvedConfig load(Path path, boolean explicit, Function<String, String> environment) {
+        return load(path, explicit, environment, ConfigSnapshot.disabled());
+    }
+
+    static ResolvedConfig load(Path path,
+                               boolean explicit,
+                               Function<String, String> environment,
+                               ConfigSnapshot snapshot) {
         if (!Files.exists(path)) {
             if (explicit) {
                 throw invalid("Configuration file does not exist: " + path.toAbsolutePath());
             }
             return ResolvedConfig.empty(environment);
         }
-        try (InputStream input = Files.newInputStream(path)) {
-            Object document = createYamlParser().load(input);
-            if (document == null) {
-                return ResolvedConfig.empty(environment);
-            }
-            if (!(document instanceof Map)) {
-                throw invalid("Configuration root must be a YAML object in " + path.toAbsolutePath());
-            }
-            return ResolvedConfig.from((Map<?, ?>) document, environment, path);
+        long started = System.nanoTime();
+        byte[] source;
+        try {
+            source = Files.readAllBytes(path);
+        } catch (IOException error) {
+            throw invalid("Could not read configuration file " + path.toAbsolutePath(), error);
+        }
+        started = StartupTimings.record(DEFAULT_FILE + " read", started);
+        Object cached = snapshot.read(DEFAULT_FILE, source);
+        if (cached instanceof Map) {
+            ResolvedConfig config = ResolvedConfig.restore((Map<?, ?>) cached, environment, path);
+            StartupTimings.record(DEFAULT_FILE + " snapshot", started);
+            return config;
+        }
+        Object document;
+        try {
+            document = createYamlParser().load(new ByteArrayInputStream(source));
         } catch (YAMLException error) {
             throw invalid("Could not parse YAML file " + path.toAbsolutePath() + ": "
                     + SensitiveDataSanitizer.sanitizeText(error.getMessage()));
-        } catch (IOException error) {
-            throw invalid("Could not read configuration file " + path.toAbsolutePath(), error);
         }
+        started = StartupTimings.record(DEFAULT_FILE + " parse", started);
+        if (document == null) {
+            return ResolvedConfig.empty(environment);
+        }
+        if (!(document instanceof Map)) {
+            throw invalid("Configuration root must be a YAML object in " + path.toAbsolutePath());
+        }
+        ResolvedConfig config = ResolvedConfig.from((Map<?, ?>) document, environment, path);
+        started = StartupTimings.record(DEFAULT_FILE + " validate", started);
+        if (snapshot.write(DEFAULT_FILE, source, document)) {
+            StartupTimings.record(DEFAULT_FILE + " snapshot write", started);
+        }
+        return config;
     }
 
     private static Yaml createYamlParser() {
@@ -161,7 +187,7 @@ public final class PepeniumConfig {
         String configuredPath = !isBlank(propertyPath) ? propertyPath : environmentPath;
         boolean explicit = !isBlank(configuredPath);
         Path path = Path.of(explicit ? configuredPath.trim() : DEFAULT_FILE);
-        return load(path, explicit, System::getenv);
+        return load(path, explicit, System::getenv, ConfigSnapshot.fromEnvironment());
     }
 
     private static Map<String, String> createKeyPaths() {
@@ -249,6 +275,14 @@ public final class PepeniumConfig {
 
         static ResolvedConfig from(Map<?, ?> document, Function<String, String> environment, Path source) {
             validateDocument(document, source);
+            return restore(document, environment, source);
+        }
+
+        /**
+         * Builds the configuration from a document that already passed {@link #validateDocument(Map, Path)}, such as
+         * one read back from a {@link ConfigSnapshot}.
+         */
+        static ResolvedConfig restore(Map<?, ?> document, Function<String, String> environment, Path source) {
             String defaultProfile = scalar(document.get("defaultProfile"), "defaultProfile", environment, source);
             Map<String, Map<String, Object>> profiles = new LinkedHashMap<>();
             Object rawProfiles = document.get("profiles");
@@ -0,0 +1,61 @@
+package io.github.roberto22palomar.pepenium.core.config;
+
+import java.time.Duration;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.stream.Collectors;
+
+/**
+ * Time each fork spends loading Pepenium configuration and execution profiles, phase by phase.
+ *
+ * <p>Phases are recorded once per JVM as the configuration is first used, so a slow fork start can be traced to YAML
+ * parsing, validation, provider discovery or a snapshot read. This package does not log, because the Maven plugin
+ * loads it without SLF4J; the test runtime logs {@link #describe()} at debug level once the first execution profile
+ * is resolved.</p>
+ */
+public final class StartupTimings {
+
+    private static final Map<String, Duration> PHASES = new LinkedHashMap<>();
+
+    private StartupTimings() {
+    }
+
+    /**
+     * Records how long {@code phase} took since {@code startNanos}.
+     *
+     * @param phase      phase name, such as {@code "pepenium.yml parse"}
+     * @param startNanos {@link System#nanoTime()} at the start of the phase
+     * @return {@link System#nanoTime()} at the end of the phase, to chain the next one
+     */
+    public static long record(String phase, long startNanos) {
+        long now = System.nanoTime();
+        Duration elapsed = Duration.ofNanos(now - startNanos);
+        synchronized (PHASES) {
+            PHASES.put(phase, elapsed);
+        }
+        return now;
+    }
+
+    /**
+     * Returns the phases recorded so far, in the order they ran.
+     *
+     * @return immutable view of phase durations
+     */
+    public static Map<String, Duration> phases() {
+        synchronized (PHASES) {
+            return Collections.unmodifiableMap(new LinkedHashMap<>(PHASES));
+        }
+    }
+
+    /**
+     * Summarizes the recorded phases on one line, such as {@code "pepenium.yml snapshot 0.31 ms, ..."}.
+     *
+     * @return phase summary, empty when nothing was recorded
+     */
+    public static String describe() {
+        return phases().entrySet().stream()
+                .map(phase -> String.format("%s %.2f ms", phase.getKey(), phase.getValue().toNanos() / 1_000_000d))
+                .collect(Collectors.joining(", "));
+    }
+}
@@ -8,6 +8,7 @@ import io.github.roberto22palomar.pepenium.core.config.validation.ConfigValidati
 import io.appium.java_client.android.options.UiAutomator2Options;
 import io.appium.java_client.service.local.AppiumDriverLocalService;
 import io.appium.java_client.service.local.AppiumServiceBuilder;
+import io.github.roberto22palomar.pepenium.core.runtime.AppiumServerPool;
 
 import java.net.URL;
 import java.time.Duration;
@@ -42,11 +43,10 @@ public class AndroidWebConfigAWS implements DriverConfig {
             );
             serverUrl = new URL("http://127.0.0.1:4723");
         } else {
-            service = serviceBuilderFactory.get()
+            service = AppiumServerPool.lease("aws-local", () -> serviceBuilderFactory.get()
                     .usingAnyFreePort()
                     .withArgument(() -> "--allow-insecure", "chromedriver_autodownload")
-                    .build();
-            service.start();
+                    .build());
             serverUrl = service.getUrl();
         }
 
@@ -8,6 +8,7 @@ import io.github.roberto22palomar.pepenium.core.config.validation.ConfigValidati
 import io.appium.java_client.ios.options.XCUITestOptions;
 import io.appium.java_client.service.local.AppiumDriverLocalService;
 import io.appium.java_client.service.local.AppiumServiceBuilder;
+import io.github.roberto22palomar.pepenium.core.runtime.AppiumServerPool;
 
 import java.net.URL;
 import java.time.Duration;
@@ -48,11 +49,10 @@ public class IOSConfigAWS implements DriverConfig {
             );
             serverUrl = new URL("http://127.0.0.1:4723/wd/hub");
         } else {
-            service = serviceBuilderFactory.get()
+            service = AppiumServerPool.lease("aws-local", () -> serviceBuilderFactory.get()
                     .usingAnyFreePort()
                     .withArgument(() -> "--allow-insecure", "chromedriver_autodownload")
-                    .build();
-            service.start();
+                    .build());
             serverUrl = service.getUrl();
         }
 
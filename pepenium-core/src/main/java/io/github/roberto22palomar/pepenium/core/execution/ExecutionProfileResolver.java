@@ -64,7 +64,10 @@ public class ExecutionProfileResolver {
         return profile;
     }
 
-    private String readOverride() {
+    /**
+     * Profile id set through {@code -Dpepenium.profile} or {@code PEPENIUM_PROFILE}, or {@code null} when neither is.
+     */
+    public String readOverride() {
         String systemProperty = System.getProperty("pepenium.profile");
         if (systemProperty != null && !systemProperty.isBlank()) {
             return systemProperty.trim();
@@ -1,9 +1,13 @@
 package io.github.roberto22palomar.pepenium.core.execution;
 
+import io.github.roberto22palomar.pepenium.core.config.ConfigSnapshot;
+import io.github.roberto22palomar.pepenium.core.config.StartupTimings;
 import org.yaml.snakeyaml.LoaderOptions;
 import org.yaml.snakeyaml.Yaml;
 import org.yaml.snakeyaml.constructor.Constructor;
 
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
 import java.util.Collection;
@@ -154,34 +158,101 @@ public final class ExecutionProfiles {
     }
 
     private static Map<String, ExecutionProfile> loadProfiles() {
+        long started = System.nanoTime();
         Map<String, ExecutionProfile> profiles = new LinkedHashMap<>(BUILT_IN_PROFILES);
         try {
             mergeProviderProfiles(profiles, ServiceLoader.load(ExecutionProfileProvider.class));
         } catch (ServiceConfigurationError error) {
             throw new IllegalStateException("Failed to load Pepenium execution profile providers", error);
         }
+        StartupTimings.record("execution profile providers", started);
         return Collections.unmodifiableMap(profiles);
     }
 
     private static Map<String, ExecutionProfile> loadBuiltInProfiles() {
+        long started = System.nanoTime();
+        byte[] source;
         try (InputStream input = ExecutionProfiles.class.getClassLoader().getResourceAsStream(PROFILES_RESOURCE)) {
             if (input == null) {
                 throw new IllegalStateException("Missing required resource: " + PROFILES_RESOURCE);
             }
-
-            LoaderOptions options = new LoaderOptions();
-            options.setAllowDuplicateKeys(false);
-            options.setMaxAliasesForCollections(50);
-            options.setNestingDepthLimit(50);
-            options.setCodePointLimit(3 * 1024 * 1024);
-            ProfilesFile yamlFile = new Yaml(new Constructor(ProfilesFile.class, options))
-                    .loadAs(input, ProfilesFile.class);
-            return loadProfiles(yamlFile);
-        } catch (RuntimeException e) {
-            throw e;
-        } catch (Exception e) {
+            source = input.readAllBytes();
+        } catch (IOException e) {
             throw new IllegalStateException("Failed to load execution profiles from " + PROFILES_RESOURCE, e);
         }
+        return loadBuiltInProfiles(source, ConfigSnapshot.fromEnvironment(), started);
+    }
+
+    static Map<String, ExecutionProfile> loadBuiltInProfiles(byte[] source, ConfigSnapshot snapshot, long started) {
+        ProfilesFile cached = fromSnapshot(snapshot.read(PROFILES_RESOURCE, source));
+        if (cached != null) {
+            Map<String, ExecutionProfile> profiles = loadProfiles(cached);
+            StartupTimings.record(PROFILES_RESOURCE + " snapshot", started);
+            return profiles;
+        }
+        LoaderOptions options = new LoaderOptions();
+        options.setAllowDuplicateKeys(false);
+        options.setMaxAliasesForCollections(50);
+        options.setNestingDepthLimit(50);
+        options.setCodePointLimit(3 * 1024 * 1024);
+        ProfilesFile yamlFile = new Yaml(new Constructor(ProfilesFile.class, options))
+                .loadAs(new ByteArrayInputStream(source), ProfilesFile.class);
+        started = StartupTimings.record(PROFILES_RESOURCE + " parse", started);
+        Map<String, ExecutionProfile> profiles = loadProfiles(yamlFile);
+        started = StartupTimings.record(PROFILES_RESOURCE + " validate", started);
+        if (snapshot.write(PROFILES_RESOURCE, source, toSnapshot(yamlFile))) {
+            StartupTimings.record(PROFILES_RESOURCE + " snapshot write", started);
+        }
+        return profiles;
+    }
+
+    private static List<Map<String, String>> toSnapshot(ProfilesFile yamlFile) {
+        List<Map<String, String>> definitions = new ArrayList<>();
+        for (ProfileDefinition definition : yamlFile.getProfiles()) {
+            Map<String, String> values = new LinkedHashMap<>();
+            values.put("id", definition.getId());
+            values.put("target", definition.getTarget().name());
+            values.put("description", definition.getDescription());
+            values.put("configKey", definition.getConfigKey().name());
+            definitions.add(values);
+        }
+        return definitions;
+    }
+
+    private static ProfilesFile fromSnapshot(Object snapshot) {
+        if (!(snapshot instanceof List)) {
+            return null;
+        }
+        List<ProfileDefinition> definitions = new ArrayList<>();
+        for (Object item : (List<?>) snapshot) {
+            if (!(item instanceof Map)) {
+                return null;
+            }
+            Map<?, ?> values = (Map<?, ?>) item;
+            TestTarget target = snapshotEnum(TestTarget.class, values.get("target"));
+            BuiltInDriverConfigKey configKey = snapshotEnum(BuiltInDriverConfigKey.class, values.get("configKey"));
+            if (target == null || configKey == null) {
+                return null;
+            }
+            ProfileDefinition definition = new ProfileDefinition();
+            definition.setId(String.valueOf(values.get("id")));
+            definition.setTarget(target);
+            definition.setDescription(String.valueOf(values.get("description")));
+            definition.setConfigKey(configKey);
+            definitions.add(definition);
+        }
+        ProfilesFile yamlFile = new ProfilesFile();
+        yamlFile.setProfiles(definitions);
+        return yamlFile;
+    }
+
+    private static <E extends Enum<E>> E snapshotEnum(Class<E> type, Object value) {
+        for (E constant : type.getEnumConstants()) {
+            if (constant.name().equals(value)) {
+                return constant;
+            }
+        }
+        return null;
     }
 
     static Map<String, ExecutionProfile> loadProfiles(ProfilesFile yamlFile) {
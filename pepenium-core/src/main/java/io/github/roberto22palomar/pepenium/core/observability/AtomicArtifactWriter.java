@@ -1,6 +1,10 @@
 package io.github.roberto22palomar.pepenium.core.observability;
 
+import java.io.BufferedWriter;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
 import java.nio.charset.Charset;
 import java.nio.file.AtomicMoveNotSupportedException;
 import java.nio.file.Files;
@@ -13,6 +17,24 @@ final class AtomicArtifactWriter {
     }
 
     static void writeString(Path target, String content, Charset charset) throws IOException {
+        write(target, charset, out -> out.write(content));
+    }
+
+    /**
+     * Streams {@code content} into a temporary file next to {@code target} and moves it into place once complete.
+     */
+    static void write(Path target, Charset charset, Content content) throws IOException {
+        writeBytes(target, stream -> {
+            try (Writer out = new BufferedWriter(new OutputStreamWriter(stream, charset))) {
+                content.writeTo(out);
+            }
+        });
+    }
+
+    /**
+     * Streams binary {@code content} into a temporary file next to {@code target} and moves it into place once complete.
+     */
+    static void writeBytes(Path target, BinaryContent content) throws IOException {
         Path absoluteTarget = target.toAbsolutePath().normalize();
         Path parent = absoluteTarget.getParent();
         if (parent == null) {
@@ -22,13 +44,25 @@ final class AtomicArtifactWriter {
         Files.createDirectories(parent);
         Path temporary = Files.createTempFile(parent, "." + absoluteTarget.getFileName(), ".tmp");
         try {
-            Files.writeString(temporary, content, charset);
+            try (OutputStream out = Files.newOutputStream(temporary)) {
+                content.writeTo(out);
+            }
             moveIntoPlace(temporary, absoluteTarget);
         } finally {
             Files.deleteIfExists(temporary);
         }
     }
 
+    @FunctionalInterface
+    interface Content {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    @FunctionalInterface
+    interface BinaryContent {
+        void writeTo(OutputStream out) throws IOException;
+    }
+
     private static void moveIntoPlace(Path temporary, Path target) throws IOException {
         try {
             Files.move(temporary, target,
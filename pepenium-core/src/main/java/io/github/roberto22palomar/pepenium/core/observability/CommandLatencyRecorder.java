@@ -0,0 +1,175 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Per-test latency histograms of the WebDriver commands sent by the current thread.
+ *
+ * <p>Latencies are kept in log-scale buckets that grow by 10%, so a histogram stays small for any number of commands and
+ * percentiles are accurate to within one bucket. Histograms of several tests merge by adding their buckets.</p>
+ */
+public final class CommandLatencyRecorder {
+
+    private static final double BUCKET_GROWTH = 1.1;
+    private static final double LOG_GROWTH = Math.log(BUCKET_GROWTH);
+    private static final Comparator<Histogram> SLOWEST_FIRST =
+            Comparator.comparingLong(Histogram::getTotalMicros).reversed().thenComparing(Histogram::getCommand);
+    private static final ThreadLocal<Map<String, Histogram>> HISTOGRAMS = ThreadLocal.withInitial(TreeMap::new);
+
+    private CommandLatencyRecorder() {
+    }
+
+    public static void beginTest() {
+        HISTOGRAMS.set(new TreeMap<>());
+    }
+
+    public static void record(String command, long elapsedNanos) {
+        HISTOGRAMS.get()
+                .computeIfAbsent(command, Histogram::new)
+                .record(Math.max(0L, TimeUnit.NANOSECONDS.toMicros(elapsedNanos)));
+    }
+
+    /**
+     * Copies the histograms of the current test, slowest commands in total first.
+     */
+    public static List<Histogram> snapshot() {
+        List<Histogram> histograms = new ArrayList<>();
+        for (Histogram histogram : HISTOGRAMS.get().values()) {
+            histograms.add(histogram.copy());
+        }
+        histograms.sort(SLOWEST_FIRST);
+        return histograms;
+    }
+
+    public static void clear() {
+        HISTOGRAMS.remove();
+    }
+
+    /**
+     * Adds up the histograms of the same command, slowest commands in total first.
+     */
+    static List<Histogram> merge(Collection<List<Histogram>> histogramsPerTest) {
+        Map<String, Histogram> merged = new TreeMap<>();
+        for (List<Histogram> histograms : histogramsPerTest) {
+            for (Histogram histogram : histograms) {
+                merged.computeIfAbsent(histogram.command, Histogram::new).add(histogram);
+            }
+        }
+        List<Histogram> ordered = new ArrayList<>(merged.values());
+        ordered.sort(SLOWEST_FIRST);
+        return ordered;
+    }
+
+    static int bucketOf(long micros) {
+        return micros <= 1 ? 0 : (int) Math.ceil(Math.log(micros) / LOG_GROWTH);
+    }
+
+    static long bucketUpperBound(int bucket) {
+        return (long) Math.ceil(Math.pow(BUCKET_GROWTH, bucket));
+    }
+
+    public static final class Histogram {
+        private final String command;
+        private final TreeMap<Integer, Long> buckets = new TreeMap<>();
+        private long count;
+        private long totalMicros;
+        private long maxMicros;
+
+        Histogram(String command) {
+            this.command = command;
+        }
+
+        /**
+         * Rebuilds a histogram from the compact {@code bucket:count} list written to the JSON report.
+         */
+        static Histogram parse(String command, long totalMicros, long maxMicros, String encodedBuckets) {
+            Histogram histogram = new Histogram(command);
+            if (encodedBuckets != null && !encodedBuckets.isBlank()) {
+                for (String entry : encodedBuckets.split(",")) {
+                    String[] parts = entry.trim().split(":");
+                    if (parts.length == 2) {
+                        long bucketCount = Long.parseLong(parts[1].trim());
+                        histogram.buckets.merge(Integer.parseInt(parts[0].trim()), bucketCount, Long::sum);
+                        histogram.count += bucketCount;
+                    }
+                }
+            }
+            histogram.totalMicros = totalMicros;
+            histogram.maxMicros = maxMicros;
+            return histogram;
+        }
+
+        void record(long micros) {
+            buckets.merge(bucketOf(micros), 1L, Long::sum);
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        void add(Histogram other) {
+            for (Map.Entry<Integer, Long> bucket : other.buckets.entrySet()) {
+                buckets.merge(bucket.getKey(), bucket.getValue(), Long::sum);
+            }
+            count += other.count;
+            totalMicros += other.totalMicros;
+            maxMicros = Math.max(maxMicros, other.maxMicros);
+        }
+
+        Histogram copy() {
+            Histogram copy = new Histogram(command);
+            copy.add(this);
+            return copy;
+        }
+
+        /**
+         * Upper bound of the bucket holding the {@code percentile} (0-100) latency, never above the recorded maximum.
+         */
+        public long percentileMicros(double percentile) {
+            if (count == 0) {
+                return 0L;
+            }
+            long rank = Math.max(1L, (long) Math.ceil(count * percentile / 100.0));
+            long seen = 0L;
+            for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+                seen += bucket.getValue();
+                if (seen >= rank) {
+                    return Math.min(bucketUpperBound(bucket.getKey()), maxMicros);
+                }
+            }
+            return maxMicros;
+        }
+
+        String encodeBuckets() {
+            StringBuilder encoded = new StringBuilder();
+            for (Map.Entry<Integer, Long> bucket : buckets.entrySet()) {
+                if (encoded.length() > 0) {
+                    encoded.append(',');
+                }
+                encoded.append(bucket.getKey()).append(':').append(bucket.getValue());
+            }
+            return encoded.toString();
+        }
+
+        public String getCommand() {
+            return command;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
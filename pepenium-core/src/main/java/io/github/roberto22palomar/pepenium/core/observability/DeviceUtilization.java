@@ -0,0 +1,30 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import lombok.Builder;
+import lombok.Getter;
+
+/**
+ * How much one device of a profile's device pool was used during a run, as written to the suite summary.
+ */
+@Getter
+@Builder(toBuilder = true)
+public final class DeviceUtilization {
+    private final String profile;
+    private final String device;
+    private final String serverUrl;
+    private final int leases;
+    private final long busyMillis;
+    private final long spanMillis;
+    private final boolean quarantined;
+    private final String quarantineReason;
+
+    /**
+     * Share of the pool's lifetime the device spent leased to a test class, from 0 to 100.
+     */
+    public int utilizationPercent() {
+        if (spanMillis <= 0) {
+            return 0;
+        }
+        return (int) Math.min(100L, Math.round(busyMillis * 100d / spanMillis));
+    }
+}
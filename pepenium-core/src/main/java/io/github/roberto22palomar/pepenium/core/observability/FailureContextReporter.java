@@ -7,7 +7,6 @@ import io.appium.java_client.ios.IOSDriver;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
 import io.github.roberto22palomar.pepenium.core.runtime.DriverSession;
 import org.openqa.selenium.Capabilities;
-import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
@@ -46,10 +45,12 @@ public final class FailureContextReporter {
         log.error("Effective capabilities: {}", CapabilitiesSummary.describe(request.getCapabilities()));
         LoggingPreferences.logDetail(log, "Detailed failure stacktrace", cause);
 
-        logScreenshot(driver);
-        logSessionId(driver);
-        logWebContext(driver);
-        logMobileContext(driver, request.getCapabilities());
+        FailureEvidence evidence = FailureEvidence.forFailure(driver, cause);
+        logScreenshot(driver, evidence);
+        logSessionId(driver, evidence);
+        logWebContext(evidence);
+        logMobileContext(driver, evidence, request.getCapabilities());
+        log.debug("Failure evidence: captured in {} ms, screenshot {} bytes", evidence.captureMillis, evidence.screenshotBytes());
     }
 
     private static void logSteps() {
@@ -75,14 +76,18 @@ public final class FailureContextReporter {
             value = "NP_NULL_ON_SOME_PATH_FROM_RETURN_VALUE",
             justification = "The screenshot directory falls back to a non-null local path before resolution."
     )
-    private static void logScreenshot(WebDriver driver) {
+    private static void logScreenshot(WebDriver driver, FailureEvidence evidence) {
+        if (!(driver instanceof TakesScreenshot)) {
+            log.error("Screenshot: not supported by current driver");
+            return;
+        }
+        if (evidence.screenshot == null) {
+            log.error("Screenshot: failed to capture under '{}' ({})",
+                    resolveScreenshotBaseDir().toAbsolutePath(),
+                    evidence.screenshotError);
+            return;
+        }
         try {
-            if (!(driver instanceof TakesScreenshot)) {
-                log.error("Screenshot: not supported by current driver");
-                return;
-            }
-
-            byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
             Path screenshotBaseDir = resolveScreenshotBaseDir();
             if (screenshotBaseDir == null) {
                 log.error("Screenshot: failed to resolve output directory");
@@ -91,7 +96,7 @@ public final class FailureContextReporter {
 
             Path filePath = screenshotBaseDir.resolve("failure_" + Instant.now().toEpochMilli() + ".png");
             Files.createDirectories(filePath.getParent());
-            Files.write(filePath, screenshot);
+            Files.write(filePath, evidence.screenshot);
 
             log.error("Screenshot: {}", filePath.toAbsolutePath());
         } catch (Exception e) {
@@ -101,71 +106,41 @@ public final class FailureContextReporter {
         }
     }
 
-    private static void logSessionId(WebDriver driver) {
-        try {
-            if (driver instanceof RemoteWebDriver) {
-                log.error("Session: {}", ((RemoteWebDriver) driver).getSessionId());
-            }
-        } catch (Exception e) {
-            log.error("Session: unavailable ({})", e.getMessage());
+    private static void logSessionId(WebDriver driver, FailureEvidence evidence) {
+        if (driver instanceof RemoteWebDriver) {
+            log.error("Session: {}", evidence.sessionId == null ? "unavailable" : evidence.sessionId);
         }
     }
 
-    private static void logWebContext(WebDriver driver) {
-        try {
-            String url = driver.getCurrentUrl();
-            String title = driver.getTitle();
-
-            if (url != null && !url.isBlank()) {
-                log.error("Web: url='{}', title='{}'", url, title);
-            }
-        } catch (Exception e) {
-            log.debug("Web context unavailable: {}", e.getMessage());
+    private static void logWebContext(FailureEvidence evidence) {
+        if (evidence.currentUrl != null && !evidence.currentUrl.isBlank()) {
+            log.error("Web: url='{}', title='{}'", evidence.currentUrl, evidence.pageTitle);
         }
     }
 
-    private static void logMobileContext(WebDriver driver, Capabilities capabilities) {
+    private static void logMobileContext(WebDriver driver, FailureEvidence evidence, Capabilities capabilities) {
         if (!(driver instanceof AppiumDriver)) {
             return;
         }
 
-        AppiumDriver appiumDriver = (AppiumDriver) driver;
-        Object currentContext = invokeNoArg(appiumDriver, "getContext");
-        if (currentContext == null) {
-            currentContext = invokeNoArg(appiumDriver, "getContextHandles");
-        }
-
-        try {
-            if (currentContext != null) {
-                log.error("Mobile: context='{}'", currentContext);
-            } else {
-                log.error("Mobile: context unavailable");
-            }
-        } catch (Exception e) {
-            log.error("Mobile: context unavailable ({})", e.getMessage());
+        if (evidence.mobileContext != null) {
+            log.error("Mobile: context='{}'", evidence.mobileContext);
+        } else {
+            log.error("Mobile: context unavailable");
         }
 
         if (driver instanceof AndroidDriver) {
-            AndroidDriver androidDriver = (AndroidDriver) driver;
-            try {
-                log.error("Android: package='{}', activity='{}'",
-                        androidDriver.getCurrentPackage(),
-                        androidDriver.currentActivity());
-            } catch (Exception e) {
-                log.error("Android: package/activity unavailable ({})", e.getMessage());
+            if (evidence.mobilePackage != null || evidence.mobileActivity != null) {
+                log.error("Android: package='{}', activity='{}'", evidence.mobilePackage, evidence.mobileActivity);
+            } else {
+                log.error("Android: package/activity unavailable");
             }
             return;
         }
 
         if (driver instanceof IOSDriver) {
             Object bundleId = capabilities == null ? null : firstCapability(capabilities, "bundleId", "appium:bundleId");
-            try {
-                log.error("iOS: bundleId='{}', context='{}'",
-                        bundleId,
-                        currentContext);
-            } catch (Exception e) {
-                log.error("iOS: bundle/context unavailable ({})", e.getMessage());
-            }
+            log.error("iOS: bundleId='{}', context='{}'", bundleId, evidence.mobileContext);
         }
     }
 
@@ -179,14 +154,6 @@ public final class FailureContextReporter {
         return null;
     }
 
-    private static Object invokeNoArg(Object target, String methodName) {
-        try {
-            return target.getClass().getMethod(methodName).invoke(target);
-        } catch (Exception ignored) {
-            return null;
-        }
-    }
-
     private static Path resolveScreenshotBaseDir() {
         Path baseDir = ScreenshotPathResolver.resolveBaseDir();
         return baseDir == null ? Paths.get(".") : baseDir;
@@ -0,0 +1,108 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import org.openqa.selenium.WebDriver;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * What the driver shows when a test finishes: the final screenshot, the session id, and the web and mobile context.
+ *
+ * <p>Each value is a driver round trip, which is slow on a remote device. The evidence of a failure is therefore read
+ * once per test thread and shared by the test report and the failure log, whichever asks first; the other one gets
+ * the same evidence as long as it asks about the same driver and the same failure. How long the capture took and how
+ * large the screenshot was are recorded with it.</p>
+ */
+public final class FailureEvidence {
+
+    private static final FailureEvidence NONE =
+            new FailureEvidence(null, null, null, null, null, null, null, null, 0L);
+    private static final ThreadLocal<Memo> CURRENT = new ThreadLocal<>();
+
+    final byte[] screenshot;
+    final String sessionId;
+    final String currentUrl;
+    final String pageTitle;
+    final String mobileContext;
+    final String mobilePackage;
+    final String mobileActivity;
+    final String screenshotError;
+    final long captureMillis;
+
+    private FailureEvidence(byte[] screenshot, String sessionId, String currentUrl, String pageTitle,
+                            String mobileContext, String mobilePackage, String mobileActivity,
+                            String screenshotError, long captureMillis) {
+        this.screenshot = screenshot;
+        this.sessionId = sessionId;
+        this.currentUrl = currentUrl;
+        this.pageTitle = pageTitle;
+        this.mobileContext = mobileContext;
+        this.mobilePackage = mobilePackage;
+        this.mobileActivity = mobileActivity;
+        this.screenshotError = screenshotError;
+        this.captureMillis = captureMillis;
+    }
+
+    /**
+     * Evidence of {@code cause} on {@code driver}, read from the driver only if this thread has not captured it yet.
+     */
+    static FailureEvidence forFailure(WebDriver driver, Throwable cause) {
+        Memo memo = CURRENT.get();
+        if (memo != null && memo.driver == driver && memo.cause == cause) {
+            return memo.evidence;
+        }
+        FailureEvidence evidence = capture(driver);
+        CURRENT.set(new Memo(driver, cause, evidence));
+        return evidence;
+    }
+
+    /**
+     * Reads the evidence from {@code driver} without remembering it, for tests that did not fail.
+     */
+    static FailureEvidence capture(WebDriver driver) {
+        if (driver == null) {
+            return NONE;
+        }
+        long startedAt = System.nanoTime();
+        byte[] screenshot = null;
+        String screenshotError = null;
+        try {
+            screenshot = PepeniumReportSupport.takeScreenshot(driver);
+        } catch (Exception e) {
+            screenshotError = e.getMessage();
+        }
+        return new FailureEvidence(
+                screenshot,
+                PepeniumReportSupport.sessionId(driver),
+                PepeniumReportSupport.currentUrl(driver),
+                PepeniumReportSupport.pageTitle(driver),
+                PepeniumReportSupport.mobileContext(driver),
+                PepeniumReportSupport.mobilePackage(driver),
+                PepeniumReportSupport.mobileActivity(driver),
+                screenshotError,
+                TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt)
+        );
+    }
+
+    /**
+     * Forgets the evidence this thread captured, so the next test reads its own.
+     */
+    public static void clear() {
+        CURRENT.remove();
+    }
+
+    int screenshotBytes() {
+        return screenshot == null ? 0 : screenshot.length;
+    }
+
+    private static final class Memo {
+        private final WebDriver driver;
+        private final Throwable cause;
+        private final FailureEvidence evidence;
+
+        private Memo(WebDriver driver, Throwable cause, FailureEvidence evidence) {
+            this.driver = driver;
+            this.cause = cause;
+            this.evidence = evidence;
+        }
+    }
+}
@@ -0,0 +1,412 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Pull parser for the JSON files Pepenium writes, reading one token at a time from a {@link Reader}.
+ *
+ * <p>Callers walk the document themselves and {@link #skipValue() skip} what they do not need, so reading the summary
+ * of a report never builds its timeline in memory and can stop as soon as the summary fields were seen. Control
+ * characters inside strings are accepted, as older report writers did not escape them.</p>
+ */
+final class JsonPullReader implements Closeable {
+
+    enum Token {
+        BEGIN_OBJECT, END_OBJECT, BEGIN_ARRAY, END_ARRAY, NAME, STRING, NUMBER, BOOLEAN, NULL, END_DOCUMENT
+    }
+
+    private static final int MAX_DEPTH = 64;
+    private static final int DOCUMENT = 0;
+    private static final int DOCUMENT_READ = 1;
+    private static final int OBJECT_START = 2;
+    private static final int OBJECT_NEXT = 3;
+    private static final int OBJECT_VALUE = 4;
+    private static final int ARRAY_START = 5;
+    private static final int ARRAY_NEXT = 6;
+
+    private final Reader in;
+    private final char[] buffer = new char[8192];
+    private final StringBuilder text = new StringBuilder();
+    private int position;
+    private int limit;
+    private long consumedBefore;
+    private int[] scopes = new int[16];
+    private int depth = 1;
+    private Token peeked;
+
+    JsonPullReader(Reader in) {
+        this.in = in;
+        scopes[0] = DOCUMENT;
+    }
+
+    /**
+     * Type of the next token, without consuming it.
+     */
+    Token peek() throws IOException {
+        if (peeked != null) {
+            return peeked;
+        }
+        int scope = scopes[depth - 1];
+        int character;
+        switch (scope) {
+            case OBJECT_START:
+                character = nextNonWhitespace();
+                peeked = character == '}' ? Token.END_OBJECT : name(character);
+                break;
+            case OBJECT_NEXT:
+                character = nextNonWhitespace();
+                if (character == '}') {
+                    peeked = Token.END_OBJECT;
+                } else if (character == ',') {
+                    peeked = name(nextNonWhitespace());
+                } else {
+                    throw syntaxError("Expected ',' or '}'");
+                }
+                break;
+            case OBJECT_VALUE:
+                if (nextNonWhitespace() != ':') {
+                    throw syntaxError("Expected ':'");
+                }
+                peeked = value(nextNonWhitespace());
+                break;
+            case ARRAY_START:
+                character = nextNonWhitespace();
+                peeked = character == ']' ? Token.END_ARRAY : value(character);
+                break;
+            case ARRAY_NEXT:
+                character = nextNonWhitespace();
+                if (character == ']') {
+                    peeked = Token.END_ARRAY;
+                } else if (character == ',') {
+                    peeked = value(nextNonWhitespace());
+                } else {
+                    throw syntaxError("Expected ',' or ']'");
+                }
+                break;
+            case DOCUMENT_READ:
+                peeked = Token.END_DOCUMENT;
+                break;
+            default:
+                peeked = value(nextNonWhitespace());
+                break;
+        }
+        return peeked;
+    }
+
+    boolean hasNext() throws IOException {
+        Token token = peek();
+        return token != Token.END_OBJECT && token != Token.END_ARRAY && token != Token.END_DOCUMENT;
+    }
+
+    void beginObject() throws IOException {
+        expect(Token.BEGIN_OBJECT);
+        valueRead();
+        push(OBJECT_START);
+    }
+
+    void endObject() throws IOException {
+        expect(Token.END_OBJECT);
+        depth--;
+    }
+
+    void beginArray() throws IOException {
+        expect(Token.BEGIN_ARRAY);
+        valueRead();
+        push(ARRAY_START);
+    }
+
+    void endArray() throws IOException {
+        expect(Token.END_ARRAY);
+        depth--;
+    }
+
+    String nextName() throws IOException {
+        expect(Token.NAME);
+        readString(true);
+        scopes[depth - 1] = OBJECT_VALUE;
+        return text.toString();
+    }
+
+    /**
+     * Reads the next scalar as a string, a {@link Long} or {@link Double}, a {@link Boolean} or {@code null}, or the
+     * next object or array as nested maps and lists.
+     */
+    Object readValue() throws IOException {
+        switch (peek()) {
+            case BEGIN_OBJECT:
+                Map<String, Object> object = new LinkedHashMap<>();
+                beginObject();
+                while (hasNext()) {
+                    String name = nextName();
+                    object.put(name, readValue());
+                }
+                endObject();
+                return object;
+            case BEGIN_ARRAY:
+                List<Object> array = new ArrayList<>();
+                beginArray();
+                while (hasNext()) {
+                    array.add(readValue());
+                }
+                endArray();
+                return array;
+            case STRING:
+                peeked = null;
+                valueRead();
+                readString(true);
+                return text.toString();
+            case NUMBER:
+            case BOOLEAN:
+            case NULL:
+                return readLiteral();
+            default:
+                throw syntaxError("Expected a value but found " + peek());
+        }
+    }
+
+    /**
+     * Skips the next value, including everything nested in it, without keeping any of its text.
+     */
+    void skipValue() throws IOException {
+        int nested = 0;
+        do {
+            switch (peek()) {
+                case BEGIN_OBJECT:
+                    beginObject();
+                    nested++;
+                    break;
+                case BEGIN_ARRAY:
+                    beginArray();
+                    nested++;
+                    break;
+                case END_OBJECT:
+                    endObject();
+                    nested--;
+                    break;
+                case END_ARRAY:
+                    endArray();
+                    nested--;
+                    break;
+                case NAME:
+                    peeked = null;
+                    readString(false);
+                    scopes[depth - 1] = OBJECT_VALUE;
+                    break;
+                case STRING:
+                    peeked = null;
+                    valueRead();
+                    readString(false);
+                    break;
+                case END_DOCUMENT:
+                    throw syntaxError("Unexpected end of JSON");
+                default:
+                    readLiteral();
+                    break;
+            }
+        } while (nested > 0);
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+
+    private Token name(int character) throws IOException {
+        if (character != '"') {
+            throw syntaxError("Expected a quoted name");
+        }
+        return Token.NAME;
+    }
+
+    private Token value(int character) throws IOException {
+        switch (character) {
+            case '{':
+                return Token.BEGIN_OBJECT;
+            case '[':
+                return Token.BEGIN_ARRAY;
+            case '"':
+                return Token.STRING;
+            case 't':
+            case 'f':
+                position--;
+                return Token.BOOLEAN;
+            case 'n':
+                position--;
+                return Token.NULL;
+            default:
+                if (character == '-' || (character >= '0' && character <= '9')) {
+                    position--;
+                    return Token.NUMBER;
+                }
+                throw syntaxError(character < 0 ? "Unexpected end of JSON" : "Unexpected character");
+        }
+    }
+
+    private void expect(Token token) throws IOException {
+        if (peek() != token) {
+            throw syntaxError("Expected " + token + " but found " + peek());
+        }
+        peeked = null;
+    }
+
+    private void valueRead() {
+        int scope = scopes[depth - 1];
+        if (scope == DOCUMENT) {
+            scopes[depth - 1] = DOCUMENT_READ;
+        } else if (scope == OBJECT_VALUE) {
+            scopes[depth - 1] = OBJECT_NEXT;
+        } else if (scope == ARRAY_START) {
+            scopes[depth - 1] = ARRAY_NEXT;
+        }
+    }
+
+    private void push(int scope) throws IOException {
+        if (depth == MAX_DEPTH) {
+            throw syntaxError("JSON nested deeper than " + MAX_DEPTH + " levels");
+        }
+        if (depth == scopes.length) {
+            scopes = Arrays.copyOf(scopes, depth * 2);
+        }
+        scopes[depth++] = scope;
+    }
+
+    /**
+     * Reads the rest of a string whose opening quote was consumed, into {@link #text} when {@code keep} is set.
+     */
+    private void readString(boolean keep) throws IOException {
+        text.setLength(0);
+        while (true) {
+            if (position == limit && !fill()) {
+                throw syntaxError("Unterminated string");
+            }
+            int runStart = position;
+            while (position < limit) {
+                char character = buffer[position];
+                if (character == '"' || character == '\\') {
+                    break;
+                }
+                position++;
+            }
+            if (keep) {
+                text.append(buffer, runStart, position - runStart);
+            }
+            if (position == limit) {
+                continue;
+            }
+            char character = buffer[position++];
+            if (character == '"') {
+                return;
+            }
+            char escaped = readEscape();
+            if (keep) {
+                text.append(escaped);
+            }
+        }
+    }
+
+    private char readEscape() throws IOException {
+        int character = read();
+        switch (character) {
+            case 'n':
+                return '\n';
+            case 'r':
+                return '\r';
+            case 't':
+                return '\t';
+            case 'b':
+                return '\b';
+            case 'f':
+                return '\f';
+            case 'u':
+                int code = 0;
+                for (int index = 0; index < 4; index++) {
+                    int digit = Character.digit(read(), 16);
+                    if (digit < 0) {
+                        throw syntaxError("Invalid unicode escape");
+                    }
+                    code = code * 16 + digit;
+                }
+                return (char) code;
+            case '"':
+            case '\\':
+            case '/':
+                return (char) character;
+            default:
+                throw syntaxError("Invalid escape sequence");
+        }
+    }
+
+    private Object readLiteral() throws IOException {
+        Token token = peek();
+        peeked = null;
+        valueRead();
+        text.setLength(0);
+        while (position < limit || fill()) {
+            char character = buffer[position];
+            if (character == ',' || character == '}' || character == ']' || character == ':'
+                    || Character.isWhitespace(character)) {
+                break;
+            }
+            text.append(character);
+            position++;
+        }
+        String literal = text.toString();
+        if (token == Token.NULL && "null".equals(literal)) {
+            return null;
+        }
+        if (token == Token.BOOLEAN && ("true".equals(literal) || "false".equals(literal))) {
+            return Boolean.valueOf(literal);
+        }
+        if (token == Token.NUMBER) {
+            try {
+                if (literal.indexOf('.') < 0 && literal.indexOf('e') < 0 && literal.indexOf('E') < 0) {
+                    return Long.valueOf(literal);
+                }
+                return Double.valueOf(literal);
+            } catch (NumberFormatException ignored) {
+                throw syntaxError("Invalid number '" + literal + "'");
+            }
+        }
+        throw syntaxError("Invalid literal '" + literal + "'");
+    }
+
+    private int nextNonWhitespace() throws IOException {
+        while (position < limit || fill()) {
+            char character = buffer[position++];
+            if (character != ' ' && character != '\n' && character != '\r' && character != '\t') {
+                return character;
+            }
+        }
+        return -1;
+    }
+
+    private int read() throws IOException {
+        if (position == limit && !fill()) {
+            throw syntaxError("Unexpected end of JSON");
+        }
+        return buffer[position++];
+    }
+
+    private boolean fill() throws IOException {
+        consumedBefore += limit;
+        position = 0;
+        limit = 0;
+        int read = in.read(buffer, 0, buffer.length);
+        if (read <= 0) {
+            return false;
+        }
+        limit = read;
+        return true;
+    }
+
+    private IOException syntaxError(String message) {
+        return new IOException(message + " at character " + (consumedBefore + position));
+    }
+}
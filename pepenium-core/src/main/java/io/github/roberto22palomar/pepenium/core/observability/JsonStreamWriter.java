@@ -0,0 +1,160 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.io.IOException;
+import java.io.Writer;
+import java.util.Arrays;
+import java.util.Locale;
+
+/**
+ * Writes JSON straight to a {@link Writer}, so a report with a long timeline never has to exist as one string.
+ *
+ * <p>Pretty output indents nested values by two spaces and ends the document with a line break, like the report files;
+ * compact output puts the whole document on one line, like the records of the suite journal.</p>
+ */
+final class JsonStreamWriter {
+
+    private final Writer out;
+    private final boolean pretty;
+    private boolean[] hasElements = new boolean[16];
+    private int depth;
+    private boolean afterName;
+
+    JsonStreamWriter(Writer out, boolean pretty) {
+        this.out = out;
+        this.pretty = pretty;
+    }
+
+    JsonStreamWriter beginObject() throws IOException {
+        return open('{');
+    }
+
+    JsonStreamWriter endObject() throws IOException {
+        return close('}');
+    }
+
+    JsonStreamWriter beginArray() throws IOException {
+        return open('[');
+    }
+
+    JsonStreamWriter endArray() throws IOException {
+        return close(']');
+    }
+
+    JsonStreamWriter name(String name) throws IOException {
+        beforeElement();
+        writeString(name);
+        out.write(pretty ? ": " : ":");
+        afterName = true;
+        return this;
+    }
+
+    /**
+     * Writes {@code name} with a string, number, boolean or {@code null} value.
+     */
+    JsonStreamWriter field(String name, Object value) throws IOException {
+        return name(name).value(value);
+    }
+
+    /**
+     * Writes a number or boolean as is, {@code null} as {@code null} and anything else as its string form.
+     */
+    JsonStreamWriter value(Object value) throws IOException {
+        beforeValue();
+        if (value == null) {
+            out.write("null");
+        } else if (value instanceof Number || value instanceof Boolean) {
+            out.write(String.valueOf(value));
+        } else {
+            writeString(String.valueOf(value));
+        }
+        return this;
+    }
+
+    private JsonStreamWriter open(char bracket) throws IOException {
+        beforeValue();
+        out.write(bracket);
+        if (depth == hasElements.length) {
+            hasElements = Arrays.copyOf(hasElements, depth * 2);
+        }
+        hasElements[depth++] = false;
+        return this;
+    }
+
+    private JsonStreamWriter close(char bracket) throws IOException {
+        if (depth == 0) {
+            throw new IllegalStateException("No JSON object or array left to close with '" + bracket + "'");
+        }
+        depth--;
+        if (pretty && hasElements[depth]) {
+            newLine();
+        }
+        out.write(bracket);
+        if (pretty && depth == 0) {
+            out.write('\n');
+        }
+        return this;
+    }
+
+    private void beforeValue() throws IOException {
+        if (afterName) {
+            afterName = false;
+        } else if (depth > 0) {
+            beforeElement();
+        }
+    }
+
+    private void beforeElement() throws IOException {
+        if (hasElements[depth - 1]) {
+            out.write(',');
+        }
+        hasElements[depth - 1] = true;
+        if (pretty) {
+            newLine();
+        }
+    }
+
+    private void newLine() throws IOException {
+        out.write('\n');
+        for (int level = 0; level < depth; level++) {
+            out.write("  ");
+        }
+    }
+
+    private void writeString(String value) throws IOException {
+        out.write('"');
+        int runStart = 0;
+        for (int index = 0; index < value.length(); index++) {
+            char character = value.charAt(index);
+            String escaped = escape(character);
+            if (escaped == null) {
+                continue;
+            }
+            out.write(value, runStart, index - runStart);
+            out.write(escaped);
+            runStart = index + 1;
+        }
+        out.write(value, runStart, value.length() - runStart);
+        out.write('"');
+    }
+
+    private static String escape(char character) {
+        switch (character) {
+            case '"':
+                return "\\\"";
+            case '\\':
+                return "\\\\";
+            case '\n':
+                return "\\n";
+            case '\r':
+                return "\\r";
+            case '\t':
+                return "\\t";
+            case '\b':
+                return "\\b";
+            case '\f':
+                return "\\f";
+            default:
+                return character < 0x20 ? String.format(Locale.ROOT, "\\u%04x", (int) character) : null;
+        }
+    }
+}
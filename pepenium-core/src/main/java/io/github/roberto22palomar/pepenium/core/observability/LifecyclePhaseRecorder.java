@@ -0,0 +1,213 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time Pepenium spends around test bodies, split by lifecycle phase.
+ *
+ * <p>Phases that finish before a report is written (profile resolution, preflight, session creation and injection)
+ * are kept per thread and handed to the next report, so the first report of a class also carries its class setup.
+ * Report writing, index rebuilds and teardown only finish after that report is written; they add up per JVM and are
+ * written to the suite summary when the launcher finishes.</p>
+ *
+ * <p>Threads that write reports in the background record their report writing and index rebuilds as
+ * {@link Phase#BACKGROUND_REPORTING}, which no test waits for and which is therefore kept out of the overhead.</p>
+ */
+public final class LifecyclePhaseRecorder {
+
+    private static final ThreadLocal<Map<Phase, Timing>> TEST_PHASES =
+            ThreadLocal.withInitial(() -> new EnumMap<>(Phase.class));
+    private static final Map<Phase, Timing> SUITE_PHASES = new EnumMap<>(Phase.class);
+    private static final ThreadLocal<Boolean> BACKGROUND = ThreadLocal.withInitial(() -> Boolean.FALSE);
+
+    private LifecyclePhaseRecorder() {
+    }
+
+    public enum Phase {
+        PROFILE_RESOLUTION("profileResolution", "Profile Resolution", true),
+        PREFLIGHT("preflight", "Preflight", true),
+        SESSION_CREATION("sessionCreation", "Session Creation", true),
+        INJECTION("injection", "Injection", true),
+        REPORT_SNAPSHOT("reportSnapshot", "Report Snapshot", false),
+        REPORT_WRITING("reportWriting", "Report Writing", false),
+        INDEX_REBUILD("indexRebuild", "Index Rebuild", false),
+        BACKGROUND_REPORTING("backgroundReporting", "Background Reporting", false),
+        TEARDOWN("teardown", "Teardown", false);
+
+        private final String key;
+        private final String label;
+        private final boolean perTest;
+
+        Phase(String key, String label, boolean perTest) {
+            this.key = key;
+            this.label = label;
+            this.perTest = perTest;
+        }
+
+        public String getKey() {
+            return key;
+        }
+
+        public String getLabel() {
+            return label;
+        }
+
+        /**
+         * Whether the phase adds to the framework overhead. Preflight runs inside session creation and background
+         * reporting runs off the test threads, so both are shown but not added to it.
+         */
+        public boolean isOverhead() {
+            return this != PREFLIGHT && this != BACKGROUND_REPORTING;
+        }
+
+        static Phase fromKey(String key) {
+            for (Phase phase : values()) {
+                if (phase.key.equals(key)) {
+                    return phase;
+                }
+            }
+            return null;
+        }
+    }
+
+    /**
+     * Records how long {@code phase} took since {@code startNanos}.
+     *
+     * @param phase      lifecycle phase that just finished
+     * @param startNanos {@link System#nanoTime()} at the start of the phase
+     * @return {@link System#nanoTime()} at the end of the phase, to chain the next one
+     */
+    public static long record(Phase phase, long startNanos) {
+        long now = System.nanoTime();
+        long micros = Math.max(0L, TimeUnit.NANOSECONDS.toMicros(now - startNanos));
+        if (phase.perTest) {
+            TEST_PHASES.get().computeIfAbsent(phase, Timing::new).record(micros);
+        } else {
+            Phase recorded = BACKGROUND.get() ? Phase.BACKGROUND_REPORTING : phase;
+            synchronized (SUITE_PHASES) {
+                SUITE_PHASES.computeIfAbsent(recorded, Timing::new).record(micros);
+            }
+        }
+        return now;
+    }
+
+    /**
+     * Marks the current thread as a background report writer for the rest of its life.
+     */
+    public static void markBackgroundThread() {
+        BACKGROUND.set(Boolean.TRUE);
+    }
+
+    /**
+     * Returns the phases recorded on the current thread since the previous report and starts over.
+     */
+    public static List<Timing> takeTestPhases() {
+        List<Timing> timings = copy(TEST_PHASES.get());
+        TEST_PHASES.remove();
+        return timings;
+    }
+
+    /**
+     * Returns the report, index rebuild and teardown phases of this JVM and starts over.
+     */
+    public static List<Timing> takeSuitePhases() {
+        synchronized (SUITE_PHASES) {
+            List<Timing> timings = copy(SUITE_PHASES);
+            SUITE_PHASES.clear();
+            return timings;
+        }
+    }
+
+    public static void clear() {
+        TEST_PHASES.remove();
+    }
+
+    /**
+     * Adds up the timings of the same phase, in lifecycle order.
+     */
+    static List<Timing> merge(Collection<List<Timing>> timingsPerSource) {
+        Map<Phase, Timing> merged = new EnumMap<>(Phase.class);
+        for (List<Timing> timings : timingsPerSource) {
+            for (Timing timing : timings) {
+                merged.computeIfAbsent(timing.phase, Timing::new).add(timing);
+            }
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    /**
+     * Total time of the phases that add to the framework overhead.
+     */
+    static long overheadMicros(List<Timing> timings) {
+        return timings.stream()
+                .filter(timing -> timing.phase.isOverhead())
+                .mapToLong(Timing::getTotalMicros)
+                .sum();
+    }
+
+    private static List<Timing> copy(Map<Phase, Timing> timings) {
+        List<Timing> copies = new ArrayList<>();
+        for (Timing timing : timings.values()) {
+            Timing copy = new Timing(timing.phase);
+            copy.add(timing);
+            copies.add(copy);
+        }
+        return copies;
+    }
+
+    public static final class Timing {
+        private final Phase phase;
+        private long count;
+        private long totalMicros;
+        private long maxMicros;
+
+        Timing(Phase phase) {
+            this.phase = phase;
+        }
+
+        static Timing of(Phase phase, long count, long totalMicros, long maxMicros) {
+            Timing timing = new Timing(phase);
+            timing.count = count;
+            timing.totalMicros = totalMicros;
+            timing.maxMicros = maxMicros;
+            return timing;
+        }
+
+        void record(long micros) {
+            count++;
+            totalMicros += micros;
+            maxMicros = Math.max(maxMicros, micros);
+        }
+
+        void add(Timing other) {
+            count += other.count;
+            totalMicros += other.totalMicros;
+            maxMicros = Math.max(maxMicros, other.maxMicros);
+        }
+
+        public Phase getPhase() {
+            return phase;
+        }
+
+        public long getCount() {
+            return count;
+        }
+
+        public long getTotalMicros() {
+            return totalMicros;
+        }
+
+        public long getMeanMicros() {
+            return count == 0 ? 0L : totalMicros / count;
+        }
+
+        public long getMaxMicros() {
+            return maxMicros;
+        }
+    }
+}
@@ -20,8 +20,7 @@ public final class PepeniumBanner {
 
     public static void print(DriverRequest request) {
         String banner = buildBanner(request);
-        System.out.println();
-        System.out.println(banner);
+        System.out.println(System.lineSeparator() + banner);
         log.info("Pepenium session started: {} [{}]", safe(request.getDescription()), request.getDriverType());
     }
 
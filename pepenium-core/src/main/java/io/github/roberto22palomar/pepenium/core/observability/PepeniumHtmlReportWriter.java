@@ -1,6 +1,7 @@
 package io.github.roberto22palomar.pepenium.core.observability;
 
 import io.github.roberto22palomar.pepenium.core.runtime.DriverSession;
+import io.github.roberto22palomar.pepenium.core.runtime.SessionProvisioning;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -19,11 +20,47 @@ public final class PepeniumHtmlReportWriter {
     }
 
     public static void write(String testName, DriverSession session, Throwable cause) {
+        long startedAt = System.nanoTime();
+        ReportSnapshot snapshot;
+        try {
+            snapshot = PepeniumReportCollector.snapshot(testName, session, cause);
+        } catch (Exception e) {
+            logFailure(testName, e);
+            return;
+        }
+        writeReport(snapshot, startedAt);
+    }
+
+    /**
+     * Takes what the report of the current test needs from the test thread and its live driver, so it can be written
+     * later with {@link #write(ReportSnapshot)} once the thread has moved on to the next test.
+     *
+     * @return snapshot of the finished test, or {@code null} if it could not be taken
+     */
+    public static ReportSnapshot capture(String testName, DriverSession session, Throwable cause) {
+        try {
+            return PepeniumReportCollector.snapshot(testName, session, cause);
+        } catch (Exception e) {
+            logFailure(testName, e);
+            return null;
+        }
+    }
+
+    /**
+     * Renders and writes the report of {@code snapshot} on the calling thread and adds it to the suite index.
+     */
+    public static void write(ReportSnapshot snapshot) {
+        if (snapshot != null) {
+            writeReport(snapshot, System.nanoTime());
+        }
+    }
+
+    private static void writeReport(ReportSnapshot snapshot, long startedAt) {
         try {
             Path reportDir = PepeniumReportSupport.resolveReportDir();
             Files.createDirectories(reportDir);
 
-            ReportContext report = PepeniumReportCollector.collect(testName, session, cause, reportDir);
+            ReportContext report = PepeniumReportCollector.assemble(snapshot, reportDir);
             String baseFileName = PepeniumReportSupport.buildBaseFileName(report);
             String htmlFileName = baseFileName + ".html";
             Path htmlFile = reportDir.resolve(htmlFileName);
@@ -34,26 +71,106 @@ public final class PepeniumHtmlReportWriter {
                     PepeniumReportHtmlRenderer.render(report),
                     StandardCharsets.UTF_8
             );
-            AtomicArtifactWriter.writeString(
+            AtomicArtifactWriter.write(
                     jsonFile,
-                    PepeniumReportJsonRenderer.renderReportJson(report, htmlFileName),
-                    StandardCharsets.UTF_8
+                    StandardCharsets.UTF_8,
+                    out -> PepeniumReportJsonRenderer.writeReportJson(report, htmlFileName, out)
             );
+            LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.REPORT_WRITING, startedAt);
 
-            Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+            Path indexFile = PepeniumReportIndexWriter.append(reportDir, ReportSummary.from(report, htmlFileName));
 
             log.info("Pepenium HTML report generated at: {}", htmlFile.toAbsolutePath());
             log.info("Pepenium HTML report link: {}", htmlFile.toUri());
             log.info("Pepenium report index: {}", indexFile.toUri());
         } catch (Exception e) {
-            log.warn("Failed to write Pepenium HTML report for '{}': {}", testName, e.getMessage());
-            LoggingPreferences.logDetail(log, "Detailed report writer failure", e);
+            logFailure(snapshot.testName, e);
         }
     }
 
-    @FunctionalInterface
-    interface SummarySelector {
-        String get(ReportSummary summary);
+    private static void logFailure(String testName, Exception e) {
+        log.warn("Failed to write Pepenium HTML report for '{}': {}", testName, e.getMessage());
+        LoggingPreferences.logDetail(log, "Detailed report writer failure", e);
+    }
+
+    /**
+     * Records driver quits that failed after their test class finished, so the suite summary can surface them.
+     */
+    public static void writeTeardownFailures(List<String> failures) {
+        if (failures == null || failures.isEmpty()) {
+            return;
+        }
+        try {
+            Path reportDir = PepeniumReportSupport.resolveReportDir();
+            Files.createDirectories(reportDir);
+            Path teardownFile = reportDir.resolve("teardown-" + ProcessHandle.current().pid() + ".json");
+            AtomicArtifactWriter.writeString(
+                    teardownFile,
+                    PepeniumReportJsonRenderer.renderTeardownJson(failures),
+                    StandardCharsets.UTF_8
+            );
+            Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+            log.warn("Pepenium recorded {} driver teardown failure(s) in {}", failures.size(), indexFile.toUri());
+        } catch (Exception e) {
+            log.warn("Failed to record Pepenium teardown failures: {}", e.getMessage());
+            LoggingPreferences.logDetail(log, "Detailed teardown report failure", e);
+        }
+    }
+
+    /**
+     * Records how much each pooled device was used, so the suite summary can show per-device utilization.
+     */
+    public static void writeDeviceUtilization(List<DeviceUtilization> devices) {
+        if (devices == null || devices.isEmpty()) {
+            return;
+        }
+        try {
+            Path reportDir = PepeniumReportSupport.resolveReportDir();
+            Files.createDirectories(reportDir);
+            Path devicesFile = reportDir.resolve("devices-" + ProcessHandle.current().pid() + ".json");
+            AtomicArtifactWriter.writeString(
+                    devicesFile,
+                    PepeniumReportJsonRenderer.renderDeviceUtilizationJson(devices),
+                    StandardCharsets.UTF_8
+            );
+            Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+            log.info("Pepenium recorded utilization of {} pooled device(s) in {}", devices.size(), indexFile.toUri());
+        } catch (Exception e) {
+            log.warn("Failed to record Pepenium device utilization: {}", e.getMessage());
+            LoggingPreferences.logDetail(log, "Detailed device utilization report failure", e);
+        }
+    }
+
+    /**
+     * Records the report writing, index rebuild and teardown time of this JVM, which finish too late to appear in the
+     * report of their own test, so the suite summary can include them in the framework overhead.
+     */
+    public static void writeLifecyclePhases(List<LifecyclePhaseRecorder.Timing> timings) {
+        if (timings == null || timings.isEmpty()) {
+            return;
+        }
+        try {
+            Path reportDir = PepeniumReportSupport.resolveReportDir();
+            Files.createDirectories(reportDir);
+            Path lifecycleFile = reportDir.resolve("lifecycle-" + ProcessHandle.current().pid() + ".json");
+            AtomicArtifactWriter.writeString(
+                    lifecycleFile,
+                    PepeniumReportJsonRenderer.renderLifecyclePhasesJson(timings),
+                    StandardCharsets.UTF_8
+            );
+            PepeniumReportIndexWriter.writeIndex(reportDir);
+        } catch (Exception e) {
+            log.warn("Failed to record Pepenium lifecycle phases: {}", e.getMessage());
+            LoggingPreferences.logDetail(log, "Detailed lifecycle phase report failure", e);
+        }
+    }
+
+    /**
+     * Renders {@code summary.json} and {@code index.html} now if a debounced rebuild is still pending, such as when
+     * the launcher finishes.
+     */
+    public static void flushIndex() {
+        PepeniumReportIndexWriter.flush();
     }
 
     static final class EventGroup {
@@ -190,6 +307,78 @@ public final class PepeniumHtmlReportWriter {
         }
     }
 
+    static final class SessionContext {
+        final String leaseId;
+        final String source;
+        final boolean reused;
+        final long acquireMillis;
+        final long creationMillis;
+        final long savedMillis;
+        final int useCount;
+        final boolean prewarmMissed;
+        final boolean recovered;
+        final long recoveryMillis;
+        final long quotaWaitMillis;
+        final int quotaRetries;
+        final long resetMillis;
+        final boolean resetFailed;
+
+        SessionContext(
+                String leaseId,
+                String source,
+                boolean reused,
+                long acquireMillis,
+                long creationMillis,
+                long savedMillis,
+                int useCount,
+                boolean prewarmMissed,
+                boolean recovered,
+                long recoveryMillis,
+                long quotaWaitMillis,
+                int quotaRetries,
+                long resetMillis,
+                boolean resetFailed
+        ) {
+            this.leaseId = leaseId;
+            this.source = source;
+            this.reused = reused;
+            this.acquireMillis = acquireMillis;
+            this.creationMillis = creationMillis;
+            this.savedMillis = savedMillis;
+            this.useCount = useCount;
+            this.prewarmMissed = prewarmMissed;
+            this.recovered = recovered;
+            this.recoveryMillis = recoveryMillis;
+            this.quotaWaitMillis = quotaWaitMillis;
+            this.quotaRetries = quotaRetries;
+            this.resetMillis = resetMillis;
+            this.resetFailed = resetFailed;
+        }
+
+        static SessionContext from(SessionProvisioning provisioning) {
+            if (provisioning == null || provisioning.getSource() == SessionProvisioning.Source.UNKNOWN) {
+                return new SessionContext(null, SessionProvisioning.Source.UNKNOWN.name(), false, 0L, 0L, 0L, 0, false,
+                        false, 0L, 0L, 0, 0L, false);
+            }
+            return new SessionContext(
+                    provisioning.getLeaseId(),
+                    provisioning.getSource().name(),
+                    provisioning.isReused(),
+                    provisioning.getAcquireMillis(),
+                    provisioning.getCreationMillis(),
+                    provisioning.getSavedMillis(),
+                    provisioning.getUseCount(),
+                    provisioning.isPrewarmMissed(),
+                    provisioning.isRecovered(),
+                    provisioning.getRecoveryMillis(),
+                    provisioning.getQuotaWaitMillis(),
+                    provisioning.getQuotaRetries(),
+                    provisioning.getResetMillis(),
+                    provisioning.isResetFailed()
+            );
+        }
+    }
+
     static final class ReportSummary {
         final String testName;
         final String outcome;
@@ -204,6 +393,16 @@ public final class PepeniumHtmlReportWriter {
         final long screenshotCount;
         final String provider;
         final String remoteEnabled;
+        final String sessionLeaseId;
+        final String sessionSource;
+        final boolean sessionReused;
+        final boolean prewarmMissed;
+        final long startupSavedMillis;
+        final boolean sessionRecovered;
+        final long recoveryMillis;
+        final long quotaWaitMillis;
+        final List<CommandLatencyRecorder.Histogram> commandLatency;
+        final List<LifecyclePhaseRecorder.Timing> lifecyclePhases;
 
         ReportSummary(
                 String testName,
@@ -217,7 +416,17 @@ public final class PepeniumHtmlReportWriter {
                 String durationDisplay,
                 long screenshotCount,
                 String provider,
-                String remoteEnabled
+                String remoteEnabled,
+                String sessionLeaseId,
+                String sessionSource,
+                boolean sessionReused,
+                boolean prewarmMissed,
+                long startupSavedMillis,
+                boolean sessionRecovered,
+                long recoveryMillis,
+                long quotaWaitMillis,
+                List<CommandLatencyRecorder.Histogram> commandLatency,
+                List<LifecyclePhaseRecorder.Timing> lifecyclePhases
         ) {
             this.testName = testName;
             this.outcome = outcome;
@@ -232,6 +441,118 @@ public final class PepeniumHtmlReportWriter {
             this.screenshotCount = screenshotCount;
             this.provider = provider;
             this.remoteEnabled = remoteEnabled;
+            this.sessionLeaseId = sessionLeaseId;
+            this.sessionSource = sessionSource;
+            this.sessionReused = sessionReused;
+            this.prewarmMissed = prewarmMissed;
+            this.startupSavedMillis = startupSavedMillis;
+            this.sessionRecovered = sessionRecovered;
+            this.recoveryMillis = recoveryMillis;
+            this.quotaWaitMillis = quotaWaitMillis;
+            this.commandLatency = commandLatency;
+            this.lifecyclePhases = lifecyclePhases;
+        }
+
+        /**
+         * Summary of a report just written, without reading its JSON file back.
+         */
+        static ReportSummary from(ReportContext report, String htmlFileName) {
+            return new ReportSummary(
+                    report.testName,
+                    report.outcome,
+                    report.profileId,
+                    report.target,
+                    report.driverType,
+                    htmlFileName,
+                    report.finishedAt.toString(),
+                    report.durationMillis,
+                    report.duration,
+                    report.screenshotCount,
+                    report.remoteContext.provider,
+                    String.valueOf(report.remoteContext.enabled),
+                    report.sessionContext.leaseId,
+                    report.sessionContext.source,
+                    report.sessionContext.reused,
+                    report.sessionContext.prewarmMissed,
+                    report.sessionContext.savedMillis,
+                    report.sessionContext.recovered,
+                    report.sessionContext.recoveryMillis,
+                    report.sessionContext.quotaWaitMillis,
+                    report.commandLatency,
+                    report.lifecyclePhases
+            );
+        }
+    }
+
+    /**
+     * What a report needs from its test thread and live driver, taken when the test finishes; rendering it does not
+     * touch the driver or any thread-bound state.
+     */
+    public static final class ReportSnapshot {
+        final Instant finishedAt;
+        final String testName;
+        final String profileId;
+        final String target;
+        final String driverType;
+        final String description;
+        final FailureEvidence evidence;
+        final DeviceContext deviceContext;
+        final String capabilitiesSummary;
+        final StepTracker.Snapshot stepSnapshot;
+        final PepeniumTimeline.Snapshot timelineSnapshot;
+        final String rootType;
+        final String rootMessage;
+        final String stackTrace;
+        final RemoteContext remoteContext;
+        final boolean failed;
+        final SessionContext sessionContext;
+        final List<CommandLatencyRecorder.Histogram> commandLatency;
+        final List<LifecyclePhaseRecorder.Timing> lifecyclePhases;
+
+        ReportSnapshot(
+                Instant finishedAt,
+                String testName,
+                String profileId,
+                String target,
+                String driverType,
+                String description,
+                FailureEvidence evidence,
+                DeviceContext deviceContext,
+                String capabilitiesSummary,
+                StepTracker.Snapshot stepSnapshot,
+                PepeniumTimeline.Snapshot timelineSnapshot,
+                String rootType,
+                String rootMessage,
+                String stackTrace,
+                RemoteContext remoteContext,
+                boolean failed,
+                SessionContext sessionContext,
+                List<CommandLatencyRecorder.Histogram> commandLatency,
+                List<LifecyclePhaseRecorder.Timing> lifecyclePhases
+        ) {
+            this.finishedAt = finishedAt;
+            this.testName = testName;
+            this.profileId = profileId;
+            this.target = target;
+            this.driverType = driverType;
+            this.description = description;
+            this.evidence = evidence;
+            this.deviceContext = deviceContext;
+            this.capabilitiesSummary = capabilitiesSummary;
+            this.stepSnapshot = stepSnapshot;
+            this.timelineSnapshot = timelineSnapshot;
+            this.rootType = rootType;
+            this.rootMessage = rootMessage;
+            this.stackTrace = stackTrace;
+            this.remoteContext = remoteContext;
+            this.failed = failed;
+            this.sessionContext = sessionContext;
+            this.commandLatency = commandLatency;
+            this.lifecyclePhases = lifecyclePhases;
+        }
+
+        public String getTestName() {
+            return testName;
         }
     }
 
@@ -275,8 +596,13 @@ public final class PepeniumHtmlReportWriter {
         final String rootMessage;
         final String stackTrace;
         final String screenshotUri;
+        final long evidenceCaptureMillis;
+        final int evidenceScreenshotBytes;
         final RemoteContext remoteContext;
         final boolean failed;
+        final SessionContext sessionContext;
+        final List<CommandLatencyRecorder.Histogram> commandLatency;
+        final List<LifecyclePhaseRecorder.Timing> lifecyclePhases;
 
         ReportContext(
                 Instant startedAt,
@@ -318,8 +644,13 @@ public final class PepeniumHtmlReportWriter {
                 String rootMessage,
                 String stackTrace,
                 String screenshotUri,
+                long evidenceCaptureMillis,
+                int evidenceScreenshotBytes,
                 RemoteContext remoteContext,
-                boolean failed
+                boolean failed,
+                SessionContext sessionContext,
+                List<CommandLatencyRecorder.Histogram> commandLatency,
+                List<LifecyclePhaseRecorder.Timing> lifecyclePhases
         ) {
             this.startedAt = startedAt;
             this.finishedAt = finishedAt;
@@ -360,8 +691,13 @@ public final class PepeniumHtmlReportWriter {
             this.rootMessage = rootMessage;
             this.stackTrace = stackTrace;
             this.screenshotUri = screenshotUri;
+            this.evidenceCaptureMillis = evidenceCaptureMillis;
+            this.evidenceScreenshotBytes = evidenceScreenshotBytes;
             this.remoteContext = remoteContext;
             this.failed = failed;
+            this.sessionContext = sessionContext;
+            this.commandLatency = commandLatency;
+            this.lifecyclePhases = lifecyclePhases;
         }
     }
 }
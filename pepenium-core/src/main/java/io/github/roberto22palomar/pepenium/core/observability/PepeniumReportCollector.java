@@ -21,19 +21,51 @@ final class PepeniumReportCollector {
     }
 
     static PepeniumHtmlReportWriter.ReportContext collect(String testName, DriverSession session, Throwable cause, Path reportDir) {
+        return assemble(snapshot(testName, session, cause), reportDir);
+    }
+
+    /**
+     * Reads everything a report needs from the test thread and the live driver, leaving rendering and file writes to
+     * {@link #assemble(PepeniumHtmlReportWriter.ReportSnapshot, Path)}.
+     */
+    static PepeniumHtmlReportWriter.ReportSnapshot snapshot(String testName, DriverSession session, Throwable cause) {
         Instant finishedAt = Instant.now();
-        StepTracker.Snapshot stepSnapshot = StepTracker.snapshot();
-        PepeniumTimeline.Snapshot timelineSnapshot = PepeniumTimeline.remapScreenshotPaths(
+        DriverRequest request = session == null ? null : session.getRequest();
+        WebDriver driver = session == null ? null : session.getDriver();
+        return new PepeniumHtmlReportWriter.ReportSnapshot(
+                finishedAt,
+                PepeniumReportSupport.safe(testName),
+                request == null ? null : PepeniumReportSupport.safe(request.getExecutionProfileId()),
+                request == null ? null : PepeniumReportSupport.safe(request.getTarget()),
+                request == null ? null : PepeniumReportSupport.safe(request.getDriverType()),
+                request == null ? null : PepeniumReportSupport.safe(request.getDescription()),
+                cause == null ? FailureEvidence.capture(driver) : FailureEvidence.forFailure(driver, cause),
+                resolveDeviceContext(request == null ? null : request.getCapabilities()),
+                PepeniumReportSupport.safe(CapabilitiesSummary.summarize(request == null ? null : request.getCapabilities())),
+                StepTracker.snapshot(),
                 PepeniumTimeline.snapshot(),
+                PepeniumReportSupport.safe(PepeniumReportSupport.rootType(cause)),
+                PepeniumReportSupport.safe(PepeniumReportSupport.rootMessage(cause)),
+                PepeniumReportSupport.safe(PepeniumReportSupport.stackTrace(cause)),
+                resolveRemoteContext(request, driver),
+                cause != null,
+                PepeniumHtmlReportWriter.SessionContext.from(session == null ? null : session.getProvisioning()),
+                CommandLatencyRecorder.snapshot(),
+                LifecyclePhaseRecorder.takeTestPhases()
+        );
+    }
+
+    /**
+     * Builds the report of {@code snapshot}, storing its screenshots in {@code reportDir}; safe on any thread.
+     */
+    static PepeniumHtmlReportWriter.ReportContext assemble(PepeniumHtmlReportWriter.ReportSnapshot snapshot, Path reportDir) {
+        Instant finishedAt = snapshot.finishedAt;
+        PepeniumTimeline.Snapshot timelineSnapshot = PepeniumTimeline.remapScreenshotPaths(
+                snapshot.timelineSnapshot,
                 screenshotPath -> PepeniumReportSupport.bundleScreenshotArtifact(screenshotPath, reportDir)
         );
-        DriverRequest request = session == null ? null : session.getRequest();
-        WebDriver driver = session == null ? null : session.getDriver();
-        String outcome = cause == null ? "PASSED" : "FAILED";
+        String outcome = snapshot.failed ? "FAILED" : "PASSED";
         Instant startedAt = timelineSnapshot.getStartedAt() == null ? finishedAt : timelineSnapshot.getStartedAt();
-        PepeniumHtmlReportWriter.RemoteContext remoteContext = resolveRemoteContext(request, driver);
-        PepeniumHtmlReportWriter.DeviceContext deviceContext =
-                resolveDeviceContext(request == null ? null : request.getCapabilities());
 
         return new PepeniumHtmlReportWriter.ReportContext(
                 startedAt,
@@ -41,21 +73,21 @@ final class PepeniumReportCollector {
                 Duration.between(startedAt, finishedAt).toMillis(),
                 PepeniumReportSupport.formatDuration(startedAt, finishedAt),
                 outcome,
-                PepeniumReportSupport.safe(testName),
-                request == null ? null : PepeniumReportSupport.safe(request.getExecutionProfileId()),
-                request == null ? null : PepeniumReportSupport.safe(request.getTarget()),
-                request == null ? null : PepeniumReportSupport.safe(request.getDriverType()),
-                request == null ? null : PepeniumReportSupport.safe(request.getDescription()),
-                PepeniumReportSupport.safe(PepeniumReportSupport.sessionId(driver)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.currentUrl(driver)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.pageTitle(driver)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.mobileContext(driver)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.mobilePackage(driver)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.mobileActivity(driver)),
-                deviceContext,
+                snapshot.testName,
+                snapshot.profileId,
+                snapshot.target,
+                snapshot.driverType,
+                snapshot.description,
+                PepeniumReportSupport.safe(snapshot.evidence.sessionId),
+                PepeniumReportSupport.safe(snapshot.evidence.currentUrl),
+                PepeniumReportSupport.safe(snapshot.evidence.pageTitle),
+                PepeniumReportSupport.safe(snapshot.evidence.mobileContext),
+                PepeniumReportSupport.safe(snapshot.evidence.mobilePackage),
+                PepeniumReportSupport.safe(snapshot.evidence.mobileActivity),
+                snapshot.deviceContext,
                 reportDir,
-                PepeniumReportSupport.safe(CapabilitiesSummary.summarize(request == null ? null : request.getCapabilities())),
-                stepSnapshot,
+                snapshot.capabilitiesSummary,
+                snapshot.stepSnapshot,
                 timelineSnapshot,
                 buildEventGroups(timelineSnapshot),
                 buildFlowBlocks(timelineSnapshot),
@@ -71,12 +103,17 @@ final class PepeniumReportCollector {
                 findLastMessage(timelineSnapshot, PepeniumTimeline.EventType.STEP),
                 findLastMessage(timelineSnapshot, PepeniumTimeline.EventType.ASSERT),
                 findLastScreenshotPath(timelineSnapshot),
-                PepeniumReportSupport.safe(PepeniumReportSupport.rootType(cause)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.rootMessage(cause)),
-                PepeniumReportSupport.safe(PepeniumReportSupport.stackTrace(cause)),
-                PepeniumReportSupport.screenshotUri(driver, reportDir),
-                remoteContext,
-                cause != null
+                snapshot.rootType,
+                snapshot.rootMessage,
+                snapshot.stackTrace,
+                PepeniumReportSupport.writeScreenshot(snapshot.evidence.screenshot, reportDir),
+                snapshot.evidence.captureMillis,
+                snapshot.evidence.screenshotBytes(),
+                snapshot.remoteContext,
+                snapshot.failed,
+                snapshot.sessionContext,
+                snapshot.commandLatency,
+                snapshot.lifecyclePhases
         );
     }
 
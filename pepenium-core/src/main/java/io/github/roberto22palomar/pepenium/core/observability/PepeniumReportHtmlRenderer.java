@@ -127,6 +127,14 @@ final class PepeniumReportHtmlRenderer {
         }
         html.append("</div></section>");
 
+        if (!report.commandLatency.isEmpty()) {
+            html.append("<section class=\"section\"><h2>Command Latency</h2><div class=\"panel\"><div class=\"list\">");
+            for (CommandLatencyRecorder.Histogram histogram : report.commandLatency) {
+                html.append(renderCommandLatency(histogram));
+            }
+            html.append("</div></div></section>");
+        }
+
         html.append("<section class=\"section\"><h2>Recent Steps</h2><div class=\"panel\">");
         if (report.stepSnapshot.getSteps().isEmpty()) {
             html.append("<div class=\"empty\">No steps were recorded for this test.</div>");
@@ -188,6 +196,8 @@ final class PepeniumReportHtmlRenderer {
                 .append(renderKeyValue("Mobile activity", report.mobileActivity))
                 .append(renderKeyValue("Capabilities", report.capabilitiesSummary))
                 .append(renderKeyValue("Session", report.sessionId))
+                .append(renderKeyValue("Session source", describeSessionSource(report.sessionContext)))
+                .append(renderKeyValue("Evidence capture", describeEvidenceCapture(report)))
                 .append("</div></div></section>");
 
         if (report.remoteContext.enabled) {
@@ -288,6 +298,51 @@ final class PepeniumReportHtmlRenderer {
                 + "</div></div>";
     }
 
+    private static String describeSessionSource(PepeniumHtmlReportWriter.SessionContext session) {
+        String source = describeProvisioning(session);
+        if (source == null) {
+            return null;
+        }
+        if (session.quotaWaitMillis > 0) {
+            source += " after waiting " + PepeniumReportSupport.formatDurationMillis(session.quotaWaitMillis)
+                    + " for provider quota" + (session.quotaRetries == 0 ? "" : " (" + session.quotaRetries
+                    + " refused attempt" + (session.quotaRetries == 1 ? ")" : "s)"));
+        }
+        if (!session.recovered) {
+            return source;
+        }
+        return source + "; replaced a dead session in " + PepeniumReportSupport.formatDurationMillis(session.recoveryMillis);
+    }
+
+    private static String describeProvisioning(PepeniumHtmlReportWriter.SessionContext session) {
+        if ("PREWARMED".equals(session.source)) {
+            return "Prewarmed in background (waited " + PepeniumReportSupport.formatDurationMillis(session.acquireMillis)
+                    + ", saved " + PepeniumReportSupport.formatDurationMillis(session.savedMillis) + ")";
+        }
+        if (session.reused) {
+            return "Reused from pool (use " + session.useCount + ", acquired in "
+                    + PepeniumReportSupport.formatDurationMillis(session.acquireMillis)
+                    + (session.resetMillis == 0 ? "" : " with a " + PepeniumReportSupport.formatDurationMillis(
+                            session.resetMillis) + " reset against a " + PepeniumReportSupport.formatDurationMillis(
+                            session.creationMillis) + " new session")
+                    + ", saved " + PepeniumReportSupport.formatDurationMillis(session.savedMillis) + ")";
+        }
+        if ("CREATED".equals(session.source)) {
+            return "Created (" + PepeniumReportSupport.formatDurationMillis(session.creationMillis) + ")"
+                    + (session.prewarmMissed ? " after a prewarm miss" : "")
+                    + (session.resetFailed ? " after a pooled session failed its reset" : "");
+        }
+        return null;
+    }
+
+    private static String describeEvidenceCapture(PepeniumHtmlReportWriter.ReportContext report) {
+        if (report.evidenceCaptureMillis == 0L && report.evidenceScreenshotBytes == 0) {
+            return null;
+        }
+        return PepeniumReportSupport.formatDurationMillis(report.evidenceCaptureMillis) + ", "
+                + (report.evidenceScreenshotBytes + 1023) / 1024 + " KiB screenshot";
+    }
+
     private static String renderKeyValue(String title, String value) {
         return "<div class=\"key\">" + PepeniumReportSupport.escapeHtml(title) + "</div><div>"
                 + PepeniumReportSupport.escapeHtml(PepeniumReportSupport.defaultValue(value)) + "</div>";
@@ -334,6 +389,20 @@ final class PepeniumReportHtmlRenderer {
                 + " &middot; last " + PepeniumReportSupport.escapeHtml(hotspot.lastSeen) + "</div></div>";
     }
 
+    private static String renderCommandLatency(CommandLatencyRecorder.Histogram histogram) {
+        return "<div class=\"list-item\"><strong>" + PepeniumReportSupport.escapeHtml(histogram.getCommand())
+                + "</strong><div class=\"path\">" + histogram.getCount() + (histogram.getCount() == 1 ? " call" : " calls")
+                + " &middot; p50 " + formatMicros(histogram.percentileMicros(50))
+                + " &middot; p95 " + formatMicros(histogram.percentileMicros(95))
+                + " &middot; p99 " + formatMicros(histogram.percentileMicros(99))
+                + " &middot; max " + formatMicros(histogram.getMaxMicros())
+                + " &middot; total " + formatMicros(histogram.getTotalMicros()) + "</div></div>";
+    }
+
+    private static String formatMicros(long micros) {
+        return PepeniumReportJsonRenderer.millis(micros) + " ms";
+    }
+
     private static String renderTimelineCard(PepeniumTimeline.Event anchor, Instant startedAt,
                                              PepeniumHtmlReportWriter.EventGroup group,
                                              java.nio.file.Path reportDir) {
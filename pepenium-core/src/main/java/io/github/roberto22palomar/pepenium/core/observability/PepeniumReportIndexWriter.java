@@ -1,5 +1,9 @@
 package io.github.roberto22palomar.pepenium.core.observability;
 
+import io.github.roberto22palomar.pepenium.core.config.PepeniumConfig;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
 import java.io.IOException;
 import java.nio.channels.FileChannel;
 import java.nio.channels.FileLock;
@@ -8,23 +12,134 @@ import java.nio.file.Files;
 import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
 import java.util.ArrayList;
-import java.util.Comparator;
+import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Locale;
 import java.util.Map;
 import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
 import java.util.stream.Collectors;
 import java.util.stream.Stream;
 
+/**
+ * Maintains {@code summary.json} and {@code index.html} from the {@link SuiteJournal} of a report directory.
+ *
+ * <p>Finished tests append their summary to the journal and rebuild the index at most once per
+ * {@value #DEBOUNCE_KEY} window; a rebuild skipped inside the window runs when the window closes, and
+ * {@link #flush()} renders any pending rebuild when the launcher or JVM finishes. Every change is made under a JVM
+ * lock and a file lock on the directory, so forks sharing a report directory never interleave their writes.</p>
+ */
 final class PepeniumReportIndexWriter {
 
+    static final String DEBOUNCE_KEY = "PEPENIUM_REPORT_INDEX_DEBOUNCE_MS";
+    static final long DEFAULT_DEBOUNCE_MILLIS = 2000L;
+
+    private static final Logger log = LoggerFactory.getLogger(PepeniumReportIndexWriter.class);
     private static final Object INDEX_WRITE_LOCK = new Object();
+    private static final Map<Path, SuiteJournal> JOURNALS = new HashMap<>();
+    private static ScheduledExecutorService scheduler;
 
     private PepeniumReportIndexWriter() {
     }
 
+    /**
+     * Rebuilds the index of {@code reportDir} now, picking up any report summaries and side files written so far.
+     */
     static Path writeIndex(Path reportDir) throws IOException {
+        long startedAt = System.nanoTime();
+        try {
+            return withIndexLock(reportDir, null, PepeniumReportIndexWriter::render);
+        } finally {
+            LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INDEX_REBUILD, startedAt);
+        }
+    }
+
+    /**
+     * Appends {@code summary} to the journal of {@code reportDir} and rebuilds the index unless it was rebuilt less
+     * than the debounce window ago, in which case the rebuild is scheduled for the end of the window.
+     */
+    static Path append(Path reportDir, PepeniumHtmlReportWriter.ReportSummary summary) throws IOException {
+        long startedAt = System.nanoTime();
+        long debounceNanos = TimeUnit.MILLISECONDS.toNanos(debounceMillis());
+        try {
+            return withIndexLock(reportDir, summary.jsonReport, (directory, journal) -> {
+                journal.append(summary);
+                long waitNanos = journal.renderedAtNanos() == 0L
+                        ? 0L
+                        : debounceNanos - (System.nanoTime() - journal.renderedAtNanos());
+                if (waitNanos <= 0L) {
+                    return render(directory, journal);
+                }
+                if (journal.scheduleRender()) {
+                    renderLater(directory, TimeUnit.NANOSECONDS.toMillis(waitNanos) + 1L);
+                }
+                return directory.resolve("index.html");
+            });
+        } finally {
+            LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INDEX_REBUILD, startedAt);
+        }
+    }
+
+    /**
+     * Renders every index whose rebuild is still pending.
+     */
+    static void flush() {
+        List<Path> pending = new ArrayList<>();
+        synchronized (INDEX_WRITE_LOCK) {
+            JOURNALS.forEach((directory, journal) -> {
+                if (journal.isDirty()) {
+                    pending.add(directory);
+                }
+            });
+        }
+        pending.forEach(PepeniumReportIndexWriter::renderPending);
+    }
+
+    static long debounceMillis() {
+        String configured = PepeniumConfig.get(DEBOUNCE_KEY);
+        if (configured == null || configured.isBlank()) {
+            return DEFAULT_DEBOUNCE_MILLIS;
+        }
+        try {
+            long parsed = Long.parseLong(configured.trim());
+            return parsed >= 0 ? parsed : DEFAULT_DEBOUNCE_MILLIS;
+        } catch (NumberFormatException ignored) {
+            return DEFAULT_DEBOUNCE_MILLIS;
+        }
+    }
+
+    private static void renderLater(Path reportDir, long delayMillis) {
+        scheduler().schedule(() -> renderPending(reportDir), delayMillis, TimeUnit.MILLISECONDS);
+    }
+
+    private static synchronized ScheduledExecutorService scheduler() {
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(runnable -> {
+                Thread thread = new Thread(runnable, "pepenium-report-index");
+                thread.setDaemon(true);
+                return thread;
+            });
+            Runtime.getRuntime().addShutdownHook(new Thread(PepeniumReportIndexWriter::flush, "pepenium-report-index-flush"));
+        }
+        return scheduler;
+    }
+
+    private static void renderPending(Path reportDir) {
+        try {
+            withIndexLock(reportDir, null, (directory, journal) -> {
+                journal.renderStarted();
+                return journal.isDirty() ? render(directory, journal) : directory.resolve("index.html");
+            });
+        } catch (IOException | RuntimeException e) {
+            log.warn("Failed to rebuild Pepenium report index in '{}': {}", reportDir, e.getMessage());
+            LoggingPreferences.logDetail(log, "Detailed report index failure", e);
+        }
+    }
+
+    private static Path withIndexLock(Path reportDir, String pendingReport, IndexAction action) throws IOException {
         synchronized (INDEX_WRITE_LOCK) {
             Path normalizedReportDir = reportDir.toAbsolutePath().normalize();
             Files.createDirectories(normalizedReportDir);
@@ -34,48 +149,97 @@ final class PepeniumReportIndexWriter {
                     StandardOpenOption.CREATE,
                     StandardOpenOption.WRITE
             ); FileLock ignored = lockChannel.lock()) {
-                return writeIndexLocked(normalizedReportDir);
+                SuiteJournal journal = JOURNALS.computeIfAbsent(normalizedReportDir, SuiteJournal::new);
+                journal.catchUp(pendingReport);
+                return action.apply(normalizedReportDir, journal);
             }
         }
     }
 
-    private static Path writeIndexLocked(Path reportDir) throws IOException {
-        List<Path> jsonFiles;
-        try (Stream<Path> files = Files.list(reportDir)) {
-            jsonFiles = files
-                    .filter(path -> path.getFileName().toString().startsWith("report-"))
-                    .filter(path -> path.getFileName().toString().endsWith(".json"))
-                    .sorted(Comparator.comparing(PepeniumReportSupport::lastModifiedSafely).reversed())
-                    .collect(Collectors.toList());
-        }
-
-        List<PepeniumHtmlReportWriter.ReportSummary> summaries = new ArrayList<>();
-        for (Path jsonFile : jsonFiles) {
-            PepeniumHtmlReportWriter.ReportSummary summary = PepeniumReportJsonRenderer.loadSummary(jsonFile);
-            if (summary != null) {
-                summaries.add(summary);
-            }
-        }
+    private static Path render(Path reportDir, SuiteJournal journal) throws IOException {
+        List<PepeniumHtmlReportWriter.ReportSummary> summaries = journal.summaries();
+        SuiteTotals totals = journal.totals();
+        SideFiles sideFiles = SideFiles.load(reportDir);
+        List<LifecyclePhaseRecorder.Timing> phases = PepeniumReportJsonRenderer.suiteLifecyclePhases(
+                totals, sideFiles.suitePhases);
 
-        AtomicArtifactWriter.writeString(
+        AtomicArtifactWriter.write(
                 reportDir.resolve("summary.json"),
-                PepeniumReportJsonRenderer.renderSuiteSummaryJson(summaries),
-                StandardCharsets.UTF_8
+                StandardCharsets.UTF_8,
+                out -> PepeniumReportJsonRenderer.writeSuiteSummaryJson(
+                        totals, sideFiles.teardownFailures, sideFiles.devices, phases, out)
         );
         Path indexFile = reportDir.resolve("index.html");
         AtomicArtifactWriter.writeString(
                 indexFile,
-                renderIndexHtml(reportDir, summaries),
+                renderIndexHtml(reportDir, summaries, totals, sideFiles.teardownFailures, sideFiles.devices, phases),
                 StandardCharsets.UTF_8
         );
+        journal.rendered();
         return indexFile;
     }
 
-    private static String renderIndexHtml(Path reportDir, List<PepeniumHtmlReportWriter.ReportSummary> summaries) {
-        long passedCount = summaries.stream().filter(summary -> "PASSED".equals(summary.outcome)).count();
-        long failedCount = summaries.size() - passedCount;
-        long totalDuration = summaries.stream().mapToLong(summary -> summary.durationMillis).sum();
-        long remoteRuns = summaries.stream().filter(summary -> "true".equalsIgnoreCase(summary.remoteEnabled)).count();
+    @FunctionalInterface
+    private interface IndexAction {
+        Path apply(Path reportDir, SuiteJournal journal) throws IOException;
+    }
+
+    /**
+     * Teardown failures, device utilization and lifecycle phases the forks wrote next to the reports, read with one
+     * listing of the report directory.
+     */
+    private static final class SideFiles {
+        private final List<String> teardownFailures;
+        private final List<DeviceUtilization> devices;
+        private final List<LifecyclePhaseRecorder.Timing> suitePhases;
+
+        private SideFiles(List<String> teardownFailures, List<DeviceUtilization> devices,
+                          List<LifecyclePhaseRecorder.Timing> suitePhases) {
+            this.teardownFailures = teardownFailures;
+            this.devices = devices;
+            this.suitePhases = suitePhases;
+        }
+
+        static SideFiles load(Path reportDir) throws IOException {
+            List<Path> sideFiles;
+            try (Stream<Path> files = Files.list(reportDir)) {
+                sideFiles = files
+                        .filter(path -> path.getFileName().toString().endsWith(".json"))
+                        .filter(path -> isSideFile(path.getFileName().toString()))
+                        .sorted()
+                        .collect(Collectors.toList());
+            }
+            List<String> teardownFailures = new ArrayList<>();
+            List<DeviceUtilization> devices = new ArrayList<>();
+            List<List<LifecyclePhaseRecorder.Timing>> phasesPerFork = new ArrayList<>();
+            for (Path sideFile : sideFiles) {
+                String name = sideFile.getFileName().toString();
+                if (name.startsWith("teardown-")) {
+                    teardownFailures.addAll(PepeniumReportJsonRenderer.loadTeardownFailures(sideFile));
+                } else if (name.startsWith("devices-")) {
+                    devices.addAll(PepeniumReportJsonRenderer.loadDeviceUtilization(sideFile));
+                } else {
+                    phasesPerFork.add(PepeniumReportJsonRenderer.loadLifecyclePhasesFile(sideFile));
+                }
+            }
+            return new SideFiles(teardownFailures, PepeniumReportJsonRenderer.mergeDeviceUtilization(devices),
+                    LifecyclePhaseRecorder.merge(phasesPerFork));
+        }
+
+        private static boolean isSideFile(String name) {
+            return name.startsWith("teardown-") || name.startsWith("devices-") || name.startsWith("lifecycle-");
+        }
+    }
+
+    private static String renderIndexHtml(Path reportDir,
+                                          List<PepeniumHtmlReportWriter.ReportSummary> summaries,
+                                          SuiteTotals totals,
+                                          List<String> teardownFailures,
+                                          List<DeviceUtilization> devices,
+                                          List<LifecyclePhaseRecorder.Timing> phases) {
+        long totalDuration = totals.durationMillis();
+        long prewarmAttempts = totals.prewarmHits() + totals.prewarmMisses();
+        long overheadMicros = LifecyclePhaseRecorder.overheadMicros(phases);
 
         StringBuilder html = new StringBuilder();
         html.append("<!DOCTYPE html><html lang=\"en\"><head><meta charset=\"UTF-8\">")
@@ -99,31 +263,66 @@ final class PepeniumReportIndexWriter {
                 .append("<p class=\"muted\">Shareable execution reports with per-test HTML, JSON artifacts and suite-level summary under ")
                 .append(PepeniumReportSupport.escapeHtml(reportDir.toAbsolutePath().toString()))
                 .append("</p><div class=\"metrics\">")
-                .append(renderMetric("Total Reports", String.valueOf(summaries.size())))
-                .append(renderMetric("Passed", String.valueOf(passedCount)))
-                .append(renderMetric("Failed", String.valueOf(failedCount)))
-                .append(renderMetric("Remote Runs", String.valueOf(remoteRuns)))
+                .append(renderMetric("Total Reports", String.valueOf(totals.reports())))
+                .append(renderMetric("Passed", String.valueOf(totals.passed())))
+                .append(renderMetric("Failed", String.valueOf(totals.failed())))
+                .append(renderMetric("Remote Runs", String.valueOf(totals.remoteRuns())))
                 .append(renderMetric("Total Duration", PepeniumReportSupport.formatDurationMillis(totalDuration)))
+                .append(renderMetric("Reused Sessions", String.valueOf(totals.reusedSessions())))
+                .append(renderMetric("Startup Saved", PepeniumReportSupport.formatDurationMillis(
+                        totals.startupSavedMillis())))
+                .append(prewarmAttempts == 0 ? "" : renderMetric("Prewarm Hits",
+                        totals.prewarmHits() + " / " + prewarmAttempts))
+                .append(totals.recoveries() == 0 ? "" : renderMetric("Recovered Sessions",
+                        totals.recoveries() + " (" + PepeniumReportSupport.formatDurationMillis(
+                                totals.recoveryMillis()) + " to replace)"))
+                .append(totals.quotaWaits() == 0 ? "" : renderMetric("Quota Wait",
+                        PepeniumReportSupport.formatDurationMillis(totals.quotaWaitMillis())
+                                + " (" + totals.quotaWaits() + " session(s))"))
+                .append(teardownFailures.isEmpty() ? "" : renderMetric("Teardown Failures",
+                        String.valueOf(teardownFailures.size())))
+                .append(phases.isEmpty() ? "" : renderMetric("Framework Overhead",
+                        PepeniumReportSupport.formatDurationMillis(overheadMicros / 1000) + " ("
+                                + PepeniumReportJsonRenderer.overheadPercent(overheadMicros, totalDuration) + "%)"))
                 .append("</div><div class=\"filters\">")
                 .append("<input id=\"search\" type=\"search\" placeholder=\"Search test, profile, target or driver\" oninput=\"applyFilters()\">")
-                .append(renderSelect("status", "Status", uniqueValues(summaries, summary -> summary.outcome)))
-                .append(renderSelect("target", "Target", uniqueValues(summaries, summary -> summary.target)))
-                .append(renderSelect("profile", "Profile", uniqueValues(summaries, summary -> summary.profileId)))
-                .append(renderSelect("provider", "Provider", uniqueValues(summaries, summary -> summary.provider)))
+                .append(renderSelect("status", "Status", uniqueValues(totals.outcomes())))
+                .append(renderSelect("target", "Target", uniqueValues(totals.targets())))
+                .append(renderSelect("profile", "Profile", uniqueValues(totals.profiles())))
+                .append(renderSelect("provider", "Provider", uniqueValues(totals.providers())))
                 .append("</div><div class=\"toolbar\"><span id=\"visible-count\" class=\"muted small\">")
-                .append(summaries.size()).append(" report(s) visible</span><a href=\"summary.json\">Open suite summary JSON</a></div></section>");
+                .append(totals.reports()).append(" report(s) visible</span><a href=\"summary.json\">Open suite summary JSON</a></div></section>");
 
         html.append("<section class=\"section\"><h2>Suite Summary</h2><div class=\"breakdowns\">")
-                .append(renderBreakdownPanel("By Target", groupCounts(summaries, summary -> summary.target)))
-                .append(renderBreakdownPanel("By Profile", groupCounts(summaries, summary -> summary.profileId)))
-                .append(renderBreakdownPanel("By Provider", groupCounts(summaries, summary -> summary.provider)))
+                .append(renderBreakdownPanel("By Target", groupCounts(totals.targets())))
+                .append(renderBreakdownPanel("By Profile", groupCounts(totals.profiles())))
+                .append(renderBreakdownPanel("By Provider", groupCounts(totals.providers())))
                 .append("</div></section>");
 
         html.append("<section class=\"section\"><h2>Suite Insights</h2><div class=\"breakdowns\">")
-                .append(renderTopListPanel("Slowest Tests", topSlowest(summaries)))
-                .append(renderTopListPanel("Most Screenshots", topScreenshots(summaries)))
+                .append(renderTopListPanel("Slowest Tests", totals.slowest()))
+                .append(renderTopListPanel("Most Screenshots", totals.mostScreenshots()))
                 .append("</div></section>");
 
+        Map<String, List<PepeniumHtmlReportWriter.ReportSummary>> profileMatrix = totals.profileMatrix();
+        if (!profileMatrix.isEmpty()) {
+            html.append("<section class=\"section\"><h2>Profile Matrix</h2><div class=\"breakdowns\">")
+                    .append(renderProfileMatrixPanel(profileMatrix))
+                    .append("</div></section>");
+        }
+
+        if (!phases.isEmpty()) {
+            html.append("<section class=\"section\"><h2>Framework Overhead</h2><div class=\"breakdowns\">")
+                    .append(renderLifecyclePhasePanel(phases, overheadMicros))
+                    .append("</div></section>");
+        }
+
+        if (!devices.isEmpty()) {
+            html.append("<section class=\"section\"><h2>Device Utilization</h2><div class=\"breakdowns\">")
+                    .append(renderDevicePanel(devices))
+                    .append("</div></section>");
+        }
+
         html.append("<section class=\"section\"><h2>Reports</h2><div class=\"reports\">");
         if (summaries.isEmpty()) {
             html.append("<div class=\"panel\">No reports generated yet.</div>");
@@ -171,12 +370,8 @@ final class PepeniumReportIndexWriter {
                 + "</div></div>";
     }
 
-    private static List<String> uniqueValues(
-            List<PepeniumHtmlReportWriter.ReportSummary> summaries,
-            PepeniumHtmlReportWriter.SummarySelector selector
-    ) {
-        return summaries.stream()
-                .map(selector::get)
+    private static List<String> uniqueValues(Map<String, Long> counts) {
+        return counts.keySet().stream()
                 .filter(Objects::nonNull)
                 .filter(value -> !value.isBlank())
                 .distinct()
@@ -215,6 +410,74 @@ final class PepeniumReportIndexWriter {
         return html.toString();
     }
 
+    private static String renderDevicePanel(List<DeviceUtilization> devices) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"panel\"><h3>Device Pool</h3><div class=\"ranking\">");
+        for (DeviceUtilization device : devices) {
+            String usage = device.getLeases() + " class(es), busy "
+                    + PepeniumReportSupport.formatDurationMillis(device.getBusyMillis())
+                    + " (" + device.utilizationPercent() + "%)";
+            html.append("<div class=\"ranking-item\"><span>")
+                    .append(PepeniumReportSupport.escapeHtml(device.getDevice()))
+                    .append(" <span class=\"muted small\">")
+                    .append(PepeniumReportSupport.escapeHtml(device.getProfile()))
+                    .append("</span></span><span class=\"meta\">")
+                    .append(PepeniumReportSupport.escapeHtml(device.isQuarantined()
+                            ? usage + ", quarantined: " + device.getQuarantineReason()
+                            : usage))
+                    .append("</span></div>");
+        }
+        html.append("</div></div>");
+        return html.toString();
+    }
+
+    private static String renderLifecyclePhasePanel(List<LifecyclePhaseRecorder.Timing> phases, long overheadMicros) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"panel\"><h3>Lifecycle Phases</h3><div class=\"ranking\">");
+        for (LifecyclePhaseRecorder.Timing timing : phases) {
+            String share;
+            if (timing.getPhase().isOverhead()) {
+                share = PepeniumReportJsonRenderer.percent(timing.getTotalMicros(), overheadMicros) + "% of overhead";
+            } else if (timing.getPhase() == LifecyclePhaseRecorder.Phase.PREFLIGHT) {
+                share = "within session creation";
+            } else {
+                share = "off the test threads";
+            }
+            html.append("<div class=\"ranking-item\"><span>")
+                    .append(PepeniumReportSupport.escapeHtml(timing.getPhase().getLabel()))
+                    .append(" <span class=\"muted small\">x").append(timing.getCount())
+                    .append("</span></span><span class=\"meta\">")
+                    .append(PepeniumReportSupport.escapeHtml(PepeniumReportSupport.formatDurationMillis(
+                            timing.getTotalMicros() / 1000) + ", avg "
+                            + PepeniumReportJsonRenderer.millis(timing.getMeanMicros()) + " ms, " + share))
+                    .append("</span></div>");
+        }
+        html.append("</div></div>");
+        return html.toString();
+    }
+
+    private static String renderProfileMatrixPanel(
+            Map<String, List<PepeniumHtmlReportWriter.ReportSummary>> profileMatrix
+    ) {
+        StringBuilder html = new StringBuilder();
+        html.append("<div class=\"panel\"><h3>Outcome per Profile</h3><div class=\"ranking\">");
+        profileMatrix.forEach((testName, runs) -> {
+            html.append("<div class=\"ranking-item\"><span>")
+                    .append(PepeniumReportSupport.escapeHtml(testName))
+                    .append("</span><span class=\"tags\">");
+            for (PepeniumHtmlReportWriter.ReportSummary run : runs) {
+                html.append("<a class=\"badge ")
+                        .append("PASSED".equals(run.outcome) ? "passed" : "failed")
+                        .append("\" href=\"").append(PepeniumReportSupport.escapeHtml(run.htmlReport)).append("\">")
+                        .append(PepeniumReportSupport.escapeHtml(PepeniumReportSupport.defaultValue(run.profileId)))
+                        .append("</a>");
+            }
+            html.append("</span></div>");
+        });
+        html.append("</div></div>");
+        return html.toString();
+    }
+
     private static String renderTopListPanel(String title, List<PepeniumHtmlReportWriter.ReportSummary> summaries) {
         StringBuilder html = new StringBuilder();
         html.append("<div class=\"panel\"><h3>").append(PepeniumReportSupport.escapeHtml(title)).append("</h3>");
@@ -244,29 +507,12 @@ final class PepeniumReportIndexWriter {
         return PepeniumReportSupport.defaultValue(summary.durationDisplay);
     }
 
-    private static List<PepeniumHtmlReportWriter.ReportSummary> topSlowest(List<PepeniumHtmlReportWriter.ReportSummary> summaries) {
-        return summaries.stream()
-                .sorted(Comparator.comparingLong((PepeniumHtmlReportWriter.ReportSummary summary) -> summary.durationMillis).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-    }
-
-    private static List<PepeniumHtmlReportWriter.ReportSummary> topScreenshots(List<PepeniumHtmlReportWriter.ReportSummary> summaries) {
-        return summaries.stream()
-                .sorted(Comparator.comparingLong((PepeniumHtmlReportWriter.ReportSummary summary) -> summary.screenshotCount).reversed())
-                .limit(5)
-                .collect(Collectors.toList());
-    }
-
-    private static Map<String, Long> groupCounts(
-            List<PepeniumHtmlReportWriter.ReportSummary> summaries,
-            PepeniumHtmlReportWriter.SummarySelector selector
-    ) {
-        Map<String, Long> counts = new LinkedHashMap<>();
-        for (PepeniumHtmlReportWriter.ReportSummary summary : summaries) {
-            String value = PepeniumReportSupport.defaultValue(selector.get(summary));
-            counts.put(value, counts.getOrDefault(value, 0L) + 1);
-        }
-        return counts;
+    /**
+     * Merges the counts of values shown under the same label, such as a missing and a blank target.
+     */
+    private static Map<String, Long> groupCounts(Map<String, Long> counts) {
+        Map<String, Long> labeled = new LinkedHashMap<>();
+        counts.forEach((value, count) -> labeled.merge(PepeniumReportSupport.defaultValue(value), count, Long::sum));
+        return labeled;
     }
 }
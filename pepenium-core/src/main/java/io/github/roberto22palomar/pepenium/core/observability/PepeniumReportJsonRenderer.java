@@ -3,158 +3,574 @@ package io.github.roberto22palomar.pepenium.core.observability;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.io.UncheckedIOException;
+import java.io.Writer;
 import java.nio.charset.StandardCharsets;
 import java.nio.file.Files;
 import java.nio.file.Path;
 import java.time.Instant;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
+import java.util.Set;
 
 final class PepeniumReportJsonRenderer {
 
     private static final Logger log = LoggerFactory.getLogger(PepeniumReportJsonRenderer.class);
+    private static final Set<String> SUMMARY_FIELDS = Set.of(
+            "testName", "outcome", "profileId", "target", "driverType", "htmlReport", "generatedAt",
+            "timing", "stats", "remote", "session", "commandLatency", "lifecyclePhases"
+    );
 
     private PepeniumReportJsonRenderer() {
     }
 
-    static String renderReportJson(PepeniumHtmlReportWriter.ReportContext report, String htmlFileName) {
-        StringBuilder json = new StringBuilder();
-        json.append("{\n");
-        PepeniumReportSupport.appendJsonField(json, "schemaVersion", 1, true);
-        PepeniumReportSupport.appendJsonField(json, "generatedAt", report.finishedAt.toString(), true);
-        PepeniumReportSupport.appendJsonField(json, "htmlReport", htmlFileName, true);
-        PepeniumReportSupport.appendJsonField(json, "outcome", report.outcome, true);
-        PepeniumReportSupport.appendJsonField(json, "testName", report.testName, true);
-        PepeniumReportSupport.appendJsonField(json, "profileId", report.profileId, true);
-        PepeniumReportSupport.appendJsonField(json, "target", report.target, true);
-        PepeniumReportSupport.appendJsonField(json, "driverType", report.driverType, true);
-        PepeniumReportSupport.appendJsonField(json, "description", report.description, true);
-        PepeniumReportSupport.appendJsonField(json, "sessionId", report.sessionId, true);
-        json.append("  \"timing\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "startedAt", report.startedAt.toString(), true, 4);
-        PepeniumReportSupport.appendJsonField(json, "finishedAt", report.finishedAt.toString(), true, 4);
-        PepeniumReportSupport.appendJsonField(json, "durationMillis", report.durationMillis, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "durationDisplay", report.duration, false, 4);
-        json.append("  },\n");
-        json.append("  \"stats\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "events", report.totalEvents, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "actions", report.actionCount, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "waits", report.waitCount, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "passedAssertions", report.passedAssertions, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "failedAssertions", report.failedAssertions, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "screenshots", report.screenshotCount, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "errors", report.errorCount, false, 4);
-        json.append("  },\n");
-        json.append("  \"highlights\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "lastStep", report.lastStep, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "lastAssertion", report.lastAssertion, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "lastScreenshotPath", report.lastScreenshotPath, false, 4);
-        json.append("  },\n");
-        json.append("  \"execution\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "platform", report.deviceContext.platformName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "platformVersion", report.deviceContext.platformVersion, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "deviceName", report.deviceContext.deviceName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "browserName", report.deviceContext.browserName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "browserVersion", report.deviceContext.browserVersion, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "automationName", report.deviceContext.automationName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "currentUrl", report.currentUrl, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "pageTitle", report.pageTitle, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "mobileContext", report.mobileContext, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "mobilePackage", report.mobilePackage, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "mobileActivity", report.mobileActivity, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "capabilitiesSummary", report.capabilitiesSummary, false, 4);
-        json.append("  },\n");
-        json.append("  \"remote\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "enabled", report.remoteContext.enabled, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "provider", report.remoteContext.provider, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "serverHost", report.remoteContext.serverHost, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "serverUrl", report.remoteContext.serverUrl, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "projectName", report.remoteContext.projectName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "buildName", report.remoteContext.buildName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "sessionName", report.remoteContext.remoteSessionName, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "localEnabled", report.remoteContext.localEnabled, false, 4);
-        json.append("  },\n");
-        json.append("  \"events\": [\n");
-        List<PepeniumTimeline.Event> events = report.timelineSnapshot.getEvents();
-        for (int i = 0; i < events.size(); i++) {
-            PepeniumTimeline.Event event = events.get(i);
-            json.append("    {\n");
-            PepeniumReportSupport.appendJsonField(json, "time", event.getTime(), true, 6);
-            PepeniumReportSupport.appendJsonField(json, "type", event.getType().name(), true, 6);
-            PepeniumReportSupport.appendJsonField(json, "status", event.getStatus().name(), true, 6);
-            PepeniumReportSupport.appendJsonField(json, "message", event.getMessage(), true, 6);
-            PepeniumReportSupport.appendJsonField(json, "screenshotPath", event.getScreenshotPath(), false, 6);
-            json.append("    }");
-            if (i < events.size() - 1) {
-                json.append(",");
+    /**
+     * Streams the JSON report to {@code out}, so the timeline of a long test is never held as one string.
+     */
+    static void writeReportJson(PepeniumHtmlReportWriter.ReportContext report, String htmlFileName, Writer out)
+            throws IOException {
+        writeReport(new JsonStreamWriter(out, true), report, htmlFileName);
+    }
+
+    private static void writeReport(JsonStreamWriter json,
+                                    PepeniumHtmlReportWriter.ReportContext report,
+                                    String htmlFileName) throws IOException {
+        json.beginObject()
+                .field("schemaVersion", 1)
+                .field("generatedAt", report.finishedAt.toString())
+                .field("htmlReport", htmlFileName)
+                .field("outcome", report.outcome)
+                .field("testName", report.testName)
+                .field("profileId", report.profileId)
+                .field("target", report.target)
+                .field("driverType", report.driverType)
+                .field("description", report.description)
+                .field("sessionId", report.sessionId);
+        json.name("timing").beginObject()
+                .field("startedAt", report.startedAt.toString())
+                .field("finishedAt", report.finishedAt.toString())
+                .field("durationMillis", report.durationMillis)
+                .field("durationDisplay", report.duration)
+                .endObject();
+        json.name("stats").beginObject()
+                .field("events", report.totalEvents)
+                .field("actions", report.actionCount)
+                .field("waits", report.waitCount)
+                .field("passedAssertions", report.passedAssertions)
+                .field("failedAssertions", report.failedAssertions)
+                .field("screenshots", report.screenshotCount)
+                .field("errors", report.errorCount)
+                .endObject();
+        json.name("highlights").beginObject()
+                .field("lastStep", report.lastStep)
+                .field("lastAssertion", report.lastAssertion)
+                .field("lastScreenshotPath", report.lastScreenshotPath)
+                .endObject();
+        json.name("execution").beginObject()
+                .field("platform", report.deviceContext.platformName)
+                .field("platformVersion", report.deviceContext.platformVersion)
+                .field("deviceName", report.deviceContext.deviceName)
+                .field("browserName", report.deviceContext.browserName)
+                .field("browserVersion", report.deviceContext.browserVersion)
+                .field("automationName", report.deviceContext.automationName)
+                .field("currentUrl", report.currentUrl)
+                .field("pageTitle", report.pageTitle)
+                .field("mobileContext", report.mobileContext)
+                .field("mobilePackage", report.mobilePackage)
+                .field("mobileActivity", report.mobileActivity)
+                .field("capabilitiesSummary", report.capabilitiesSummary)
+                .endObject();
+        json.name("remote").beginObject()
+                .field("enabled", report.remoteContext.enabled)
+                .field("provider", report.remoteContext.provider)
+                .field("serverHost", report.remoteContext.serverHost)
+                .field("serverUrl", report.remoteContext.serverUrl)
+                .field("projectName", report.remoteContext.projectName)
+                .field("buildName", report.remoteContext.buildName)
+                .field("sessionName", report.remoteContext.remoteSessionName)
+                .field("localEnabled", report.remoteContext.localEnabled)
+                .endObject();
+        json.name("session").beginObject()
+                .field("leaseId", report.sessionContext.leaseId)
+                .field("source", report.sessionContext.source)
+                .field("reused", report.sessionContext.reused)
+                .field("acquireMillis", report.sessionContext.acquireMillis)
+                .field("creationMillis", report.sessionContext.creationMillis)
+                .field("startupSavedMillis", report.sessionContext.savedMillis)
+                .field("useCount", report.sessionContext.useCount)
+                .field("prewarmMissed", report.sessionContext.prewarmMissed)
+                .field("recovered", report.sessionContext.recovered)
+                .field("recoveryMillis", report.sessionContext.recoveryMillis)
+                .field("quotaWaitMillis", report.sessionContext.quotaWaitMillis)
+                .field("quotaRetries", report.sessionContext.quotaRetries)
+                .field("resetMillis", report.sessionContext.resetMillis)
+                .field("resetFailed", report.sessionContext.resetFailed)
+                .endObject();
+        json.name("evidence").beginObject()
+                .field("captureMillis", report.evidenceCaptureMillis)
+                .field("screenshotBytes", report.evidenceScreenshotBytes)
+                .endObject();
+        writeCommandLatency(json, report.commandLatency, true);
+        writeLifecyclePhases(json, report.lifecyclePhases);
+        json.name("events").beginArray();
+        for (PepeniumTimeline.Event event : report.timelineSnapshot.getEvents()) {
+            json.beginObject()
+                    .field("time", event.getTime())
+                    .field("type", event.getType().name())
+                    .field("status", event.getStatus().name())
+                    .field("message", event.getMessage())
+                    .field("screenshotPath", event.getScreenshotPath())
+                    .endObject();
+        }
+        json.endArray();
+        json.name("recentSteps").beginArray();
+        for (String step : report.stepSnapshot.getSteps()) {
+            json.value(step);
+        }
+        json.endArray();
+        json.name("failure").beginObject()
+                .field("failed", report.failed)
+                .field("rootType", report.rootType)
+                .field("rootMessage", report.rootMessage)
+                .field("stackTrace", report.stackTrace)
+                .endObject();
+        json.endObject();
+    }
+
+    /**
+     * Reads the summary fields of a report, which come before its timeline, and stops there.
+     */
+    static PepeniumHtmlReportWriter.ReportSummary loadSummary(Path jsonFile) {
+        try (JsonPullReader json = new JsonPullReader(Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8))) {
+            return readSummary(json);
+        } catch (Exception e) {
+            log.warn("Failed to read Pepenium report summary from '{}': {}",
+                    jsonFile,
+                    SensitiveDataSanitizer.sanitizeText(e.getMessage()));
+            return null;
+        }
+    }
+
+    /**
+     * Reads one line of the suite journal written by {@link #renderSummaryRecord}.
+     */
+    static PepeniumHtmlReportWriter.ReportSummary loadSummaryRecord(String record) {
+        try (JsonPullReader json = new JsonPullReader(new StringReader(record))) {
+            return readSummary(json);
+        } catch (Exception e) {
+            log.warn("Skipping unreadable Pepenium suite journal record: {}",
+                    SensitiveDataSanitizer.sanitizeText(e.getMessage()));
+            return null;
+        }
+    }
+
+    private static PepeniumHtmlReportWriter.ReportSummary readSummary(JsonPullReader json) throws IOException {
+        Map<String, Object> data = new HashMap<>();
+        json.beginObject();
+        while (data.size() < SUMMARY_FIELDS.size() && json.hasNext()) {
+            String name = json.nextName();
+            if (SUMMARY_FIELDS.contains(name)) {
+                data.put(name, json.readValue());
+            } else {
+                json.skipValue();
+            }
+        }
+        return summaryFrom(data);
+    }
+
+    private static PepeniumHtmlReportWriter.ReportSummary summaryFrom(Map<String, Object> data) {
+        Map<String, Object> timing = PepeniumReportSupport.mapValue(data.get("timing"));
+        Map<String, Object> stats = PepeniumReportSupport.mapValue(data.get("stats"));
+        Map<String, Object> remote = PepeniumReportSupport.mapValue(data.get("remote"));
+        Map<String, Object> session = PepeniumReportSupport.mapValue(data.get("session"));
+        return new PepeniumHtmlReportWriter.ReportSummary(
+                PepeniumReportSupport.safe(data.get("testName")),
+                PepeniumReportSupport.safe(data.get("outcome")),
+                PepeniumReportSupport.safe(data.get("profileId")),
+                PepeniumReportSupport.safe(data.get("target")),
+                PepeniumReportSupport.safe(data.get("driverType")),
+                PepeniumReportSupport.safe(data.get("htmlReport")),
+                PepeniumReportSupport.safe(data.get("generatedAt")),
+                PepeniumReportSupport.numberValue(timing.get("durationMillis")),
+                PepeniumReportSupport.safe(timing.get("durationDisplay")),
+                PepeniumReportSupport.numberValue(stats.get("screenshots")),
+                PepeniumReportSupport.safe(remote.get("provider")),
+                PepeniumReportSupport.safe(remote.get("enabled")),
+                PepeniumReportSupport.safe(session.get("leaseId")),
+                PepeniumReportSupport.safe(session.get("source")),
+                Boolean.parseBoolean(String.valueOf(session.get("reused"))),
+                Boolean.parseBoolean(String.valueOf(session.get("prewarmMissed"))),
+                PepeniumReportSupport.numberValue(session.get("startupSavedMillis")),
+                Boolean.parseBoolean(String.valueOf(session.get("recovered"))),
+                PepeniumReportSupport.numberValue(session.get("recoveryMillis")),
+                PepeniumReportSupport.numberValue(session.get("quotaWaitMillis")),
+                loadCommandLatency(data.get("commandLatency")),
+                loadLifecyclePhases(data.get("lifecyclePhases"))
+        );
+    }
+
+    /**
+     * Renders the fields of {@code summary} as one compact line in the same layout as a report, so journal records
+     * and report files share one reader.
+     */
+    static String renderSummaryRecord(PepeniumHtmlReportWriter.ReportSummary summary) {
+        return render(false, json -> {
+            json.beginObject()
+                    .field("testName", summary.testName)
+                    .field("outcome", summary.outcome)
+                    .field("profileId", summary.profileId)
+                    .field("target", summary.target)
+                    .field("driverType", summary.driverType)
+                    .field("htmlReport", summary.htmlReport)
+                    .field("generatedAt", summary.generatedAt);
+            json.name("timing").beginObject()
+                    .field("durationMillis", summary.durationMillis)
+                    .field("durationDisplay", summary.durationDisplay)
+                    .endObject();
+            json.name("stats").beginObject()
+                    .field("screenshots", summary.screenshotCount)
+                    .endObject();
+            json.name("remote").beginObject()
+                    .field("enabled", summary.remoteEnabled)
+                    .field("provider", summary.provider)
+                    .endObject();
+            json.name("session").beginObject()
+                    .field("leaseId", summary.sessionLeaseId)
+                    .field("source", summary.sessionSource)
+                    .field("reused", summary.sessionReused)
+                    .field("prewarmMissed", summary.prewarmMissed)
+                    .field("startupSavedMillis", summary.startupSavedMillis)
+                    .field("recovered", summary.sessionRecovered)
+                    .field("recoveryMillis", summary.recoveryMillis)
+                    .field("quotaWaitMillis", summary.quotaWaitMillis)
+                    .endObject();
+            json.name("commandLatency").beginArray();
+            for (CommandLatencyRecorder.Histogram histogram : summary.commandLatency) {
+                json.beginObject()
+                        .field("command", histogram.getCommand())
+                        .field("totalMillis", millis(histogram.getTotalMicros()))
+                        .field("maxMillis", millis(histogram.getMaxMicros()))
+                        .field("buckets", histogram.encodeBuckets())
+                        .endObject();
+            }
+            json.endArray();
+            json.name("lifecyclePhases").beginArray();
+            for (LifecyclePhaseRecorder.Timing timing : summary.lifecyclePhases) {
+                json.beginObject()
+                        .field("phase", timing.getPhase().getKey())
+                        .field("count", timing.getCount())
+                        .field("totalMillis", millis(timing.getTotalMicros()))
+                        .field("maxMillis", millis(timing.getMaxMicros()))
+                        .endObject();
+            }
+            json.endArray();
+            json.endObject();
+        });
+    }
+
+    static String renderTeardownJson(List<String> failures) {
+        return render(true, json -> {
+            json.beginObject().field("generatedAt", Instant.now().toString());
+            json.name("failures").beginArray();
+            for (String failure : failures) {
+                json.value(SensitiveDataSanitizer.sanitizeText(failure));
             }
-            json.append("\n");
-        }
-        json.append("  ],\n");
-        json.append("  \"recentSteps\": [\n");
-        List<String> steps = report.stepSnapshot.getSteps();
-        for (int i = 0; i < steps.size(); i++) {
-            json.append("    ").append(PepeniumReportSupport.quoteJson(steps.get(i)));
-            if (i < steps.size() - 1) {
-                json.append(",");
+            json.endArray().endObject();
+        });
+    }
+
+    static List<String> loadTeardownFailures(Path jsonFile) {
+        List<String> failures = new ArrayList<>();
+        try {
+            Object values = readDocument(jsonFile).get("failures");
+            if (values instanceof List) {
+                for (Object value : (List<?>) values) {
+                    failures.add(PepeniumReportSupport.safe(value));
+                }
             }
-            json.append("\n");
+        } catch (Exception e) {
+            log.warn("Failed to read Pepenium teardown failures from '{}': {}",
+                    jsonFile,
+                    SensitiveDataSanitizer.sanitizeText(e.getMessage()));
         }
-        json.append("  ],\n");
-        json.append("  \"failure\": {\n");
-        PepeniumReportSupport.appendJsonField(json, "failed", report.failed, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "rootType", report.rootType, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "rootMessage", report.rootMessage, true, 4);
-        PepeniumReportSupport.appendJsonField(json, "stackTrace", report.stackTrace, false, 4);
-        json.append("  }\n");
-        json.append("}\n");
-        return json.toString();
+        return failures;
     }
 
-    static PepeniumHtmlReportWriter.ReportSummary loadSummary(Path jsonFile) {
+    static String renderDeviceUtilizationJson(List<DeviceUtilization> devices) {
+        return render(true, json -> {
+            json.beginObject().field("generatedAt", Instant.now().toString());
+            writeDevices(json, devices);
+            json.endObject();
+        });
+    }
+
+    private static void writeDevices(JsonStreamWriter json, List<DeviceUtilization> devices) throws IOException {
+        json.name("devices").beginArray();
+        for (DeviceUtilization device : devices) {
+            json.beginObject()
+                    .field("profile", device.getProfile())
+                    .field("device", device.getDevice())
+                    .field("serverUrl", device.getServerUrl())
+                    .field("leases", device.getLeases())
+                    .field("busyMillis", device.getBusyMillis())
+                    .field("spanMillis", device.getSpanMillis())
+                    .field("utilizationPercent", device.utilizationPercent())
+                    .field("quarantined", device.isQuarantined())
+                    .field("quarantineReason", SensitiveDataSanitizer.sanitizeText(device.getQuarantineReason()))
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    static List<DeviceUtilization> loadDeviceUtilization(Path jsonFile) {
+        List<DeviceUtilization> devices = new ArrayList<>();
         try {
-            @SuppressWarnings("unchecked")
-            Map<String, Object> data = PepeniumReportSupport.YAML.load(Files.readString(jsonFile, StandardCharsets.UTF_8));
-            if (data == null) {
-                return null;
+            Object values = readDocument(jsonFile).get("devices");
+            if (values instanceof List) {
+                for (Object value : (List<?>) values) {
+                    Map<String, Object> entry = PepeniumReportSupport.mapValue(value);
+                    devices.add(DeviceUtilization.builder()
+                            .profile(PepeniumReportSupport.safe(entry.get("profile")))
+                            .device(PepeniumReportSupport.safe(entry.get("device")))
+                            .serverUrl(PepeniumReportSupport.safe(entry.get("serverUrl")))
+                            .leases((int) PepeniumReportSupport.numberValue(entry.get("leases")))
+                            .busyMillis(PepeniumReportSupport.numberValue(entry.get("busyMillis")))
+                            .spanMillis(PepeniumReportSupport.numberValue(entry.get("spanMillis")))
+                            .quarantined(Boolean.parseBoolean(String.valueOf(entry.get("quarantined"))))
+                            .quarantineReason(PepeniumReportSupport.safe(entry.get("quarantineReason")))
+                            .build());
+                }
             }
-            Map<String, Object> timing = PepeniumReportSupport.mapValue(data.get("timing"));
-            Map<String, Object> stats = PepeniumReportSupport.mapValue(data.get("stats"));
-            Map<String, Object> remote = PepeniumReportSupport.mapValue(data.get("remote"));
-            return new PepeniumHtmlReportWriter.ReportSummary(
-                    PepeniumReportSupport.safe(data.get("testName")),
-                    PepeniumReportSupport.safe(data.get("outcome")),
-                    PepeniumReportSupport.safe(data.get("profileId")),
-                    PepeniumReportSupport.safe(data.get("target")),
-                    PepeniumReportSupport.safe(data.get("driverType")),
-                    PepeniumReportSupport.safe(data.get("htmlReport")),
-                    PepeniumReportSupport.safe(data.get("generatedAt")),
-                    PepeniumReportSupport.numberValue(timing.get("durationMillis")),
-                    PepeniumReportSupport.safe(timing.get("durationDisplay")),
-                    PepeniumReportSupport.numberValue(stats.get("screenshots")),
-                    PepeniumReportSupport.safe(remote.get("provider")),
-                    PepeniumReportSupport.safe(remote.get("enabled"))
-            );
         } catch (Exception e) {
-            log.warn("Failed to read Pepenium report summary from '{}': {}",
+            log.warn("Failed to read Pepenium device utilization from '{}': {}",
                     jsonFile,
                     SensitiveDataSanitizer.sanitizeText(e.getMessage()));
-            return null;
         }
+        return devices;
+    }
+
+    /**
+     * Combines the device files of every forked JVM: leases and busy time add up per device, and each JVM's pool
+     * lifetime adds to the span the device could have been used in.
+     */
+    static List<DeviceUtilization> mergeDeviceUtilization(List<DeviceUtilization> devices) {
+        Map<String, DeviceUtilization> merged = new LinkedHashMap<>();
+        for (DeviceUtilization device : devices) {
+            merged.merge(device.getProfile() + "\u0000" + device.getDevice(), device, (left, right) -> left.toBuilder()
+                    .leases(left.getLeases() + right.getLeases())
+                    .busyMillis(left.getBusyMillis() + right.getBusyMillis())
+                    .spanMillis(left.getSpanMillis() + right.getSpanMillis())
+                    .quarantined(left.isQuarantined() || right.isQuarantined())
+                    .quarantineReason(left.isQuarantined() ? left.getQuarantineReason() : right.getQuarantineReason())
+                    .build());
+        }
+        return new ArrayList<>(merged.values());
+    }
+
+    static String renderLifecyclePhasesJson(List<LifecyclePhaseRecorder.Timing> timings) {
+        return render(true, json -> {
+            json.beginObject().field("generatedAt", Instant.now().toString());
+            writeLifecyclePhases(json, timings);
+            json.endObject();
+        });
+    }
+
+    static List<LifecyclePhaseRecorder.Timing> loadLifecyclePhasesFile(Path jsonFile) {
+        try {
+            return loadLifecyclePhases(readDocument(jsonFile).get("lifecyclePhases"));
+        } catch (Exception e) {
+            log.warn("Failed to read Pepenium lifecycle phases from '{}': {}",
+                    jsonFile,
+                    SensitiveDataSanitizer.sanitizeText(e.getMessage()));
+            return new ArrayList<>();
+        }
+    }
+
+    /**
+     * Adds up the phases recorded in every report with the report writing, index rebuild and teardown phases the
+     * forked JVMs wrote when they finished.
+     */
+    static List<LifecyclePhaseRecorder.Timing> suiteLifecyclePhases(
+            SuiteTotals totals,
+            List<LifecyclePhaseRecorder.Timing> suitePhases
+    ) {
+        return LifecyclePhaseRecorder.merge(List.of(totals.lifecyclePhases(), suitePhases));
+    }
+
+    /**
+     * Share of framework overhead in the time spent on tests and around them, as a percentage with one decimal.
+     */
+    static double overheadPercent(long overheadMicros, long testDurationMillis) {
+        return percent(overheadMicros, overheadMicros + testDurationMillis * 1000L);
+    }
+
+    static double percent(long part, long whole) {
+        return whole <= 0 ? 0.0 : Math.round(part * 1000.0 / whole) / 10.0;
+    }
+
+    /**
+     * Streams {@code summary.json} to {@code out}.
+     */
+    static void writeSuiteSummaryJson(SuiteTotals totals,
+                                      List<String> teardownFailures,
+                                      List<DeviceUtilization> devices,
+                                      List<LifecyclePhaseRecorder.Timing> phases,
+                                      Writer out) throws IOException {
+        writeSuiteSummary(new JsonStreamWriter(out, true), totals, teardownFailures, devices, phases);
+    }
+
+    private static void writeSuiteSummary(JsonStreamWriter json,
+                                          SuiteTotals totals,
+                                          List<String> teardownFailures,
+                                          List<DeviceUtilization> devices,
+                                          List<LifecyclePhaseRecorder.Timing> phases) throws IOException {
+        json.beginObject()
+                .field("generatedAt", Instant.now().toString())
+                .field("totalReports", totals.reports())
+                .field("passed", totals.passed())
+                .field("failed", totals.failed())
+                .field("totalDurationMillis", totals.durationMillis());
+        json.name("sessions").beginObject()
+                .field("reused", totals.reusedSessions())
+                .field("startupSavedMillis", totals.startupSavedMillis())
+                .field("prewarmHits", totals.prewarmHits())
+                .field("prewarmMisses", totals.prewarmMisses())
+                .field("recoveries", totals.recoveries())
+                .field("recoveryMillis", totals.recoveryMillis())
+                .field("quotaWaits", totals.quotaWaits())
+                .field("quotaWaitMillis", totals.quotaWaitMillis())
+                .endObject();
+        json.name("teardown").beginObject().field("failures", teardownFailures.size());
+        json.name("messages").beginArray();
+        for (String failure : teardownFailures) {
+            json.value(failure);
+        }
+        json.endArray().endObject();
+        writeDevices(json, devices);
+        writeCommandLatency(json, totals.commandLatency(), false);
+        long overheadMicros = LifecyclePhaseRecorder.overheadMicros(phases);
+        json.name("frameworkOverhead").beginObject()
+                .field("totalMillis", millis(overheadMicros))
+                .field("percentOfSuite", overheadPercent(overheadMicros, totals.durationMillis()))
+                .endObject();
+        writeLifecyclePhases(json, phases);
+        json.endObject();
+    }
+
+    /**
+     * Writes one entry per command; per-test reports also keep the histogram buckets so the suite summary can merge
+     * them into exact suite-wide percentiles.
+     */
+    private static void writeCommandLatency(JsonStreamWriter json,
+                                            List<CommandLatencyRecorder.Histogram> histograms,
+                                            boolean withBuckets) throws IOException {
+        json.name("commandLatency").beginArray();
+        for (CommandLatencyRecorder.Histogram histogram : histograms) {
+            json.beginObject()
+                    .field("command", histogram.getCommand())
+                    .field("count", histogram.getCount())
+                    .field("p50Millis", millis(histogram.percentileMicros(50)))
+                    .field("p95Millis", millis(histogram.percentileMicros(95)))
+                    .field("p99Millis", millis(histogram.percentileMicros(99)))
+                    .field("maxMillis", millis(histogram.getMaxMicros()))
+                    .field("totalMillis", millis(histogram.getTotalMicros()));
+            if (withBuckets) {
+                json.field("buckets", histogram.encodeBuckets());
+            }
+            json.endObject();
+        }
+        json.endArray();
+    }
+
+    private static void writeLifecyclePhases(JsonStreamWriter json,
+                                             List<LifecyclePhaseRecorder.Timing> timings) throws IOException {
+        json.name("lifecyclePhases").beginArray();
+        for (LifecyclePhaseRecorder.Timing timing : timings) {
+            json.beginObject()
+                    .field("phase", timing.getPhase().getKey())
+                    .field("count", timing.getCount())
+                    .field("totalMillis", millis(timing.getTotalMicros()))
+                    .field("meanMillis", millis(timing.getMeanMicros()))
+                    .field("maxMillis", millis(timing.getMaxMicros()))
+                    .endObject();
+        }
+        json.endArray();
+    }
+
+    @FunctionalInterface
+    private interface JsonContent {
+        void writeTo(JsonStreamWriter json) throws IOException;
+    }
+
+    private static String render(boolean pretty, JsonContent content) {
+        StringWriter out = new StringWriter();
+        try {
+            content.writeTo(new JsonStreamWriter(out, pretty));
+        } catch (IOException e) {
+            throw new UncheckedIOException(e);
+        }
+        return out.toString();
+    }
+
+    private static Map<String, Object> readDocument(Path jsonFile) throws IOException {
+        try (JsonPullReader json = new JsonPullReader(Files.newBufferedReader(jsonFile, StandardCharsets.UTF_8))) {
+            return PepeniumReportSupport.mapValue(json.readValue());
+        }
+    }
+
+    static List<LifecyclePhaseRecorder.Timing> loadLifecyclePhases(Object values) {
+        List<LifecyclePhaseRecorder.Timing> timings = new ArrayList<>();
+        if (!(values instanceof List)) {
+            return timings;
+        }
+        for (Object value : (List<?>) values) {
+            Map<String, Object> entry = PepeniumReportSupport.mapValue(value);
+            LifecyclePhaseRecorder.Phase phase = LifecyclePhaseRecorder.Phase.fromKey(
+                    PepeniumReportSupport.safe(entry.get("phase")));
+            if (phase == null) {
+                continue;
+            }
+            timings.add(LifecyclePhaseRecorder.Timing.of(
+                    phase,
+                    PepeniumReportSupport.numberValue(entry.get("count")),
+                    micros(entry.get("totalMillis")),
+                    micros(entry.get("maxMillis"))
+            ));
+        }
+        return timings;
+    }
+
+    static List<CommandLatencyRecorder.Histogram> loadCommandLatency(Object values) {
+        List<CommandLatencyRecorder.Histogram> histograms = new ArrayList<>();
+        if (!(values instanceof List)) {
+            return histograms;
+        }
+        for (Object value : (List<?>) values) {
+            Map<String, Object> entry = PepeniumReportSupport.mapValue(value);
+            if (entry.get("command") == null) {
+                continue;
+            }
+            histograms.add(CommandLatencyRecorder.Histogram.parse(
+                    PepeniumReportSupport.safe(entry.get("command")),
+                    micros(entry.get("totalMillis")),
+                    micros(entry.get("maxMillis")),
+                    PepeniumReportSupport.safe(entry.get("buckets"))
+            ));
+        }
+        return histograms;
+    }
+
+    static double millis(long micros) {
+        return Math.round(micros / 100.0) / 10.0;
     }
 
-    static String renderSuiteSummaryJson(List<PepeniumHtmlReportWriter.ReportSummary> summaries) {
-        long passed = summaries.stream().filter(summary -> "PASSED".equals(summary.outcome)).count();
-        long failed = summaries.size() - passed;
-        long totalDuration = summaries.stream().mapToLong(summary -> summary.durationMillis).sum();
-        StringBuilder json = new StringBuilder();
-        json.append("{\n");
-        PepeniumReportSupport.appendJsonField(json, "generatedAt", Instant.now().toString(), true);
-        PepeniumReportSupport.appendJsonField(json, "totalReports", summaries.size(), true);
-        PepeniumReportSupport.appendJsonField(json, "passed", passed, true);
-        PepeniumReportSupport.appendJsonField(json, "failed", failed, true);
-        PepeniumReportSupport.appendJsonField(json, "totalDurationMillis", totalDuration, false);
-        json.append("}\n");
-        return json.toString();
+    private static long micros(Object millis) {
+        return millis instanceof Number ? Math.round(((Number) millis).doubleValue() * 1000.0) : 0L;
     }
 }
@@ -9,16 +9,12 @@ import org.openqa.selenium.OutputType;
 import org.openqa.selenium.TakesScreenshot;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.remote.RemoteWebDriver;
-import org.yaml.snakeyaml.LoaderOptions;
-import org.yaml.snakeyaml.Yaml;
-import org.yaml.snakeyaml.constructor.SafeConstructor;
 
 import java.io.IOException;
 import java.io.PrintWriter;
 import java.io.StringWriter;
 import java.net.URL;
 import java.nio.file.Files;
-import java.nio.file.StandardCopyOption;
 import java.nio.file.Path;
 import java.nio.file.Paths;
 import java.time.Duration;
@@ -33,7 +29,6 @@ final class PepeniumReportSupport {
 
     static final DateTimeFormatter FILE_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyyMMdd-HHmmss-SSS");
     static final DateTimeFormatter DISPLAY_TIME_FORMAT = DateTimeFormatter.ofPattern("yyyy-MM-dd HH:mm:ss");
-    static final Yaml YAML = createSafeYamlParser();
 
     private PepeniumReportSupport() {
     }
@@ -49,37 +44,6 @@ final class PepeniumReportSupport {
         );
     }
 
-    static void appendJsonField(StringBuilder json, String key, Object value, boolean withComma) {
-        appendJsonField(json, key, value, withComma, 2);
-    }
-
-    static void appendJsonField(StringBuilder json, String key, Object value, boolean withComma, int indent) {
-        json.append(" ".repeat(indent)).append(quoteJson(key)).append(": ");
-        if (value == null) {
-            json.append("null");
-        } else if (value instanceof Number || value instanceof Boolean) {
-            json.append(value);
-        } else {
-            json.append(quoteJson(String.valueOf(value)));
-        }
-        if (withComma) {
-            json.append(",");
-        }
-        json.append("\n");
-    }
-
-    static String quoteJson(String value) {
-        if (value == null) {
-            return "null";
-        }
-        return "\"" + value
-                .replace("\\", "\\\\")
-                .replace("\"", "\\\"")
-                .replace("\r", "\\r")
-                .replace("\n", "\\n")
-                .replace("\t", "\\t") + "\"";
-    }
-
     static Map<String, Object> mapValue(Object value) {
         if (value instanceof Map) {
             @SuppressWarnings("unchecked")
@@ -127,22 +91,31 @@ final class PepeniumReportSupport {
         }
     }
 
-    static String screenshotUri(WebDriver driver, Path reportDir) {
+    /**
+     * Screenshot of {@code driver}, or {@code null} if it cannot take screenshots; failures are thrown to the caller.
+     */
+    static byte[] takeScreenshot(WebDriver driver) {
         if (!(driver instanceof TakesScreenshot)) {
             return null;
         }
+        return ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
+    }
+
+    static String writeScreenshot(byte[] screenshot, Path reportDir) {
+        if (screenshot == null) {
+            return null;
+        }
         try {
-            byte[] screenshot = ((TakesScreenshot) driver).getScreenshotAs(OutputType.BYTES);
-            Path screenshotDir = reportDir.resolve("screenshots");
-            Files.createDirectories(screenshotDir);
-            Path screenshotPath = screenshotDir.resolve(uniqueArtifactStem("report") + ".png");
-            Files.write(screenshotPath, screenshot);
-            return pathToHref(screenshotPath.toString(), reportDir);
+            return pathToHref(new ScreenshotStore(reportDir).put(screenshot).toString(), reportDir);
         } catch (Exception e) {
             return null;
         }
     }
 
+    /**
+     * Adds the screenshot at {@code originalPath} to the screenshot store of {@code reportDir} and returns its stored
+     * path, or {@code originalPath} if the file cannot be stored.
+     */
     static String bundleScreenshotArtifact(String originalPath, Path reportDir) {
         if (originalPath == null || originalPath.isBlank()) {
             return null;
@@ -155,18 +128,7 @@ final class PepeniumReportSupport {
             if (!Files.exists(source) || Files.isDirectory(source)) {
                 return originalPath;
             }
-            Path screenshotDir = reportDir.resolve("screenshots");
-            Files.createDirectories(screenshotDir);
-            Path fileNamePath = source.getFileName();
-            String fileName = "manual.png";
-            if (fileNamePath != null) {
-                fileName = fileNamePath.toString();
-            }
-            Path target = screenshotDir.resolve(uniqueArtifactStem("manual") + "_" + fileName).normalize();
-            if (!source.equals(target)) {
-                Files.copy(source, target, StandardCopyOption.REPLACE_EXISTING);
-            }
-            return target.toString();
+            return new ScreenshotStore(reportDir).putFile(source).toString();
         } catch (Exception ignored) {
             return originalPath;
         }
@@ -235,9 +197,16 @@ final class PepeniumReportSupport {
         if (!(driver instanceof AppiumDriver)) {
             return null;
         }
+        Object context = invokeNoArg(driver, "getContext");
+        if (context == null) {
+            context = invokeNoArg(driver, "getContextHandles");
+        }
+        return context == null ? null : String.valueOf(context);
+    }
+
+    private static Object invokeNoArg(Object target, String methodName) {
         try {
-            Object context = driver.getClass().getMethod("getContext").invoke(driver);
-            return context == null ? null : String.valueOf(context);
+            return target.getClass().getMethod(methodName).invoke(target);
         } catch (ReflectiveOperationException | SecurityException ignored) {
             return null;
         }
@@ -290,15 +259,6 @@ final class PepeniumReportSupport {
         return SensitiveDataSanitizer.sanitizeText(writer.toString());
     }
 
-    private static Yaml createSafeYamlParser() {
-        LoaderOptions options = new LoaderOptions();
-        options.setAllowDuplicateKeys(false);
-        options.setMaxAliasesForCollections(20);
-        options.setNestingDepthLimit(30);
-        options.setCodePointLimit(10 * 1024 * 1024);
-        return new Yaml(new SafeConstructor(options));
-    }
-
     private static Throwable rootCause(Throwable throwable) {
         Throwable current = throwable;
         while (current != null && current.getCause() != null && current.getCause() != current) {
@@ -363,9 +323,4 @@ final class PepeniumReportSupport {
     static String sanitizeServerUrl(URL url) {
         return SensitiveDataSanitizer.sanitizeServerUrl(url);
     }
-
-    private static String uniqueArtifactStem(String prefix) {
-        return prefix + "_" + Instant.now().toEpochMilli()
-                + "_" + Long.toUnsignedString(System.nanoTime(), 36);
-    }
 }
@@ -0,0 +1,114 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Locale;
+
+/**
+ * Content-addressed store for the screenshots of a report directory.
+ *
+ * <p>Every image is stored once as {@code screenshots/<sha256>.<extension>}, so the same frame captured by several
+ * tests, or by several forks writing into the same directory, ends up as a single file, and the href of a screenshot
+ * only depends on its content. Files taken from elsewhere on disk are hard-linked into the store when the file system
+ * allows it and copied otherwise; the original file is always left where it was.</p>
+ */
+final class ScreenshotStore {
+
+    static final String DIRECTORY = "screenshots";
+
+    private static final String DEFAULT_EXTENSION = ".png";
+    private static final char[] HEX = "0123456789abcdef".toCharArray();
+
+    private final Path directory;
+
+    ScreenshotStore(Path reportDir) {
+        this.directory = reportDir.toAbsolutePath().normalize().resolve(DIRECTORY);
+    }
+
+    /**
+     * Stores a PNG {@code screenshot} unless the same image is already there, and returns its path in the store.
+     */
+    Path put(byte[] screenshot) throws IOException {
+        Path target = directory.resolve(hash(screenshot) + DEFAULT_EXTENSION);
+        if (!Files.exists(target)) {
+            AtomicArtifactWriter.writeBytes(target, out -> out.write(screenshot));
+        }
+        return target;
+    }
+
+    /**
+     * Links the file at {@code source} into the store unless the same image is already there, and returns its path in
+     * the store. Files already inside the store are returned as they are.
+     */
+    Path putFile(Path source) throws IOException {
+        Path absoluteSource = source.toAbsolutePath().normalize();
+        if (directory.equals(absoluteSource.getParent())) {
+            return absoluteSource;
+        }
+        Path target = directory.resolve(hash(absoluteSource) + extension(absoluteSource));
+        if (Files.exists(target)) {
+            return target;
+        }
+        Files.createDirectories(directory);
+        try {
+            Files.createLink(target, absoluteSource);
+        } catch (FileAlreadyExistsException ignored) {
+            // Another test stored the same image in the meantime.
+        } catch (IOException | UnsupportedOperationException | SecurityException e) {
+            // Different file systems, or links are not supported there.
+            AtomicArtifactWriter.writeBytes(target, out -> Files.copy(absoluteSource, out));
+        }
+        return target;
+    }
+
+    private static String hash(byte[] content) {
+        MessageDigest digest = sha256();
+        digest.update(content);
+        return hex(digest.digest());
+    }
+
+    private static String hash(Path file) throws IOException {
+        MessageDigest digest = sha256();
+        byte[] buffer = new byte[8192];
+        try (InputStream in = Files.newInputStream(file)) {
+            int read;
+            while ((read = in.read(buffer)) > 0) {
+                digest.update(buffer, 0, read);
+            }
+        }
+        return hex(digest.digest());
+    }
+
+    private static MessageDigest sha256() {
+        try {
+            return MessageDigest.getInstance("SHA-256");
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM; it is required to store screenshots", e);
+        }
+    }
+
+    private static String hex(byte[] bytes) {
+        char[] text = new char[bytes.length * 2];
+        for (int index = 0; index < bytes.length; index++) {
+            text[index * 2] = HEX[(bytes[index] >> 4) & 0xf];
+            text[index * 2 + 1] = HEX[bytes[index] & 0xf];
+        }
+        return new String(text);
+    }
+
+    private static String extension(Path file) {
+        Path fileName = file.getFileName();
+        String name = fileName == null ? "" : fileName.toString();
+        int dot = name.lastIndexOf('.');
+        if (dot < 0) {
+            return DEFAULT_EXTENSION;
+        }
+        String extension = name.substring(dot).toLowerCase(Locale.ROOT);
+        return extension.matches("\\.[a-z0-9]{1,5}") ? extension : DEFAULT_EXTENSION;
+    }
+}
@@ -0,0 +1,177 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+/**
+ * Append-only journal of report summaries behind the suite index of one report directory.
+ *
+ * <p>Each finished test appends one compact line to {@value #FILE_NAME}, so rebuilding the index only reads the lines
+ * other tests and forks added since the last rebuild instead of every {@code report-*.json}. A directory without a
+ * journal, such as one written by an older Pepenium version, is seeded from its report files once. The
+ * {@link SuiteTotals} of the summaries are updated as records are added; a report written again under the same name
+ * recounts them. Callers hold the index lock of the directory around every method.</p>
+ */
+final class SuiteJournal {
+
+    static final String FILE_NAME = "summaries.jsonl";
+
+    private final Path reportDir;
+    private final Path file;
+    private final Map<String, PepeniumHtmlReportWriter.ReportSummary> summaries = new LinkedHashMap<>();
+    private SuiteTotals totals = new SuiteTotals();
+    private long offset;
+    private long renderedAtNanos;
+    private boolean dirty;
+    private boolean renderScheduled;
+
+    SuiteJournal(Path reportDir) {
+        this.reportDir = reportDir;
+        this.file = reportDir.resolve(FILE_NAME);
+    }
+
+    /**
+     * Reads the records appended since the last call, seeding the journal from existing reports if it is missing.
+     *
+     * @param pendingReport file name of a report about to be appended, left out of the seed; may be {@code null}
+     */
+    void catchUp(String pendingReport) throws IOException {
+        if (!Files.exists(file)) {
+            seed(pendingReport);
+            return;
+        }
+        long size = Files.size(file);
+        if (size < offset) {
+            summaries.clear();
+            totals = new SuiteTotals();
+            offset = 0L;
+        }
+        if (size == offset) {
+            return;
+        }
+        ByteBuffer buffer = ByteBuffer.allocate(Math.toIntExact(size - offset));
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            channel.position(offset);
+            while (buffer.hasRemaining()) {
+                if (channel.read(buffer) < 0) {
+                    break;
+                }
+            }
+        }
+        byte[] bytes = buffer.array();
+        int lineStart = 0;
+        for (int index = 0; index < buffer.position(); index++) {
+            if (bytes[index] == '\n') {
+                add(PepeniumReportJsonRenderer.loadSummaryRecord(
+                        new String(bytes, lineStart, index - lineStart, StandardCharsets.UTF_8)));
+                lineStart = index + 1;
+            }
+        }
+        offset += lineStart;
+    }
+
+    /**
+     * Appends {@code summary} to the journal; call {@link #catchUp(String)} first so no record of another fork is skipped.
+     */
+    void append(PepeniumHtmlReportWriter.ReportSummary summary) throws IOException {
+        byte[] record = (PepeniumReportJsonRenderer.renderSummaryRecord(summary) + "\n").getBytes(StandardCharsets.UTF_8);
+        Files.write(file, record, StandardOpenOption.CREATE, StandardOpenOption.WRITE, StandardOpenOption.APPEND);
+        offset += record.length;
+        add(summary);
+        dirty = true;
+    }
+
+    /**
+     * Summaries in the journal, newest first; a report written again under the same name keeps only its latest run.
+     */
+    List<PepeniumHtmlReportWriter.ReportSummary> summaries() {
+        List<PepeniumHtmlReportWriter.ReportSummary> newestFirst = new ArrayList<>(summaries.values());
+        Collections.reverse(newestFirst);
+        return newestFirst;
+    }
+
+    SuiteTotals totals() {
+        return totals;
+    }
+
+    boolean isDirty() {
+        return dirty;
+    }
+
+    long renderedAtNanos() {
+        return renderedAtNanos;
+    }
+
+    void rendered() {
+        dirty = false;
+        renderedAtNanos = System.nanoTime();
+    }
+
+    /**
+     * Marks a debounced rebuild as scheduled, returning {@code false} if one already was.
+     */
+    boolean scheduleRender() {
+        if (renderScheduled) {
+            return false;
+        }
+        renderScheduled = true;
+        return true;
+    }
+
+    void renderStarted() {
+        renderScheduled = false;
+    }
+
+    private void seed(String pendingReport) throws IOException {
+        summaries.clear();
+        totals = new SuiteTotals();
+        List<Path> reportFiles;
+        try (Stream<Path> files = Files.list(reportDir)) {
+            reportFiles = files
+                    .filter(path -> path.getFileName().toString().startsWith("report-"))
+                    .filter(path -> path.getFileName().toString().endsWith(".json"))
+                    .filter(path -> !path.getFileName().toString().equals(pendingReport))
+                    .sorted(Comparator.comparing(PepeniumReportSupport::lastModifiedSafely))
+                    .collect(Collectors.toList());
+        }
+        StringBuilder records = new StringBuilder();
+        for (Path reportFile : reportFiles) {
+            PepeniumHtmlReportWriter.ReportSummary summary = PepeniumReportJsonRenderer.loadSummary(reportFile);
+            if (summary != null) {
+                records.append(PepeniumReportJsonRenderer.renderSummaryRecord(summary)).append('\n');
+                add(summary);
+            }
+        }
+        byte[] bytes = records.toString().getBytes(StandardCharsets.UTF_8);
+        Files.write(file, bytes, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+        offset = bytes.length;
+        dirty = true;
+    }
+
+    private void add(PepeniumHtmlReportWriter.ReportSummary summary) {
+        if (summary == null) {
+            return;
+        }
+        String key = summary.htmlReport == null ? "#" + summaries.size() : summary.htmlReport;
+        boolean replaced = summaries.remove(key) != null;
+        summaries.put(key, summary);
+        if (replaced) {
+            totals = SuiteTotals.of(summaries.values());
+        } else {
+            totals.add(summary);
+        }
+    }
+}
@@ -0,0 +1,245 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.function.ToLongFunction;
+
+/**
+ * Counts and totals of the summaries in a {@link SuiteJournal}, updated as each record is added so rebuilding the
+ * suite index does not walk every summary again.
+ *
+ * <p>Session figures are counted once per session lease, from the newest summary of the lease. Callers hold the index
+ * lock of the report directory, like for the journal itself.</p>
+ */
+final class SuiteTotals {
+
+    static final int TOP_LIST_SIZE = 5;
+
+    private long reports;
+    private long passed;
+    private long durationMillis;
+    private long remoteRuns;
+    private final Map<String, Long> outcomes = new LinkedHashMap<>();
+    private final Map<String, Long> targets = new LinkedHashMap<>();
+    private final Map<String, Long> profiles = new LinkedHashMap<>();
+    private final Map<String, Long> providers = new LinkedHashMap<>();
+    private final List<PepeniumHtmlReportWriter.ReportSummary> slowest = new ArrayList<>();
+    private final List<PepeniumHtmlReportWriter.ReportSummary> mostScreenshots = new ArrayList<>();
+    private final Map<String, List<PepeniumHtmlReportWriter.ReportSummary>> runsPerTest = new TreeMap<>();
+    private final Map<String, PepeniumHtmlReportWriter.ReportSummary> sessionLeases = new HashMap<>();
+    private long reusedSessions;
+    private long startupSavedMillis;
+    private long prewarmHits;
+    private long prewarmMisses;
+    private long recoveries;
+    private long recoveryMillis;
+    private long quotaWaits;
+    private long quotaWaitMillis;
+    private List<CommandLatencyRecorder.Histogram> commandLatency = List.of();
+    private List<LifecyclePhaseRecorder.Timing> lifecyclePhases = List.of();
+
+    /**
+     * Totals of {@code summaries}, given oldest first.
+     */
+    static SuiteTotals of(Collection<PepeniumHtmlReportWriter.ReportSummary> summaries) {
+        SuiteTotals totals = new SuiteTotals();
+        summaries.forEach(totals::add);
+        return totals;
+    }
+
+    /**
+     * Counts a summary newer than every summary counted so far.
+     */
+    void add(PepeniumHtmlReportWriter.ReportSummary summary) {
+        reports++;
+        if ("PASSED".equals(summary.outcome)) {
+            passed++;
+        }
+        durationMillis += summary.durationMillis;
+        if ("true".equalsIgnoreCase(summary.remoteEnabled)) {
+            remoteRuns++;
+        }
+        outcomes.merge(summary.outcome, 1L, Long::sum);
+        targets.merge(summary.target, 1L, Long::sum);
+        profiles.merge(summary.profileId, 1L, Long::sum);
+        providers.merge(summary.provider, 1L, Long::sum);
+        insertTop(slowest, summary, run -> run.durationMillis);
+        insertTop(mostScreenshots, summary, run -> run.screenshotCount);
+        insertRun(runsPerTest.computeIfAbsent(matrixTestName(summary), ignored -> new ArrayList<>()), summary);
+        if (summary.sessionLeaseId != null) {
+            PepeniumHtmlReportWriter.ReportSummary previous = sessionLeases.put(summary.sessionLeaseId, summary);
+            if (previous != null) {
+                countLease(previous, -1);
+            }
+            countLease(summary, 1);
+        }
+        commandLatency = CommandLatencyRecorder.merge(List.of(commandLatency, summary.commandLatency));
+        lifecyclePhases = LifecyclePhaseRecorder.merge(List.of(lifecyclePhases, summary.lifecyclePhases));
+    }
+
+    long reports() {
+        return reports;
+    }
+
+    long passed() {
+        return passed;
+    }
+
+    long failed() {
+        return reports - passed;
+    }
+
+    long durationMillis() {
+        return durationMillis;
+    }
+
+    long remoteRuns() {
+        return remoteRuns;
+    }
+
+    /**
+     * Reports per outcome, target, profile or provider value, in the order the values first appeared; a missing value
+     * is counted under {@code null}.
+     */
+    Map<String, Long> outcomes() {
+        return outcomes;
+    }
+
+    Map<String, Long> targets() {
+        return targets;
+    }
+
+    Map<String, Long> profiles() {
+        return profiles;
+    }
+
+    Map<String, Long> providers() {
+        return providers;
+    }
+
+    /**
+     * The {@value #TOP_LIST_SIZE} longest tests, newest first among equal durations.
+     */
+    List<PepeniumHtmlReportWriter.ReportSummary> slowest() {
+        return slowest;
+    }
+
+    List<PepeniumHtmlReportWriter.ReportSummary> mostScreenshots() {
+        return mostScreenshots;
+    }
+
+    /**
+     * Runs of the same test on more than one profile, keyed by the test name without its profile suffix and sorted by
+     * profile.
+     */
+    Map<String, List<PepeniumHtmlReportWriter.ReportSummary>> profileMatrix() {
+        Map<String, List<PepeniumHtmlReportWriter.ReportSummary>> matrix = new LinkedHashMap<>();
+        runsPerTest.forEach((testName, runs) -> {
+            if (runs.stream().map(run -> run.profileId).distinct().count() > 1) {
+                matrix.put(testName, runs);
+            }
+        });
+        return matrix;
+    }
+
+    long reusedSessions() {
+        return reusedSessions;
+    }
+
+    long startupSavedMillis() {
+        return startupSavedMillis;
+    }
+
+    long prewarmHits() {
+        return prewarmHits;
+    }
+
+    long prewarmMisses() {
+        return prewarmMisses;
+    }
+
+    long recoveries() {
+        return recoveries;
+    }
+
+    long recoveryMillis() {
+        return recoveryMillis;
+    }
+
+    long quotaWaits() {
+        return quotaWaits;
+    }
+
+    long quotaWaitMillis() {
+        return quotaWaitMillis;
+    }
+
+    List<CommandLatencyRecorder.Histogram> commandLatency() {
+        return commandLatency;
+    }
+
+    List<LifecyclePhaseRecorder.Timing> lifecyclePhases() {
+        return lifecyclePhases;
+    }
+
+    private void countLease(PepeniumHtmlReportWriter.ReportSummary lease, int sign) {
+        if (lease.sessionReused) {
+            reusedSessions += sign;
+            startupSavedMillis += sign * lease.startupSavedMillis;
+        }
+        if ("PREWARMED".equals(lease.sessionSource)) {
+            prewarmHits += sign;
+        }
+        if (lease.prewarmMissed) {
+            prewarmMisses += sign;
+        }
+        if (lease.sessionRecovered) {
+            recoveries += sign;
+            recoveryMillis += sign * lease.recoveryMillis;
+        }
+        if (lease.quotaWaitMillis > 0) {
+            quotaWaits += sign;
+            quotaWaitMillis += sign * lease.quotaWaitMillis;
+        }
+    }
+
+    private static void insertTop(List<PepeniumHtmlReportWriter.ReportSummary> top,
+                                  PepeniumHtmlReportWriter.ReportSummary summary,
+                                  ToLongFunction<PepeniumHtmlReportWriter.ReportSummary> metric) {
+        int position = 0;
+        while (position < top.size() && metric.applyAsLong(top.get(position)) > metric.applyAsLong(summary)) {
+            position++;
+        }
+        if (position < TOP_LIST_SIZE) {
+            top.add(position, summary);
+            if (top.size() > TOP_LIST_SIZE) {
+                top.remove(TOP_LIST_SIZE);
+            }
+        }
+    }
+
+    private static void insertRun(List<PepeniumHtmlReportWriter.ReportSummary> runs,
+                                  PepeniumHtmlReportWriter.ReportSummary summary) {
+        Comparator<PepeniumHtmlReportWriter.ReportSummary> byProfile =
+                Comparator.comparing(run -> PepeniumReportSupport.defaultValue(run.profileId));
+        int position = 0;
+        while (position < runs.size() && byProfile.compare(runs.get(position), summary) < 0) {
+            position++;
+        }
+        runs.add(position, summary);
+    }
+
+    private static String matrixTestName(PepeniumHtmlReportWriter.ReportSummary summary) {
+        String testName = PepeniumReportSupport.defaultValue(summary.testName);
+        String suffix = " [" + summary.profileId + "]";
+        return summary.profileId != null && testName.endsWith(suffix)
+                ? testName.substring(0, testName.length() - suffix.length())
+                : testName;
+    }
+}
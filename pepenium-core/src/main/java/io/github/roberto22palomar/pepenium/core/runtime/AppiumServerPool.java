@@ -0,0 +1,228 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.function.Supplier;
+
+/**
+ * Keeps locally started Appium servers warm between test classes.
+ *
+ * <p>Configs that start their own {@link AppiumDriverLocalService} lease it through {@link #lease(String, Supplier)}.
+ * With {@value #ENABLED_KEY} enabled, closing a session hands its server back instead of stopping it, and the next
+ * request with the same key reuses it on the port it already listens on, skipping several seconds of Node startup.
+ * Idle servers are health-checked against Appium's status endpoint before each lease and replaced when they stopped
+ * answering. At most {@value #MAX_IDLE_KEY} idle servers are kept per key; the rest, and every server still running
+ * when the launcher or the JVM stops, are shut down.</p>
+ *
+ * <p>With {@link ForkLeaseRegistry#ENABLED_KEY} on, each started server claims its port across surefire forks, and a
+ * server whose free port another fork already took is rebuilt on a different one.</p>
+ */
+public final class AppiumServerPool {
+
+    static final String ENABLED_KEY = "PEPENIUM_APPIUM_SERVER_POOL";
+    static final String MAX_IDLE_KEY = "PEPENIUM_APPIUM_SERVER_POOL_MAX_IDLE";
+    static final int DEFAULT_MAX_IDLE = 2;
+    static final int MAX_PORT_ATTEMPTS = 5;
+
+    private static final Logger log = LoggerFactory.getLogger(AppiumServerPool.class);
+    private static final Map<AppiumDriverLocalService, ForkLeaseRegistry.Claim> PORT_CLAIMS =
+            Collections.synchronizedMap(new IdentityHashMap<>());
+    private static AppiumServerPool shared;
+    private static boolean shutdownHookRegistered;
+
+    private final int maxIdle;
+    private final Map<String, Deque<AppiumDriverLocalService>> idleByKey = new HashMap<>();
+    private final Map<AppiumDriverLocalService, String> leased = new IdentityHashMap<>();
+    private boolean closed;
+
+    AppiumServerPool(int maxIdle) {
+        this.maxIdle = maxIdle;
+    }
+
+    /**
+     * Returns a running Appium server for {@code key}: a healthy idle one from the pool when pooling is enabled,
+     * otherwise a new one built by {@code launcher} and started. Servers built by the same launcher must share a key.
+     */
+    public static AppiumDriverLocalService lease(String key, Supplier<AppiumDriverLocalService> launcher) {
+        if (!isEnabled()) {
+            return launch(launcher);
+        }
+        return shared().acquire(key, launcher);
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    static synchronized AppiumServerPool shared() {
+        if (shared == null) {
+            shared = new AppiumServerPool(RuntimeSettings.positiveInt(MAX_IDLE_KEY, DEFAULT_MAX_IDLE));
+            if (!shutdownHookRegistered) {
+                shutdownHookRegistered = true;
+                Runtime.getRuntime().addShutdownHook(
+                        new Thread(AppiumServerPool::closeShared, "pepenium-appium-server-shutdown"));
+            }
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        AppiumServerPool current;
+        synchronized (AppiumServerPool.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Hands {@code service} back to the shared pool. Returns {@code false} when the pool does not own it, in which
+     * case the caller stops it as before.
+     */
+    static boolean release(AppiumDriverLocalService service) {
+        AppiumServerPool current;
+        synchronized (AppiumServerPool.class) {
+            current = shared;
+        }
+        if (current != null && current.giveBack(service)) {
+            return true;
+        }
+        releasePort(service);
+        return false;
+    }
+
+    AppiumDriverLocalService acquire(String key, Supplier<AppiumDriverLocalService> launcher) {
+        AppiumDriverLocalService idle;
+        while ((idle = takeIdle(key)) != null) {
+            if (idle.isRunning()) {
+                log.info("Reusing warm Appium server {}", SensitiveDataSanitizer.sanitizeServerUrl(idle.getUrl()));
+                return idle;
+            }
+            log.warn("Replacing pooled Appium server {} because it no longer answers its status endpoint",
+                    SensitiveDataSanitizer.sanitizeServerUrl(idle.getUrl()));
+            forget(idle);
+            stopQuietly(idle);
+        }
+        AppiumDriverLocalService service = launch(launcher);
+        synchronized (this) {
+            if (!closed) {
+                leased.put(service, key);
+            }
+        }
+        return service;
+    }
+
+    boolean giveBack(AppiumDriverLocalService service) {
+        synchronized (this) {
+            String key = leased.remove(service);
+            if (key == null) {
+                return false;
+            }
+            Deque<AppiumDriverLocalService> idle = idleByKey.computeIfAbsent(key, ignored -> new ArrayDeque<>());
+            if (idle.size() < maxIdle) {
+                idle.addLast(service);
+                return true;
+            }
+        }
+        stopQuietly(service);
+        return true;
+    }
+
+    synchronized int idleCount(String key) {
+        Deque<AppiumDriverLocalService> idle = idleByKey.get(key);
+        return idle == null ? 0 : idle.size();
+    }
+
+    /**
+     * Stops every idle server and every server still leased out, so no Node process outlives the run.
+     */
+    void close() {
+        List<AppiumDriverLocalService> running = new ArrayList<>();
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            idleByKey.values().forEach(running::addAll);
+            idleByKey.clear();
+            running.addAll(leased.keySet());
+            leased.clear();
+        }
+        running.forEach(AppiumServerPool::stopQuietly);
+    }
+
+    private synchronized AppiumDriverLocalService takeIdle(String key) {
+        Deque<AppiumDriverLocalService> idle = idleByKey.get(key);
+        AppiumDriverLocalService service = idle == null ? null : idle.pollFirst();
+        if (service != null) {
+            leased.put(service, key);
+        }
+        return service;
+    }
+
+    private synchronized void forget(AppiumDriverLocalService service) {
+        leased.remove(service);
+    }
+
+    private static AppiumDriverLocalService launch(Supplier<AppiumDriverLocalService> launcher) {
+        AppiumDriverLocalService service = launcher.get();
+        ForkLeaseRegistry registry = ForkLeaseRegistry.shared();
+        if (registry.isEnabled()) {
+            service = claimPort(registry, service, launcher);
+        }
+        try {
+            service.start();
+        } catch (RuntimeException error) {
+            releasePort(service);
+            throw error;
+        }
+        return service;
+    }
+
+    private static AppiumDriverLocalService claimPort(ForkLeaseRegistry registry, AppiumDriverLocalService built,
+                                                      Supplier<AppiumDriverLocalService> launcher) {
+        AppiumDriverLocalService service = built;
+        for (int attempt = 1; attempt <= MAX_PORT_ATTEMPTS; attempt++) {
+            int port = service.getUrl().getPort();
+            ForkLeaseRegistry.Claim claim = registry.tryClaim(List.of("appium-port:" + port));
+            if (claim != null) {
+                PORT_CLAIMS.put(service, claim);
+                return service;
+            }
+            log.info("Appium port {} is already claimed by another test fork; choosing another port", port);
+            service = launcher.get();
+        }
+        throw new IllegalStateException("Could not claim a free Appium port after " + MAX_PORT_ATTEMPTS
+                + " attempts because other test forks held every port offered. Build the service with "
+                + "usingAnyFreePort() or reduce the surefire forkCount.");
+    }
+
+    private static void releasePort(AppiumDriverLocalService service) {
+        ForkLeaseRegistry.Claim claim = PORT_CLAIMS.remove(service);
+        if (claim != null) {
+            claim.release();
+        }
+    }
+
+    private static void stopQuietly(AppiumDriverLocalService service) {
+        releasePort(service);
+        try {
+            service.stop();
+        } catch (RuntimeException error) {
+            log.warn("Failed to stop Appium server: {}", SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+    }
+}
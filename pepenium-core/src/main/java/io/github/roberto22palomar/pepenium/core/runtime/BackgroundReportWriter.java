@@ -0,0 +1,182 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
+import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Renders and writes test reports on background threads so the next test does not wait for HTML, JSON and index work.
+ *
+ * <p>The test thread only takes a {@link PepeniumHtmlReportWriter.ReportSnapshot} of its steps, timeline and driver.
+ * The executor is bounded: once {@value #QUEUE_KEY} snapshots are waiting, the test thread writes its report itself.
+ * When the launcher or the JVM stops, pending reports are written until {@value #DRAIN_TIMEOUT_KEY} expires.</p>
+ */
+final class BackgroundReportWriter implements AutoCloseable {
+
+    static final String ENABLED_KEY = "PEPENIUM_ASYNC_REPORTS";
+    static final String THREADS_KEY = "PEPENIUM_REPORT_THREADS";
+    static final String QUEUE_KEY = "PEPENIUM_REPORT_QUEUE";
+    static final String DRAIN_TIMEOUT_KEY = "PEPENIUM_REPORT_DRAIN_TIMEOUT";
+    static final int DEFAULT_THREADS = 2;
+    static final int DEFAULT_QUEUE = 16;
+    static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final Logger log = LoggerFactory.getLogger(BackgroundReportWriter.class);
+    private static BackgroundReportWriter shared;
+    private static boolean shutdownHookRegistered;
+
+    private final ThreadPoolExecutor executor;
+    private final Duration drainTimeout;
+    private final Consumer<PepeniumHtmlReportWriter.ReportSnapshot> writer;
+    private boolean closed;
+    private int submitted;
+    private int writtenByCaller;
+
+    BackgroundReportWriter(int threads,
+                           int queueCapacity,
+                           Duration drainTimeout,
+                           Consumer<PepeniumHtmlReportWriter.ReportSnapshot> writer) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                30L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(() -> {
+                        LifecyclePhaseRecorder.markBackgroundThread();
+                        runnable.run();
+                    }, "pepenium-report-writer-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, ignored) -> {
+                    synchronized (this) {
+                        writtenByCaller++;
+                    }
+                    task.run();
+                }
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.drainTimeout = drainTimeout;
+        this.writer = writer;
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    static synchronized BackgroundReportWriter shared() {
+        if (shared == null) {
+            shared = new BackgroundReportWriter(
+                    RuntimeSettings.positiveInt(THREADS_KEY, DEFAULT_THREADS),
+                    RuntimeSettings.positiveInt(QUEUE_KEY, DEFAULT_QUEUE),
+                    RuntimeSettings.duration(DRAIN_TIMEOUT_KEY, DEFAULT_DRAIN_TIMEOUT),
+                    PepeniumHtmlReportWriter::write
+            );
+            if (!shutdownHookRegistered) {
+                shutdownHookRegistered = true;
+                Runtime.getRuntime().addShutdownHook(
+                        new Thread(BackgroundReportWriter::closeShared, "pepenium-report-drain"));
+            }
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        BackgroundReportWriter current;
+        synchronized (BackgroundReportWriter.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Writes the report of the test that just finished on the current thread, in the background when asynchronous
+     * reports are enabled. The snapshot time is recorded as {@link LifecyclePhaseRecorder.Phase#REPORT_SNAPSHOT}.
+     */
+    static void write(String testName, DriverSession session, Throwable cause) {
+        if (!isEnabled()) {
+            PepeniumHtmlReportWriter.write(testName, session, cause);
+            return;
+        }
+        long startedAt = System.nanoTime();
+        PepeniumHtmlReportWriter.ReportSnapshot snapshot = PepeniumHtmlReportWriter.capture(testName, session, cause);
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.REPORT_SNAPSHOT, startedAt);
+        if (snapshot != null) {
+            shared().submit(snapshot);
+        }
+    }
+
+    /**
+     * Queues the report of {@code snapshot}. A full queue or a closed writer writes it on the calling thread instead.
+     */
+    void submit(PepeniumHtmlReportWriter.ReportSnapshot snapshot) {
+        boolean queue;
+        synchronized (this) {
+            queue = !closed;
+            submitted++;
+        }
+        if (queue) {
+            executor.execute(() -> writer.accept(snapshot));
+        } else {
+            writer.accept(snapshot);
+        }
+    }
+
+    @Override
+    public void close() {
+        int pending;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = executor.getQueue().size() + executor.getActiveCount();
+        }
+        if (pending > 0) {
+            log.info("Waiting up to {} for {} pending Pepenium report(s)", drainTimeout, pending);
+        }
+        executor.shutdown();
+        boolean drained = awaitDrain();
+        if (!drained) {
+            List<Runnable> abandoned = executor.shutdownNow();
+            log.warn("Report drain timed out after {}; {} Pepenium report(s) were not written",
+                    drainTimeout, abandoned.size() + executor.getActiveCount());
+        }
+        int reports;
+        int byCaller;
+        synchronized (this) {
+            reports = submitted;
+            byCaller = writtenByCaller;
+        }
+        if (byCaller > 0) {
+            log.info("Background report queue was full for {} of {} report(s); raise {} to keep them off test threads",
+                    byCaller, reports, QUEUE_KEY);
+        } else if (reports > 0) {
+            log.debug("Background report writer wrote {} report(s)", reports);
+        }
+    }
+
+    private boolean awaitDrain() {
+        try {
+            return executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+}
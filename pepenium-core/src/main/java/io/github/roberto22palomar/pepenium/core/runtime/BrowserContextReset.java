@@ -0,0 +1,73 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WindowType;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.bidi.browsingcontext.BrowsingContext;
+import org.openqa.selenium.bidi.browsingcontext.CreateContextParameters;
+import org.openqa.selenium.bidi.module.Browser;
+
+import java.util.Set;
+
+/**
+ * Isolates the next test class in a fresh WebDriver BiDi user context instead of starting a new browser.
+ *
+ * <p>A user context has its own cookies, storage and cache, so opening one is as clean as a new browser profile but
+ * costs a tab instead of a browser launch. Pooled local browser sessions opened for this reset ask for
+ * {@code webSocketUrl} so BiDi is available; remote sessions are requested unchanged, and any session that comes up
+ * without BiDi falls back to {@link SessionResetStep#webState()}.</p>
+ */
+final class BrowserContextReset implements SessionResetStep {
+
+    private static final String DEFAULT_USER_CONTEXT = "default";
+
+    @Override
+    public DriverRequest prepare(DriverRequest request) {
+        if (!isLocalBrowser(request.getDriverType()) || request.getCapabilities() == null
+                || Boolean.TRUE.equals(request.getCapabilities().getCapability("webSocketUrl"))) {
+            return request;
+        }
+        return request.toBuilder()
+                .capabilities(request.getCapabilities().merge(new ImmutableCapabilities("webSocketUrl", true)))
+                .build();
+    }
+
+    @Override
+    public void reset(DriverSession session) throws Exception {
+        WebDriver driver = session.getDriver();
+        if (!(driver instanceof HasBiDi) || ((HasBiDi) driver).maybeGetBiDi().isEmpty()) {
+            SessionResetStep.webState().reset(session);
+            return;
+        }
+        Browser browser = new Browser(driver);
+        String userContext = browser.createUserContext();
+        String tab = new BrowsingContext(driver, new CreateContextParameters(WindowType.TAB).userContext(userContext))
+                .getId();
+        for (String previous : browser.getUserContexts()) {
+            if (!DEFAULT_USER_CONTEXT.equals(previous) && !userContext.equals(previous)) {
+                browser.removeUserContext(previous);
+            }
+        }
+        Set<String> handles = driver.getWindowHandles();
+        for (String handle : handles) {
+            if (!handle.equals(tab)) {
+                driver.switchTo().window(handle);
+                driver.close();
+            }
+        }
+        driver.switchTo().window(tab);
+    }
+
+    /**
+     * Remote grids and cloud providers decide themselves whether to expose BiDi and may reject the capability, so it is
+     * only requested from browsers this JVM starts.
+     */
+    private static boolean isLocalBrowser(DriverType driverType) {
+        return driverType == DriverType.LOCAL_CHROME
+                || driverType == DriverType.LOCAL_FIREFOX
+                || driverType == DriverType.LOCAL_EDGE;
+    }
+}
@@ -0,0 +1,238 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.CommandLatencyRecorder;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.Filter;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * Times every WebDriver command at the HTTP layer and records it in {@link CommandLatencyRecorder} under its W3C
+ * command name.
+ *
+ * <p>Timing the HTTP exchange instead of decorating the driver keeps the concrete driver type, so casts to
+ * {@code AppiumDriver} or {@code RemoteWebDriver} in tests and pages keep working while {@value #ENABLED_KEY} is on.</p>
+ */
+final class CommandLatencyTracking {
+
+    static final String ENABLED_KEY = "PEPENIUM_COMMAND_METRICS";
+
+    private static final Set<String> ID_SEGMENTS = Set.of("element", "shadow");
+    private static final Set<String> NAME_SEGMENTS = Set.of("attribute", "property", "css", "cookie");
+    private static final Map<String, String> COMMANDS = commands();
+
+    private CommandLatencyTracking() {
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    /**
+     * Client configuration for local drivers, whose HTTP client is created by Selenium itself.
+     *
+     * <p>Local drivers are always built from the default driver service and this configuration, which is what
+     * Selenium's options-only constructors do, so enabling {@value #ENABLED_KEY} only adds the timing filter and never
+     * changes how the driver is launched.</p>
+     */
+    static ClientConfig localClientConfig() {
+        return isEnabled() ? ClientConfig.defaultConfig().withFilter(filter()) : ClientConfig.defaultConfig();
+    }
+
+    static Filter filter() {
+        return next -> request -> {
+            long startedAt = System.nanoTime();
+            try {
+                return next.execute(request);
+            } finally {
+                CommandLatencyRecorder.record(commandName(request), System.nanoTime() - startedAt);
+            }
+        };
+    }
+
+    /**
+     * Wraps the clients of {@code delegate}; used for remote drivers so timing also works on shared clients.
+     */
+    static HttpClient.Factory timed(HttpClient.Factory delegate) {
+        return new HttpClient.Factory() {
+            @Override
+            public HttpClient createClient(ClientConfig config) {
+                return new TimedClient(delegate.createClient(config));
+            }
+
+            @Override
+            public void cleanupIdleClients() {
+                delegate.cleanupIdleClients();
+            }
+        };
+    }
+
+    static String commandName(HttpRequest request) {
+        return commandName(request.getMethod(), request.getUri());
+    }
+
+    /**
+     * Maps a W3C or Appium endpoint to its command name, e.g. {@code POST /session/4f2/element/9c/click} to
+     * {@code clickElement}. Unknown endpoints keep their method and path with session, element and name segments
+     * replaced by placeholders so they still aggregate across sessions.
+     */
+    static String commandName(HttpMethod method, String uri) {
+        String path = normalizePath(uri);
+        String known = COMMANDS.get(method + " " + path);
+        return known != null ? known : method + " " + path;
+    }
+
+    static String normalizePath(String uri) {
+        String path = uri == null ? "" : uri;
+        int query = path.indexOf('?');
+        if (query >= 0) {
+            path = path.substring(0, query);
+        }
+        int session = path.indexOf("/session");
+        if (session > 0) {
+            path = path.substring(session);
+        }
+        String[] segments = path.split("/");
+        StringBuilder normalized = new StringBuilder();
+        for (int index = 0; index < segments.length; index++) {
+            String segment = segments[index];
+            if (segment.isEmpty()) {
+                continue;
+            }
+            String previous = index > 0 ? segments[index - 1] : "";
+            if ("session".equals(previous) && index == 2) {
+                continue;
+            }
+            if (ID_SEGMENTS.contains(previous) && !"active".equals(segment)) {
+                segment = "{id}";
+            } else if (NAME_SEGMENTS.contains(previous)) {
+                segment = "{name}";
+            }
+            normalized.append('/').append(segment);
+        }
+        return normalized.length() == 0 ? "/" : normalized.toString();
+    }
+
+    private static Map<String, String> commands() {
+        Map<String, String> commands = new HashMap<>();
+        commands.put("POST /session", "newSession");
+        commands.put("DELETE /session", "quit");
+        commands.put("GET /session/timeouts", "getTimeouts");
+        commands.put("POST /session/timeouts", "setTimeouts");
+        commands.put("POST /session/url", "get");
+        commands.put("GET /session/url", "getCurrentUrl");
+        commands.put("POST /session/back", "goBack");
+        commands.put("POST /session/forward", "goForward");
+        commands.put("POST /session/refresh", "refresh");
+        commands.put("GET /session/title", "getTitle");
+        commands.put("GET /session/source", "getPageSource");
+        commands.put("GET /session/window", "getCurrentWindowHandle");
+        commands.put("POST /session/window", "switchToWindow");
+        commands.put("DELETE /session/window", "closeWindow");
+        commands.put("GET /session/window/handles", "getWindowHandles");
+        commands.put("POST /session/window/new", "newWindow");
+        commands.put("GET /session/window/rect", "getWindowRect");
+        commands.put("POST /session/window/rect", "setWindowRect");
+        commands.put("POST /session/window/maximize", "maximizeWindow");
+        commands.put("POST /session/frame", "switchToFrame");
+        commands.put("POST /session/frame/parent", "switchToParentFrame");
+        commands.put("GET /session/element/active", "getActiveElement");
+        commands.put("POST /session/element", "findElement");
+        commands.put("POST /session/elements", "findElements");
+        commands.put("POST /session/element/{id}/element", "findChildElement");
+        commands.put("POST /session/element/{id}/elements", "findChildElements");
+        commands.put("GET /session/element/{id}/shadow", "getElementShadowRoot");
+        commands.put("POST /session/shadow/{id}/element", "findElementFromShadowRoot");
+        commands.put("POST /session/shadow/{id}/elements", "findElementsFromShadowRoot");
+        commands.put("GET /session/element/{id}/selected", "isElementSelected");
+        commands.put("GET /session/element/{id}/displayed", "isElementDisplayed");
+        commands.put("GET /session/element/{id}/enabled", "isElementEnabled");
+        commands.put("GET /session/element/{id}/attribute/{name}", "getElementAttribute");
+        commands.put("GET /session/element/{id}/property/{name}", "getElementProperty");
+        commands.put("GET /session/element/{id}/css/{name}", "getElementValueOfCssProperty");
+        commands.put("GET /session/element/{id}/text", "getElementText");
+        commands.put("GET /session/element/{id}/name", "getElementTagName");
+        commands.put("GET /session/element/{id}/rect", "getElementRect");
+        commands.put("POST /session/element/{id}/click", "clickElement");
+        commands.put("POST /session/element/{id}/clear", "clearElement");
+        commands.put("POST /session/element/{id}/value", "sendKeysToElement");
+        commands.put("GET /session/element/{id}/screenshot", "elementScreenshot");
+        commands.put("POST /session/execute/sync", "executeScript");
+        commands.put("POST /session/execute/async", "executeAsyncScript");
+        commands.put("GET /session/cookie", "getAllCookies");
+        commands.put("GET /session/cookie/{name}", "getCookie");
+        commands.put("POST /session/cookie", "addCookie");
+        commands.put("DELETE /session/cookie", "deleteAllCookies");
+        commands.put("DELETE /session/cookie/{name}", "deleteCookie");
+        commands.put("POST /session/actions", "actions");
+        commands.put("DELETE /session/actions", "releaseActions");
+        commands.put("POST /session/alert/dismiss", "dismissAlert");
+        commands.put("POST /session/alert/accept", "acceptAlert");
+        commands.put("GET /session/alert/text", "getAlertText");
+        commands.put("GET /session/screenshot", "screenshot");
+        commands.put("POST /session/appium/device/activate_app", "activateApp");
+        commands.put("POST /session/appium/device/terminate_app", "terminateApp");
+        commands.put("GET /session/context", "getCurrentContext");
+        commands.put("POST /session/context", "switchToContext");
+        commands.put("GET /session/contexts", "getContextHandles");
+        return commands;
+    }
+
+    private static final class TimedClient implements HttpClient {
+        private final HttpClient delegate;
+
+        private TimedClient(HttpClient delegate) {
+            this.delegate = delegate;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            long startedAt = System.nanoTime();
+            try {
+                return delegate.execute(request);
+            } finally {
+                CommandLatencyRecorder.record(commandName(request), System.nanoTime() - startedAt);
+            }
+        }
+
+        @Override
+        public CompletableFuture<HttpResponse> executeAsync(HttpRequest request) {
+            return delegate.executeAsync(request);
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return delegate.openSocket(request, listener);
+        }
+
+        @Override
+        public <T> CompletableFuture<java.net.http.HttpResponse<T>> sendAsyncNative(
+                java.net.http.HttpRequest request,
+                java.net.http.HttpResponse.BodyHandler<T> handler
+        ) {
+            return delegate.sendAsyncNative(request, handler);
+        }
+
+        @Override
+        public <T> java.net.http.HttpResponse<T> sendNative(
+                java.net.http.HttpRequest request,
+                java.net.http.HttpResponse.BodyHandler<T> handler
+        ) throws IOException, InterruptedException {
+            return delegate.sendNative(request, handler);
+        }
+
+        @Override
+        public void close() {
+            delegate.close();
+        }
+    }
+}
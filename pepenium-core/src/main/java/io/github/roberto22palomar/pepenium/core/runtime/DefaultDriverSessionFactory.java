@@ -4,6 +4,7 @@ import io.appium.java_client.android.AndroidDriver;
 import io.appium.java_client.ios.IOSDriver;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
 import io.github.roberto22palomar.pepenium.core.observability.CapabilitiesSummary;
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
 import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
 import io.github.roberto22palomar.pepenium.core.observability.PepeniumBanner;
 import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
@@ -11,84 +12,125 @@ import org.openqa.selenium.Capabilities;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
+import org.openqa.selenium.edge.EdgeDriverService;
 import org.openqa.selenium.edge.EdgeOptions;
 import org.openqa.selenium.firefox.FirefoxDriver;
 import org.openqa.selenium.firefox.FirefoxOptions;
+import org.openqa.selenium.firefox.GeckoDriverService;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.net.URL;
 import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
 import java.util.function.BiConsumer;
 
 public class DefaultDriverSessionFactory implements DriverSessionFactory {
 
     private static final Logger log = LoggerFactory.getLogger(DefaultDriverSessionFactory.class);
     private final BiConsumer<DriverRequest, Duration> endpointPreflight;
+    private final SessionConcurrencyLimiter concurrencyLimiter;
+    private final ProviderQuotaController quotaController;
+    private final SessionCreationRetry creationRetry;
+    private final EndpointCircuitBreaker circuitBreaker;
+    private final DevicePool devicePool;
 
     public DefaultDriverSessionFactory() {
-        this(DriverEndpointPreflight::verifyLocalEndpoint);
+        this(DriverEndpointPreflight::verifyLocalEndpoint, SessionConcurrencyLimiter.shared(),
+                ProviderQuotaController.shared(), SessionCreationRetry.shared(), EndpointCircuitBreaker.shared(),
+                DevicePool.shared());
     }
 
-    DefaultDriverSessionFactory(BiConsumer<DriverRequest, Duration> endpointPreflight) {
+    DefaultDriverSessionFactory(BiConsumer<DriverRequest, Duration> endpointPreflight,
+                                SessionConcurrencyLimiter concurrencyLimiter,
+                                ProviderQuotaController quotaController,
+                                SessionCreationRetry creationRetry,
+                                EndpointCircuitBreaker circuitBreaker,
+                                DevicePool devicePool) {
         this.endpointPreflight = endpointPreflight;
+        this.concurrencyLimiter = concurrencyLimiter;
+        this.quotaController = quotaController;
+        this.creationRetry = creationRetry;
+        this.circuitBreaker = circuitBreaker;
+        this.devicePool = devicePool;
     }
 
     @Override
     public DriverSession create(DriverRequest request) throws Exception {
+        SessionConcurrencyLimiter.Permit permit = null;
+        ProviderQuotaController.Admission admission = null;
+        DevicePool.Lease device = null;
+        boolean endpointReachable = false;
         try {
             validateRequest(request);
+            device = devicePool.lease(request);
+            DriverRequest target = device.assign(request);
+            EndpointCircuitBreaker.Circuit circuit = circuitBreaker.circuitFor(target);
+            circuit.ensureClosed();
+            permit = concurrencyLimiter.acquire(target);
             Duration connectTimeout = SessionTimeouts.connectTimeout();
             Duration commandTimeout = SessionTimeouts.commandTimeout();
-            endpointPreflight.accept(request, connectTimeout);
-            PepeniumBanner.print(request);
+            long preflightStartedAt = System.nanoTime();
+            try {
+                endpointPreflight.accept(target, connectTimeout);
+                LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.PREFLIGHT, preflightStartedAt);
+                endpointReachable = true;
+            } catch (RuntimeException preflightError) {
+                circuit.recordFailure(preflightError);
+                throw preflightError;
+            }
+            PepeniumBanner.print(target);
             log.info("Creating driver session: description='{}', capabilities={}",
-                    request.getDescription(),
-                    CapabilitiesSummary.summarize(request.getCapabilities()));
-            if (request.getServerUrl() != null) {
-                log.info("Driver server: {}", SensitiveDataSanitizer.sanitizeServerUrl(request.getServerUrl()));
+                    target.getDescription(),
+                    CapabilitiesSummary.summarize(target.getCapabilities()));
+            if (target.getServerUrl() != null) {
+                log.info("Driver server: {}", SensitiveDataSanitizer.sanitizeServerUrl(target.getServerUrl()));
             }
-            log.info("Effective capabilities: {}", CapabilitiesSummary.describe(request.getCapabilities()));
+            log.info("Effective capabilities: {}", CapabilitiesSummary.describe(target.getCapabilities()));
             log.info("Session transport timeouts: connect={}, command={}", connectTimeout, commandTimeout);
 
-            WebDriver driver;
-            switch (request.getDriverType()) {
-                case ANDROID_APPIUM:
-                    driver = new AndroidDriver(commandExecutor(request, connectTimeout, commandTimeout),
-                            requireCapabilities(request));
-                    break;
-                case IOS_APPIUM:
-                    driver = new IOSDriver(commandExecutor(request, connectTimeout, commandTimeout),
-                            requireCapabilities(request));
-                    break;
-                case REMOTE_WEB:
-                    driver = new RemoteWebDriver(commandExecutor(request, connectTimeout, commandTimeout),
-                            requireCapabilities(request));
-                    break;
-                case LOCAL_CHROME:
-                    driver = new ChromeDriver(resolveChromeOptions(request.getCapabilities()));
-                    break;
-                case LOCAL_FIREFOX:
-                    driver = new FirefoxDriver(resolveFirefoxOptions(request.getCapabilities()));
-                    break;
-                case LOCAL_EDGE:
-                    driver = new EdgeDriver(resolveEdgeOptions(request.getCapabilities()));
-                    break;
-                default:
-                    throw new IllegalArgumentException("Unsupported driver type: " + request.getDriverType());
-            }
-
+            admission = quotaController.admit(target);
+            WebDriver driver = admission.attempt(() -> creationRetry.run(circuit,
+                    () -> newDriver(target, connectTimeout, commandTimeout)));
             String sessionId = String.valueOf(((RemoteWebDriver) driver).getSessionId());
             LoggingContext.setSessionId(sessionId);
-            log.info("Driver session created successfully");
-            return new DriverSession(driver, request);
+            long creationMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - admission.lastAttemptStartedAt());
+            log.info("Driver session created successfully in {} ms", creationMillis);
+            DriverSession session = new DriverSession(driver, target);
+            SessionProvisioning provisioning = SessionProvisioning.created(creationMillis);
+            if (admission.waitMillis() > 0 || admission.retries() > 0) {
+                log.info("Waited {} ms for provider quota ({} refused attempt(s))", admission.waitMillis(),
+                        admission.retries());
+                provisioning = provisioning.withQuotaWait(admission.waitMillis(), admission.retries());
+            }
+            session.setProvisioning(provisioning);
+            device.succeeded();
+            session.onClose(admission::release);
+            session.onClose(permit::release);
+            session.onClose(device::release);
+            return session;
         } catch (Exception error) {
-            if (request != null && request.getOwnedService() != null) {
+            if (device != null && endpointReachable) {
+                device.failed(error);
+            } else if (device != null) {
+                device.endpointFailed(error);
+            }
+            if (admission != null) {
+                admission.release();
+            }
+            if (permit != null) {
+                permit.release();
+            }
+            if (request != null && request.getOwnedService() != null
+                    && !AppiumServerPool.release(request.getOwnedService())) {
                 try {
                     request.getOwnedService().stop();
                 } catch (RuntimeException stopError) {
@@ -99,6 +141,31 @@ public class DefaultDriverSessionFactory implements DriverSessionFactory {
         }
     }
 
+    private WebDriver newDriver(DriverRequest request, Duration connectTimeout, Duration commandTimeout) {
+        switch (request.getDriverType()) {
+            case ANDROID_APPIUM:
+                return new AndroidDriver(commandExecutor(request, connectTimeout, commandTimeout),
+                        requireCapabilities(request));
+            case IOS_APPIUM:
+                return new IOSDriver(commandExecutor(request, connectTimeout, commandTimeout),
+                        requireCapabilities(request));
+            case REMOTE_WEB:
+                return new RemoteWebDriver(commandExecutor(request, connectTimeout, commandTimeout),
+                        requireCapabilities(request));
+            case LOCAL_CHROME:
+                return new ChromeDriver(ChromeDriverService.createDefaultService(),
+                        resolveChromeOptions(request.getCapabilities()), CommandLatencyTracking.localClientConfig());
+            case LOCAL_FIREFOX:
+                return new FirefoxDriver(GeckoDriverService.createDefaultService(),
+                        resolveFirefoxOptions(request.getCapabilities()), CommandLatencyTracking.localClientConfig());
+            case LOCAL_EDGE:
+                return new EdgeDriver(EdgeDriverService.createDefaultService(),
+                        resolveEdgeOptions(request.getCapabilities()), CommandLatencyTracking.localClientConfig());
+            default:
+                throw new IllegalArgumentException("Unsupported driver type: " + request.getDriverType());
+        }
+    }
+
     private void validateRequest(DriverRequest request) {
         if (request == null) {
             throw new IllegalArgumentException("Driver request must not be null");
@@ -125,7 +192,13 @@ public class DefaultDriverSessionFactory implements DriverSessionFactory {
                 .baseUrl(requireServerUrl(request))
                 .connectionTimeout(connectTimeout)
                 .readTimeout(commandTimeout);
-        return new HttpCommandExecutor(clientConfig);
+        HttpClient.Factory clientFactory = SharedHttpTransport.isEnabled()
+                ? SharedHttpTransport.shared()
+                : HttpClient.Factory.createDefault();
+        if (CommandLatencyTracking.isEnabled()) {
+            clientFactory = CommandLatencyTracking.timed(clientFactory);
+        }
+        return new HttpCommandExecutor(Map.of(), clientConfig, clientFactory);
     }
 
     private URL requireServerUrl(DriverRequest request) {
@@ -0,0 +1,430 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.config.validation.ConfigValidationSupport;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.observability.DeviceUtilization;
+import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.openqa.selenium.ImmutableCapabilities;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.Deque;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+import java.util.function.Supplier;
+import java.util.stream.Collectors;
+
+/**
+ * Shards Appium test classes across the devices a profile declares in {@value #POOL_KEY}.
+ *
+ * <p>Each entry is a UDID, optionally followed by {@code @} and the Appium server URL that drives it, for example
+ * {@code emulator-5554, emulator-5556@http://localhost:4725}. Every session of the profile leases the least used free
+ * device, in arrival order, and hands it back when the session closes. Each lease also gets its own
+ * {@link DevicePorts}, so devices sharing one Appium server do not collide on WebDriverAgent or UiAutomator2 ports. A
+ * device whose session creation fails
+ * {@value #QUARANTINE_THRESHOLD_KEY} times in a row with a device or connection error is quarantined for the rest of the
+ * run. When the launcher finishes, how long each device was leased is written to the suite summary.</p>
+ *
+ * <p>With {@link ForkLeaseRegistry#ENABLED_KEY} on, devices are also claimed across surefire forks, so two forks never
+ * drive the same device. This covers the single {@code appium:udid} of profiles without a pool as well.</p>
+ */
+final class DevicePool {
+
+    static final String POOL_KEY = "PEPENIUM_DEVICE_POOL";
+    static final String LEASE_TIMEOUT_KEY = "PEPENIUM_DEVICE_LEASE_TIMEOUT";
+    static final String QUARANTINE_THRESHOLD_KEY = "PEPENIUM_DEVICE_QUARANTINE_THRESHOLD";
+    static final Duration DEFAULT_LEASE_TIMEOUT = Duration.ofMinutes(10);
+    static final int DEFAULT_QUARANTINE_THRESHOLD = 2;
+
+    private static final Logger log = LoggerFactory.getLogger(DevicePool.class);
+    private static final Lease NO_DEVICE = new Lease(null, null, null, null);
+    private static final List<String> DEVICE_FAILURE_MARKERS = List.of(
+            "could not find a connected android device",
+            "not in the list of connected devices",
+            "device offline",
+            "device unauthorized",
+            "device not found",
+            "unknown device",
+            "instrumentation process is not running",
+            "failed to boot",
+            "xcodebuild failed"
+    );
+    private static DevicePool shared;
+
+    private final Map<String, Shard> shardsByScope = new ConcurrentHashMap<>();
+    private final Consumer<List<DeviceUtilization>> utilizationReporter;
+    private final Supplier<ForkLeaseRegistry> forkLeases;
+
+    DevicePool(Consumer<List<DeviceUtilization>> utilizationReporter) {
+        this(utilizationReporter, ForkLeaseRegistry::shared);
+    }
+
+    DevicePool(Consumer<List<DeviceUtilization>> utilizationReporter, Supplier<ForkLeaseRegistry> forkLeases) {
+        this.utilizationReporter = utilizationReporter;
+        this.forkLeases = forkLeases;
+    }
+
+    static synchronized DevicePool shared() {
+        if (shared == null) {
+            shared = new DevicePool(PepeniumHtmlReportWriter::writeDeviceUtilization);
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        DevicePool current;
+        synchronized (DevicePool.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Blocks until a healthy device of the request's profile is free. Requests of profiles without a device pool, and
+     * non-Appium requests, get a lease that leaves the request unchanged.
+     */
+    Lease lease(DriverRequest request) {
+        if (request.getDriverType() != DriverType.ANDROID_APPIUM && request.getDriverType() != DriverType.IOS_APPIUM) {
+            return NO_DEVICE;
+        }
+        String configured = RuntimeSettings.text(POOL_KEY, null);
+        Duration timeout = RuntimeSettings.duration(LEASE_TIMEOUT_KEY, DEFAULT_LEASE_TIMEOUT);
+        ForkLeaseRegistry registry = forkLeases.get();
+        if (configured == null) {
+            Object udid = request.getCapabilities() == null ? null : request.getCapabilities().getCapability("appium:udid");
+            if (!registry.isEnabled() || udid == null || String.valueOf(udid).isBlank()) {
+                return NO_DEVICE;
+            }
+            return new Lease(null, null, registry.claim(List.of(resource(String.valueOf(udid))), timeout,
+                    "device " + udid), null);
+        }
+        String scope = SessionConcurrencyLimiter.scope(request);
+        Shard shard = shardsByScope.computeIfAbsent(scope, ignored -> new Shard(scope, parse(configured)));
+        Device device = shard.take(timeout, registry);
+        DevicePorts ports;
+        try {
+            ports = DevicePorts.claim(request.getDriverType(), registry);
+        } catch (RuntimeException error) {
+            shard.giveBack(device);
+            throw error;
+        }
+        return new Lease(shard, device, null, ports);
+    }
+
+    static String resource(String udid) {
+        return "device:" + udid;
+    }
+
+    static List<Device> parse(String configured) {
+        List<Device> devices = new ArrayList<>();
+        Set<String> udids = new HashSet<>();
+        for (String rawEntry : configured.split(",")) {
+            String entry = rawEntry.trim();
+            if (entry.isEmpty()) {
+                continue;
+            }
+            int separator = entry.indexOf('@');
+            String udid = separator < 0 ? entry : entry.substring(0, separator).trim();
+            URL serverUrl = separator < 0 ? null : ConfigValidationSupport.requireUrl(
+                    entry.substring(separator + 1).trim(),
+                    POOL_KEY + " entry '" + udid + "'",
+                    "Write each device as UDID or UDID@http://host:port."
+            );
+            if (udid.isEmpty() || !udids.add(udid)) {
+                throw new IllegalStateException("Invalid " + POOL_KEY + " entry '" + entry + "'. Every device needs "
+                        + "a UDID and each UDID may appear only once.");
+            }
+            devices.add(new Device(udid, serverUrl));
+        }
+        if (devices.isEmpty()) {
+            throw new IllegalStateException(POOL_KEY + " does not list any device. Use a comma-separated list such as "
+                    + "emulator-5554, emulator-5556@http://localhost:4725.");
+        }
+        return devices;
+    }
+
+    /**
+     * Whether {@code error} points at the device or its Appium server rather than at the test or its capabilities.
+     */
+    static boolean isDeviceFailure(Throwable error) {
+        if (error instanceof EndpointCircuitBreaker.CircuitOpenException) {
+            // The rejection carries the endpoint's last failure, which may have been another device's.
+            return false;
+        }
+        if (SessionCreationRetry.isTransient(error)) {
+            return true;
+        }
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            String message = current.getMessage();
+            if (message == null) {
+                continue;
+            }
+            String normalized = message.toLowerCase(Locale.ROOT);
+            for (String marker : DEVICE_FAILURE_MARKERS) {
+                if (normalized.contains(marker)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    List<DeviceUtilization> utilization() {
+        List<DeviceUtilization> utilization = new ArrayList<>();
+        shardsByScope.values().forEach(shard -> utilization.addAll(shard.utilization()));
+        return utilization;
+    }
+
+    void close() {
+        List<DeviceUtilization> utilization = utilization();
+        if (!utilization.isEmpty()) {
+            utilizationReporter.accept(utilization);
+        }
+    }
+
+    /**
+     * One device leased to one session. Closing the session, or reporting a failed creation, hands it back.
+     */
+    static final class Lease {
+        private final Shard shard;
+        private final Device device;
+        private final ForkLeaseRegistry.Claim forkClaim;
+        private final DevicePorts ports;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(Shard shard, Device device, ForkLeaseRegistry.Claim forkClaim, DevicePorts ports) {
+            this.shard = shard;
+            this.device = device;
+            this.forkClaim = forkClaim;
+            this.ports = ports;
+        }
+
+        /**
+         * Points the request at the leased device: its UDID capability, the device's own {@link DevicePorts} and,
+         * when declared, its Appium server.
+         */
+        DriverRequest assign(DriverRequest request) {
+            if (device == null) {
+                return request;
+            }
+            DriverRequest.DriverRequestBuilder assigned = request.toBuilder()
+                    .capabilities(request.getCapabilities().merge(ports.capabilities())
+                            .merge(new ImmutableCapabilities("appium:udid", device.udid)))
+                    .description(request.getDescription() + " on " + device.udid);
+            if (device.serverUrl != null) {
+                assigned.serverUrl(device.serverUrl);
+            }
+            return assigned.build();
+        }
+
+        void succeeded() {
+            if (device != null) {
+                shard.recordSuccess(device);
+            }
+        }
+
+        void failed(Throwable error) {
+            if (device != null) {
+                shard.recordFailure(device, error);
+            }
+            release();
+        }
+
+        /**
+         * Hands the device back after its Appium server failed the preflight. Only a device with its own server is
+         * charged, because devices without one share the profile's server and would all be blamed for it.
+         */
+        void endpointFailed(Throwable error) {
+            if (device != null && device.serverUrl != null) {
+                shard.recordFailure(device, error);
+            }
+            release();
+        }
+
+        void release() {
+            if (forkClaim != null) {
+                forkClaim.release();
+            }
+            if (device != null && released.compareAndSet(false, true)) {
+                ports.release();
+                shard.giveBack(device);
+            }
+        }
+    }
+
+    static final class Device {
+        private final String udid;
+        private final URL serverUrl;
+        private boolean busy;
+        private long leasedAt;
+        private long busyNanos;
+        private int leases;
+        private int consecutiveFailures;
+        private boolean quarantined;
+        private String quarantineReason;
+        private ForkLeaseRegistry.Claim forkClaim;
+
+        Device(String udid, URL serverUrl) {
+            this.udid = udid;
+            this.serverUrl = serverUrl;
+        }
+    }
+
+    /**
+     * The device pool of one execution profile.
+     */
+    private static final class Shard {
+        private final String scope;
+        private final List<Device> devices;
+        private final Deque<Object> waiters = new ArrayDeque<>();
+        private final long createdAt = System.nanoTime();
+
+        private Shard(String scope, List<Device> devices) {
+            this.scope = scope;
+            this.devices = devices;
+        }
+
+        synchronized Device take(Duration timeout, ForkLeaseRegistry registry) {
+            Object ticket = new Object();
+            waiters.addLast(ticket);
+            long deadline = System.nanoTime() + timeout.toNanos();
+            boolean announced = false;
+            try {
+                while (true) {
+                    if (devices.stream().allMatch(device -> device.quarantined)) {
+                        throw new IllegalStateException("All " + devices.size() + " device(s) in the " + POOL_KEY
+                                + " of '" + scope + "' are quarantined: " + describeQuarantine()
+                                + ". Reconnect or restart them, or fix " + POOL_KEY + ".");
+                    }
+                    boolean first = waiters.peekFirst() == ticket;
+                    Device free = first ? claimLeastUsedFreeDevice(registry) : null;
+                    if (free != null) {
+                        free.busy = true;
+                        free.leasedAt = System.nanoTime();
+                        free.leases++;
+                        log.info("Leased device {} from the pool of '{}'", free.udid, scope);
+                        return free;
+                    }
+                    long remainingNanos = deadline - System.nanoTime();
+                    if (remainingNanos <= 0) {
+                        throw new IllegalStateException("Timed out after " + timeout + " waiting for a free device of '"
+                                + scope + "' (" + devices.size() + " in " + POOL_KEY + "). Add devices, reduce JUnit "
+                                + "class parallelism or raise " + LEASE_TIMEOUT_KEY + ".");
+                    }
+                    if (!announced) {
+                        announced = true;
+                        log.info("Waiting for a free device of '{}' ({} of {} in use)", scope,
+                                devices.stream().filter(device -> device.busy).count(), devices.size());
+                    }
+                    // Devices held by other forks free up without a notification, so poll for them.
+                    boolean heldByOtherForks = first && devices.stream().anyMatch(device -> !device.busy
+                            && !device.quarantined);
+                    TimeUnit.NANOSECONDS.timedWait(this, heldByOtherForks
+                            ? Math.min(remainingNanos, ForkLeaseRegistry.POLL_INTERVAL.toNanos()) : remainingNanos);
+                }
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for a free device of '" + scope + "'", error);
+            } finally {
+                waiters.remove(ticket);
+                notifyAll();
+            }
+        }
+
+        synchronized void giveBack(Device device) {
+            if (device.forkClaim != null) {
+                device.forkClaim.release();
+                device.forkClaim = null;
+            }
+            device.busy = false;
+            device.busyNanos += System.nanoTime() - device.leasedAt;
+            notifyAll();
+        }
+
+        synchronized void recordSuccess(Device device) {
+            device.consecutiveFailures = 0;
+        }
+
+        synchronized void recordFailure(Device device, Throwable error) {
+            if (!isDeviceFailure(error)) {
+                return;
+            }
+            device.consecutiveFailures++;
+            int threshold = RuntimeSettings.positiveInt(QUARANTINE_THRESHOLD_KEY, DEFAULT_QUARANTINE_THRESHOLD);
+            if (!device.quarantined && device.consecutiveFailures >= threshold) {
+                device.quarantined = true;
+                device.quarantineReason = SensitiveDataSanitizer.sanitizeText(firstLine(error.getMessage()));
+                log.warn("Quarantining device {} of '{}' after {} failed session creation(s): {}", device.udid, scope,
+                        device.consecutiveFailures, device.quarantineReason);
+                notifyAll();
+            }
+        }
+
+        synchronized List<DeviceUtilization> utilization() {
+            long now = System.nanoTime();
+            long spanMillis = TimeUnit.NANOSECONDS.toMillis(now - createdAt);
+            List<DeviceUtilization> utilization = new ArrayList<>();
+            for (Device device : devices) {
+                long busyNanos = device.busyNanos + (device.busy ? now - device.leasedAt : 0L);
+                utilization.add(DeviceUtilization.builder()
+                        .profile(scope)
+                        .device(device.udid)
+                        .serverUrl(device.serverUrl == null ? ""
+                                : SensitiveDataSanitizer.sanitizeServerUrl(device.serverUrl))
+                        .leases(device.leases)
+                        .busyMillis(TimeUnit.NANOSECONDS.toMillis(busyNanos))
+                        .spanMillis(spanMillis)
+                        .quarantined(device.quarantined)
+                        .quarantineReason(device.quarantineReason == null ? "" : device.quarantineReason)
+                        .build());
+            }
+            return utilization;
+        }
+
+        private Device claimLeastUsedFreeDevice(ForkLeaseRegistry registry) {
+            List<Device> candidates = devices.stream()
+                    .filter(device -> !device.busy && !device.quarantined)
+                    .sorted(Comparator.comparingInt((Device device) -> device.leases))
+                    .collect(Collectors.toList());
+            for (Device candidate : candidates) {
+                ForkLeaseRegistry.Claim claim = registry.tryClaim(List.of(resource(candidate.udid)));
+                if (claim != null) {
+                    candidate.forkClaim = claim;
+                    return candidate;
+                }
+            }
+            return null;
+        }
+
+        private static String firstLine(String message) {
+            if (message == null) {
+                return "unknown error";
+            }
+            int end = message.indexOf('\n');
+            return (end < 0 ? message : message.substring(0, end)).trim();
+        }
+
+        private String describeQuarantine() {
+            return devices.stream()
+                    .map(device -> device.udid + " (" + device.quarantineReason + ")")
+                    .collect(Collectors.joining(", "));
+        }
+    }
+}
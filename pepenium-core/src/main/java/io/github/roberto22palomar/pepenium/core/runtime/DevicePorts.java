@@ -0,0 +1,98 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.ImmutableCapabilities;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Host ports each Appium session of a device pool needs for itself: WebDriverAgent on iOS, the UiAutomator2 server and
+ * Chromedriver on Android, and MJPEG screen streaming on both. Drivers default them to fixed values, so parallel
+ * sessions on one host would collide.
+ *
+ * <p>Every port comes from a range reserved for its capability and is claimed in this JVM and, with
+ * {@link ForkLeaseRegistry#ENABLED_KEY} on, across forks, until the device lease is released.</p>
+ */
+final class DevicePorts {
+
+    static final int RANGE_SIZE = 100;
+
+    private static final Map<String, Integer> ANDROID_RANGES = Map.of(
+            "appium:systemPort", 8200, "appium:mjpegServerPort", 9100, "appium:chromedriverPort", 9515);
+    private static final Map<String, Integer> IOS_RANGES = Map.of(
+            "appium:wdaLocalPort", 8100, "appium:mjpegServerPort", 9100);
+    private static final Set<Integer> IN_USE = new HashSet<>();
+
+    private final Map<String, Integer> ports;
+    private final List<ForkLeaseRegistry.Claim> claims;
+    private final AtomicBoolean released = new AtomicBoolean();
+
+    private DevicePorts(Map<String, Integer> ports, List<ForkLeaseRegistry.Claim> claims) {
+        this.ports = ports;
+        this.claims = claims;
+    }
+
+    /**
+     * Claims the lowest free port of every range the driver type needs.
+     *
+     * @throws IllegalStateException when a range has no free port left
+     */
+    static DevicePorts claim(DriverType driverType, ForkLeaseRegistry registry) {
+        Map<String, Integer> ranges = driverType == DriverType.IOS_APPIUM ? IOS_RANGES : ANDROID_RANGES;
+        DevicePorts claimed = new DevicePorts(new LinkedHashMap<>(), new ArrayList<>());
+        try {
+            ranges.forEach((capability, first) ->
+                    claimed.ports.put(capability, claimed.claimPort(capability, first, registry)));
+        } catch (RuntimeException error) {
+            claimed.release();
+            throw error;
+        }
+        return claimed;
+    }
+
+    static String resource(int port) {
+        return "device-port:" + port;
+    }
+
+    Capabilities capabilities() {
+        return new ImmutableCapabilities(Map.copyOf(ports));
+    }
+
+    void release() {
+        if (!released.compareAndSet(false, true)) {
+            return;
+        }
+        claims.forEach(ForkLeaseRegistry.Claim::release);
+        synchronized (IN_USE) {
+            IN_USE.removeAll(ports.values());
+        }
+    }
+
+    private int claimPort(String capability, int first, ForkLeaseRegistry registry) {
+        for (int port = first; port < first + RANGE_SIZE; port++) {
+            synchronized (IN_USE) {
+                if (!IN_USE.add(port)) {
+                    continue;
+                }
+            }
+            ForkLeaseRegistry.Claim claim = registry.tryClaim(List.of(resource(port)));
+            if (claim != null) {
+                claims.add(claim);
+                return port;
+            }
+            synchronized (IN_USE) {
+                IN_USE.remove(port);
+            }
+        }
+        throw new IllegalStateException("No free " + capability + " between " + first + " and "
+                + (first + RANGE_SIZE - 1) + " for another pooled device. Release devices or reduce the surefire "
+                + "forkCount.");
+    }
+}
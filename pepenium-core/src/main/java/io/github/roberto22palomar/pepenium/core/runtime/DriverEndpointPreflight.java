@@ -1,46 +1,312 @@
 package io.github.roberto22palomar.pepenium.core.runtime;
 
+import io.github.roberto22palomar.pepenium.core.config.PepeniumConfig;
+import io.github.roberto22palomar.pepenium.core.execution.DriverConfig;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfile;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
+import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
 import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
-import java.net.InetSocketAddress;
-import java.net.Socket;
+import java.net.ConnectException;
+import java.net.URI;
+import java.net.URISyntaxException;
 import java.net.URL;
+import java.net.http.HttpClient;
+import java.net.http.HttpRequest;
+import java.net.http.HttpResponse;
 import java.time.Duration;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.DoubleSupplier;
+import java.util.regex.Pattern;
 
+/**
+ * Waits until a local driver endpoint is ready to create sessions before the session request is sent.
+ *
+ * <p>Appium and local grids open their port before they can serve sessions, so a plain connect succeeds while the
+ * server is still booting. The preflight instead polls the server's {@code /status} endpoint with jittered backoff
+ * until it answers and does not report {@code "ready": false}. Nothing listening on the port still fails immediately.
+ * Results are cached per endpoint for {@value #CACHE_TTL_KEY}, and a check already running for an endpoint is joined
+ * rather than repeated, so parallel classes and the checks started with the test plan share one probe. Remote cloud
+ * endpoints are left to the Selenium transport.</p>
+ */
 final class DriverEndpointPreflight {
 
-    private DriverEndpointPreflight() {
+    static final String CACHE_TTL_KEY = "PEPENIUM_ENDPOINT_READY_TTL";
+    static final Duration DEFAULT_CACHE_TTL = Duration.ofSeconds(10);
+    static final Duration FIRST_BACKOFF = Duration.ofMillis(100);
+    static final Duration MAX_BACKOFF = Duration.ofSeconds(2);
+    static final Duration MAX_PROBE_TIMEOUT = Duration.ofSeconds(5);
+
+    private static final Logger log = LoggerFactory.getLogger(DriverEndpointPreflight.class);
+    private static final String LOCAL_CONFIGS_PACKAGE = "io.github.roberto22palomar.pepenium.core.configs.local";
+    private static final Pattern NOT_READY = Pattern.compile("\"ready\"\\s*:\\s*false");
+    private static final DriverEndpointPreflight SHARED = new DriverEndpointPreflight(JitteredBackoff.RANDOM);
+
+    private final Map<URI, Check> checks = new ConcurrentHashMap<>();
+    private final DoubleSupplier random;
+    private final HttpClient client;
+
+    DriverEndpointPreflight(DoubleSupplier random) {
+        this.random = random;
+        this.client = HttpClient.newBuilder()
+                .version(HttpClient.Version.HTTP_1_1)
+                .followRedirects(HttpClient.Redirect.NEVER)
+                .build();
     }
 
     static void verifyLocalEndpoint(DriverRequest request, Duration timeout) {
-        URL serverUrl = request.getServerUrl();
-        if (serverUrl == null || !isLoopback(serverUrl.getHost())) {
+        SHARED.verify(request.getServerUrl(), timeout);
+    }
+
+    /**
+     * Blocks until the local endpoint behind {@code serverUrl} reports ready, for at most {@code timeout}.
+     */
+    void verify(URL serverUrl, Duration timeout) {
+        URI statusUri = statusUri(serverUrl);
+        if (statusUri == null) {
             return;
         }
+        Check check = checks.compute(statusUri, (ignored, existing) ->
+                existing != null && existing.isFresh(cacheTtl()) ? existing : new Check());
+        if (check.start()) {
+            check.complete(() -> probe(statusUri, serverUrl, timeout));
+        }
+        check.await(serverUrl, timeout);
+    }
 
-        int port = serverUrl.getPort() >= 0 ? serverUrl.getPort() : serverUrl.getDefaultPort();
-        if (port < 0) {
+    /**
+     * Starts checking every local endpoint in {@code serverUrls} at once on {@code executor}, without waiting, so the
+     * first session of each endpoint finds the result already cached or in flight.
+     */
+    void checkAll(Collection<URL> serverUrls, Duration timeout, Executor executor) {
+        for (URL serverUrl : serverUrls) {
+            URI statusUri = statusUri(serverUrl);
+            if (statusUri == null) {
+                continue;
+            }
+            Check check = checks.compute(statusUri, (ignored, existing) ->
+                    existing != null && existing.isFresh(cacheTtl()) ? existing : new Check());
+            if (check.start()) {
+                log.debug("Checking driver endpoint {} ahead of the first session",
+                        SensitiveDataSanitizer.sanitizeServerUrl(serverUrl));
+                executor.execute(() -> check.complete(() -> probe(statusUri, serverUrl, timeout)));
+            }
+        }
+    }
+
+    /**
+     * Starts checking the endpoints of the built-in local profiles the planned {@link PepeniumTest} classes use, in
+     * parallel. Other profiles are checked when their first session is created, because building their request may
+     * start servers or contact a provider.
+     */
+    static void checkPlannedEndpoints(List<Class<?>> testClasses) {
+        Map<String, URL> serverUrls = new LinkedHashMap<>();
+        ExecutionProfileResolver resolver = new ExecutionProfileResolver();
+        for (Class<?> testClass : testClasses) {
+            PepeniumTest config = testClass.getAnnotation(PepeniumTest.class);
+            if (config == null) {
+                continue;
+            }
+            for (String profileId : plannedProfiles(testClass, config)) {
+                URL serverUrl = plannedServerUrl(resolver, config.target(), profileId);
+                if (isLocal(serverUrl)) {
+                    serverUrls.putIfAbsent(serverUrl.toString(), serverUrl);
+                }
+            }
+        }
+        if (serverUrls.isEmpty()) {
             return;
         }
+        ExecutorService executor = Executors.newFixedThreadPool(Math.min(serverUrls.size(), 8), runnable -> {
+            Thread thread = new Thread(runnable, "pepenium-endpoint-check");
+            thread.setDaemon(true);
+            return thread;
+        });
+        try {
+            SHARED.checkAll(serverUrls.values(), SessionTimeouts.connectTimeout(), executor);
+        } finally {
+            executor.shutdown();
+        }
+    }
 
-        int timeoutMillis = (int) Math.min(Integer.MAX_VALUE, Math.max(1L, timeout.toMillis()));
-        try (Socket socket = new Socket()) {
-            socket.connect(new InetSocketAddress(serverUrl.getHost(), port), timeoutMillis);
-        } catch (IOException error) {
-            String safeUrl = SensitiveDataSanitizer.sanitizeServerUrl(serverUrl);
-            throw new IllegalStateException(
-                    "Cannot connect to local driver endpoint " + safeUrl + " within " + timeout
-                            + ". Start Appium or correct the profile serverUrl before running the test.",
-                    error
-            );
+    private static List<String> plannedProfiles(Class<?> testClass, PepeniumTest config) {
+        if (testClass.isAnnotationPresent(PepeniumProfileMatrix.class)) {
+            try {
+                return ProfileMatrix.profiles(testClass, config);
+            } catch (IllegalStateException error) {
+                return List.of();
+            }
         }
+        return Collections.singletonList(config.profile() == null || config.profile().isBlank() ? null : config.profile());
+    }
+
+    private static URL plannedServerUrl(ExecutionProfileResolver resolver, TestTarget target, String profileId) {
+        try {
+            ExecutionProfile profile = resolver.resolve(target, profileId);
+            DriverConfig driverConfig = profile.createConfig();
+            if (!driverConfig.getClass().getName().startsWith(LOCAL_CONFIGS_PACKAGE)) {
+                return null;
+            }
+            return driverConfig.createRequest().getServerUrl();
+        } catch (Exception error) {
+            log.debug("Skipping the startup endpoint check of a planned class: {}",
+                    SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+            return null;
+        } finally {
+            PepeniumConfig.clearActiveProfile();
+        }
+    }
+
+    static boolean isLocal(URL serverUrl) {
+        return serverUrl != null && isLoopback(serverUrl.getHost());
+    }
+
+    private void probe(URI statusUri, URL serverUrl, Duration timeout) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        JitteredBackoff backoff = new JitteredBackoff(FIRST_BACKOFF, MAX_BACKOFF, random);
+        boolean answered = false;
+        String lastProblem = "no answer";
+        for (int attempt = 0; ; attempt++) {
+            long remainingNanos = deadline - System.nanoTime();
+            Duration probeTimeout = Duration.ofNanos(Math.max(TimeUnit.MILLISECONDS.toNanos(1),
+                    Math.min(remainingNanos, MAX_PROBE_TIMEOUT.toNanos())));
+            try {
+                HttpResponse<String> response = client.send(HttpRequest.newBuilder(statusUri)
+                        .timeout(probeTimeout)
+                        .GET()
+                        .build(), HttpResponse.BodyHandlers.ofString());
+                answered = true;
+                if (response.statusCode() == 200 && !NOT_READY.matcher(response.body()).find()) {
+                    if (attempt > 0) {
+                        log.info("Driver endpoint {} is ready after {} status check(s)",
+                                SensitiveDataSanitizer.sanitizeServerUrl(serverUrl), attempt + 1);
+                    }
+                    return;
+                }
+                lastProblem = response.statusCode() == 200 ? "status reports ready=false"
+                        : "status answered HTTP " + response.statusCode();
+            } catch (ConnectException error) {
+                if (!answered) {
+                    throw new IllegalStateException(
+                            "Cannot connect to local driver endpoint " + SensitiveDataSanitizer.sanitizeServerUrl(serverUrl)
+                                    + ". Start Appium or correct the profile serverUrl before running the test.",
+                            error
+                    );
+                }
+                lastProblem = "connection refused";
+            } catch (IOException error) {
+                lastProblem = error.getClass().getSimpleName()
+                        + (error.getMessage() == null ? "" : ": " + error.getMessage());
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for local driver endpoint "
+                        + SensitiveDataSanitizer.sanitizeServerUrl(serverUrl), error);
+            }
+            long delayNanos = Math.min(backoff.delay(attempt).toNanos(), deadline - System.nanoTime());
+            if (delayNanos <= 0) {
+                throw new IllegalStateException("Local driver endpoint " + SensitiveDataSanitizer.sanitizeServerUrl(
+                        serverUrl) + " did not report ready within " + timeout + " (" + lastProblem + "). Wait for "
+                        + "Appium to finish starting, check its log, or raise PEPENIUM_SESSION_CONNECT_TIMEOUT_SECONDS.");
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(delayNanos);
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for local driver endpoint "
+                        + SensitiveDataSanitizer.sanitizeServerUrl(serverUrl), error);
+            }
+        }
+    }
+
+    private static URI statusUri(URL serverUrl) {
+        if (!isLocal(serverUrl)) {
+            return null;
+        }
+        int port = serverUrl.getPort() >= 0 ? serverUrl.getPort() : serverUrl.getDefaultPort();
+        if (port < 0) {
+            return null;
+        }
+        String path = serverUrl.getPath() == null ? "" : serverUrl.getPath();
+        while (path.endsWith("/")) {
+            path = path.substring(0, path.length() - 1);
+        }
+        try {
+            return new URI(serverUrl.getProtocol(), null, serverUrl.getHost(), port, path + "/status", null, null);
+        } catch (URISyntaxException error) {
+            return null;
+        }
+    }
+
+    private static Duration cacheTtl() {
+        return RuntimeSettings.duration(CACHE_TTL_KEY, DEFAULT_CACHE_TTL);
     }
 
     private static boolean isLoopback(String host) {
         return "localhost".equalsIgnoreCase(host)
                 || "::1".equals(host)
+                || "[::1]".equals(host)
                 || host.startsWith("127.");
     }
+
+    /**
+     * One readiness check of an endpoint, shared by every caller until it is older than the cache TTL.
+     */
+    private static final class Check {
+        private final CompletableFuture<Void> result = new CompletableFuture<>();
+        private final AtomicBoolean started = new AtomicBoolean();
+        private volatile long completedAt;
+
+        boolean start() {
+            return started.compareAndSet(false, true);
+        }
+
+        void complete(Runnable probe) {
+            try {
+                probe.run();
+                completedAt = System.nanoTime();
+                result.complete(null);
+            } catch (RuntimeException error) {
+                completedAt = System.nanoTime();
+                result.completeExceptionally(error);
+            }
+        }
+
+        boolean isFresh(Duration ttl) {
+            return !result.isDone() || System.nanoTime() - completedAt < ttl.toNanos();
+        }
+
+        void await(URL serverUrl, Duration timeout) {
+            try {
+                result.get(timeout.toNanos(), TimeUnit.NANOSECONDS);
+            } catch (ExecutionException error) {
+                Throwable cause = error.getCause();
+                throw new IllegalStateException(cause.getMessage(), cause);
+            } catch (TimeoutException error) {
+                throw new IllegalStateException("Local driver endpoint " + SensitiveDataSanitizer.sanitizeServerUrl(
+                        serverUrl) + " did not report ready within " + timeout + ". Wait for Appium to finish "
+                        + "starting, check its log, or raise PEPENIUM_SESSION_CONNECT_TIMEOUT_SECONDS.", error);
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for local driver endpoint "
+                        + SensitiveDataSanitizer.sanitizeServerUrl(serverUrl), error);
+            }
+        }
+    }
 }
@@ -0,0 +1,82 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import org.openqa.selenium.Capabilities;
+
+import java.nio.charset.StandardCharsets;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.Collection;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Canonical identity of a driver request, used to decide whether an existing session can serve another test class.
+ *
+ * <p>Two requests share a fingerprint when they use the same driver type, server URL, execution profile, target and
+ * capabilities, independently of capability insertion order. The canonical form is hashed so credentials embedded
+ * in server URLs or capabilities never end up in pool keys or logs.</p>
+ */
+final class DriverRequestFingerprint {
+
+    private DriverRequestFingerprint() {
+    }
+
+    static String of(DriverRequest request) {
+        StringBuilder canonical = new StringBuilder();
+        canonical.append("driverType=").append(request.getDriverType())
+                .append("\nserverUrl=").append(request.getServerUrl() == null ? "" : request.getServerUrl().toExternalForm())
+                .append("\nprofile=").append(request.getExecutionProfileId() == null ? "" : request.getExecutionProfileId())
+                .append("\ntarget=").append(request.getTarget() == null ? "" : request.getTarget())
+                .append("\ncapabilities=");
+        Capabilities capabilities = request.getCapabilities();
+        appendCanonical(canonical, capabilities == null ? Map.of() : capabilities.asMap());
+        return sha256(canonical.toString());
+    }
+
+    private static void appendCanonical(StringBuilder canonical, Object value) {
+        if (value instanceof Map) {
+            Map<String, Object> sorted = new TreeMap<>();
+            ((Map<?, ?>) value).forEach((key, nested) -> sorted.put(String.valueOf(key), nested));
+            canonical.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> entry : sorted.entrySet()) {
+                if (!first) {
+                    canonical.append(',');
+                }
+                first = false;
+                canonical.append(entry.getKey()).append('=');
+                appendCanonical(canonical, entry.getValue());
+            }
+            canonical.append('}');
+        } else if (value instanceof Collection) {
+            canonical.append('[');
+            boolean first = true;
+            for (Object item : (Collection<?>) value) {
+                if (!first) {
+                    canonical.append(',');
+                }
+                first = false;
+                appendCanonical(canonical, item);
+            }
+            canonical.append(']');
+        } else if (value instanceof Capabilities) {
+            appendCanonical(canonical, ((Capabilities) value).asMap());
+        } else {
+            canonical.append(value == null ? "null" : value.getClass().getSimpleName() + ":" + value);
+        }
+    }
+
+    private static String sha256(String value) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(value.getBytes(StandardCharsets.UTF_8));
+            StringBuilder hex = new StringBuilder(digest.length * 2);
+            for (byte item : digest) {
+                hex.append(Character.forDigit((item >> 4) & 0xF, 16)).append(Character.forDigit(item & 0xF, 16));
+            }
+            return hex.toString();
+        } catch (NoSuchAlgorithmException error) {
+            throw new IllegalStateException("SHA-256 is not available in this JVM", error);
+        }
+    }
+}
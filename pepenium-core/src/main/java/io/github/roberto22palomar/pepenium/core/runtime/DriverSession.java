@@ -4,9 +4,13 @@ import edu.umd.cs.findbugs.annotations.SuppressFBWarnings;
 import io.appium.java_client.AppiumDriver;
 import io.appium.java_client.service.local.AppiumDriverLocalService;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import lombok.AccessLevel;
 import lombok.Getter;
 import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.remote.RemoteWebDriver;
 
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 @Getter
@@ -19,6 +23,9 @@ public class DriverSession implements AutoCloseable {
     private final DriverRequest request;
     private final AppiumDriverLocalService ownedService;
     private final AtomicBoolean closed = new AtomicBoolean();
+    private volatile SessionProvisioning provisioning = SessionProvisioning.unknown();
+    @Getter(AccessLevel.NONE)
+    private final List<Runnable> closeActions = new CopyOnWriteArrayList<>();
 
     public DriverSession(WebDriver driver, DriverRequest request) {
         this.driver = driver;
@@ -33,6 +40,38 @@ public class DriverSession implements AutoCloseable {
         throw new IllegalStateException("Current session is not backed by Appium: " + request.getDriverType());
     }
 
+    String remoteSessionId() {
+        if (driver instanceof RemoteWebDriver) {
+            return String.valueOf(((RemoteWebDriver) driver).getSessionId());
+        }
+        return null;
+    }
+
+    void setProvisioning(SessionProvisioning provisioning) {
+        this.provisioning = provisioning == null ? SessionProvisioning.unknown() : provisioning;
+    }
+
+    /**
+     * Whether closing this session quits a driver, as opposed to handing it back to a pool.
+     */
+    boolean quitsDriverOnClose() {
+        return true;
+    }
+
+    /**
+     * Closes a session that is known to be broken, so it is never handed out again.
+     */
+    void discard() {
+        SessionTeardown.dispose(this);
+    }
+
+    /**
+     * Registers an action that runs once the driver has been quit, such as releasing a session slot.
+     */
+    void onClose(Runnable action) {
+        closeActions.add(action);
+    }
+
     @Override
     public void close() {
         if (!closed.compareAndSet(false, true)) {
@@ -47,7 +86,7 @@ public class DriverSession implements AutoCloseable {
             failure = error;
         }
         try {
-            if (ownedService != null) {
+            if (ownedService != null && !AppiumServerPool.release(ownedService)) {
                 ownedService.stop();
             }
         } catch (RuntimeException error) {
@@ -57,6 +96,17 @@ public class DriverSession implements AutoCloseable {
                 failure.addSuppressed(error);
             }
         }
+        for (Runnable action : closeActions) {
+            try {
+                action.run();
+            } catch (RuntimeException error) {
+                if (failure == null) {
+                    failure = error;
+                } else {
+                    failure.addSuppressed(error);
+                }
+            }
+        }
         if (failure != null) {
             throw failure;
         }
@@ -0,0 +1,157 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.function.LongSupplier;
+
+/**
+ * Stops test classes from queueing up behind a driver endpoint that is down.
+ *
+ * <p>Each endpoint (server URL host and port, or the local driver type) counts consecutive transient session creation
+ * failures. Once {@value #THRESHOLD_KEY} is reached the circuit opens and later classes fail in milliseconds instead of
+ * each waiting out the connect timeout. After {@value #COOLDOWN_KEY} a single class is let through as a trial: success
+ * closes the circuit, another transient failure opens it again. Non-transient failures such as invalid capabilities
+ * prove the endpoint is answering and reset the count. Without a threshold the breaker never opens.</p>
+ */
+final class EndpointCircuitBreaker {
+
+    static final String THRESHOLD_KEY = "PEPENIUM_CIRCUIT_BREAKER_THRESHOLD";
+    static final String COOLDOWN_KEY = "PEPENIUM_CIRCUIT_BREAKER_COOLDOWN";
+    static final Duration DEFAULT_COOLDOWN = Duration.ofMinutes(1);
+
+    private static final Logger log = LoggerFactory.getLogger(EndpointCircuitBreaker.class);
+    private static final long CLOSED = -1L;
+    private static final EndpointCircuitBreaker SHARED = new EndpointCircuitBreaker(System::nanoTime);
+
+    private final Map<String, Circuit> circuitsByEndpoint = new ConcurrentHashMap<>();
+    private final LongSupplier clock;
+
+    EndpointCircuitBreaker(LongSupplier clock) {
+        this.clock = clock;
+    }
+
+    static EndpointCircuitBreaker shared() {
+        return SHARED;
+    }
+
+    /**
+     * Thrown instead of attempting a session while the circuit is open. Its cause is the failure that opened it.
+     */
+    static final class CircuitOpenException extends IllegalStateException {
+        CircuitOpenException(String message, Throwable cause) {
+            super(message, cause);
+        }
+    }
+
+    Circuit circuitFor(DriverRequest request) {
+        return circuitsByEndpoint.computeIfAbsent(endpoint(request), Circuit::new);
+    }
+
+    /**
+     * Endpoint a request's failures are counted against: scheme, host and port of the server URL, without credentials
+     * or path, or the driver type for locally launched browsers.
+     */
+    static String endpoint(DriverRequest request) {
+        URL serverUrl = request.getServerUrl();
+        if (serverUrl == null) {
+            return request.getDriverType() == null ? "default" : request.getDriverType().name();
+        }
+        int port = serverUrl.getPort() >= 0 ? serverUrl.getPort() : serverUrl.getDefaultPort();
+        return serverUrl.getProtocol() + "://" + serverUrl.getHost().toLowerCase(Locale.ROOT) + ":" + port;
+    }
+
+    private static int threshold() {
+        return RuntimeSettings.positiveInt(THRESHOLD_KEY, 0);
+    }
+
+    /**
+     * Failure history of one endpoint.
+     */
+    final class Circuit {
+        private final String endpoint;
+        private int consecutiveFailures;
+        private long openedAt = CLOSED;
+        private long trialStartedAt = CLOSED;
+        private Throwable lastFailure;
+
+        private Circuit(String endpoint) {
+            this.endpoint = endpoint;
+        }
+
+        String endpoint() {
+            return endpoint;
+        }
+
+        /**
+         * Throws when the circuit is open. Once the cool-down has passed, the first caller is admitted as the trial
+         * while everyone else keeps failing fast until the trial reports back.
+         */
+        synchronized void ensureClosed() {
+            if (openedAt == CLOSED) {
+                return;
+            }
+            long now = clock.getAsLong();
+            long cooldownNanos = RuntimeSettings.duration(COOLDOWN_KEY, DEFAULT_COOLDOWN).toNanos();
+            long remainingNanos = openedAt + cooldownNanos - now;
+            boolean trialRunning = trialStartedAt != CLOSED && now - trialStartedAt < cooldownNanos;
+            if (remainingNanos <= 0 && !trialRunning) {
+                trialStartedAt = now;
+                log.info("Circuit for driver endpoint {} is half-open; trying one session creation", endpoint);
+                return;
+            }
+            String retryIn = trialRunning
+                    ? "a trial session creation is in progress"
+                    : "the next trial is in " + TimeUnit.NANOSECONDS.toSeconds(remainingNanos) + " s";
+            throw new CircuitOpenException("Circuit breaker for driver endpoint " + endpoint + " is open after "
+                    + consecutiveFailures + " consecutive session creation failure(s); " + retryIn + ". Check that "
+                    + "the endpoint is up, or tune " + THRESHOLD_KEY + " and " + COOLDOWN_KEY + ". Last failure: "
+                    + SensitiveDataSanitizer.sanitizeText(String.valueOf(lastFailure.getMessage())), lastFailure);
+        }
+
+        synchronized void recordFailure(Throwable error) {
+            if (!SessionCreationRetry.isTransient(error)) {
+                reset();
+                return;
+            }
+            consecutiveFailures++;
+            lastFailure = error;
+            int threshold = threshold();
+            if (threshold == 0 || (consecutiveFailures < threshold && trialStartedAt == CLOSED)) {
+                return;
+            }
+            if (openedAt == CLOSED || trialStartedAt != CLOSED) {
+                log.warn("Opening circuit for driver endpoint {} after {} consecutive session creation failure(s)",
+                        endpoint, consecutiveFailures);
+            }
+            openedAt = clock.getAsLong();
+            trialStartedAt = CLOSED;
+        }
+
+        synchronized void recordSuccess() {
+            if (openedAt != CLOSED) {
+                log.info("Closing circuit for driver endpoint {}", endpoint);
+            }
+            reset();
+        }
+
+        synchronized boolean isOpen() {
+            return openedAt != CLOSED;
+        }
+
+        private void reset() {
+            consecutiveFailures = 0;
+            openedAt = CLOSED;
+            trialStartedAt = CLOSED;
+            lastFailure = null;
+        }
+    }
+}
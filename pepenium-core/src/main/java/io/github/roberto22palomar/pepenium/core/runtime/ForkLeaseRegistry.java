@@ -0,0 +1,313 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.Reader;
+import java.io.UncheckedIOException;
+import java.io.Writer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.Properties;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.LongSupplier;
+import java.util.function.Predicate;
+
+/**
+ * Lets JVM forks of one build claim devices, Appium ports and provider slots without colliding.
+ *
+ * <p>With {@value #ENABLED_KEY} enabled, every fork records its claims in one lease file under
+ * {@value #DIRECTORY_KEY}, guarded by a file lock the same way forks coordinate on the report index. A claim names its
+ * owning process, so claims of forks that crashed or were killed expire as soon as that process is gone. A live fork
+ * keeps its claims for as long as it runs, because a pooled Appium server holds its port for the whole fork; setting
+ * {@value #TTL_KEY} also expires claims older than that, so a hung fork cannot hold a device forever. Without
+ * {@value #ENABLED_KEY} every claim succeeds immediately and nothing is written.</p>
+ */
+final class ForkLeaseRegistry {
+
+    static final String ENABLED_KEY = "PEPENIUM_FORK_LEASES";
+    static final String DIRECTORY_KEY = "PEPENIUM_FORK_LEASE_DIR";
+    static final String TTL_KEY = "PEPENIUM_FORK_LEASE_TTL";
+    static final String DEFAULT_DIRECTORY = "target/pepenium-leases";
+    static final Duration POLL_INTERVAL = Duration.ofMillis(250);
+
+    private static final Logger log = LoggerFactory.getLogger(ForkLeaseRegistry.class);
+    private static final String LEASE_FILE = "leases.properties";
+    private static final String LOCK_FILE = ".pepenium-leases.lock";
+    private static final Object FILE_LOCK = new Object();
+    private static final AtomicLong NEXT_CLAIM_ID = new AtomicLong();
+    private static final ForkLeaseRegistry DISABLED = new ForkLeaseRegistry(null, "", System::currentTimeMillis,
+            ignored -> true, null);
+    private static ForkLeaseRegistry shared;
+
+    private final Path directory;
+    private final String owner;
+    private final LongSupplier clock;
+    private final Predicate<String> ownerAlive;
+    private final Duration ttl;
+
+    /**
+     * @param ttl age after which a claim expires even though its owner still runs, or {@code null} to keep claims of
+     *            live owners
+     */
+    ForkLeaseRegistry(Path directory, String owner, LongSupplier clock, Predicate<String> ownerAlive, Duration ttl) {
+        this.directory = directory;
+        this.owner = owner;
+        this.clock = clock;
+        this.ownerAlive = ownerAlive;
+        this.ttl = ttl;
+    }
+
+    /**
+     * The registry of this fork, or one that grants every claim when {@value #ENABLED_KEY} is off.
+     */
+    static synchronized ForkLeaseRegistry shared() {
+        if (!RuntimeSettings.enabled(ENABLED_KEY, false)) {
+            return DISABLED;
+        }
+        Path configured = Paths.get(RuntimeSettings.text(DIRECTORY_KEY, DEFAULT_DIRECTORY)).toAbsolutePath().normalize();
+        if (shared == null || !shared.directory.equals(configured)) {
+            shared = new ForkLeaseRegistry(configured, currentProcessOwner(), System::currentTimeMillis,
+                    ForkLeaseRegistry::isOwnerAlive, RuntimeSettings.duration(TTL_KEY, null));
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        ForkLeaseRegistry current;
+        synchronized (ForkLeaseRegistry.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.releaseOwned();
+        }
+    }
+
+    boolean isEnabled() {
+        return directory != null;
+    }
+
+    /**
+     * Claims the first of {@code resources} no other live claim holds, or returns {@code null} when all are held.
+     */
+    Claim tryClaim(List<String> resources) {
+        if (!isEnabled()) {
+            return new Claim(this, resources.get(0), "");
+        }
+        String claimId = owner + "#" + NEXT_CLAIM_ID.incrementAndGet();
+        return update(leases -> {
+            long now = clock.getAsLong();
+            for (String resource : resources) {
+                String holder = leases.getProperty(resource);
+                if (holder == null || isStale(holder, now)) {
+                    if (holder != null) {
+                        log.info("Expiring stale lease on {} held by {}", resource, holder);
+                    }
+                    leases.setProperty(resource, claimId + " " + now);
+                    return new Claim(this, resource, claimId);
+                }
+            }
+            return null;
+        });
+    }
+
+    /**
+     * Waits until one of {@code resources} can be claimed, polling the lease file because other forks cannot signal
+     * this one. Fails after {@code timeout} with an error that names what was waited for.
+     */
+    Claim claim(List<String> resources, Duration timeout, String description) {
+        long deadline = System.nanoTime() + timeout.toNanos();
+        boolean announced = false;
+        while (true) {
+            Claim claim = tryClaim(resources);
+            if (claim != null) {
+                return claim;
+            }
+            long remainingNanos = deadline - System.nanoTime();
+            if (remainingNanos <= 0) {
+                throw new IllegalStateException("Timed out after " + timeout + " waiting for " + description
+                        + " held by other test forks (" + ENABLED_KEY + "). Reduce the surefire forkCount or the "
+                        + "parallelism per fork, or remove " + directory.resolve(LEASE_FILE) + " if no build is running.");
+            }
+            if (!announced) {
+                announced = true;
+                log.info("Waiting for {} held by another test fork", description);
+            }
+            try {
+                TimeUnit.NANOSECONDS.sleep(Math.min(remainingNanos, POLL_INTERVAL.toNanos()));
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for " + description, error);
+            }
+        }
+    }
+
+    /**
+     * Current holder of {@code resource}, ignoring stale claims.
+     */
+    Optional<String> holder(String resource) {
+        if (!isEnabled()) {
+            return Optional.empty();
+        }
+        return update(leases -> {
+            String holder = leases.getProperty(resource);
+            return holder == null || isStale(holder, clock.getAsLong()) ? Optional.<String>empty()
+                    : Optional.of(holder.substring(0, holder.indexOf('#')));
+        });
+    }
+
+    /**
+     * Drops every claim this process still holds, for launcher shutdown.
+     */
+    void releaseOwned() {
+        if (!isEnabled()) {
+            return;
+        }
+        update(leases -> {
+            leases.stringPropertyNames().stream()
+                    .filter(resource -> leases.getProperty(resource).startsWith(owner + "#"))
+                    .forEach(leases::remove);
+            return null;
+        });
+    }
+
+    private void release(Claim claim) {
+        update(leases -> {
+            String holder = leases.getProperty(claim.resource);
+            if (holder != null && holder.startsWith(claim.claimId + " ")) {
+                leases.remove(claim.resource);
+            }
+            return null;
+        });
+    }
+
+    private boolean isStale(String holder, long now) {
+        int separator = holder.lastIndexOf(' ');
+        String holderOwner = holder.substring(0, Math.max(holder.indexOf('#'), 0));
+        long claimedAt;
+        try {
+            claimedAt = Long.parseLong(holder.substring(separator + 1));
+        } catch (NumberFormatException ignored) {
+            return true;
+        }
+        return (ttl != null && now - claimedAt > ttl.toMillis()) || !ownerAlive.test(holderOwner);
+    }
+
+    private <T> T update(LeaseUpdate<T> change) {
+        synchronized (FILE_LOCK) {
+            try {
+                Files.createDirectories(directory);
+                try (FileChannel lockChannel = FileChannel.open(
+                        directory.resolve(LOCK_FILE),
+                        StandardOpenOption.CREATE,
+                        StandardOpenOption.WRITE
+                ); FileLock ignored = lockChannel.lock()) {
+                    Properties leases = read();
+                    Properties before = new Properties();
+                    before.putAll(leases);
+                    T result = change.apply(leases);
+                    if (!leases.equals(before)) {
+                        write(leases);
+                    }
+                    return result;
+                }
+            } catch (IOException error) {
+                throw new UncheckedIOException("Failed to update the fork lease file in " + directory
+                        + ". Check that it is writable or disable " + ENABLED_KEY + ".", error);
+            }
+        }
+    }
+
+    private Properties read() throws IOException {
+        Properties leases = new Properties();
+        Path leaseFile = directory.resolve(LEASE_FILE);
+        if (Files.exists(leaseFile)) {
+            try (Reader reader = Files.newBufferedReader(leaseFile, StandardCharsets.UTF_8)) {
+                leases.load(reader);
+            } catch (IllegalArgumentException error) {
+                log.warn("Ignoring unreadable fork lease file {}: {}", leaseFile, error.getMessage());
+                leases.clear();
+            }
+        }
+        return leases;
+    }
+
+    private void write(Properties leases) throws IOException {
+        Path temporary = directory.resolve(LEASE_FILE + ".tmp");
+        try (Writer writer = Files.newBufferedWriter(temporary, StandardCharsets.UTF_8)) {
+            leases.store(writer, "Pepenium fork leases: resource = owner#claim claimedAtMillis");
+        }
+        Files.move(temporary, directory.resolve(LEASE_FILE), StandardCopyOption.REPLACE_EXISTING,
+                StandardCopyOption.ATOMIC_MOVE);
+    }
+
+    static String currentProcessOwner() {
+        ProcessHandle current = ProcessHandle.current();
+        return current.pid() + "@" + current.info().startInstant().map(start -> start.toEpochMilli()).orElse(0L);
+    }
+
+    /**
+     * Whether the process behind an owner written by {@link #currentProcessOwner()} still runs; a reused PID is told
+     * apart by its start time.
+     */
+    static boolean isOwnerAlive(String owner) {
+        int separator = owner.indexOf('@');
+        try {
+            long pid = Long.parseLong(separator < 0 ? owner : owner.substring(0, separator));
+            long startedAt = separator < 0 ? 0L : Long.parseLong(owner.substring(separator + 1));
+            return ProcessHandle.of(pid)
+                    .filter(ProcessHandle::isAlive)
+                    .map(handle -> startedAt == 0L || handle.info().startInstant()
+                            .map(start -> start.toEpochMilli() == startedAt)
+                            .orElse(true))
+                    .orElse(false);
+        } catch (NumberFormatException ignored) {
+            return false;
+        }
+    }
+
+    @FunctionalInterface
+    private interface LeaseUpdate<T> {
+        T apply(Properties leases);
+    }
+
+    /**
+     * One resource claimed by this fork. Releasing it twice, or after it expired and was claimed by another fork, is
+     * harmless.
+     */
+    static final class Claim {
+        private final ForkLeaseRegistry registry;
+        private final String resource;
+        private final String claimId;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Claim(ForkLeaseRegistry registry, String resource, String claimId) {
+            this.registry = registry;
+            this.resource = resource;
+            this.claimId = claimId;
+        }
+
+        String resource() {
+            return resource;
+        }
+
+        void release() {
+            if (registry.isEnabled() && released.compareAndSet(false, true)) {
+                registry.release(this);
+            }
+        }
+    }
+}
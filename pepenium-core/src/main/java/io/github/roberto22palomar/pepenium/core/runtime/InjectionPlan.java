@@ -0,0 +1,282 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.AppiumDriver;
+import org.openqa.selenium.WebDriver;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.lang.reflect.ParameterizedType;
+import java.lang.reflect.Type;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Reflection done once per class for {@link PepeniumInjectionSupport}: the {@link PepeniumInject} fields with their
+ * setters, and the constructor used to create the class as a component or toolkit helper.
+ *
+ * <p>Plans live in a {@link ClassValue}, so they are computed on first use, shared by every runtime and fork thread,
+ * and dropped together with the class loader of the test class. Invalid classes are reported each time they are
+ * injected rather than cached.</p>
+ */
+final class InjectionPlan {
+
+    private static final ClassValue<InjectionPlan> PLANS = new ClassValue<InjectionPlan>() {
+        @Override
+        protected InjectionPlan computeValue(Class<?> type) {
+            return new InjectionPlan(type);
+        }
+    };
+    private static final MethodType SETTER = MethodType.methodType(void.class, Object.class, Object.class);
+
+    private final Class<?> type;
+    private final List<FieldSlot> fields;
+    private final boolean page;
+    private final Map<Class<?>, MethodHandle> toolkitConstructors = new ConcurrentHashMap<>();
+    private volatile Creator creator;
+
+    private InjectionPlan(Class<?> type) {
+        this.type = type;
+        this.fields = Collections.unmodifiableList(injectedFields(type));
+        this.page = type.isAnnotationPresent(PepeniumPage.class);
+    }
+
+    static InjectionPlan of(Class<?> type) {
+        return PLANS.get(type);
+    }
+
+    List<FieldSlot> fields() {
+        return fields;
+    }
+
+    boolean isPage() {
+        return page;
+    }
+
+    /**
+     * Constructor used to create this class as a component, with its parameters in resolution order.
+     */
+    Creator creator() {
+        Creator selected = creator;
+        if (selected == null) {
+            selected = new Creator(selectConstructor(type));
+            creator = selected;
+        }
+        return selected;
+    }
+
+    /**
+     * Creates this toolkit helper around {@code driverLike}, picking the constructor once per driver class.
+     */
+    Object createToolkitHelper(Object driverLike) {
+        MethodHandle constructor = toolkitConstructors.computeIfAbsent(driverLike.getClass(), driverType -> {
+            try {
+                return unreflect(findCompatibleToolkitConstructor(driverType))
+                        .asType(MethodType.methodType(Object.class, Object.class));
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Failed to create toolkit helper " + type.getName(), e);
+            }
+        });
+        try {
+            return constructor.invokeExact(driverLike);
+        } catch (Error e) {
+            throw e;
+        } catch (Throwable e) {
+            throw new IllegalStateException("Failed to create toolkit helper " + type.getName(), e);
+        }
+    }
+
+    private Constructor<?> findCompatibleToolkitConstructor(Class<?> driverType) throws NoSuchMethodException {
+        Class<?> preferredType = AppiumDriver.class.isAssignableFrom(driverType) ? AppiumDriver.class : WebDriver.class;
+        try {
+            return type.getDeclaredConstructor(preferredType);
+        } catch (NoSuchMethodException ignored) {
+            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
+                Class<?>[] parameterTypes = constructor.getParameterTypes();
+                if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(driverType)) {
+                    return constructor;
+                }
+            }
+            throw new NoSuchMethodException(type.getName() + ".<init>(" + preferredType.getName() + ")");
+        }
+    }
+
+    private static List<FieldSlot> injectedFields(Class<?> type) {
+        Set<String> seen = new HashSet<>();
+        List<FieldSlot> slots = new ArrayList<>();
+        Class<?> current = type;
+        while (current != null && current != Object.class) {
+            for (Field field : current.getDeclaredFields()) {
+                if (!seen.add(current.getName() + "#" + field.getName())
+                        || !field.isAnnotationPresent(PepeniumInject.class)) {
+                    continue;
+                }
+                if (Modifier.isFinal(field.getModifiers())) {
+                    throw new IllegalStateException("@PepeniumInject fields must not be final: " + field);
+                }
+                slots.add(new FieldSlot(field));
+            }
+            current = current.getSuperclass();
+        }
+        return slots;
+    }
+
+    private static Constructor<?> selectConstructor(Class<?> type) {
+        Constructor<?>[] constructors = type.getDeclaredConstructors();
+        if (constructors.length == 0) {
+            throw new IllegalStateException("Type " + type.getName() + " does not expose a usable constructor");
+        }
+
+        ArrayList<Constructor<?>> annotated = new ArrayList<>();
+        for (Constructor<?> constructor : constructors) {
+            if (constructor.isAnnotationPresent(PepeniumInject.class)) {
+                annotated.add(constructor);
+            }
+        }
+        if (annotated.size() > 1) {
+            throw new IllegalStateException("Type " + type.getName()
+                    + " declares multiple @PepeniumInject constructors. Keep only one.");
+        }
+        if (annotated.size() == 1) {
+            return annotated.get(0);
+        }
+        if (constructors.length == 1) {
+            return constructors[0];
+        }
+        throw new IllegalStateException("Type " + type.getName()
+                + " declares multiple constructors. Annotate the intended one with @PepeniumInject."
+                + " Available constructors: " + Arrays.toString(constructors));
+    }
+
+    /**
+     * Component type of a {@link PepeniumLazy} injection point, or {@code null} for any other type.
+     */
+    static Class<?> lazyType(Class<?> rawType, Type genericType, Object injectionPoint) {
+        if (rawType != PepeniumLazy.class) {
+            return null;
+        }
+        if (genericType instanceof ParameterizedType) {
+            Type argument = ((ParameterizedType) genericType).getActualTypeArguments()[0];
+            if (argument instanceof Class && argument != PepeniumLazy.class) {
+                return (Class<?>) argument;
+            }
+        }
+        throw new IllegalStateException("PepeniumLazy injection points must name the component to create,"
+                + " such as PepeniumLazy<LoginPage>: " + injectionPoint);
+    }
+
+    private static MethodHandle unreflect(Constructor<?> constructor) throws IllegalAccessException {
+        constructor.setAccessible(true);
+        return MethodHandles.lookup().unreflectConstructor(constructor);
+    }
+
+    /**
+     * One {@link PepeniumInject} field and a setter that skips the access checks of {@link Field#set}.
+     */
+    static final class FieldSlot {
+        private final Field field;
+        private final boolean direct;
+        private final Class<?> lazyType;
+        private final MethodHandle setter;
+
+        private FieldSlot(Field field) {
+            this.field = field;
+            this.direct = PepeniumInjectionSupport.isDirectlySupported(field.getType());
+            this.lazyType = InjectionPlan.lazyType(field.getType(), field.getGenericType(), field);
+            try {
+                field.setAccessible(true);
+                MethodHandle fieldSetter = MethodHandles.lookup().unreflectSetter(field);
+                if (Modifier.isStatic(field.getModifiers())) {
+                    fieldSetter = MethodHandles.dropArguments(fieldSetter, 0, Object.class);
+                }
+                this.setter = fieldSetter.asType(SETTER);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to inject field " + field, e);
+            }
+        }
+
+        Class<?> type() {
+            return field.getType();
+        }
+
+        boolean isDirect() {
+            return direct;
+        }
+
+        /**
+         * Component created by the injected {@link PepeniumLazy}, or {@code null} for an eager field.
+         */
+        Class<?> lazyType() {
+            return lazyType;
+        }
+
+        void set(Object target, Object value) {
+            try {
+                setter.invokeExact(target, value);
+            } catch (RuntimeException | Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to inject field " + field, e);
+            }
+        }
+    }
+
+    /**
+     * Selected component constructor as a spreading {@link MethodHandle}.
+     */
+    static final class Creator {
+        private final Class<?> type;
+        private final Class<?>[] parameterTypes;
+        private final Class<?>[] lazyTypes;
+        private final MethodHandle constructor;
+
+        private Creator(Constructor<?> constructor) {
+            this.type = constructor.getDeclaringClass();
+            this.parameterTypes = constructor.getParameterTypes();
+            this.lazyTypes = new Class<?>[parameterTypes.length];
+            Type[] genericTypes = constructor.getGenericParameterTypes();
+            for (int i = 0; i < parameterTypes.length; i++) {
+                Type genericType = genericTypes.length == parameterTypes.length ? genericTypes[i] : parameterTypes[i];
+                lazyTypes[i] = InjectionPlan.lazyType(parameterTypes[i], genericType, constructor);
+            }
+            try {
+                this.constructor = unreflect(constructor)
+                        .asSpreader(Object[].class, parameterTypes.length)
+                        .asType(MethodType.methodType(Object.class, Object[].class));
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException("Failed to create Pepenium component " + type.getName(), e);
+            }
+        }
+
+        int parameterCount() {
+            return parameterTypes.length;
+        }
+
+        Class<?> parameterType(int index) {
+            return parameterTypes[index];
+        }
+
+        Class<?> lazyType(int index) {
+            return lazyTypes[index];
+        }
+
+        Object create(Object[] args) {
+            try {
+                return constructor.invokeExact(args);
+            } catch (Error e) {
+                throw e;
+            } catch (Throwable e) {
+                throw new IllegalStateException("Failed to create Pepenium component " + type.getName(), e);
+            }
+        }
+    }
+}
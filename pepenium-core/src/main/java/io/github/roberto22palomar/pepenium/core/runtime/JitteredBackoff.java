@@ -0,0 +1,38 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.function.DoubleSupplier;
+
+/**
+ * Full-jitter exponential backoff: retry {@code n} waits a random time between zero and {@code base * 2^n}, capped at
+ * {@code max}, so parallel classes that failed together do not retry together.
+ */
+final class JitteredBackoff {
+
+    static final Sleeper THREAD_SLEEP = delay -> Thread.sleep(delay.toMillis());
+    static final DoubleSupplier RANDOM = () -> ThreadLocalRandom.current().nextDouble();
+
+    private final Duration base;
+    private final Duration max;
+    private final DoubleSupplier random;
+
+    JitteredBackoff(Duration base, Duration max, DoubleSupplier random) {
+        this.base = base;
+        this.max = max;
+        this.random = random;
+    }
+
+    /**
+     * Delay before retry number {@code retry}, counting from zero.
+     */
+    Duration delay(int retry) {
+        long ceiling = Math.min(max.toMillis(), base.toMillis() << Math.min(retry, 20));
+        return Duration.ofMillis(Math.max(1L, (long) (ceiling * random.getAsDouble())));
+    }
+
+    @FunctionalInterface
+    interface Sleeper {
+        void sleep(Duration delay) throws InterruptedException;
+    }
+}
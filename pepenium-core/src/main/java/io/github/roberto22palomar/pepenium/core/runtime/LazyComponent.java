@@ -0,0 +1,38 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+/**
+ * {@link PepeniumLazy} bound to the runtime and component cache of one test class.
+ */
+final class LazyComponent<T> implements PepeniumLazy<T> {
+
+    private final PepeniumRuntime runtime;
+    private final PepeniumTest config;
+    private final PepeniumInjectionSupport.CacheState cache;
+    private final Class<T> type;
+    private long lifecycleVersion;
+    private T value;
+
+    LazyComponent(PepeniumRuntime runtime, PepeniumTest config, PepeniumInjectionSupport.CacheState cache,
+                  Class<T> type) {
+        this.runtime = runtime;
+        this.config = config;
+        this.cache = cache;
+        this.type = type;
+    }
+
+    @Override
+    public synchronized T get() {
+        long current = runtime.getLifecycleVersion();
+        if (value == null || lifecycleVersion != current) {
+            cache.align(current);
+            value = type.cast(new PepeniumInjectionSupport(runtime, config, cache).resolve(type));
+            lifecycleVersion = current;
+        }
+        return value;
+    }
+
+    @Override
+    public String toString() {
+        return "PepeniumLazy<" + type.getSimpleName() + ">";
+    }
+}
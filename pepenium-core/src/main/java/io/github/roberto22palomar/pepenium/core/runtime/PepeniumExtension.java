@@ -1,28 +1,53 @@
 package io.github.roberto22palomar.pepenium.core.runtime;
 
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
 import org.junit.jupiter.api.extension.AfterAllCallback;
+import org.junit.jupiter.api.extension.AfterClassTemplateInvocationCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
+import org.junit.jupiter.api.extension.BeforeClassTemplateInvocationCallback;
 import org.junit.jupiter.api.extension.BeforeEachCallback;
 import org.junit.jupiter.api.extension.BeforeTestExecutionCallback;
+import org.junit.jupiter.api.extension.ClassTemplateInvocationContext;
+import org.junit.jupiter.api.extension.ClassTemplateInvocationContextProvider;
 import org.junit.jupiter.api.extension.ExtensionContext;
 import org.junit.jupiter.api.extension.ParameterContext;
 import org.junit.jupiter.api.extension.ParameterResolutionException;
 import org.junit.jupiter.api.extension.ParameterResolver;
 import org.junit.jupiter.api.extension.TestWatcher;
 
+import java.lang.reflect.Parameter;
+import java.util.stream.Stream;
+
 /**
  * JUnit 5 extension that powers the annotation-first Pepenium authoring model.
+ *
+ * <p>For {@link PepeniumProfileMatrix} classes it also provides one class template invocation per profile; each
+ * invocation opens and closes the session of its own profile.</p>
  */
 public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
-        BeforeTestExecutionCallback, AfterEachCallback, AfterAllCallback, TestWatcher, ParameterResolver {
+        BeforeTestExecutionCallback, AfterEachCallback, AfterAllCallback, TestWatcher, ParameterResolver,
+        ClassTemplateInvocationContextProvider, BeforeClassTemplateInvocationCallback,
+        AfterClassTemplateInvocationCallback {
 
     private static final ExtensionContext.Namespace NAMESPACE = ExtensionContext.Namespace.create(PepeniumExtension.class);
+    private static final String MATRIX_KEY = "profileMatrix";
+    private static final String PROFILE_KEY = "matrixProfile";
 
     @Override
     public void beforeAll(ExtensionContext context) throws Exception {
+        PepeniumSuiteLifecycle.attach(context);
         PepeniumTest config = requireConfig(context);
+        if (isMatrix(context)) {
+            return;
+        }
+        if (config.profiles().length > 0) {
+            throw new IllegalStateException("@PepeniumTest(profiles) on " + context.getRequiredTestClass().getName()
+                    + " requires @PepeniumProfileMatrix on the class. Add it, or use profile for a single profile.");
+        }
         PepeniumRuntime runtime = getRuntime(context);
+        runtime.isolateThreadState();
+        runtime.bindTestClass(context.getRequiredTestClass());
         if (config.automaticLifecycle()) {
             runtime.initializeDriverForProfile(config.target(), normalizeProfile(config.profile()));
         }
@@ -30,11 +55,47 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
     }
 
     @Override
-    public void beforeEach(ExtensionContext context) {
+    public boolean supportsClassTemplate(ExtensionContext context) {
+        return context.getRequiredTestClass().isAnnotationPresent(PepeniumTest.class);
+    }
+
+    @Override
+    public Stream<ClassTemplateInvocationContext> provideClassTemplateInvocationContexts(ExtensionContext context) {
+        ProfileMatrix matrix = ProfileMatrix.create(context.getRequiredTestClass(), requireConfig(context));
+        context.getStore(NAMESPACE).put(MATRIX_KEY, matrix);
+        return matrix.profiles().stream().map(ProfileInvocation::new);
+    }
+
+    @Override
+    public void beforeClassTemplateInvocation(ExtensionContext context) throws Exception {
+        PepeniumTest config = requireConfig(context);
+        ProfileMatrix matrix = context.getStore(NAMESPACE).get(MATRIX_KEY, ProfileMatrix.class);
+        String profile = matrixProfile(context);
+        PepeniumRuntime runtime = getRuntime(context);
+        runtime.isolateThreadState();
+        runtime.bindTestClass(context.getRequiredTestClass());
+        runtime.bindProfileMatrix(matrix.prewarmer(), matrix.key(profile));
+        if (config.automaticLifecycle()) {
+            matrix.openAhead(profile);
+            runtime.initializeDriverForProfile(config.target(), profile);
+        }
+        injectFields(context, runtime, config, config.automaticLifecycle());
+    }
+
+    @Override
+    public void afterClassTemplateInvocation(ExtensionContext context) {
+        if (requireConfig(context).automaticLifecycle()) {
+            getRuntime(context).cleanupDriver();
+        }
+    }
+
+    @Override
+    public void beforeEach(ExtensionContext context) throws Exception {
         PepeniumTest config = requireConfig(context);
         PepeniumRuntime runtime = getRuntime(context);
         runtime.clearPerTestState();
         runtime.beginTestObservability();
+        runtime.ensureLiveSession();
         injectFields(context, runtime, config, config.automaticLifecycle());
     }
 
@@ -50,7 +111,7 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
     public void afterEach(ExtensionContext context) {
         PepeniumRuntime runtime = getRuntime(context);
         try {
-            runtime.writeTestReport(context.getDisplayName(), context.getExecutionException().orElse(null));
+            runtime.writeTestReport(reportName(context), context.getExecutionException().orElse(null));
         } finally {
             runtime.clearPerTestState();
         }
@@ -59,15 +120,14 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
     @Override
     public void afterAll(ExtensionContext context) {
         PepeniumTest config = requireConfig(context);
-        PepeniumRuntime runtime = getRuntime(context);
-        if (config.automaticLifecycle()) {
-            runtime.cleanupDriver();
+        if (config.automaticLifecycle() && !isMatrix(context)) {
+            getRuntime(context).cleanupDriver();
         }
     }
 
     @Override
     public void testFailed(ExtensionContext context, Throwable cause) {
-        getRuntime(context).reportFailure(context.getDisplayName(), cause);
+        getRuntime(context).reportFailure(reportName(context), cause);
     }
 
     @Override
@@ -81,7 +141,9 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
             PepeniumTest config = requireConfig(extensionContext);
             PepeniumRuntime runtime = getRuntime(extensionContext);
             PepeniumInjectionSupport injector = getInjector(extensionContext, runtime, config);
-            return injector.resolve(parameterContext.getParameter().getType());
+            Parameter parameter = parameterContext.getParameter();
+            Class<?> lazyType = InjectionPlan.lazyType(parameter.getType(), parameter.getParameterizedType(), parameter);
+            return lazyType != null ? injector.lazy(lazyType) : injector.resolve(parameter.getType());
         } catch (RuntimeException e) {
             throw new ParameterResolutionException(e.getMessage(), e);
         }
@@ -93,20 +155,22 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
                         "@PepeniumTest requires a PER_CLASS test instance. " +
                                 "If you are not using the default annotation metadata, add @TestInstance(PER_CLASS)."
                 ));
+        long startedAt = System.nanoTime();
         PepeniumInjectionSupport injector = getInjector(context, runtime, config);
         injector.injectInto(testInstance, strictLifecycle);
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INJECTION, startedAt);
     }
 
     private PepeniumRuntime getRuntime(ExtensionContext context) {
         ExtensionContext.Store store = context.getRoot().getStore(NAMESPACE);
-        String key = context.getRequiredTestClass().getName() + ".runtime";
+        String key = context.getRequiredTestClass().getName() + profileSuffix(context) + ".runtime";
         return store.getOrComputeIfAbsent(key, ignored -> new PepeniumRuntime(), PepeniumRuntime.class);
     }
 
     @SuppressWarnings("unchecked")
     private PepeniumInjectionSupport getInjector(ExtensionContext context, PepeniumRuntime runtime, PepeniumTest config) {
         ExtensionContext.Store store = context.getRoot().getStore(NAMESPACE);
-        String key = context.getRequiredTestClass().getName() + ".components";
+        String key = context.getRequiredTestClass().getName() + profileSuffix(context) + ".components";
         PepeniumInjectionSupport.CacheState cache = store.getOrComputeIfAbsent(
                 key,
                 ignored -> new PepeniumInjectionSupport.CacheState(),
@@ -124,11 +188,53 @@ public class PepeniumExtension implements BeforeAllCallback, BeforeEachCallback,
         return config;
     }
 
+    private boolean isMatrix(ExtensionContext context) {
+        return context.getRequiredTestClass().isAnnotationPresent(PepeniumProfileMatrix.class);
+    }
+
+    /**
+     * Profile of the matrix invocation {@code context} belongs to, or {@code null} outside a profile matrix.
+     */
+    private String matrixProfile(ExtensionContext context) {
+        return isMatrix(context) ? context.getStore(NAMESPACE).get(PROFILE_KEY, String.class) : null;
+    }
+
+    private String profileSuffix(ExtensionContext context) {
+        String profile = matrixProfile(context);
+        return profile == null ? "" : "[" + profile + "]";
+    }
+
+    /**
+     * Display name for reports; matrix runs append the profile so each profile's run of a test stays distinct.
+     */
+    private String reportName(ExtensionContext context) {
+        String profile = matrixProfile(context);
+        return profile == null ? context.getDisplayName() : context.getDisplayName() + " [" + profile + "]";
+    }
+
     private boolean isSupportedInjectionPoint(Class<?> type, boolean annotated) {
-        return annotated || PepeniumInjectionSupport.isDirectlySupported(type);
+        return annotated || type == PepeniumLazy.class || PepeniumInjectionSupport.isDirectlySupported(type);
     }
 
     private String normalizeProfile(String profile) {
         return profile == null || profile.isBlank() ? null : profile;
     }
+
+    private static final class ProfileInvocation implements ClassTemplateInvocationContext {
+        private final String profileId;
+
+        private ProfileInvocation(String profileId) {
+            this.profileId = profileId;
+        }
+
+        @Override
+        public String getDisplayName(int invocationIndex) {
+            return "[" + profileId + "]";
+        }
+
+        @Override
+        public void prepareInvocation(ExtensionContext context) {
+            context.getStore(NAMESPACE).put(PROFILE_KEY, profileId);
+        }
+    }
 }
@@ -7,11 +7,7 @@ import io.github.roberto22palomar.pepenium.core.observability.StepTracker;
 import org.openqa.selenium.WebDriver;
 import org.openqa.selenium.support.PageFactory;
 
-import java.lang.reflect.Constructor;
-import java.lang.reflect.Field;
 import java.lang.reflect.Modifier;
-import java.util.ArrayList;
-import java.util.Arrays;
 import java.util.HashMap;
 import java.util.HashSet;
 import java.util.Map;
@@ -103,29 +99,33 @@ final class PepeniumInjectionSupport {
         return resolve(type, new HashSet<>());
     }
 
+    /**
+     * Handle that resolves {@code type} on first use and again after the session changes.
+     */
+    PepeniumLazy<?> lazy(Class<?> type) {
+        return new LazyComponent<>(runtime, config, cache, type);
+    }
+
     void injectInto(Object target) {
         injectInto(target, true);
     }
 
     void injectInto(Object target, boolean strictLifecycle) {
-        for (Field field : allFieldsOf(target.getClass())) {
-            if (!field.isAnnotationPresent(PepeniumInject.class)) {
-                continue;
-            }
-            if (Modifier.isFinal(field.getModifiers())) {
-                throw new IllegalStateException("@PepeniumInject fields must not be final: " + field);
-            }
+        InjectionPlan plan = InjectionPlan.of(target.getClass());
+        for (InjectionPlan.FieldSlot field : plan.fields()) {
             try {
-                setField(field, target, resolve(field.getType()));
+                field.set(target, field.lazyType() != null
+                        ? lazy(field.lazyType())
+                        : field.isDirect() ? resolveDirect(field.type()) : resolve(field.type()));
             } catch (MissingLifecycleDependencyException e) {
                 if (strictLifecycle) {
                     throw e;
                 }
-                setField(field, target, null);
+                field.set(target, null);
             }
         }
 
-        if (target.getClass().isAnnotationPresent(PepeniumPage.class)) {
+        if (plan.isPage()) {
             PageFactory.initElements(requireWebDriver(target.getClass()), target);
         }
     }
@@ -158,45 +158,14 @@ final class PepeniumInjectionSupport {
     }
 
     private Object instantiate(Class<?> type, Set<Class<?>> resolutionPath) {
-        Constructor<?> constructor = selectConstructor(type);
-        try {
-            constructor.setAccessible(true);
-            Class<?>[] parameterTypes = constructor.getParameterTypes();
-            Object[] args = new Object[parameterTypes.length];
-            for (int i = 0; i < parameterTypes.length; i++) {
-                args[i] = resolve(parameterTypes[i], resolutionPath);
-            }
-            return constructor.newInstance(args);
-        } catch (ReflectiveOperationException e) {
-            throw new IllegalStateException("Failed to create Pepenium component " + type.getName(), e);
-        }
-    }
-
-    private Constructor<?> selectConstructor(Class<?> type) {
-        Constructor<?>[] constructors = type.getDeclaredConstructors();
-        if (constructors.length == 0) {
-            throw new IllegalStateException("Type " + type.getName() + " does not expose a usable constructor");
-        }
-
-        ArrayList<Constructor<?>> annotated = new ArrayList<>();
-        for (Constructor<?> constructor : constructors) {
-            if (constructor.isAnnotationPresent(PepeniumInject.class)) {
-                annotated.add(constructor);
-            }
-        }
-        if (annotated.size() > 1) {
-            throw new IllegalStateException("Type " + type.getName()
-                    + " declares multiple @PepeniumInject constructors. Keep only one.");
-        }
-        if (annotated.size() == 1) {
-            return annotated.get(0);
-        }
-        if (constructors.length == 1) {
-            return constructors[0];
-        }
-        throw new IllegalStateException("Type " + type.getName()
-                + " declares multiple constructors. Annotate the intended one with @PepeniumInject."
-                + " Available constructors: " + Arrays.toString(constructors));
+        InjectionPlan.Creator creator = InjectionPlan.of(type).creator();
+        Object[] args = new Object[creator.parameterCount()];
+        for (int i = 0; i < args.length; i++) {
+            args[i] = creator.lazyType(i) != null
+                    ? lazy(creator.lazyType(i))
+                    : resolve(creator.parameterType(i), resolutionPath);
+        }
+        return creator.create(args);
     }
 
     private Object resolveDirect(Class<?> type) {
@@ -336,51 +305,6 @@ final class PepeniumInjectionSupport {
     }
 
     private Object instantiateToolkitType(Class<?> type, Object driverLike) {
-        try {
-            Constructor<?> constructor = findCompatibleToolkitConstructor(type, driverLike);
-            constructor.setAccessible(true);
-            return constructor.newInstance(driverLike);
-        } catch (ReflectiveOperationException e) {
-            throw new IllegalStateException("Failed to create toolkit helper " + type.getName(), e);
-        }
-    }
-
-    private Constructor<?> findCompatibleToolkitConstructor(Class<?> type, Object driverLike) throws NoSuchMethodException {
-        Class<?> preferredType = driverLike instanceof AppiumDriver ? AppiumDriver.class : WebDriver.class;
-        try {
-            return type.getDeclaredConstructor(preferredType);
-        } catch (NoSuchMethodException ignored) {
-            for (Constructor<?> constructor : type.getDeclaredConstructors()) {
-                Class<?>[] parameterTypes = constructor.getParameterTypes();
-                if (parameterTypes.length == 1 && parameterTypes[0].isAssignableFrom(driverLike.getClass())) {
-                    return constructor;
-                }
-            }
-            throw new NoSuchMethodException(type.getName() + ".<init>(" + preferredType.getName() + ")");
-        }
-    }
-
-    private Iterable<Field> allFieldsOf(Class<?> type) {
-        Set<String> seen = new HashSet<>();
-        java.util.List<Field> fields = new java.util.ArrayList<>();
-        Class<?> current = type;
-        while (current != null && current != Object.class) {
-            for (Field field : current.getDeclaredFields()) {
-                if (seen.add(current.getName() + "#" + field.getName())) {
-                    fields.add(field);
-                }
-            }
-            current = current.getSuperclass();
-        }
-        return fields;
-    }
-
-    private void setField(Field field, Object target, Object value) {
-        try {
-            field.setAccessible(true);
-            field.set(target, value);
-        } catch (IllegalAccessException e) {
-            throw new IllegalStateException("Failed to inject field " + field, e);
-        }
+        return InjectionPlan.of(type).createToolkitHelper(driverLike);
     }
 }
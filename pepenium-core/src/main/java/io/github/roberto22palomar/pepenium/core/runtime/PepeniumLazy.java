@@ -0,0 +1,20 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import java.util.function.Supplier;
+
+/**
+ * Injected handle to a page, flow or toolkit helper that is only created when a test first asks for it.
+ *
+ * <p>Declare {@code @PepeniumInject PepeniumLazy<LoginPage> loginPage;} instead of injecting {@code LoginPage}
+ * directly. The component, including {@link PepeniumPage} element initialization, is created on the first
+ * {@link #get()} and reused until the driver session changes; the first call after a new or recovered session
+ * creates it again against the new driver.</p>
+ *
+ * @param <T> injected component type
+ */
+@FunctionalInterface
+public interface PepeniumLazy<T> extends Supplier<T> {
+
+    @Override
+    T get();
+}
@@ -1,5 +1,6 @@
 package io.github.roberto22palomar.pepenium.core.runtime;
 
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
 import org.junit.jupiter.api.extension.AfterAllCallback;
 import org.junit.jupiter.api.extension.AfterEachCallback;
 import org.junit.jupiter.api.extension.BeforeAllCallback;
@@ -20,17 +21,21 @@ final class PepeniumLifecycleExtension implements BeforeAllCallback, BeforeEachC
 
     @Override
     public void beforeAll(ExtensionContext context) throws Exception {
+        PepeniumSuiteLifecycle.attach(context);
+        runtime.isolateThreadState();
+        runtime.bindTestClass(context.getRequiredTestClass());
         if (owner.useAutomaticLifecycle()) {
             runtime.initializeDriverForProfile(owner.getTarget(), owner.getDefaultProfileId());
-            owner.syncRuntimeState();
+            syncRuntimeState();
         }
     }
 
     @Override
-    public void beforeEach(ExtensionContext context) {
+    public void beforeEach(ExtensionContext context) throws Exception {
         runtime.clearPerTestState();
         runtime.beginTestObservability();
-        owner.syncRuntimeState();
+        runtime.ensureLiveSession();
+        syncRuntimeState();
     }
 
     @Override
@@ -53,6 +58,15 @@ final class PepeniumLifecycleExtension implements BeforeAllCallback, BeforeEachC
         }
     }
 
+    /**
+     * Hands the current driver to the {@link BaseTest} fields, the injection step of the inheritance model.
+     */
+    private void syncRuntimeState() {
+        long startedAt = System.nanoTime();
+        owner.syncRuntimeState();
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INJECTION, startedAt);
+    }
+
     @Override
     public void testFailed(ExtensionContext context, Throwable cause) {
         runtime.reportFailure(context.getDisplayName(), cause);
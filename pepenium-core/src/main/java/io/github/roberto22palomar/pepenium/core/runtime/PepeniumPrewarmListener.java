@@ -0,0 +1,144 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.engine.support.descriptor.ClassSource;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.TestPlan;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Launcher listener that prewarms the driver session of the next {@link PepeniumTest} class in the test plan that has
+ * not started yet.
+ *
+ * <p>When the plan starts it also checks the local driver endpoints of the planned classes in parallel, whether or
+ * not prewarming is enabled, so their first sessions find the endpoints already verified.</p>
+ *
+ * <p>It is registered through {@code META-INF/services} and stays inactive unless
+ * {@value SessionPrewarmer#ENABLED_KEY} is {@code true}. Only annotation-model classes with automatic lifecycle are
+ * prewarmed, because their target and profile are known without instantiating the class. With class-level parallel
+ * execution, classes that already started are skipped, so a session is never opened for a class that no longer needs
+ * one.</p>
+ *
+ * <p>A plan without {@link PepeniumTest} classes, with prewarm disabled, touches nothing beyond that setting, so the
+ * listener also loads in test JVMs that have Pepenium Core on the classpath without its driver or logging
+ * dependencies.</p>
+ */
+public final class PepeniumPrewarmListener implements TestExecutionListener {
+
+    private final Set<Class<?>> startedClasses = ConcurrentHashMap.newKeySet();
+    private volatile List<Class<?>> classOrder = Collections.emptyList();
+    private volatile boolean active;
+
+    @Override
+    public void testPlanExecutionStarted(TestPlan testPlan) {
+        active = false;
+        List<Class<?>> classes = new ArrayList<>();
+        for (TestIdentifier root : testPlan.getRoots()) {
+            for (TestIdentifier child : testPlan.getChildren(root)) {
+                Class<?> testClass = pepeniumClass(child);
+                if (testClass != null) {
+                    classes.add(testClass);
+                }
+            }
+        }
+        if (!classes.isEmpty()) {
+            DriverEndpointPreflight.checkPlannedEndpoints(classes);
+        }
+        try {
+            if (!RuntimeSettings.enabled(SessionPrewarmer.ENABLED_KEY, false)) {
+                return;
+            }
+        } catch (RuntimeException error) {
+            Logger log = LoggerFactory.getLogger(PepeniumPrewarmListener.class);
+            log.warn("Session prewarm is disabled: {}", SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+            return;
+        }
+        startedClasses.clear();
+        classOrder = Collections.unmodifiableList(classes);
+        active = true;
+        if (!classes.isEmpty()) {
+            SessionPrewarmer.shared();
+        }
+    }
+
+    @Override
+    public void executionStarted(TestIdentifier testIdentifier) {
+        if (!active) {
+            return;
+        }
+        SessionPrewarmer prewarmer = SessionPrewarmer.current();
+        Class<?> testClass = prewarmer == null ? null : pepeniumClass(testIdentifier);
+        if (testClass == null) {
+            return;
+        }
+        startedClasses.add(testClass);
+        List<Class<?>> order = classOrder;
+        int index = order.indexOf(testClass);
+        if (index < 0) {
+            return;
+        }
+        for (int next = index + 1; next < order.size(); next++) {
+            if (!startedClasses.contains(order.get(next))) {
+                prewarmer.prewarm(order.get(next));
+                return;
+            }
+        }
+    }
+
+    @Override
+    public void executionSkipped(TestIdentifier testIdentifier, String reason) {
+        discard(testIdentifier);
+    }
+
+    @Override
+    public void executionFinished(TestIdentifier testIdentifier, TestExecutionResult testExecutionResult) {
+        discard(testIdentifier);
+    }
+
+    @Override
+    public void testPlanExecutionFinished(TestPlan testPlan) {
+        if (!active) {
+            return;
+        }
+        active = false;
+        classOrder = Collections.emptyList();
+        startedClasses.clear();
+        SessionPrewarmer.closeShared();
+    }
+
+    private void discard(TestIdentifier testIdentifier) {
+        if (!active) {
+            return;
+        }
+        SessionPrewarmer prewarmer = SessionPrewarmer.current();
+        Class<?> testClass = prewarmer == null ? null : pepeniumClass(testIdentifier);
+        if (testClass != null) {
+            prewarmer.discard(testClass.getName());
+        }
+    }
+
+    private static Class<?> pepeniumClass(TestIdentifier identifier) {
+        return identifier.getSource()
+                .filter(ClassSource.class::isInstance)
+                .map(source -> loadClass(((ClassSource) source).getClassName()))
+                .filter(testClass -> testClass.isAnnotationPresent(PepeniumTest.class))
+                .orElse(null);
+    }
+
+    private static Class<?> loadClass(String className) {
+        try {
+            return Class.forName(className, false, Thread.currentThread().getContextClassLoader());
+        } catch (ClassNotFoundException | LinkageError error) {
+            return Object.class;
+        }
+    }
+}
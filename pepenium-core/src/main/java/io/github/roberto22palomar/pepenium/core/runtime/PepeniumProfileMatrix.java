@@ -0,0 +1,24 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.junit.jupiter.api.ClassTemplate;
+
+import java.lang.annotation.ElementType;
+import java.lang.annotation.Inherited;
+import java.lang.annotation.Retention;
+import java.lang.annotation.RetentionPolicy;
+import java.lang.annotation.Target;
+
+/**
+ * Runs a {@link PepeniumTest} class once per profile listed in {@link PepeniumTest#profiles()}.
+ *
+ * <p>Profiles run one after another, each with its own runtime, driver session and injected fields. Their reports
+ * carry the profile id so the report index can group results per profile. Set
+ * {@code PEPENIUM_PROFILE_MATRIX_PREWARM_AHEAD} to open the sessions of upcoming profiles in the background while the
+ * current one runs.</p>
+ */
+@Target(ElementType.TYPE)
+@Retention(RetentionPolicy.RUNTIME)
+@Inherited
+@ClassTemplate
+public @interface PepeniumProfileMatrix {
+}
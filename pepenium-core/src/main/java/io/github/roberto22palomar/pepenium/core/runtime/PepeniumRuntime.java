@@ -7,34 +7,70 @@ import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfile;
 import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
 import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
 import io.github.roberto22palomar.pepenium.core.config.PepeniumConfig;
+import io.github.roberto22palomar.pepenium.core.config.StartupTimings;
 import io.github.roberto22palomar.pepenium.core.observability.FailureContextReporter;
+import io.github.roberto22palomar.pepenium.core.observability.FailureEvidence;
+import io.github.roberto22palomar.pepenium.core.observability.CommandLatencyRecorder;
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
 import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
-import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
 import io.github.roberto22palomar.pepenium.core.observability.PepeniumTimeline;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
 import io.github.roberto22palomar.pepenium.core.observability.StepTracker;
 import lombok.extern.slf4j.Slf4j;
 import org.openqa.selenium.WebDriver;
 import org.junit.jupiter.api.extension.ExtensionContext;
 
 import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
 
 @Slf4j
 final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource {
 
+    private static final AtomicBoolean startupTimingsLogged = new AtomicBoolean();
+
     private final DriverSessionFactory sessionFactory;
     private final ExecutionProfileResolver profileResolver;
+    private final SessionHealthProbe healthProbe;
 
     private DriverSession session;
+    private DriverRequest sessionRequest;
     private WebDriver driver;
     private long lifecycleVersion;
+    private String testClassName;
+    private SessionPrewarmer matrixPrewarmer;
+    private String matrixKey;
 
     PepeniumRuntime() {
-        this(new DefaultDriverSessionFactory(), new ExecutionProfileResolver());
+        this(defaultSessionFactory(), new ExecutionProfileResolver());
     }
 
     PepeniumRuntime(DriverSessionFactory sessionFactory, ExecutionProfileResolver profileResolver) {
+        this(sessionFactory, profileResolver, SessionHealthProbe.configured());
+    }
+
+    PepeniumRuntime(DriverSessionFactory sessionFactory,
+                    ExecutionProfileResolver profileResolver,
+                    SessionHealthProbe healthProbe) {
         this.sessionFactory = sessionFactory;
         this.profileResolver = profileResolver;
+        this.healthProbe = healthProbe;
+    }
+
+    /**
+     * Records the test class this runtime serves so a prewarmed session can be claimed for it.
+     */
+    void bindTestClass(Class<?> testClass) {
+        this.testClassName = testClass == null ? null : testClass.getName();
+    }
+
+    /**
+     * Claims sessions for one profile of a {@link PepeniumProfileMatrix} class from {@code prewarmer} under
+     * {@code key} instead of from the suite-wide prewarmer.
+     */
+    void bindProfileMatrix(SessionPrewarmer prewarmer, String key) {
+        this.matrixPrewarmer = prewarmer;
+        this.matrixKey = key;
     }
 
     WebDriver getDriver() {
@@ -65,15 +101,14 @@ final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource
     }
 
     void initializeDriverForProfile(TestTarget target, String profileId) throws Exception {
+        long startedAt = System.nanoTime();
         ExecutionProfile profile = profileResolver.resolve(target, profileId);
+        if (startupTimingsLogged.compareAndSet(false, true)) {
+            log.debug("Pepenium startup: {}", StartupTimings.describe());
+        }
         try {
-            DriverRequest request = profile.createConfig()
-                    .createRequest()
-                    .toBuilder()
-                    .target(target)
-                    .executionProfileId(profile.getId())
-                    .executionProfileDescription(profile.getDescription())
-                    .build();
+            DriverRequest request = profileRequest(profile, target);
+            LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.PROFILE_RESOLUTION, startedAt);
 
             log.info("Resolved execution profile '{}' for target '{}' ({})",
                     profile.getId(), target, profile.getDescription());
@@ -90,11 +125,66 @@ final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource
     }
 
     void writeTestReport(String displayName, Throwable cause) {
-        PepeniumHtmlReportWriter.write(displayName, session, cause);
+        BackgroundReportWriter.write(displayName, session, cause);
+    }
+
+    /**
+     * Drops thread-bound configuration and observability state that an earlier test class may have left on the
+     * current worker thread, so classes running in parallel never see each other's profile, MDC or steps.
+     */
+    void isolateThreadState() {
+        if (session != null) {
+            return;
+        }
+        PepeniumConfig.clearActiveProfile();
+        LoggingContext.clearAll();
+        StepTracker.clear();
+        PepeniumTimeline.clear();
+        CommandLatencyRecorder.clear();
+        LifecyclePhaseRecorder.clear();
+    }
+
+    /**
+     * Probes the active session and replaces it when it is dead, bumping the lifecycle version so injected drivers and
+     * helpers are re-bound before the next test runs.
+     */
+    void ensureLiveSession() throws Exception {
+        if (session == null || sessionRequest == null) {
+            return;
+        }
+        long startedAt = System.nanoTime();
+        try {
+            healthProbe.verify(session);
+            return;
+        } catch (Exception error) {
+            log.warn("Driver session failed its health check; replacing it before the next test: {}",
+                    SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+
+        DriverSession deadSession = session;
+        DriverRequest request = sessionRequest;
+        session = null;
+        driver = null;
+        sessionRequest = null;
+        lifecycleVersion++;
+        try {
+            deadSession.discard();
+        } catch (RuntimeException error) {
+            log.debug("Ignoring failure while discarding dead driver session: {}",
+                    SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+
+        openSession(request);
+        long recoveryMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        session.setProvisioning(session.getProvisioning().afterRecovery(recoveryMillis));
+        PepeniumTimeline.recordStep("Replaced a dead driver session in " + recoveryMillis + " ms");
+        log.info("Recovered driver session in {} ms", recoveryMillis);
     }
 
     void beginTestObservability() {
         PepeniumTimeline.beginTest();
+        CommandLatencyRecorder.beginTest();
+        FailureEvidence.clear();
     }
 
     void clearPerTestState() {
@@ -102,21 +192,25 @@ final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource
     }
 
     void cleanupDriver() {
+        long startedAt = System.nanoTime();
         boolean hadSession = session != null || driver != null;
         DriverSession currentSession = session;
         session = null;
         driver = null;
+        sessionRequest = null;
         if (hadSession) {
             lifecycleVersion++;
         }
         try {
-            if (currentSession != null) {
-                currentSession.close();
-            }
+            SessionTeardown.dispose(currentSession);
         } finally {
             PepeniumConfig.clearActiveProfile();
             LoggingContext.clearAll();
             StepTracker.clear();
+            FailureEvidence.clear();
+            if (hadSession) {
+                LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.TEARDOWN, startedAt);
+            }
         }
     }
 
@@ -128,17 +222,20 @@ final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource
         }
         LoggingContext.setSessionContext(request);
         DriverSession candidate = null;
+        long startedAt = System.nanoTime();
         try {
             candidate = Objects.requireNonNull(
-                    sessionFactory.create(request),
+                    prewarmedOrCreate(request),
                     "Driver session factory returned null"
             );
+            LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.SESSION_CREATION, startedAt);
             WebDriver candidateDriver = Objects.requireNonNull(
                     candidate.getDriver(),
                     "Driver session factory returned a session without a driver"
             );
             session = candidate;
             driver = candidateDriver;
+            sessionRequest = request;
             lifecycleVersion++;
         } catch (Exception e) {
             if (candidate != null) {
@@ -158,4 +255,38 @@ final class PepeniumRuntime implements ExtensionContext.Store.CloseableResource
     public void close() {
         cleanupDriver();
     }
+
+    static DriverRequest profileRequest(ExecutionProfile profile, TestTarget target) throws Exception {
+        return profile.createConfig()
+                .createRequest()
+                .toBuilder()
+                .target(target)
+                .executionProfileId(profile.getId())
+                .executionProfileDescription(profile.getDescription())
+                .build();
+    }
+
+    private DriverSession prewarmedOrCreate(DriverRequest request) throws Exception {
+        SessionPrewarmer prewarmer = matrixKey == null ? SessionPrewarmer.current() : matrixPrewarmer;
+        String prewarmKey = matrixKey == null ? testClassName : matrixKey;
+        if (prewarmer == null || !prewarmer.isPending(prewarmKey)) {
+            return sessionFactory.create(request);
+        }
+        DriverSession prewarmed = prewarmer.claim(prewarmKey, request);
+        if (prewarmed != null) {
+            LoggingContext.setSessionId(prewarmed.remoteSessionId());
+            return prewarmed;
+        }
+        DriverSession created = sessionFactory.create(request);
+        if (created != null) {
+            created.setProvisioning(created.getProvisioning().afterPrewarmMiss());
+        }
+        return created;
+    }
+
+    static DriverSessionFactory defaultSessionFactory() {
+        return PooledDriverSessionFactory.isEnabled()
+                ? PooledDriverSessionFactory.shared()
+                : new DefaultDriverSessionFactory();
+    }
 }
@@ -0,0 +1,37 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
+import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+/**
+ * Suite-wide resources that outlive a single test class and must be released when the JUnit launcher finishes.
+ *
+ * <p>The instance lives in the root extension store, so JUnit closes it once after the last test class.</p>
+ */
+final class PepeniumSuiteLifecycle implements ExtensionContext.Store.CloseableResource {
+
+    private static final ExtensionContext.Namespace NAMESPACE =
+            ExtensionContext.Namespace.create(PepeniumSuiteLifecycle.class);
+
+    static void attach(ExtensionContext context) {
+        context.getRoot()
+                .getStore(NAMESPACE)
+                .getOrComputeIfAbsent(PepeniumSuiteLifecycle.class, ignored -> new PepeniumSuiteLifecycle(),
+                        PepeniumSuiteLifecycle.class);
+    }
+
+    @Override
+    public void close() {
+        BackgroundReportWriter.closeShared();
+        SessionPrewarmer.closeShared();
+        PooledDriverSessionFactory.closeShared();
+        SessionTeardown.closeShared();
+        DevicePool.closeShared();
+        AppiumServerPool.closeShared();
+        ForkLeaseRegistry.closeShared();
+        SharedHttpTransport.closeShared();
+        PepeniumHtmlReportWriter.writeLifecyclePhases(LifecyclePhaseRecorder.takeSuitePhases());
+        PepeniumHtmlReportWriter.flushIndex();
+    }
+}
@@ -3,8 +3,6 @@ package io.github.roberto22palomar.pepenium.core.runtime;
 import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
-import org.junit.jupiter.api.parallel.Execution;
-import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Inherited;
@@ -14,12 +12,14 @@ import java.lang.annotation.Target;
 
 /**
  * Annotation-first Pepenium test entry point for plug-and-play test classes.
+ *
+ * <p>Test methods of one class always share a thread and a driver session. Classes themselves may run concurrently
+ * when JUnit class-level parallel execution is enabled.</p>
  */
 @Target(ElementType.TYPE)
 @Retention(RetentionPolicy.RUNTIME)
 @Inherited
 @TestInstance(TestInstance.Lifecycle.PER_CLASS)
-@Execution(ExecutionMode.SAME_THREAD)
 @ExtendWith(PepeniumExtension.class)
 public @interface PepeniumTest {
 
@@ -33,6 +33,12 @@ public @interface PepeniumTest {
      */
     String profile() default "";
 
+    /**
+     * Execution profiles to run the whole class on, one after another. Requires {@link PepeniumProfileMatrix} on the
+     * class and takes precedence over {@link #profile()}.
+     */
+    String[] profiles() default {};
+
     /**
      * Enables or disables the built-in automatic lifecycle.
      */
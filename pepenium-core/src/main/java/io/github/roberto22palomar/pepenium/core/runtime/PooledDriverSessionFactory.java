@@ -0,0 +1,336 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Function;
+import java.util.function.LongSupplier;
+
+/**
+ * Keeps idle driver sessions between test classes and hands them to the next class with an identical request.
+ *
+ * <p>Sessions are keyed by {@link DriverRequestFingerprint}. Before a session is handed out again it passes through a
+ * {@link SessionResetStep}; sessions are evicted once they stay idle longer than the configured maximum or reach the
+ * configured number of uses. Requests that carry their own Appium service are never pooled because the service is
+ * started per request.</p>
+ */
+final class PooledDriverSessionFactory implements DriverSessionFactory, AutoCloseable {
+
+    static final String ENABLED_KEY = "PEPENIUM_SESSION_POOL";
+    static final String MAX_IDLE_KEY = "PEPENIUM_SESSION_POOL_MAX_IDLE";
+    static final String MAX_USES_KEY = "PEPENIUM_SESSION_POOL_MAX_USES";
+    static final Duration DEFAULT_MAX_IDLE = Duration.ofSeconds(60);
+    static final int DEFAULT_MAX_USES = 25;
+
+    private static final Logger log = LoggerFactory.getLogger(PooledDriverSessionFactory.class);
+    private static PooledDriverSessionFactory shared;
+
+    private final DriverSessionFactory delegate;
+    private final Function<DriverType, SessionResetStep> resetSteps;
+    private final long maxIdleNanos;
+    private final int maxUses;
+    private final LongSupplier nanoClock;
+    private final SessionConcurrencyLimiter concurrencyLimiter;
+    private final Map<String, Deque<PooledEntry>> idle = new HashMap<>();
+    private boolean closed;
+    private long reuses;
+    private long creations;
+    private long savedMillis;
+    private long resetMillis;
+    private long resetFailures;
+
+    PooledDriverSessionFactory(DriverSessionFactory delegate,
+                               Function<DriverType, SessionResetStep> resetSteps,
+                               Duration maxIdle,
+                               int maxUses,
+                               LongSupplier nanoClock,
+                               SessionConcurrencyLimiter concurrencyLimiter) {
+        this.delegate = delegate;
+        this.resetSteps = resetSteps;
+        this.maxIdleNanos = maxIdle.toNanos();
+        this.maxUses = maxUses;
+        this.nanoClock = nanoClock;
+        this.concurrencyLimiter = concurrencyLimiter;
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    static synchronized PooledDriverSessionFactory shared() {
+        if (shared == null) {
+            shared = new PooledDriverSessionFactory(
+                    new DefaultDriverSessionFactory(),
+                    SessionResetStep::configured,
+                    RuntimeSettings.duration(MAX_IDLE_KEY, DEFAULT_MAX_IDLE),
+                    RuntimeSettings.positiveInt(MAX_USES_KEY, DEFAULT_MAX_USES),
+                    System::nanoTime,
+                    SessionConcurrencyLimiter.shared()
+            );
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        PooledDriverSessionFactory current;
+        synchronized (PooledDriverSessionFactory.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public DriverSession create(DriverRequest requested) throws Exception {
+        if (requested == null || requested.getOwnedService() != null) {
+            return delegate.create(requested);
+        }
+
+        SessionResetStep resetStep = resetSteps.apply(requested.getDriverType());
+        DriverRequest request = resetStep.prepare(requested);
+        String key = DriverRequestFingerprint.of(request);
+        long startedAt = nanoClock.getAsLong();
+        quitAll(evictExpired());
+
+        PooledEntry entry;
+        boolean resetFailed = false;
+        while ((entry = takeIdle(key)) != null) {
+            long resetStartedAt = nanoClock.getAsLong();
+            try {
+                resetStep.reset(entry.session);
+            } catch (Exception error) {
+                log.warn("Discarding pooled driver session because its reset step failed: {}",
+                        SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+                recordResetFailure();
+                resetFailed = true;
+                quit(entry);
+                continue;
+            }
+            long now = nanoClock.getAsLong();
+            long resetMillis = TimeUnit.NANOSECONDS.toMillis(now - resetStartedAt);
+            long acquireMillis = TimeUnit.NANOSECONDS.toMillis(now - startedAt);
+            Lease lease = new Lease(entry, request);
+            lease.setProvisioning(SessionProvisioning.pooled(acquireMillis, entry.creationMillis, entry.uses,
+                    resetMillis));
+            recordReuse(lease.getProvisioning().getSavedMillis(), resetMillis);
+            LoggingContext.setSessionId(entry.session.remoteSessionId());
+            log.info("Reusing pooled driver session (use {} of {}): reset in {} ms against {} ms for a new session, "
+                            + "acquired in {} ms, saved ~{} ms of startup",
+                    entry.uses, maxUses, resetMillis, entry.creationMillis, acquireMillis,
+                    lease.getProvisioning().getSavedMillis());
+            return lease;
+        }
+
+        if (!concurrencyLimiter.hasFreeSlot(request)) {
+            quitAll(takeIdleInScope(SessionConcurrencyLimiter.scope(request)));
+        }
+        DriverSession created = delegate.create(request);
+        recordCreation();
+        PooledEntry createdEntry = new PooledEntry(key, created, created.getProvisioning().getCreationMillis());
+        Lease lease = new Lease(createdEntry, request);
+        lease.setProvisioning(resetFailed ? created.getProvisioning().afterResetFailure() : created.getProvisioning());
+        return lease;
+    }
+
+    int idleCount() {
+        synchronized (this) {
+            return idle.values().stream().mapToInt(Deque::size).sum();
+        }
+    }
+
+    long totalSavedMillis() {
+        synchronized (this) {
+            return savedMillis;
+        }
+    }
+
+    @Override
+    public void close() {
+        List<PooledEntry> remaining = new ArrayList<>();
+        long reusedCount;
+        long createdCount;
+        long saved;
+        long reset;
+        long failedResets;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            idle.values().forEach(remaining::addAll);
+            idle.clear();
+            reusedCount = reuses;
+            createdCount = creations;
+            saved = savedMillis;
+            reset = resetMillis;
+            failedResets = resetFailures;
+        }
+        quitAll(remaining);
+        if (reusedCount > 0 || createdCount > 0) {
+            log.info("Driver session pool closed: {} session(s) created, {} reuse(s) with {} ms spent in reset steps, "
+                    + "{} failed reset(s), ~{} ms of startup saved", createdCount, reusedCount, reset, failedResets, saved);
+        }
+    }
+
+    private synchronized PooledEntry takeIdle(String key) {
+        Deque<PooledEntry> entries = idle.get(key);
+        if (entries == null) {
+            return null;
+        }
+        PooledEntry entry = entries.pollFirst();
+        if (entries.isEmpty()) {
+            idle.remove(key);
+        }
+        if (entry != null) {
+            entry.uses++;
+        }
+        return entry;
+    }
+
+    /**
+     * Hands back idle sessions of the same profile so their slots can serve a request with another fingerprint.
+     */
+    private synchronized List<PooledEntry> takeIdleInScope(String scope) {
+        List<PooledEntry> taken = new ArrayList<>();
+        Iterator<Map.Entry<String, Deque<PooledEntry>>> keys = idle.entrySet().iterator();
+        while (keys.hasNext()) {
+            Deque<PooledEntry> entries = keys.next().getValue();
+            entries.removeIf(entry -> {
+                boolean sameScope = scope.equals(SessionConcurrencyLimiter.scope(entry.session.getRequest()));
+                if (sameScope) {
+                    taken.add(entry);
+                }
+                return sameScope;
+            });
+            if (entries.isEmpty()) {
+                keys.remove();
+            }
+        }
+        return taken;
+    }
+
+    private void release(PooledEntry entry) {
+        boolean retire;
+        synchronized (this) {
+            retire = closed || entry.uses >= maxUses;
+            if (!retire) {
+                entry.idleSince = nanoClock.getAsLong();
+                idle.computeIfAbsent(entry.key, ignored -> new ArrayDeque<>()).addFirst(entry);
+            }
+        }
+        if (retire) {
+            quit(entry);
+        }
+        quitAll(evictExpired());
+    }
+
+    private synchronized List<PooledEntry> evictExpired() {
+        List<PooledEntry> expired = new ArrayList<>();
+        long now = nanoClock.getAsLong();
+        Iterator<Map.Entry<String, Deque<PooledEntry>>> keys = idle.entrySet().iterator();
+        while (keys.hasNext()) {
+            Deque<PooledEntry> entries = keys.next().getValue();
+            entries.removeIf(entry -> {
+                boolean stale = now - entry.idleSince > maxIdleNanos;
+                if (stale) {
+                    expired.add(entry);
+                }
+                return stale;
+            });
+            if (entries.isEmpty()) {
+                keys.remove();
+            }
+        }
+        return expired;
+    }
+
+    private synchronized void recordReuse(long saved, long reset) {
+        reuses++;
+        savedMillis += saved;
+        resetMillis += reset;
+    }
+
+    private synchronized void recordResetFailure() {
+        resetFailures++;
+    }
+
+    private synchronized void recordCreation() {
+        creations++;
+    }
+
+    private static void quitAll(List<PooledEntry> entries) {
+        for (PooledEntry entry : entries) {
+            quit(entry);
+        }
+    }
+
+    private static void quit(PooledEntry entry) {
+        try {
+            SessionTeardown.dispose(entry.session);
+        } catch (RuntimeException error) {
+            log.warn("Failed to quit pooled driver session: {}", SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+    }
+
+    private static final class PooledEntry {
+        private final String key;
+        private final DriverSession session;
+        private final long creationMillis;
+        private int uses = 1;
+        private long idleSince;
+
+        private PooledEntry(String key, DriverSession session, long creationMillis) {
+            this.key = key;
+            this.session = session;
+            this.creationMillis = creationMillis;
+        }
+    }
+
+    /**
+     * Session handed to one test class; closing it returns the underlying driver to the pool.
+     */
+    private final class Lease extends DriverSession {
+        private final PooledEntry entry;
+        private final AtomicBoolean released = new AtomicBoolean();
+
+        private Lease(PooledEntry entry, DriverRequest request) {
+            super(entry.session.getDriver(), request);
+            this.entry = entry;
+        }
+
+        @Override
+        boolean quitsDriverOnClose() {
+            return false;
+        }
+
+        @Override
+        void discard() {
+            if (released.compareAndSet(false, true)) {
+                quit(entry);
+            }
+        }
+
+        @Override
+        public void close() {
+            if (released.compareAndSet(false, true)) {
+                release(entry);
+            }
+        }
+    }
+}
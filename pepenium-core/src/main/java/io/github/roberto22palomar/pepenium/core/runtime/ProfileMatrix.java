@@ -0,0 +1,114 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
+import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
+import org.junit.jupiter.api.extension.ExtensionContext;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Profiles of one {@link PepeniumProfileMatrix} class and the sessions opened ahead for them.
+ *
+ * <p>Pepenium does not run the profiles of a class concurrently itself. With {@value #PREWARM_AHEAD_KEY} set, the
+ * sessions of that many upcoming profiles are opened in the background while the current profile runs. Sessions that
+ * no profile claims are closed with the class.</p>
+ */
+final class ProfileMatrix implements ExtensionContext.Store.CloseableResource {
+
+    static final String PREWARM_AHEAD_KEY = "PEPENIUM_PROFILE_MATRIX_PREWARM_AHEAD";
+
+    private final String testClassName;
+    private final TestTarget target;
+    private final List<String> profiles;
+    private final int prewarmAhead;
+    private final SessionPrewarmer prewarmer;
+
+    ProfileMatrix(Class<?> testClass,
+                  PepeniumTest config,
+                  List<String> profiles,
+                  int prewarmAhead,
+                  SessionPrewarmer prewarmer) {
+        this.testClassName = testClass.getName();
+        this.target = config.target();
+        this.profiles = profiles;
+        this.prewarmAhead = Math.max(0, Math.min(prewarmAhead, profiles.size() - 1));
+        this.prewarmer = prewarmer;
+    }
+
+    static ProfileMatrix create(Class<?> testClass, PepeniumTest config) {
+        List<String> profiles = profiles(testClass, config);
+        int prewarmAhead = Math.min(RuntimeSettings.positiveInt(PREWARM_AHEAD_KEY, 0), profiles.size() - 1);
+        SessionPrewarmer prewarmer = prewarmAhead > 0 && config.automaticLifecycle()
+                ? new SessionPrewarmer(PepeniumRuntime.defaultSessionFactory(), new ExecutionProfileResolver(),
+                        prewarmAhead)
+                : null;
+        return new ProfileMatrix(testClass, config, profiles, prewarmAhead, prewarmer);
+    }
+
+    /**
+     * Declared profiles of {@code config}, narrowed to the {@code -Dpepenium.profile} override when one is set so a
+     * single-profile run behaves like it does for every other class.
+     */
+    static List<String> profiles(Class<?> testClass, PepeniumTest config) {
+        Set<String> declared = new LinkedHashSet<>();
+        for (String profile : config.profiles()) {
+            if (profile == null || profile.isBlank()) {
+                throw new IllegalStateException("@PepeniumTest(profiles) on " + testClass.getName()
+                        + " contains a blank profile id. List execution profile ids such as \"local-web\".");
+            }
+            if (!declared.add(profile.trim())) {
+                throw new IllegalStateException("@PepeniumTest(profiles) on " + testClass.getName()
+                        + " lists profile '" + profile.trim() + "' more than once.");
+            }
+        }
+        if (declared.isEmpty()) {
+            throw new IllegalStateException("@PepeniumProfileMatrix on " + testClass.getName()
+                    + " needs the profiles to run on. Add @PepeniumTest(profiles = {...}).");
+        }
+        String override = new ExecutionProfileResolver().readOverride();
+        return override == null ? Collections.unmodifiableList(new ArrayList<>(declared)) : List.of(override);
+    }
+
+    List<String> profiles() {
+        return profiles;
+    }
+
+    int prewarmAhead() {
+        return prewarmAhead;
+    }
+
+    SessionPrewarmer prewarmer() {
+        return prewarmer;
+    }
+
+    /**
+     * Key under which the session of {@code profileId} is prewarmed and claimed.
+     */
+    String key(String profileId) {
+        return testClassName + "[" + profileId + "]";
+    }
+
+    /**
+     * Starts opening the sessions of the profiles that follow {@code profileId}, as many as {@value #PREWARM_AHEAD_KEY}.
+     */
+    void openAhead(String profileId) {
+        if (prewarmer == null) {
+            return;
+        }
+        int index = profiles.indexOf(profileId);
+        for (int next = index + 1; next < profiles.size() && next <= index + prewarmAhead; next++) {
+            prewarmer.prewarm(key(profiles.get(next)), target, profiles.get(next));
+        }
+    }
+
+    @Override
+    public void close() {
+        if (prewarmer != null) {
+            prewarmer.close();
+        }
+    }
+}
@@ -0,0 +1,303 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.DoubleSupplier;
+import java.util.function.Supplier;
+
+/**
+ * Admits session creation against a provider's parallel-session quota.
+ *
+ * <p>Profiles that set {@value #QUOTA_KEY} share one fair queue per provider, so shards of a BrowserStack or Device Farm
+ * account wait in arrival order instead of failing at session creation. When the provider still answers that its queue
+ * is full (the account is shared with other pipelines), creation is retried with jittered exponential backoff until
+ * {@value #QUEUE_TIMEOUT_KEY} expires. Without a quota every request is admitted immediately and never retried.</p>
+ *
+ * <p>With {@link ForkLeaseRegistry#ENABLED_KEY} on, the quota is shared by all surefire forks of the build instead of
+ * applying to each fork on its own.</p>
+ */
+final class ProviderQuotaController {
+
+    static final String QUOTA_KEY = "PEPENIUM_PROVIDER_QUOTA";
+    static final String GROUP_KEY = "PEPENIUM_PROVIDER_QUOTA_GROUP";
+    static final String QUEUE_TIMEOUT_KEY = "PEPENIUM_PROVIDER_QUEUE_TIMEOUT";
+    static final String BACKOFF_KEY = "PEPENIUM_PROVIDER_BACKOFF";
+    static final String MAX_BACKOFF_KEY = "PEPENIUM_PROVIDER_MAX_BACKOFF";
+    static final Duration DEFAULT_QUEUE_TIMEOUT = Duration.ofMinutes(10);
+    static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(5);
+    static final Duration DEFAULT_MAX_BACKOFF = Duration.ofMinutes(1);
+
+    private static final Logger log = LoggerFactory.getLogger(ProviderQuotaController.class);
+    private static final ProviderQuotaController SHARED =
+            new ProviderQuotaController(JitteredBackoff.THREAD_SLEEP, JitteredBackoff.RANDOM);
+    private static final List<String> QUEUE_FULL_MARKERS = List.of(
+            "browserstack_queue_size_exceeded",
+            "all parallel tests are currently in use",
+            "parallel sessions limit",
+            "parallel limit reached",
+            "queue size exceeded",
+            "limitexceededexception",
+            "concurrency limit",
+            "too many requests"
+    );
+
+    private final Map<String, Quota> quotasByGroup = new ConcurrentHashMap<>();
+    private final JitteredBackoff.Sleeper sleeper;
+    private final DoubleSupplier random;
+    private final Supplier<ForkLeaseRegistry> forkLeases;
+
+    ProviderQuotaController(JitteredBackoff.Sleeper sleeper, DoubleSupplier random) {
+        this(sleeper, random, ForkLeaseRegistry::shared);
+    }
+
+    ProviderQuotaController(JitteredBackoff.Sleeper sleeper, DoubleSupplier random,
+                            Supplier<ForkLeaseRegistry> forkLeases) {
+        this.sleeper = sleeper;
+        this.random = random;
+        this.forkLeases = forkLeases;
+    }
+
+    static ProviderQuotaController shared() {
+        return SHARED;
+    }
+
+    /**
+     * Blocks until the request's provider group has a free quota slot. The returned admission must be released once
+     * the session is closed or its creation failed.
+     */
+    Admission admit(DriverRequest request) {
+        long startedAt = System.nanoTime();
+        Quota quota = quotaFor(request);
+        if (quota == null) {
+            return new Admission(null, startedAt, null, null);
+        }
+        Duration timeout = RuntimeSettings.duration(QUEUE_TIMEOUT_KEY, DEFAULT_QUEUE_TIMEOUT);
+        if (!quota.slots.tryAcquire()) {
+            log.info("Waiting for provider quota '{}' ({} of {} sessions in use, {} queued)",
+                    quota.group, quota.limit - quota.slots.availablePermits(), quota.limit, quota.slots.getQueueLength());
+            if (!awaitSlot(quota, timeout)) {
+                throw new IllegalStateException("Timed out after " + timeout + " waiting for provider quota '"
+                        + quota.group + "' (" + QUOTA_KEY + "=" + quota.limit + "). Reduce CI shards or class "
+                        + "parallelism, raise the quota to match the provider plan or raise " + QUEUE_TIMEOUT_KEY + ".");
+            }
+        }
+        try {
+            return new Admission(quota, startedAt, timeout, claimForkSlot(quota, startedAt, timeout));
+        } catch (RuntimeException error) {
+            quota.slots.release();
+            throw error;
+        }
+    }
+
+    /**
+     * Claims one of the quota's slots in the fork lease registry, so forks of one build share the provider quota.
+     */
+    private ForkLeaseRegistry.Claim claimForkSlot(Quota quota, long startedAt, Duration timeout) {
+        ForkLeaseRegistry registry = forkLeases.get();
+        if (!registry.isEnabled()) {
+            return null;
+        }
+        List<String> slots = new ArrayList<>();
+        for (int slot = 1; slot <= quota.limit; slot++) {
+            slots.add("provider:" + quota.group + "#" + slot);
+        }
+        long remainingNanos = Math.max(1L, startedAt + timeout.toNanos() - System.nanoTime());
+        return registry.claim(slots, Duration.ofNanos(remainingNanos), "a slot of provider quota '" + quota.group
+                + "' (" + QUOTA_KEY + "=" + quota.limit + ")");
+    }
+
+    /**
+     * Provider group a request is counted against: {@value #GROUP_KEY} when set, otherwise the provider behind the
+     * server URL, so all profiles of one BrowserStack or Device Farm account share a quota by default.
+     */
+    static String group(DriverRequest request) {
+        String configured = RuntimeSettings.text(GROUP_KEY, null);
+        if (configured != null) {
+            return configured;
+        }
+        if (request.getServerUrl() == null) {
+            return SessionConcurrencyLimiter.scope(request);
+        }
+        String host = request.getServerUrl().getHost().toLowerCase(Locale.ROOT);
+        if (host.contains("browserstack")) {
+            return "browserstack";
+        }
+        if (host.contains("devicefarm") || host.contains("amazonaws")) {
+            return "aws-device-farm";
+        }
+        return host;
+    }
+
+    /**
+     * Whether {@code error} is a provider refusing a new session because its parallel quota or queue is full.
+     */
+    static boolean isQueueFull(Throwable error) {
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            String message = current.getMessage();
+            if (message == null) {
+                continue;
+            }
+            String normalized = message.toLowerCase(Locale.ROOT);
+            for (String marker : QUEUE_FULL_MARKERS) {
+                if (normalized.contains(marker)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    /**
+     * Quota of the request's provider group, created with the limit of the first profile that sets one. Profiles
+     * without a quota are admitted without one; a profile asking for a different limit for the same group keeps
+     * sharing the existing slots, and the conflict is logged once per limit.
+     */
+    private Quota quotaFor(DriverRequest request) {
+        int limit = RuntimeSettings.positiveInt(QUOTA_KEY, 0);
+        if (limit == 0) {
+            return null;
+        }
+        String group = group(request);
+        Quota quota = quotasByGroup.computeIfAbsent(group, ignored -> new Quota(group, limit));
+        if (quota.limit != limit && quota.reportedConflicts.add(limit)) {
+            log.warn("Provider quota '{}' is already limited to {} session(s); ignoring {}={} for '{}'. Set the same "
+                            + "quota for every profile of the group or give them different {}.",
+                    group, quota.limit, QUOTA_KEY, limit,
+                    SensitiveDataSanitizer.sanitizeText(request.getDescription()), GROUP_KEY);
+        }
+        return quota;
+    }
+
+    private static boolean awaitSlot(Quota quota, Duration timeout) {
+        try {
+            return quota.slots.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for provider quota '" + quota.group + "'", error);
+        }
+    }
+
+    @FunctionalInterface
+    interface Attempt<T> {
+        T run() throws Exception;
+    }
+
+    /**
+     * A held quota slot for one session, plus the time the request spent queued for it.
+     */
+    final class Admission {
+        private final Quota quota;
+        private final long startedAt;
+        private final Duration timeout;
+        private final ForkLeaseRegistry.Claim forkSlot;
+        private final AtomicBoolean released = new AtomicBoolean();
+        private final AtomicLong lastAttemptStartedAt;
+        private final AtomicInteger retries = new AtomicInteger();
+
+        private Admission(Quota quota, long startedAt, Duration timeout, ForkLeaseRegistry.Claim forkSlot) {
+            this.quota = quota;
+            this.startedAt = startedAt;
+            this.timeout = timeout;
+            this.forkSlot = forkSlot;
+            this.lastAttemptStartedAt = new AtomicLong(startedAt);
+        }
+
+        /**
+         * Runs {@code attempt}, retrying with full-jitter exponential backoff while the provider reports a full queue.
+         * Other failures, and queue-full failures without a configured quota, are rethrown immediately.
+         */
+        <T> T attempt(Attempt<T> attempt) throws Exception {
+            while (true) {
+                lastAttemptStartedAt.set(System.nanoTime());
+                try {
+                    return attempt.run();
+                } catch (Exception error) {
+                    if (quota == null || !isQueueFull(error)) {
+                        throw error;
+                    }
+                    Duration delay = nextBackoff();
+                    long remainingNanos = startedAt + timeout.toNanos() - System.nanoTime();
+                    if (remainingNanos <= delay.toNanos()) {
+                        throw new IllegalStateException("Provider '" + quota.group + "' still reported a full session "
+                                + "queue after " + retries.get() + " retr" + (retries.get() == 1 ? "y" : "ies") + " and "
+                                + waitMillis() + " ms. Raise " + QUEUE_TIMEOUT_KEY
+                                + " or lower " + QUOTA_KEY + " to leave room for other pipelines.", error);
+                    }
+                    log.warn("Provider '{}' refused a new session because its queue is full; retry {} in {} ms: {}",
+                            quota.group, retries.incrementAndGet(), delay.toMillis(),
+                            SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+                    try {
+                        sleeper.sleep(delay);
+                    } catch (InterruptedException interrupted) {
+                        Thread.currentThread().interrupt();
+                        error.addSuppressed(interrupted);
+                        throw error;
+                    }
+                }
+            }
+        }
+
+        /**
+         * Time queued for the quota slot and spent on refused attempts and backoff, up to the final attempt.
+         */
+        long waitMillis() {
+            return TimeUnit.NANOSECONDS.toMillis(lastAttemptStartedAt.get() - startedAt);
+        }
+
+        /**
+         * Start of the attempt that created the session, for measuring the creation time alone.
+         */
+        long lastAttemptStartedAt() {
+            return lastAttemptStartedAt.get();
+        }
+
+        int retries() {
+            return retries.get();
+        }
+
+        void release() {
+            if (quota != null && released.compareAndSet(false, true)) {
+                if (forkSlot != null) {
+                    forkSlot.release();
+                }
+                quota.slots.release();
+            }
+        }
+
+        private Duration nextBackoff() {
+            return new JitteredBackoff(
+                    RuntimeSettings.duration(BACKOFF_KEY, DEFAULT_BACKOFF),
+                    RuntimeSettings.duration(MAX_BACKOFF_KEY, DEFAULT_MAX_BACKOFF),
+                    random
+            ).delay(retries.get());
+        }
+    }
+
+    private static final class Quota {
+        private final String group;
+        private final int limit;
+        private final Semaphore slots;
+        private final Set<Integer> reportedConflicts = ConcurrentHashMap.newKeySet();
+
+        private Quota(String group, int limit) {
+            this.group = group;
+            this.limit = limit;
+            this.slots = new Semaphore(limit, true);
+        }
+    }
+}
@@ -0,0 +1,89 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.config.PepeniumConfig;
+
+import java.time.Duration;
+import java.time.format.DateTimeParseException;
+import java.util.Locale;
+
+final class RuntimeSettings {
+
+    private RuntimeSettings() {
+    }
+
+    static boolean enabled(String key, boolean defaultValue) {
+        String rawValue = PepeniumConfig.get(key);
+        if (rawValue == null || rawValue.isBlank()) {
+            return defaultValue;
+        }
+        String value = rawValue.trim();
+        if ("true".equalsIgnoreCase(value)) {
+            return true;
+        }
+        if ("false".equalsIgnoreCase(value)) {
+            return false;
+        }
+        throw new IllegalStateException(key + " must be true or false, but was '" + rawValue + "'.");
+    }
+
+    static int positiveInt(String key, int defaultValue) {
+        String rawValue = PepeniumConfig.get(key);
+        if (rawValue == null || rawValue.isBlank()) {
+            return defaultValue;
+        }
+        try {
+            int value = Integer.parseInt(rawValue.trim());
+            if (value > 0) {
+                return value;
+            }
+        } catch (NumberFormatException ignored) {
+            // Reported below with the offending value.
+        }
+        throw new IllegalStateException(key + " must be a positive integer, but was '" + rawValue + "'.");
+    }
+
+    static String text(String key, String defaultValue) {
+        String rawValue = PepeniumConfig.get(key);
+        return rawValue == null || rawValue.isBlank() ? defaultValue : rawValue.trim();
+    }
+
+    static Duration duration(String key, Duration defaultValue) {
+        String rawValue = PepeniumConfig.get(key);
+        if (rawValue == null || rawValue.isBlank()) {
+            return defaultValue;
+        }
+
+        Duration duration = parseDuration(key, rawValue.trim());
+        if (duration.isZero() || duration.isNegative()) {
+            throw invalidDuration(key, rawValue, null);
+        }
+        return duration;
+    }
+
+    private static Duration parseDuration(String key, String value) {
+        String normalized = value.toLowerCase(Locale.ROOT);
+        try {
+            if (normalized.startsWith("p")) {
+                return Duration.parse(value.toUpperCase(Locale.ROOT));
+            }
+            if (normalized.endsWith("ms")) {
+                return Duration.ofMillis(Long.parseLong(normalized.substring(0, normalized.length() - 2)));
+            }
+            if (normalized.endsWith("s")) {
+                return Duration.ofSeconds(Long.parseLong(normalized.substring(0, normalized.length() - 1)));
+            }
+            if (normalized.endsWith("m")) {
+                return Duration.ofMinutes(Long.parseLong(normalized.substring(0, normalized.length() - 1)));
+            }
+            return Duration.ofSeconds(Long.parseLong(normalized));
+        } catch (NumberFormatException | DateTimeParseException error) {
+            throw invalidDuration(key, value, error);
+        }
+    }
+
+    private static IllegalStateException invalidDuration(String key, String value, Exception cause) {
+        String message = key + " must be a positive duration, but was '" + value
+                + "'. Use plain seconds or values like 500ms, 30s, 2m or PT30S.";
+        return cause == null ? new IllegalStateException(message) : new IllegalStateException(message, cause);
+    }
+}
@@ -0,0 +1,118 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+/**
+ * Caps how many driver sessions each execution profile keeps open at the same time.
+ *
+ * <p>Test classes running in parallel wait in arrival order for a free slot instead of overrunning a grid or device
+ * lab. The limit is read from {@value #LIMIT_KEY} the first time a profile opens a session, so it can be set per
+ * profile through {@code settings} in {@code pepenium.yml}. Without a limit every request is admitted immediately.</p>
+ */
+final class SessionConcurrencyLimiter {
+
+    static final String LIMIT_KEY = "PEPENIUM_MAX_PARALLEL_SESSIONS";
+    static final String WAIT_TIMEOUT_KEY = "PEPENIUM_SESSION_SLOT_TIMEOUT";
+    static final Duration DEFAULT_WAIT_TIMEOUT = Duration.ofMinutes(10);
+
+    private static final Logger log = LoggerFactory.getLogger(SessionConcurrencyLimiter.class);
+    private static final SessionConcurrencyLimiter SHARED = new SessionConcurrencyLimiter();
+    private static final Permit UNLIMITED = () -> {
+    };
+
+    private final Map<String, Slots> slotsByScope = new ConcurrentHashMap<>();
+
+    static SessionConcurrencyLimiter shared() {
+        return SHARED;
+    }
+
+    /**
+     * Blocks until the request's profile has a free session slot. The returned permit must be released once the
+     * session is closed or its creation failed.
+     */
+    Permit acquire(DriverRequest request) {
+        Slots slots = slotsFor(request);
+        if (slots == null) {
+            return UNLIMITED;
+        }
+        if (!slots.semaphore.tryAcquire()) {
+            Duration timeout = RuntimeSettings.duration(WAIT_TIMEOUT_KEY, DEFAULT_WAIT_TIMEOUT);
+            log.info("Waiting for a free driver session slot for '{}' ({} of {} in use)",
+                    slots.scope, slots.limit - slots.semaphore.availablePermits(), slots.limit);
+            if (!awaitSlot(slots, timeout)) {
+                throw new IllegalStateException("Timed out after " + timeout + " waiting for a free driver session slot for '"
+                        + slots.scope + "' (" + LIMIT_KEY + "=" + slots.limit + "). Increase the limit, reduce JUnit "
+                        + "class parallelism or raise " + WAIT_TIMEOUT_KEY + ".");
+            }
+        }
+        AtomicBoolean released = new AtomicBoolean();
+        return () -> {
+            if (released.compareAndSet(false, true)) {
+                slots.semaphore.release();
+            }
+        };
+    }
+
+    private static boolean awaitSlot(Slots slots, Duration timeout) {
+        try {
+            return slots.semaphore.tryAcquire(timeout.toNanos(), TimeUnit.NANOSECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a free driver session slot for '"
+                    + slots.scope + "'", error);
+        }
+    }
+
+    /**
+     * Returns whether a session for the request could be opened right now without waiting.
+     */
+    boolean hasFreeSlot(DriverRequest request) {
+        Slots slots = slotsFor(request);
+        return slots == null || slots.semaphore.availablePermits() > 0;
+    }
+
+    static String scope(DriverRequest request) {
+        String profileId = request.getExecutionProfileId();
+        if (profileId != null && !profileId.isBlank()) {
+            return profileId.trim();
+        }
+        return request.getDriverType() == null ? "default" : request.getDriverType().name();
+    }
+
+    private Slots slotsFor(DriverRequest request) {
+        String scope = scope(request);
+        Slots slots = slotsByScope.get(scope);
+        if (slots == null) {
+            String rawLimit = RuntimeSettings.text(LIMIT_KEY, null);
+            int limit = rawLimit == null ? 0 : RuntimeSettings.positiveInt(LIMIT_KEY, 0);
+            slots = slotsByScope.computeIfAbsent(scope, ignored -> new Slots(scope, limit));
+        }
+        return slots.limit > 0 ? slots : null;
+    }
+
+    @FunctionalInterface
+    interface Permit {
+        void release();
+    }
+
+    private static final class Slots {
+        private final String scope;
+        private final int limit;
+        private final Semaphore semaphore;
+
+        private Slots(String scope, int limit) {
+            this.scope = scope;
+            this.limit = limit;
+            this.semaphore = new Semaphore(Math.max(limit, 0), true);
+        }
+    }
+}
@@ -0,0 +1,156 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Locale;
+import java.util.Set;
+import java.util.function.DoubleSupplier;
+import java.util.stream.Collectors;
+
+/**
+ * Retries driver session creation after transient endpoint failures.
+ *
+ * <p>A connection refused by a restarting Appium server, a grid answering 502/503 or a connect timeout is retried up
+ * to {@value #ATTEMPTS_KEY} times in total, waiting with full-jitter exponential backoff between attempts. Invalid
+ * capabilities, missing devices and other failures are rethrown immediately, and a provider's full session queue is
+ * left to {@link ProviderQuotaController}. Every transient failure is reported to the endpoint's
+ * {@link EndpointCircuitBreaker}, so retries stop as soon as the breaker opens. The default of one attempt keeps
+ * creation single-shot.</p>
+ */
+final class SessionCreationRetry {
+
+    static final String ATTEMPTS_KEY = "PEPENIUM_SESSION_RETRY_ATTEMPTS";
+    static final String BACKOFF_KEY = "PEPENIUM_SESSION_RETRY_BACKOFF";
+    static final String MAX_BACKOFF_KEY = "PEPENIUM_SESSION_RETRY_MAX_BACKOFF";
+    static final String RETRY_ON_KEY = "PEPENIUM_SESSION_RETRY_ON";
+    static final Duration DEFAULT_BACKOFF = Duration.ofSeconds(2);
+    static final Duration DEFAULT_MAX_BACKOFF = Duration.ofSeconds(30);
+
+    private static final Logger log = LoggerFactory.getLogger(SessionCreationRetry.class);
+    private static final SessionCreationRetry SHARED =
+            new SessionCreationRetry(JitteredBackoff.THREAD_SLEEP, JitteredBackoff.RANDOM);
+    private static final Set<String> TRANSIENT_TYPES = Set.of(
+            "ConnectException",
+            "NoRouteToHostException",
+            "SocketTimeoutException",
+            "HttpConnectTimeoutException",
+            "HttpTimeoutException",
+            "TimeoutException",
+            "UnreachableBrowserException"
+    );
+    private static final List<String> TRANSIENT_MARKERS = List.of(
+            "connection refused",
+            "connection reset",
+            "connect timed out",
+            "bad gateway",
+            "service unavailable",
+            "gateway timeout",
+            "session is already running",
+            "already in progress",
+            "possible causes are invalid address of the remote server"
+    );
+
+    private final JitteredBackoff.Sleeper sleeper;
+    private final DoubleSupplier random;
+
+    SessionCreationRetry(JitteredBackoff.Sleeper sleeper, DoubleSupplier random) {
+        this.sleeper = sleeper;
+        this.random = random;
+    }
+
+    static SessionCreationRetry shared() {
+        return SHARED;
+    }
+
+    /**
+     * Runs {@code attempt} until it succeeds, fails with a non-transient error or runs out of attempts. The circuit is
+     * told about every outcome and checked again before every retry; the caller checks it before the first attempt,
+     * which may be the circuit's half-open trial.
+     */
+    <T> T run(EndpointCircuitBreaker.Circuit circuit, ProviderQuotaController.Attempt<T> attempt) throws Exception {
+        int maxAttempts = RuntimeSettings.positiveInt(ATTEMPTS_KEY, 1);
+        JitteredBackoff backoff = new JitteredBackoff(
+                RuntimeSettings.duration(BACKOFF_KEY, DEFAULT_BACKOFF),
+                RuntimeSettings.duration(MAX_BACKOFF_KEY, DEFAULT_MAX_BACKOFF),
+                random
+        );
+        for (int attemptNumber = 1; ; attemptNumber++) {
+            if (attemptNumber > 1) {
+                circuit.ensureClosed();
+            }
+            T result;
+            try {
+                result = attempt.run();
+            } catch (Exception error) {
+                circuit.recordFailure(error);
+                if (attemptNumber >= maxAttempts || !isTransient(error)) {
+                    throw error;
+                }
+                Duration delay = backoff.delay(attemptNumber - 1);
+                log.warn("Driver session creation failed on attempt {} of {} against {}; retrying in {} ms: {}",
+                        attemptNumber, maxAttempts, circuit.endpoint(), delay.toMillis(),
+                        SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+                try {
+                    sleeper.sleep(delay);
+                } catch (InterruptedException interrupted) {
+                    Thread.currentThread().interrupt();
+                    error.addSuppressed(interrupted);
+                    throw error;
+                }
+                continue;
+            }
+            circuit.recordSuccess();
+            return result;
+        }
+    }
+
+    /**
+     * Whether {@code error} looks like the endpoint being briefly unreachable or overloaded rather than the request
+     * being wrong. Exception types and message fragments listed in {@value #RETRY_ON_KEY} are treated as transient too.
+     */
+    static boolean isTransient(Throwable error) {
+        if (ProviderQuotaController.isQueueFull(error)) {
+            return false;
+        }
+        List<String> extraMarkers = configuredMarkers();
+        for (Throwable current = error; current != null; current = current.getCause()) {
+            String type = current.getClass().getSimpleName();
+            if (TRANSIENT_TYPES.contains(type) || extraMarkers.contains(type.toLowerCase(Locale.ROOT))) {
+                return true;
+            }
+            String message = current.getMessage();
+            if (message == null) {
+                continue;
+            }
+            String normalized = message.toLowerCase(Locale.ROOT);
+            for (String marker : TRANSIENT_MARKERS) {
+                if (normalized.contains(marker)) {
+                    return true;
+                }
+            }
+            for (String marker : extraMarkers) {
+                if (normalized.contains(marker)) {
+                    return true;
+                }
+            }
+        }
+        return false;
+    }
+
+    private static List<String> configuredMarkers() {
+        String configured = RuntimeSettings.text(RETRY_ON_KEY, null);
+        if (configured == null) {
+            return List.of();
+        }
+        return Arrays.stream(configured.split(","))
+                .map(String::trim)
+                .filter(marker -> !marker.isEmpty())
+                .map(marker -> marker.toLowerCase(Locale.ROOT))
+                .collect(Collectors.toList());
+    }
+}
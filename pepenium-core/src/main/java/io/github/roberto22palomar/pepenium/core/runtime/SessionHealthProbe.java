@@ -0,0 +1,91 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * Cheap liveness check run against the active driver session before each test.
+ *
+ * <p>A probe that throws marks the session as dead; the runtime then replaces it instead of letting every remaining
+ * test of the class wait out the command timeout.</p>
+ */
+@FunctionalInterface
+interface SessionHealthProbe {
+
+    String ENABLED_KEY = "PEPENIUM_SESSION_HEALTH_CHECK";
+    String TIMEOUT_KEY = "PEPENIUM_SESSION_HEALTH_TIMEOUT";
+    Duration DEFAULT_TIMEOUT = Duration.ofSeconds(5);
+
+    void verify(DriverSession session) throws Exception;
+
+    static SessionHealthProbe none() {
+        return session -> {
+        };
+    }
+
+    /**
+     * Reads the session timeouts ({@code GET /session/{id}/timeouts}), a W3C command that every driver answers without
+     * touching the page or app under test.
+     */
+    static SessionHealthProbe sessionCommand() {
+        return session -> session.getDriver().manage().timeouts().getImplicitWaitTimeout();
+    }
+
+    /**
+     * Fails when {@code probe} does not answer within {@code timeout}, so a hung remote node is detected quickly.
+     *
+     * <p>Checks run on one shared pool of daemon threads; a thread stuck on a hung node is interrupted and only
+     * replaced while it stays stuck.</p>
+     */
+    static SessionHealthProbe bounded(SessionHealthProbe probe, Duration timeout) {
+        return session -> {
+            Future<?> check = Workers.EXECUTOR.submit(() -> {
+                probe.verify(session);
+                return null;
+            });
+            try {
+                check.get(timeout.toMillis(), TimeUnit.MILLISECONDS);
+            } catch (TimeoutException error) {
+                check.cancel(true);
+                throw new IllegalStateException("Driver session did not answer its health check within " + timeout, error);
+            } catch (ExecutionException error) {
+                Throwable cause = error.getCause() == null ? error : error.getCause();
+                throw new IllegalStateException("Driver session failed its health check: " + cause.getMessage(), cause);
+            }
+        };
+    }
+
+    /**
+     * Probes with {@link #sessionCommand()} bounded by {@value #TIMEOUT_KEY} when {@value #ENABLED_KEY} is enabled.
+     *
+     * <p>Settings are read on every check, so a profile can enable probing through {@code settings} in
+     * {@code pepenium.yml}.</p>
+     */
+    static SessionHealthProbe configured() {
+        return session -> {
+            if (RuntimeSettings.enabled(ENABLED_KEY, false)) {
+                bounded(sessionCommand(), RuntimeSettings.duration(TIMEOUT_KEY, DEFAULT_TIMEOUT)).verify(session);
+            }
+        };
+    }
+
+    /**
+     * Threads that run bounded checks, created on first use and reused by every session of the JVM.
+     */
+    final class Workers {
+
+        static final ExecutorService EXECUTOR = Executors.newCachedThreadPool(runnable -> {
+            Thread thread = new Thread(runnable, "pepenium-session-probe");
+            thread.setDaemon(true);
+            return thread;
+        });
+
+        private Workers() {
+        }
+    }
+}
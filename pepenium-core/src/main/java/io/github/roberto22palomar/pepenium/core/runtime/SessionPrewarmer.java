@@ -0,0 +1,299 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.config.PepeniumConfig;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfile;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
+import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
+import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Opens the driver session of an upcoming test class in the background while the current class is still running.
+ *
+ * <p>{@link PepeniumPrewarmListener} decides which class comes next; the class's {@code beforeAll} then claims the
+ * session instead of creating one. A prewarmed session is only handed out when its request fingerprint matches the
+ * request the class resolves itself, and sessions that are never claimed are closed.</p>
+ *
+ * <p>Profiles whose configuration starts or leases its own Appium server are not prewarmed: the class gets a different
+ * server URL when it resolves its request, so the prewarmed session could never match.</p>
+ */
+final class SessionPrewarmer implements AutoCloseable {
+
+    static final String ENABLED_KEY = "PEPENIUM_SESSION_PREWARM";
+
+    private static final Logger log = LoggerFactory.getLogger(SessionPrewarmer.class);
+    private static SessionPrewarmer shared;
+
+    private final DriverSessionFactory sessionFactory;
+    private final ExecutionProfileResolver profileResolver;
+    private final ExecutorService executor;
+    private final Map<String, CompletableFuture<Prewarmed>> pending = new LinkedHashMap<>();
+    private final Set<String> ownServiceProfiles = ConcurrentHashMap.newKeySet();
+    private boolean closed;
+    private int hits;
+    private int misses;
+    private int discarded;
+
+    SessionPrewarmer(DriverSessionFactory sessionFactory, ExecutionProfileResolver profileResolver) {
+        this(sessionFactory, profileResolver, 1);
+    }
+
+    SessionPrewarmer(DriverSessionFactory sessionFactory, ExecutionProfileResolver profileResolver, int threads) {
+        this.sessionFactory = sessionFactory;
+        this.profileResolver = profileResolver;
+        this.executor = Executors.newFixedThreadPool(threads, runnable -> {
+            Thread thread = new Thread(runnable, "pepenium-session-prewarm");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    static synchronized SessionPrewarmer shared() {
+        if (shared == null) {
+            shared = new SessionPrewarmer(PepeniumRuntime.defaultSessionFactory(), new ExecutionProfileResolver());
+        }
+        return shared;
+    }
+
+    /**
+     * Returns the shared prewarmer only when one has been started, so the runtime never creates it on demand.
+     */
+    static synchronized SessionPrewarmer current() {
+        return shared;
+    }
+
+    static void closeShared() {
+        SessionPrewarmer current;
+        synchronized (SessionPrewarmer.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Starts opening the session that {@code testClass} will ask for, unless one is already in flight.
+     */
+    void prewarm(Class<?> testClass) {
+        PepeniumTest config = testClass.getAnnotation(PepeniumTest.class);
+        if (config == null || !config.automaticLifecycle() || config.profiles().length > 0) {
+            return;
+        }
+        String profileId = config.profile() == null || config.profile().isBlank() ? null : config.profile();
+        prewarm(testClass.getName(), config.target(), profileId);
+    }
+
+    /**
+     * Starts opening a session for {@code target} on {@code profileId}, claimable under {@code key}.
+     */
+    void prewarm(String key, TestTarget target, String profileId) {
+        synchronized (this) {
+            if (closed || pending.containsKey(key)) {
+                return;
+            }
+            pending.put(key, CompletableFuture.supplyAsync(() -> open(key, target, profileId), executor));
+        }
+    }
+
+    /**
+     * Hands the prewarmed session of {@code testClassName} to the caller when it matches {@code request}.
+     *
+     * @return the prewarmed session, or {@code null} when the class must create its own
+     */
+    DriverSession claim(String testClassName, DriverRequest request) {
+        CompletableFuture<Prewarmed> future;
+        synchronized (this) {
+            future = testClassName == null ? null : pending.remove(testClassName);
+        }
+        if (future == null) {
+            return null;
+        }
+        long startedAt = System.nanoTime();
+        Prewarmed prewarmed = await(testClassName, future);
+        if (prewarmed == null) {
+            recordMiss();
+            return null;
+        }
+        if (prewarmed.session == null) {
+            return null;
+        }
+        if (!prewarmed.fingerprint.equals(DriverRequestFingerprint.of(request))) {
+            log.info("Prewarmed driver session for {} no longer matches its request; creating a new one", testClassName);
+            recordMiss();
+            quit(prewarmed.session);
+            return null;
+        }
+        long waitMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        SessionProvisioning created = prewarmed.session.getProvisioning();
+        prewarmed.session.setProvisioning(SessionProvisioning.prewarmed(waitMillis, created.getCreationMillis()));
+        recordHit();
+        log.info("Claimed prewarmed driver session for {} after waiting {} ms (saved ~{} ms of startup)",
+                testClassName, waitMillis, prewarmed.session.getProvisioning().getSavedMillis());
+        return prewarmed.session;
+    }
+
+    /**
+     * Closes the prewarmed session of a class that finished or was skipped without claiming it.
+     */
+    void discard(String testClassName) {
+        CompletableFuture<Prewarmed> future;
+        synchronized (this) {
+            future = pending.remove(testClassName);
+        }
+        if (future != null) {
+            discardLater(testClassName, future);
+        }
+    }
+
+    @Override
+    public void close() {
+        Map<String, CompletableFuture<Prewarmed>> unclaimed;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            unclaimed = new LinkedHashMap<>(pending);
+            pending.clear();
+        }
+        unclaimed.forEach(this::discardLater);
+        executor.shutdown();
+        try {
+            if (!executor.awaitTermination(SessionTimeouts.commandTimeout().toMillis(), TimeUnit.MILLISECONDS)) {
+                log.warn("Session prewarm did not finish before shutdown; remaining sessions are abandoned");
+            }
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            if (hits + misses + discarded > 0) {
+                log.info("Session prewarm: {} hit(s), {} miss(es), {} unclaimed session(s) closed",
+                        hits, misses, discarded);
+            }
+        }
+    }
+
+    synchronized boolean isPending(String testClassName) {
+        return testClassName != null && pending.containsKey(testClassName);
+    }
+
+    synchronized int hits() {
+        return hits;
+    }
+
+    synchronized int misses() {
+        return misses;
+    }
+
+    synchronized int discarded() {
+        return discarded;
+    }
+
+    private Prewarmed open(String testClassName, TestTarget target, String profileId) {
+        try {
+            ExecutionProfile profile = profileResolver.resolve(target, profileId);
+            if (ownServiceProfiles.contains(profile.getId())) {
+                return Prewarmed.SKIPPED;
+            }
+            DriverRequest request = PepeniumRuntime.profileRequest(profile, target);
+            if (request.getOwnedService() != null) {
+                ownServiceProfiles.add(profile.getId());
+                releaseService(request);
+                log.info("Not prewarming driver sessions of profile '{}' because it starts its own Appium server",
+                        profile.getId());
+                return Prewarmed.SKIPPED;
+            }
+            log.info("Prewarming driver session for {} with profile '{}'", testClassName, profile.getId());
+            DriverSession session = sessionFactory.create(request);
+            return new Prewarmed(DriverRequestFingerprint.of(request), session);
+        } catch (Exception error) {
+            throw new IllegalStateException(error.getMessage(), error);
+        } finally {
+            PepeniumConfig.clearActiveProfile();
+            LoggingContext.clearAll();
+        }
+    }
+
+    private Prewarmed await(String testClassName, CompletableFuture<Prewarmed> future) {
+        try {
+            return future.get();
+        } catch (ExecutionException error) {
+            Throwable cause = error.getCause() == null ? error : error.getCause();
+            log.warn("Prewarming the driver session for {} failed; creating it now: {}",
+                    testClassName, SensitiveDataSanitizer.sanitizeText(cause.getMessage()));
+            return null;
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            discardLater(testClassName, future);
+            return null;
+        }
+    }
+
+    private void discardLater(String testClassName, CompletableFuture<Prewarmed> future) {
+        future.whenComplete((prewarmed, error) -> {
+            if (prewarmed != null && prewarmed.session != null) {
+                log.info("Closing unclaimed prewarmed driver session for {}", testClassName);
+                recordDiscard();
+                quit(prewarmed.session);
+            }
+        });
+    }
+
+    private synchronized void recordHit() {
+        hits++;
+    }
+
+    private synchronized void recordMiss() {
+        misses++;
+    }
+
+    private synchronized void recordDiscard() {
+        discarded++;
+    }
+
+    private static void quit(DriverSession session) {
+        try {
+            session.close();
+        } catch (RuntimeException error) {
+            log.warn("Failed to close prewarmed driver session: {}", SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+    }
+
+    private static void releaseService(DriverRequest request) {
+        if (!AppiumServerPool.release(request.getOwnedService())) {
+            try {
+                request.getOwnedService().stop();
+            } catch (RuntimeException error) {
+                log.warn("Failed to stop Appium server of a skipped prewarm: {}",
+                        SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+            }
+        }
+    }
+
+    private static final class Prewarmed {
+        private static final Prewarmed SKIPPED = new Prewarmed(null, null);
+
+        private final String fingerprint;
+        private final DriverSession session;
+
+        private Prewarmed(String fingerprint, DriverSession session) {
+            this.fingerprint = fingerprint;
+            this.session = session;
+        }
+    }
+}
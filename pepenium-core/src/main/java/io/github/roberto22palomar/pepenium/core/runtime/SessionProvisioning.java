@@ -0,0 +1,215 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import java.util.Objects;
+import java.util.UUID;
+
+/**
+ * Describes how the driver behind a {@link DriverSession} was obtained for the current test class.
+ *
+ * <p>Reports use it to show whether a session was freshly created or reused, and how much startup time reuse saved.</p>
+ */
+public final class SessionProvisioning {
+
+    private static final SessionProvisioning UNKNOWN = new SessionProvisioning(UUID.randomUUID().toString(),
+            Source.UNKNOWN, 0L, 0L, 0, false, false, 0L, 0L, 0, 0L, false);
+
+    private final String leaseId;
+    private final Source source;
+    private final long acquireMillis;
+    private final long creationMillis;
+    private final int useCount;
+    private final boolean prewarmMissed;
+    private final boolean recovered;
+    private final long recoveryMillis;
+    private final long quotaWaitMillis;
+    private final int quotaRetries;
+    private final long resetMillis;
+    private final boolean resetFailed;
+
+    private SessionProvisioning(String leaseId,
+                                Source source,
+                                long acquireMillis,
+                                long creationMillis,
+                                int useCount,
+                                boolean prewarmMissed,
+                                boolean recovered,
+                                long recoveryMillis,
+                                long quotaWaitMillis,
+                                int quotaRetries,
+                                long resetMillis,
+                                boolean resetFailed) {
+        this.leaseId = leaseId;
+        this.source = Objects.requireNonNull(source, "source");
+        this.acquireMillis = Math.max(0L, acquireMillis);
+        this.creationMillis = Math.max(0L, creationMillis);
+        this.useCount = useCount;
+        this.prewarmMissed = prewarmMissed;
+        this.recovered = recovered;
+        this.recoveryMillis = Math.max(0L, recoveryMillis);
+        this.quotaWaitMillis = Math.max(0L, quotaWaitMillis);
+        this.quotaRetries = quotaRetries;
+        this.resetMillis = Math.max(0L, resetMillis);
+        this.resetFailed = resetFailed;
+    }
+
+    static SessionProvisioning unknown() {
+        return UNKNOWN;
+    }
+
+    static SessionProvisioning created(long creationMillis) {
+        return newLease(Source.CREATED, creationMillis, creationMillis, 1);
+    }
+
+    /**
+     * A pooled session whose reset step took {@code resetMillis} of the acquire time.
+     */
+    static SessionProvisioning pooled(long acquireMillis, long creationMillis, int useCount, long resetMillis) {
+        return new SessionProvisioning(UUID.randomUUID().toString(), Source.POOLED, acquireMillis, creationMillis,
+                useCount, false, false, 0L, 0L, 0, resetMillis, false);
+    }
+
+    static SessionProvisioning prewarmed(long acquireMillis, long creationMillis) {
+        return newLease(Source.PREWARMED, acquireMillis, creationMillis, 1);
+    }
+
+    /**
+     * Marks a session that had to be opened because the prewarmed one was unusable or did not match.
+     */
+    SessionProvisioning afterPrewarmMiss() {
+        return new SessionProvisioning(leaseId, source, acquireMillis, creationMillis, useCount, true,
+                recovered, recoveryMillis, quotaWaitMillis, quotaRetries, resetMillis, resetFailed);
+    }
+
+    /**
+     * Marks a session that had to be created because the reset step of an idle pooled session failed.
+     */
+    SessionProvisioning afterResetFailure() {
+        return new SessionProvisioning(leaseId, source, acquireMillis, creationMillis, useCount, prewarmMissed,
+                recovered, recoveryMillis, quotaWaitMillis, quotaRetries, resetMillis, true);
+    }
+
+    /**
+     * Marks a session that replaced one which failed its health check.
+     *
+     * @param recoveryMillis time spent detecting the dead session and opening this one
+     */
+    SessionProvisioning afterRecovery(long recoveryMillis) {
+        return new SessionProvisioning(leaseId, source, acquireMillis, creationMillis, useCount, prewarmMissed,
+                true, recoveryMillis, quotaWaitMillis, quotaRetries, resetMillis, resetFailed);
+    }
+
+    /**
+     * Records the time the session request waited for provider quota, including refused attempts and backoff.
+     */
+    SessionProvisioning withQuotaWait(long quotaWaitMillis, int quotaRetries) {
+        return new SessionProvisioning(leaseId, source, acquireMillis, creationMillis, useCount, prewarmMissed,
+                recovered, recoveryMillis, quotaWaitMillis, quotaRetries, resetMillis, resetFailed);
+    }
+
+    private static SessionProvisioning newLease(Source source, long acquireMillis, long creationMillis, int useCount) {
+        return new SessionProvisioning(UUID.randomUUID().toString(), source, acquireMillis, creationMillis, useCount, false,
+                false, 0L, 0L, 0, 0L, false);
+    }
+
+    /**
+     * Unique id of this hand-over of a driver to a test class.
+     */
+    public String getLeaseId() {
+        return leaseId;
+    }
+
+    public Source getSource() {
+        return source;
+    }
+
+    /**
+     * Whether the test class got a driver that was started before it asked for one.
+     */
+    public boolean isReused() {
+        return source == Source.POOLED || source == Source.PREWARMED;
+    }
+
+    /**
+     * Whether a session was prewarmed for the test class but could not be used.
+     */
+    public boolean isPrewarmMissed() {
+        return prewarmMissed;
+    }
+
+    /**
+     * Whether this session replaced a dead one in the middle of a test class.
+     */
+    public boolean isRecovered() {
+        return recovered;
+    }
+
+    /**
+     * Time spent detecting the dead session and opening this replacement.
+     */
+    public long getRecoveryMillis() {
+        return recoveryMillis;
+    }
+
+    /**
+     * Time the session request waited for a provider quota slot and for a provider with a full queue.
+     */
+    public long getQuotaWaitMillis() {
+        return quotaWaitMillis;
+    }
+
+    /**
+     * Number of session creation attempts the provider refused because its queue was full.
+     */
+    public int getQuotaRetries() {
+        return quotaRetries;
+    }
+
+    /**
+     * Time the reset step of a pooled session took, such as restarting the app under test.
+     */
+    public long getResetMillis() {
+        return resetMillis;
+    }
+
+    /**
+     * Whether this session was created because resetting an idle pooled session failed.
+     */
+    public boolean isResetFailed() {
+        return resetFailed;
+    }
+
+    /**
+     * Time the current test class waited to obtain its driver, including any reset step.
+     */
+    public long getAcquireMillis() {
+        return acquireMillis;
+    }
+
+    /**
+     * Time the underlying driver session originally took to start.
+     */
+    public long getCreationMillis() {
+        return creationMillis;
+    }
+
+    /**
+     * Number of test classes that have used the underlying driver session, including the current one.
+     */
+    public int getUseCount() {
+        return useCount;
+    }
+
+    /**
+     * Startup time avoided by not creating a new driver session for the current test class.
+     */
+    public long getSavedMillis() {
+        return isReused() ? Math.max(0L, creationMillis - acquireMillis) : 0L;
+    }
+
+    public enum Source {
+        UNKNOWN,
+        CREATED,
+        POOLED,
+        PREWARMED
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+import org.openqa.selenium.chromium.HasCdp;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Brings a pooled driver session back to a neutral state before it is handed to the next test class.
+ *
+ * <p>A reset that throws marks the session as unusable; the pool quits it and creates a fresh one instead.</p>
+ */
+@FunctionalInterface
+interface SessionResetStep {
+
+    String CONFIG_KEY = "PEPENIUM_SESSION_POOL_RESET";
+    String DEEP_LINK_KEY = "PEPENIUM_APP_RESET_DEEP_LINK";
+
+    void reset(DriverSession session) throws Exception;
+
+    /**
+     * Adjusts a request before the pool opens a session that this reset will later be applied to.
+     */
+    default DriverRequest prepare(DriverRequest request) {
+        return request;
+    }
+
+    static SessionResetStep none() {
+        return session -> {
+        };
+    }
+
+    /**
+     * Closes secondary windows, clears local and session storage of the open documents, clears cookies (all of them on
+     * Chromium browsers, otherwise those of the current document) and parks the browser on {@code about:blank}.
+     */
+    static SessionResetStep webState() {
+        return session -> {
+            WebDriver driver = session.getDriver();
+            Set<String> handles = driver.getWindowHandles();
+            String primary = handles.iterator().next();
+            for (String handle : handles) {
+                if (!handle.equals(primary)) {
+                    driver.switchTo().window(handle);
+                    clearStorage(driver);
+                    driver.close();
+                }
+            }
+            driver.switchTo().window(primary);
+            clearStorage(driver);
+            if (driver instanceof HasCdp) {
+                ((HasCdp) driver).executeCdpCommand("Network.clearBrowserCookies", Map.of());
+            } else {
+                driver.manage().deleteAllCookies();
+            }
+            driver.get("about:blank");
+        };
+    }
+
+    /**
+     * Opens every reused browser session in a fresh BiDi user context; see {@link BrowserContextReset}.
+     */
+    static SessionResetStep browserContext() {
+        return new BrowserContextReset();
+    }
+
+    /**
+     * Restarts the native app under test instead of the whole Appium session: terminates it, clears its data on Android
+     * and activates it again, or opens {@value #DEEP_LINK_KEY} when one is configured. The app is identified by the
+     * {@code appium:appPackage} or {@code appium:bundleId} capability of the session.
+     */
+    static SessionResetStep appState() {
+        return session -> {
+            DriverRequest request = session.getRequest();
+            boolean android = request.getDriverType() == DriverType.ANDROID_APPIUM;
+            String appId = appId(request.getCapabilities(), android);
+            if (!(session.getDriver() instanceof JavascriptExecutor)) {
+                throw new IllegalStateException("The app-state reset needs an Appium driver that can run mobile: commands.");
+            }
+            JavascriptExecutor driver = (JavascriptExecutor) session.getDriver();
+            String idArgument = android ? "appId" : "bundleId";
+            driver.executeScript("mobile: terminateApp", Map.of(idArgument, appId));
+            if (android) {
+                driver.executeScript("mobile: clearApp", Map.of("appId", appId));
+            }
+            String deepLink = RuntimeSettings.text(DEEP_LINK_KEY, null);
+            if (deepLink == null) {
+                driver.executeScript("mobile: activateApp", Map.of(idArgument, appId));
+            } else {
+                driver.executeScript("mobile: deepLink", Map.of("url", deepLink, android ? "package" : "bundleId", appId));
+            }
+        };
+    }
+
+    /**
+     * Resolves the reset configured through {@value #CONFIG_KEY}: {@code auto} (default), {@code web}, {@code context},
+     * {@code app} or {@code none}. {@code auto} and {@code app} restart the app of native sessions and use the web reset
+     * for browsers; {@code context} isolates browsers in a new user context and leaves native sessions as they are.
+     */
+    static SessionResetStep configured(DriverType driverType) {
+        String mode = RuntimeSettings.text(CONFIG_KEY, "auto").toLowerCase(Locale.ROOT);
+        switch (mode) {
+            case "none":
+                return none();
+            case "web":
+                return webState();
+            case "auto":
+            case "app":
+                return isWebDriverType(driverType) ? webState() : appState();
+            case "context":
+                return isWebDriverType(driverType) ? browserContext() : none();
+            default:
+                throw new IllegalStateException(CONFIG_KEY + " must be auto, web, context, app or none, but was '" + mode + "'.");
+        }
+    }
+
+    private static boolean isWebDriverType(DriverType driverType) {
+        return driverType == DriverType.REMOTE_WEB
+                || driverType == DriverType.LOCAL_CHROME
+                || driverType == DriverType.LOCAL_FIREFOX
+                || driverType == DriverType.LOCAL_EDGE;
+    }
+
+    private static void clearStorage(WebDriver driver) {
+        if (!(driver instanceof JavascriptExecutor)) {
+            return;
+        }
+        try {
+            ((JavascriptExecutor) driver).executeScript("window.localStorage.clear(); window.sessionStorage.clear();");
+        } catch (WebDriverException ignored) {
+            // Documents such as about:blank or data: URLs have no storage to clear.
+        }
+    }
+
+    private static String appId(Capabilities capabilities, boolean android) {
+        String name = android ? "appPackage" : "bundleId";
+        Object value = capabilities == null ? null : capabilities.getCapability("appium:" + name);
+        if (value == null && capabilities != null) {
+            value = capabilities.getCapability(name);
+        }
+        if (value == null || value.toString().isBlank()) {
+            throw new IllegalStateException("The app-state reset needs the appium:" + name + " capability. Set "
+                    + (android ? "APP_PACKAGE" : "IOS_BUNDLE_ID") + " so the pooled session can restart the app.");
+        }
+        return value.toString();
+    }
+}
@@ -0,0 +1,195 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.function.Consumer;
+
+/**
+ * Quits driver sessions on background threads so the next test class does not wait for a slow remote quit.
+ *
+ * <p>The executor is bounded: once {@value #QUEUE_KEY} quits are waiting, the closing thread quits the session itself.
+ * When the launcher or the JVM stops, pending quits are drained in parallel until {@value #DRAIN_TIMEOUT_KEY} expires;
+ * quit failures and quits that missed the deadline are logged and written to the suite report.</p>
+ */
+final class SessionTeardown implements AutoCloseable {
+
+    static final String ENABLED_KEY = "PEPENIUM_ASYNC_TEARDOWN";
+    static final String THREADS_KEY = "PEPENIUM_TEARDOWN_THREADS";
+    static final String QUEUE_KEY = "PEPENIUM_TEARDOWN_QUEUE";
+    static final String DRAIN_TIMEOUT_KEY = "PEPENIUM_TEARDOWN_DRAIN_TIMEOUT";
+    static final int DEFAULT_THREADS = 4;
+    static final int DEFAULT_QUEUE = 32;
+    static final Duration DEFAULT_DRAIN_TIMEOUT = Duration.ofMinutes(2);
+
+    private static final Logger log = LoggerFactory.getLogger(SessionTeardown.class);
+    private static SessionTeardown shared;
+    private static boolean shutdownHookRegistered;
+
+    private final ThreadPoolExecutor executor;
+    private final int queueCapacity;
+    private final Duration drainTimeout;
+    private final Consumer<List<String>> failureReporter;
+    private final List<String> failures = new ArrayList<>();
+    private boolean closed;
+    private int submitted;
+
+    SessionTeardown(int threads, int queueCapacity, Duration drainTimeout, Consumer<List<String>> failureReporter) {
+        AtomicInteger threadIndex = new AtomicInteger();
+        this.executor = new ThreadPoolExecutor(
+                threads,
+                threads,
+                30L,
+                TimeUnit.SECONDS,
+                new ArrayBlockingQueue<>(queueCapacity),
+                runnable -> {
+                    Thread thread = new Thread(runnable, "pepenium-session-teardown-" + threadIndex.incrementAndGet());
+                    thread.setDaemon(true);
+                    return thread;
+                },
+                (task, ignored) -> task.run()
+        );
+        this.executor.allowCoreThreadTimeOut(true);
+        this.queueCapacity = queueCapacity;
+        this.drainTimeout = drainTimeout;
+        this.failureReporter = failureReporter;
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    static synchronized SessionTeardown shared() {
+        if (shared == null) {
+            shared = new SessionTeardown(
+                    RuntimeSettings.positiveInt(THREADS_KEY, DEFAULT_THREADS),
+                    RuntimeSettings.positiveInt(QUEUE_KEY, DEFAULT_QUEUE),
+                    RuntimeSettings.duration(DRAIN_TIMEOUT_KEY, DEFAULT_DRAIN_TIMEOUT),
+                    PepeniumHtmlReportWriter::writeTeardownFailures
+            );
+            if (!shutdownHookRegistered) {
+                shutdownHookRegistered = true;
+                Runtime.getRuntime().addShutdownHook(new Thread(SessionTeardown::closeShared, "pepenium-teardown-drain"));
+            }
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        SessionTeardown current;
+        synchronized (SessionTeardown.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    /**
+     * Closes {@code session}, in the background when asynchronous teardown is enabled.
+     *
+     * <p>Pooled leases only hand their driver back to the pool and are always closed on the calling thread.</p>
+     */
+    static void dispose(DriverSession session) {
+        if (session == null) {
+            return;
+        }
+        if (!session.quitsDriverOnClose() || !isEnabled()) {
+            session.close();
+            return;
+        }
+        shared().submit(session);
+    }
+
+    /**
+     * Queues the quit of {@code session}. A full queue or a closed teardown quits it on the calling thread instead.
+     */
+    void submit(DriverSession session) {
+        boolean queue;
+        synchronized (this) {
+            queue = !closed;
+            submitted++;
+        }
+        if (queue) {
+            executor.execute(() -> quit(session));
+        } else {
+            quit(session);
+        }
+    }
+
+    synchronized List<String> failures() {
+        return new ArrayList<>(failures);
+    }
+
+    @Override
+    public void close() {
+        int pending;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            pending = executor.getQueue().size() + executor.getActiveCount();
+        }
+        if (pending > 0) {
+            log.info("Waiting up to {} for {} pending driver session quit(s)", drainTimeout, pending);
+            int drainThreads = Math.max(executor.getCorePoolSize(), Math.min(pending, queueCapacity));
+            executor.setMaximumPoolSize(Math.max(executor.getMaximumPoolSize(), drainThreads));
+            executor.setCorePoolSize(drainThreads);
+        }
+        executor.shutdown();
+        boolean drained = awaitDrain();
+        if (!drained) {
+            List<Runnable> abandoned = executor.shutdownNow();
+            recordFailure("Teardown drain timed out after " + drainTimeout + "; "
+                    + (abandoned.size() + executor.getActiveCount()) + " driver session(s) may still be open remotely");
+        }
+        List<String> reported;
+        int quits;
+        synchronized (this) {
+            reported = new ArrayList<>(failures);
+            quits = submitted;
+        }
+        if (!reported.isEmpty()) {
+            log.warn("Asynchronous teardown finished with {} failure(s) out of {} quit(s)", reported.size(), quits);
+            failureReporter.accept(reported);
+        } else if (quits > 0) {
+            log.info("Asynchronous teardown quit {} driver session(s)", quits);
+        }
+    }
+
+    private boolean awaitDrain() {
+        try {
+            return executor.awaitTermination(drainTimeout.toMillis(), TimeUnit.MILLISECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    private void quit(DriverSession session) {
+        try {
+            session.close();
+        } catch (RuntimeException error) {
+            String description = session.getRequest() == null ? "driver session" : session.getRequest().getDescription();
+            recordFailure("Failed to quit " + description + ": " + SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+        }
+    }
+
+    private void recordFailure(String message) {
+        log.warn("{}", message);
+        synchronized (this) {
+            failures.add(message);
+        }
+    }
+}
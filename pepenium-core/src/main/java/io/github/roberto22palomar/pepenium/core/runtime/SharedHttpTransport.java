@@ -0,0 +1,264 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.SensitiveDataSanitizer;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+import org.openqa.selenium.remote.http.WebSocket;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Semaphore;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Shares one HTTP client, and therefore one keep-alive connection pool, between all remote sessions that talk to the
+ * same server with the same timeouts.
+ *
+ * <p>Selenium closes a command executor's client when its session quits; that only detaches the session, and the
+ * shared client stays open for the next session until the launcher finishes. {@value #MAX_CONNECTIONS_PER_HOST_KEY} caps the
+ * commands in flight per host across all sessions. The JDK connection pool itself is tuned with the
+ * {@code jdk.httpclient.*} system properties on the test JVM command line, because the JDK reads them once, when the
+ * first HTTP client of the JVM is built.</p>
+ */
+final class SharedHttpTransport implements HttpClient.Factory, AutoCloseable {
+
+    static final String ENABLED_KEY = "PEPENIUM_SHARED_HTTP_TRANSPORT";
+    static final String MAX_CONNECTIONS_PER_HOST_KEY = "PEPENIUM_HTTP_MAX_CONNECTIONS_PER_HOST";
+    private static final Logger log = LoggerFactory.getLogger(SharedHttpTransport.class);
+    private static SharedHttpTransport shared;
+
+    private final HttpClient.Factory delegate;
+    private final int maxConnectionsPerHost;
+    private final Map<String, SharedClient> clients = new LinkedHashMap<>();
+    private final Map<String, Semaphore> hostSlots = new LinkedHashMap<>();
+    private final AtomicLong requests = new AtomicLong();
+    private long clientsCreated;
+    private long sharedClientHandouts;
+    private boolean closed;
+
+    SharedHttpTransport(HttpClient.Factory delegate, int maxConnectionsPerHost) {
+        this.delegate = delegate;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+    }
+
+    static boolean isEnabled() {
+        return RuntimeSettings.enabled(ENABLED_KEY, false);
+    }
+
+    static synchronized SharedHttpTransport shared() {
+        if (shared == null) {
+            shared = new SharedHttpTransport(
+                    HttpClient.Factory.createDefault(),
+                    RuntimeSettings.positiveInt(MAX_CONNECTIONS_PER_HOST_KEY, Integer.MAX_VALUE)
+            );
+        }
+        return shared;
+    }
+
+    static void closeShared() {
+        SharedHttpTransport current;
+        synchronized (SharedHttpTransport.class) {
+            current = shared;
+            shared = null;
+        }
+        if (current != null) {
+            current.close();
+        }
+    }
+
+    @Override
+    public HttpClient createClient(ClientConfig config) {
+        String key = key(config);
+        SharedClient client;
+        synchronized (this) {
+            if (closed) {
+                return delegate.createClient(config);
+            }
+            client = clients.get(key);
+            if (client == null) {
+                client = new SharedClient(delegate.createClient(config), hostSlots(config.baseUrl()));
+                clients.put(key, client);
+                clientsCreated++;
+            } else {
+                sharedClientHandouts++;
+            }
+        }
+        return new Lease(client);
+    }
+
+    /**
+     * Shared clients stay open between sessions; they are closed with the transport.
+     */
+    @Override
+    public void cleanupIdleClients() {
+    }
+
+    synchronized long clientsCreated() {
+        return clientsCreated;
+    }
+
+    /**
+     * Sessions that were handed an already open client. Whether the JDK then reuses a keep-alive connection for their
+     * commands is up to its connection pool, which exposes no counters.
+     */
+    synchronized long sharedClientHandouts() {
+        return sharedClientHandouts;
+    }
+
+    long requests() {
+        return requests.get();
+    }
+
+    @Override
+    public void close() {
+        List<SharedClient> open;
+        long created;
+        long handouts;
+        synchronized (this) {
+            if (closed) {
+                return;
+            }
+            closed = true;
+            open = new ArrayList<>(clients.values());
+            clients.clear();
+            created = clientsCreated;
+            handouts = sharedClientHandouts;
+        }
+        for (SharedClient client : open) {
+            try {
+                client.delegate.close();
+            } catch (RuntimeException error) {
+                log.debug("Ignoring failure while closing shared HTTP client: {}",
+                        SensitiveDataSanitizer.sanitizeText(error.getMessage()));
+            }
+        }
+        if (created > 0) {
+            log.info("Shared HTTP transport closed: {} client(s) created, {} shared client handout(s) to later "
+                    + "sessions, {} command(s) sent", created, handouts, requests.get());
+        }
+    }
+
+    private Semaphore hostSlots(URL baseUrl) {
+        if (maxConnectionsPerHost == Integer.MAX_VALUE || baseUrl == null) {
+            return null;
+        }
+        String host = baseUrl.getHost() + ":" + (baseUrl.getPort() == -1 ? baseUrl.getDefaultPort() : baseUrl.getPort());
+        return hostSlots.computeIfAbsent(host, ignored -> new Semaphore(maxConnectionsPerHost, true));
+    }
+
+    private static String key(ClientConfig config) {
+        return (config.baseUrl() == null ? "" : config.baseUrl().toExternalForm())
+                + "|connect=" + config.connectionTimeout()
+                + "|read=" + config.readTimeout()
+                + "|version=" + config.version();
+    }
+
+    private static final class SharedClient {
+        private final HttpClient delegate;
+        private final Semaphore hostSlots;
+
+        private SharedClient(HttpClient delegate, Semaphore hostSlots) {
+            this.delegate = delegate;
+            this.hostSlots = hostSlots;
+        }
+    }
+
+    /**
+     * Per-executor view of a shared client; closing it leaves the shared client open for the next session.
+     */
+    private final class Lease implements HttpClient {
+        private final SharedClient client;
+
+        private Lease(SharedClient client) {
+            this.client = client;
+        }
+
+        @Override
+        public HttpResponse execute(HttpRequest request) {
+            requests.incrementAndGet();
+            if (client.hostSlots == null) {
+                return client.delegate.execute(request);
+            }
+            acquireHostSlot();
+            try {
+                return client.delegate.execute(request);
+            } finally {
+                client.hostSlots.release();
+            }
+        }
+
+        /**
+         * Sends through the shared client's own asynchronous call. With a per-host cap, the slot is taken on the
+         * calling thread, as in {@link #execute}, and given back when the response or the failure arrives.
+         */
+        @Override
+        public CompletableFuture<HttpResponse> executeAsync(HttpRequest request) {
+            requests.incrementAndGet();
+            if (client.hostSlots == null) {
+                return client.delegate.executeAsync(request);
+            }
+            acquireHostSlot();
+            CompletableFuture<HttpResponse> response;
+            try {
+                response = client.delegate.executeAsync(request);
+            } catch (RuntimeException error) {
+                client.hostSlots.release();
+                throw error;
+            }
+            return response.whenComplete((ignored, error) -> client.hostSlots.release());
+        }
+
+        @Override
+        public WebSocket openSocket(HttpRequest request, WebSocket.Listener listener) {
+            return client.delegate.openSocket(request, listener);
+        }
+
+        @Override
+        public <T> CompletableFuture<java.net.http.HttpResponse<T>> sendAsyncNative(
+                java.net.http.HttpRequest request,
+                java.net.http.HttpResponse.BodyHandler<T> handler
+        ) {
+            return client.delegate.sendAsyncNative(request, handler);
+        }
+
+        @Override
+        public <T> java.net.http.HttpResponse<T> sendNative(
+                java.net.http.HttpRequest request,
+                java.net.http.HttpResponse.BodyHandler<T> handler
+        ) throws IOException, InterruptedException {
+            return client.delegate.sendNative(request, handler);
+        }
+
+        @Override
+        public void close() {
+            // The shared client is closed with the transport.
+        }
+
+        private void acquireHostSlot() {
+            Duration timeout = SessionTimeouts.commandTimeout();
+            try {
+                if (!client.hostSlots.tryAcquire(timeout.toMillis(), TimeUnit.MILLISECONDS)) {
+                    throw new UncheckedIOException(new IOException("Timed out after " + timeout
+                            + " waiting for a free HTTP connection slot (" + MAX_CONNECTIONS_PER_HOST_KEY + "="
+                            + maxConnectionsPerHost + ")"));
+                }
+            } catch (InterruptedException error) {
+                Thread.currentThread().interrupt();
+                throw new UncheckedIOException(new IOException("Interrupted while waiting for an HTTP connection slot",
+                        error));
+            }
+        }
+    }
+}
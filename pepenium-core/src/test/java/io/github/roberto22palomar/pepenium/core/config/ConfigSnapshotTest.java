@@ -0,0 +1,88 @@
+package io.github.roberto22palomar.pepenium.core.config;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Date;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ConfigSnapshotTest {
+
+    @TempDir
+    Path tempDir;
+
+    @Test
+    void readsBackTheDocumentItWasGivenUntilTheSourceChanges() {
+        ConfigSnapshot snapshot = new ConfigSnapshot(tempDir);
+        byte[] source = bytes("defaultProfile: local-web\n");
+        Map<String, Object> document = Map.of(
+                "defaultProfile", "local-web",
+                "timeouts", Map.of("action", "2s"),
+                "browser", Map.of("headless", true, "arguments", List.of("--incognito")),
+                "capabilities", Map.of("custom:retries", 3, "custom:big", 4_000_000_000L, "custom:ratio", 0.5)
+        );
+
+        assertTrue(snapshot.write("pepenium.yml", source, document));
+
+        assertEquals(document, snapshot.read("pepenium.yml", source));
+        assertNull(snapshot.read("pepenium.yml", bytes("defaultProfile: local-firefox\n")));
+    }
+
+    @Test
+    void replacesStaleSnapshotsAndIgnoresCorruptOnes() throws Exception {
+        ConfigSnapshot snapshot = new ConfigSnapshot(tempDir);
+        byte[] first = bytes("a: 1\n");
+        byte[] second = bytes("a: 2\n");
+
+        snapshot.write("pepenium.yml", first, Map.of("a", 1));
+        snapshot.write("pepenium.yml", second, Map.of("a", 2));
+
+        assertFalse(Files.exists(snapshot.file("pepenium.yml", first)));
+        Files.write(snapshot.file("pepenium.yml", second), new byte[]{0x50, 0x50, 0x43, 0x53, 0, 0, 0, 1, 8, 0, 0});
+        assertNull(snapshot.read("pepenium.yml", second));
+    }
+
+    @Test
+    void skipsDocumentsWithValuesItCannotStore() {
+        ConfigSnapshot snapshot = new ConfigSnapshot(tempDir);
+
+        assertFalse(snapshot.write("pepenium.yml", bytes("released: 2024-01-01\n"), Map.of("released", new Date(0))));
+        assertFalse(ConfigSnapshot.disabled().write("pepenium.yml", bytes("a: 1\n"), Map.of("a", 1)));
+    }
+
+    @Test
+    void loadsConfigurationFromTheSnapshotOnTheNextFork() throws Exception {
+        Path config = tempDir.resolve("pepenium.yml");
+        Files.writeString(config, "defaultProfile: local-web\n"
+                + "profiles:\n"
+                + "  local-web:\n"
+                + "    baseUrl: ${BASE_URL}\n"
+                + "    timeouts:\n"
+                + "      action: 750ms\n");
+        ConfigSnapshot snapshot = new ConfigSnapshot(tempDir.resolve("cache"));
+
+        PepeniumConfig.load(config, true, key -> "https://first.example", snapshot);
+        PepeniumConfig.ResolvedConfig cached = PepeniumConfig.load(config, true, key -> "https://second.example",
+                snapshot);
+
+        assertTrue(StartupTimings.phases().containsKey("pepenium.yml snapshot"));
+        assertEquals("local-web", cached.defaultProfile());
+        assertEquals("750ms", cached.value("local-web", "PEPENIUM_ACTION_TIMEOUT_SECONDS"));
+        assertEquals("https://second.example", cached.value("local-web", "PEPENIUM_BASE_URL"));
+        assertTrue(new String(Files.readAllBytes(snapshot.file("pepenium.yml", Files.readAllBytes(config))),
+                StandardCharsets.UTF_8).contains("${BASE_URL}"));
+    }
+
+    private static byte[] bytes(String text) {
+        return text.getBytes(StandardCharsets.UTF_8);
+    }
+}
@@ -1,12 +1,17 @@
 package io.github.roberto22palomar.pepenium.core.execution;
 
+import io.github.roberto22palomar.pepenium.core.config.ConfigSnapshot;
+import io.github.roberto22palomar.pepenium.core.config.StartupTimings;
 import io.github.roberto22palomar.pepenium.core.configs.local.desktop.ChromeWebConfigLocal;
 import io.github.roberto22palomar.pepenium.core.configs.local.desktop.EdgeWebConfigLocal;
 import io.github.roberto22palomar.pepenium.core.configs.local.desktop.FirefoxWebConfigLocal;
 import io.github.roberto22palomar.pepenium.core.configs.local.ios.IOSConfigLocal;
 import io.github.roberto22palomar.pepenium.core.configs.local.ios.IOSWebConfigLocal;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 
+import java.io.InputStream;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.LinkedHashMap;
 import java.util.Map;
@@ -123,4 +128,26 @@ class ExecutionProfilesTest {
 
         assertTrue(error.getMessage().contains("Duplicate execution profile id 'duplicated'"));
     }
+
+    @Test
+    void loadsBuiltInProfilesFromASnapshotOnceOneWasWritten(@TempDir Path cacheDir) throws Exception {
+        byte[] source;
+        try (InputStream input = ExecutionProfiles.class.getClassLoader()
+                .getResourceAsStream("execution-profiles.yml")) {
+            source = input.readAllBytes();
+        }
+        System.setProperty("pepenium.config.cache.dir", cacheDir.toString());
+        try {
+            Map<String, ExecutionProfile> parsed = ExecutionProfiles.loadBuiltInProfiles(
+                    source, ConfigSnapshot.fromEnvironment(), System.nanoTime());
+            Map<String, ExecutionProfile> cached = ExecutionProfiles.loadBuiltInProfiles(
+                    source, ConfigSnapshot.fromEnvironment(), System.nanoTime());
+
+            assertEquals(parsed.keySet(), cached.keySet());
+            assertInstanceOf(FirefoxWebConfigLocal.class, cached.get("local-web-firefox").createConfig());
+            assertTrue(StartupTimings.phases().containsKey("execution-profiles.yml snapshot"));
+        } finally {
+            System.clearProperty("pepenium.config.cache.dir");
+        }
+    }
 }
@@ -0,0 +1,90 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class CommandLatencyRecorderTest {
+
+    @AfterEach
+    void tearDown() {
+        CommandLatencyRecorder.clear();
+    }
+
+    @Test
+    void percentilesStayWithinOneBucketOfTheRecordedLatency() {
+        CommandLatencyRecorder.beginTest();
+        for (int millis = 1; millis <= 100; millis++) {
+            CommandLatencyRecorder.record("findElement", TimeUnit.MILLISECONDS.toNanos(millis));
+        }
+
+        CommandLatencyRecorder.Histogram histogram = CommandLatencyRecorder.snapshot().get(0);
+
+        assertEquals(100, histogram.getCount());
+        assertEquals(100_000, histogram.getMaxMicros());
+        assertEquals(5_050_000, histogram.getTotalMicros());
+        assertWithinBucket(50_000, histogram.percentileMicros(50));
+        assertWithinBucket(95_000, histogram.percentileMicros(95));
+        assertWithinBucket(99_000, histogram.percentileMicros(99));
+        assertEquals(100_000, histogram.percentileMicros(100));
+    }
+
+    @Test
+    void snapshotOrdersCommandsBySlowestTotalAndResetsPerTest() {
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("getTitle", TimeUnit.MILLISECONDS.toNanos(1));
+        CommandLatencyRecorder.record("screenshot", TimeUnit.MILLISECONDS.toNanos(250));
+
+        List<CommandLatencyRecorder.Histogram> histograms = CommandLatencyRecorder.snapshot();
+        CommandLatencyRecorder.beginTest();
+
+        assertEquals("screenshot", histograms.get(0).getCommand());
+        assertEquals("getTitle", histograms.get(1).getCommand());
+        assertTrue(CommandLatencyRecorder.snapshot().isEmpty());
+    }
+
+    @Test
+    void mergesHistogramsOfTheSameCommandAcrossTests() {
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("clickElement", TimeUnit.MILLISECONDS.toNanos(10));
+        List<CommandLatencyRecorder.Histogram> first = CommandLatencyRecorder.snapshot();
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("clickElement", TimeUnit.MILLISECONDS.toNanos(30));
+        CommandLatencyRecorder.record("get", TimeUnit.MILLISECONDS.toNanos(900));
+        List<CommandLatencyRecorder.Histogram> second = CommandLatencyRecorder.snapshot();
+
+        List<CommandLatencyRecorder.Histogram> merged = CommandLatencyRecorder.merge(List.of(first, second));
+
+        assertEquals("get", merged.get(0).getCommand());
+        CommandLatencyRecorder.Histogram clicks = merged.get(1);
+        assertEquals(2, clicks.getCount());
+        assertEquals(40_000, clicks.getTotalMicros());
+        assertEquals(30_000, clicks.getMaxMicros());
+        assertWithinBucket(10_000, clicks.percentileMicros(50));
+    }
+
+    @Test
+    void encodedBucketsRoundTripThroughTheReport() {
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("executeScript", TimeUnit.MILLISECONDS.toNanos(4));
+        CommandLatencyRecorder.record("executeScript", TimeUnit.MILLISECONDS.toNanos(80));
+        CommandLatencyRecorder.Histogram original = CommandLatencyRecorder.snapshot().get(0);
+
+        CommandLatencyRecorder.Histogram parsed = CommandLatencyRecorder.Histogram.parse(
+                original.getCommand(), original.getTotalMicros(), original.getMaxMicros(), original.encodeBuckets());
+
+        assertEquals(original.getCount(), parsed.getCount());
+        assertEquals(original.percentileMicros(50), parsed.percentileMicros(50));
+        assertEquals(original.percentileMicros(99), parsed.percentileMicros(99));
+    }
+
+    private static void assertWithinBucket(long expectedMicros, long actualMicros) {
+        assertTrue(actualMicros >= expectedMicros && actualMicros <= expectedMicros * 1.1,
+                () -> "Expected about " + expectedMicros + "us but was " + actualMicros + "us");
+    }
+}
@@ -28,7 +28,10 @@ import java.nio.file.Path;
 import java.util.ArrayList;
 import java.util.List;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.times;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 @ExtendWith(MockitoExtension.class)
@@ -72,6 +75,7 @@ class FailureContextReporterTest {
         System.clearProperty("pepenium.detail.logging");
         System.clearProperty(ScreenshotPathResolver.SCREENSHOT_PATH_PROPERTY);
         StepTracker.clear();
+        FailureEvidence.clear();
     }
 
     @Test
@@ -115,6 +119,38 @@ class FailureContextReporterTest {
         assertTrue(appender.contains("Web: url='https://example.test/login', title='Example'"));
     }
 
+    @Test
+    void reportReusesTheEvidenceTheTestReportCapturedForTheSameFailure() {
+        System.setProperty(ScreenshotPathResolver.SCREENSHOT_PATH_PROPERTY, tempDir.toString());
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.REMOTE_WEB)
+                .description("remote web")
+                .target(TestTarget.WEB_DESKTOP)
+                .capabilities(new MutableCapabilities())
+                .build();
+        when(remoteDriver.getScreenshotAs(OutputType.BYTES)).thenReturn(new byte[]{1, 2, 3});
+        when(remoteDriver.getSessionId()).thenReturn(new SessionId("abcdef123456"));
+        when(remoteDriver.getCurrentUrl()).thenReturn("https://example.test/cart");
+        when(remoteDriver.getTitle()).thenReturn("Cart");
+        DriverSession session = new DriverSession(remoteDriver, request);
+        RuntimeException cause = new RuntimeException("cart is empty");
+
+        PepeniumHtmlReportWriter.ReportContext report =
+                PepeniumReportCollector.collect("cartFailure", session, cause, tempDir.resolve("reports"));
+        FailureContextReporter.report("cartFailure", session, cause);
+
+        verify(remoteDriver, times(1)).getScreenshotAs(OutputType.BYTES);
+        verify(remoteDriver, times(1)).getCurrentUrl();
+        assertEquals(3, report.evidenceScreenshotBytes);
+        assertEquals("https://example.test/cart", report.currentUrl);
+        assertTrue(appender.contains("Web: url='https://example.test/cart', title='Cart'"));
+        assertTrue(appender.contains("Failure evidence: captured in"));
+
+        FailureContextReporter.report("cartFailure", session, new RuntimeException("another failure"));
+
+        verify(remoteDriver, times(2)).getScreenshotAs(OutputType.BYTES);
+    }
+
     @Test
     void reportLogsAndroidContext() {
         MutableCapabilities capabilities = new MutableCapabilities();
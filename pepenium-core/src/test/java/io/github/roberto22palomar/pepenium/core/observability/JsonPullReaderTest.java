@@ -0,0 +1,81 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+class JsonPullReaderTest {
+
+    @Test
+    void readsBackWhatTheStreamWriterWrites() throws Exception {
+        StringWriter out = new StringWriter();
+        JsonStreamWriter json = new JsonStreamWriter(out, true);
+        json.beginObject()
+                .field("message", "line\nbreak \"quoted\" \\ tab\t bell\u0007")
+                .field("count", 3)
+                .field("millis", 40.5)
+                .field("passed", true)
+                .field("missing", null);
+        json.name("items").beginArray().value("a").beginObject().field("nested", 1).endObject().endArray();
+        json.name("empty").beginArray().endArray();
+        json.endObject();
+
+        assertEquals("{\n  \"message\": \"line\\nbreak \\\"quoted\\\" \\\\ tab\\t bell\\u0007\",\n  \"count\": 3,\n"
+                        + "  \"millis\": 40.5,\n  \"passed\": true,\n  \"missing\": null,\n  \"items\": [\n    \"a\",\n"
+                        + "    {\n      \"nested\": 1\n    }\n  ],\n  \"empty\": []\n}\n",
+                out.toString());
+        Map<String, Object> data = PepeniumReportSupport.mapValue(
+                new JsonPullReader(new StringReader(out.toString())).readValue());
+        assertEquals("line\nbreak \"quoted\" \\ tab\t bell\u0007", data.get("message"));
+        assertEquals(3L, data.get("count"));
+        assertEquals(40.5, data.get("millis"));
+        assertEquals(Boolean.TRUE, data.get("passed"));
+        assertEquals(List.of("a", Map.of("nested", 1L)), data.get("items"));
+        assertEquals(List.of(), data.get("empty"));
+    }
+
+    @Test
+    void skipsValuesItIsNotAskedFor() throws Exception {
+        JsonPullReader json = new JsonPullReader(new StringReader(
+                "{\"events\": [{\"message\": \"a \\u00e9 ]}\"}, [1, 2.5e3, null, false]], \"outcome\": \"PASSED\"}"));
+
+        json.beginObject();
+        assertEquals("events", json.nextName());
+        json.skipValue();
+        assertEquals("outcome", json.nextName());
+        assertEquals("PASSED", json.readValue());
+        assertFalse(json.hasNext());
+        json.endObject();
+        assertEquals(JsonPullReader.Token.END_DOCUMENT, json.peek());
+    }
+
+    @Test
+    void rejectsMalformedDocuments() {
+        assertThrows(IOException.class, () -> new JsonPullReader(new StringReader("{\"a\" 1}")).readValue());
+        assertThrows(IOException.class, () -> new JsonPullReader(new StringReader("{\"a\": \"open")).readValue());
+        assertThrows(IOException.class, () -> new JsonPullReader(new StringReader("[1, tru]")).readValue());
+    }
+
+    @Test
+    void summaryIsReadWithoutTheTimelineThatFollowsIt() {
+        PepeniumHtmlReportWriter.ReportSummary summary = PepeniumReportJsonRenderer.loadSummaryRecord(
+                "{\"testName\":\"checkout\",\"outcome\":\"FAILED\",\"profileId\":null,\"target\":null,"
+                        + "\"driverType\":null,\"htmlReport\":\"report-a.html\",\"generatedAt\":null,"
+                        + "\"timing\":{\"durationMillis\":1200},\"stats\":{\"screenshots\":2},\"remote\":{},"
+                        + "\"session\":{},\"commandLatency\":[],\"lifecyclePhases\":[],"
+                        + "\"events\": [this timeline is never parsed");
+
+        assertEquals("checkout", summary.testName);
+        assertEquals("FAILED", summary.outcome);
+        assertEquals(1200L, summary.durationMillis);
+        assertEquals(2L, summary.screenshotCount);
+    }
+}
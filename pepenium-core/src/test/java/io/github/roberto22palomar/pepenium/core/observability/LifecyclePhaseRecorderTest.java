@@ -0,0 +1,59 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class LifecyclePhaseRecorderTest {
+
+    @AfterEach
+    void tearDown() {
+        LifecyclePhaseRecorder.clear();
+        LifecyclePhaseRecorder.takeSuitePhases();
+    }
+
+    @Test
+    void testPhasesGoToTheNextReportAndTrailingPhasesToTheSuite() {
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.SESSION_CREATION, millisAgo(30));
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INJECTION, millisAgo(2));
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.INJECTION, millisAgo(4));
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.TEARDOWN, millisAgo(10));
+
+        List<LifecyclePhaseRecorder.Timing> testPhases = LifecyclePhaseRecorder.takeTestPhases();
+        List<LifecyclePhaseRecorder.Timing> suitePhases = LifecyclePhaseRecorder.takeSuitePhases();
+
+        assertEquals(2, testPhases.size());
+        assertEquals(LifecyclePhaseRecorder.Phase.SESSION_CREATION, testPhases.get(0).getPhase());
+        assertEquals(2, testPhases.get(1).getCount());
+        assertTrue(testPhases.get(1).getMaxMicros() >= 4_000);
+        assertEquals(LifecyclePhaseRecorder.Phase.TEARDOWN, suitePhases.get(0).getPhase());
+        assertTrue(LifecyclePhaseRecorder.takeTestPhases().isEmpty());
+        assertTrue(LifecyclePhaseRecorder.takeSuitePhases().isEmpty());
+    }
+
+    @Test
+    void mergeAddsUpPhasesAndOverheadCountsNestedPreflightOnce() {
+        List<LifecyclePhaseRecorder.Timing> merged = LifecyclePhaseRecorder.merge(List.of(
+                List.of(LifecyclePhaseRecorder.Timing.of(LifecyclePhaseRecorder.Phase.SESSION_CREATION, 1, 900_000, 900_000),
+                        LifecyclePhaseRecorder.Timing.of(LifecyclePhaseRecorder.Phase.PREFLIGHT, 1, 100_000, 100_000)),
+                List.of(LifecyclePhaseRecorder.Timing.of(LifecyclePhaseRecorder.Phase.SESSION_CREATION, 1, 600_000, 600_000),
+                        LifecyclePhaseRecorder.Timing.of(LifecyclePhaseRecorder.Phase.TEARDOWN, 2, 50_000, 30_000))
+        ));
+
+        assertEquals(List.of(LifecyclePhaseRecorder.Phase.PREFLIGHT, LifecyclePhaseRecorder.Phase.SESSION_CREATION,
+                LifecyclePhaseRecorder.Phase.TEARDOWN), merged.stream().map(LifecyclePhaseRecorder.Timing::getPhase)
+                .collect(java.util.stream.Collectors.toList()));
+        assertEquals(1_500_000, merged.get(1).getTotalMicros());
+        assertEquals(900_000, merged.get(1).getMaxMicros());
+        assertEquals(1_550_000, LifecyclePhaseRecorder.overheadMicros(merged));
+    }
+
+    private static long millisAgo(long millis) {
+        return System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(millis);
+    }
+}
@@ -18,7 +18,9 @@ import org.openqa.selenium.remote.SessionId;
 import java.net.URL;
 import java.nio.file.Files;
 import java.nio.file.Path;
+import java.security.MessageDigest;
 import java.util.Map;
+import java.util.stream.Stream;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
@@ -135,7 +137,39 @@ class PepeniumReportCollectorTest {
         assertTrue(html.contains("<h2>Screenshots</h2>"));
         assertTrue(html.contains("Screenshot 1"));
         assertTrue(html.contains("Screenshot 2"));
-        assertTrue(html.contains("first-source.png"));
-        assertTrue(html.contains("second-source.png"));
+        assertTrue(html.contains("screenshots/" + sha256(new byte[]{4, 5, 6}) + ".png"));
+        assertTrue(html.contains("screenshots/" + sha256(new byte[]{7, 8, 9}) + ".png"));
+    }
+
+    @Test
+    void identicalScreenshotsOfDifferentTestsAreStoredOnce() throws Exception {
+        Path screenshotDir = reportDir.resolve("screenshots");
+        Path firstSource = Files.write(reportDir.resolve("first-test.png"), new byte[]{4, 5, 6});
+        Path secondSource = Files.write(reportDir.resolve("second-test.png"), new byte[]{4, 5, 6});
+
+        PepeniumTimeline.recordScreenshot("Same screen", firstSource.toString());
+        PepeniumHtmlReportWriter.ReportContext first = PepeniumReportCollector.collect("firstTest", null, null, reportDir);
+        PepeniumTimeline.recordScreenshot("Same screen", secondSource.toString());
+        PepeniumHtmlReportWriter.ReportContext second = PepeniumReportCollector.collect("secondTest", null, null, reportDir);
+        String firstFinal = PepeniumReportSupport.writeScreenshot(new byte[]{1, 2, 3}, reportDir);
+        String secondFinal = PepeniumReportSupport.writeScreenshot(new byte[]{1, 2, 3}, reportDir);
+
+        assertEquals(first.lastScreenshotPath, second.lastScreenshotPath);
+        assertEquals(screenshotDir.resolve(sha256(new byte[]{4, 5, 6}) + ".png").toString(), first.lastScreenshotPath);
+        assertEquals("screenshots/" + sha256(new byte[]{1, 2, 3}) + ".png", firstFinal);
+        assertEquals(firstFinal, secondFinal);
+        try (Stream<Path> stored = Files.list(screenshotDir)) {
+            assertEquals(2, stored.count());
+        }
+        assertTrue(Files.exists(firstSource));
+        assertTrue(Files.exists(secondSource));
+    }
+
+    private static String sha256(byte[] content) throws Exception {
+        StringBuilder hex = new StringBuilder();
+        for (byte value : MessageDigest.getInstance("SHA-256").digest(content)) {
+            hex.append(String.format("%02x", value));
+        }
+        return hex.toString();
     }
 }
@@ -13,7 +13,9 @@ import java.util.concurrent.CountDownLatch;
 import java.util.concurrent.ExecutorService;
 import java.util.concurrent.Executors;
 import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
 
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.junit.jupiter.api.Assertions.assertEquals;
 
@@ -25,7 +27,11 @@ class PepeniumReportIndexWriterTest {
     @AfterEach
     void tearDown() {
         System.clearProperty("pepenium.report.dir");
+        System.clearProperty("pepenium.report.index.debounce.ms");
         StepTracker.clear();
+        CommandLatencyRecorder.clear();
+        LifecyclePhaseRecorder.clear();
+        LifecyclePhaseRecorder.takeSuitePhases();
     }
 
     @Test
@@ -57,6 +63,267 @@ class PepeniumReportIndexWriterTest {
         assertTrue(summaryJson.contains("\"failed\": 1"));
     }
 
+    @Test
+    void reusedSessionSavingsAreCountedOncePerLease() throws Exception {
+        writeReportJson("report-a.json", "firstTest", "lease-1", true, 1500);
+        writeReportJson("report-b.json", "secondTest", "lease-1", true, 1500);
+        writeReportJson("report-c.json", "thirdTest", "lease-2", true, 900);
+        writeReportJson("report-d.json", "freshTest", "lease-3", false, 0);
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String indexHtml = Files.readString(indexFile);
+
+        assertTrue(summaryJson.contains("\"reused\": 2"));
+        assertTrue(summaryJson.contains("\"startupSavedMillis\": 2400"));
+        assertTrue(indexHtml.contains("Reused Sessions"));
+        assertTrue(indexHtml.contains("2s 400ms"));
+    }
+
+    @Test
+    void prewarmHitsAndMissesAreSummarizedPerLease() throws Exception {
+        writeReportJson("report-a.json", "prewarmedTest",
+                "{\"leaseId\": \"lease-1\", \"source\": \"PREWARMED\", \"reused\": true, \"startupSavedMillis\": 800}");
+        writeReportJson("report-b.json", "samePrewarmedClassTest",
+                "{\"leaseId\": \"lease-1\", \"source\": \"PREWARMED\", \"reused\": true, \"startupSavedMillis\": 800}");
+        writeReportJson("report-c.json", "missedTest",
+                "{\"leaseId\": \"lease-2\", \"source\": \"CREATED\", \"reused\": false, \"prewarmMissed\": true}");
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String indexHtml = Files.readString(indexFile);
+
+        assertTrue(summaryJson.contains("\"prewarmHits\": 1"));
+        assertTrue(summaryJson.contains("\"prewarmMisses\": 1"));
+        assertTrue(indexHtml.contains("Prewarm Hits"));
+        assertTrue(indexHtml.contains("1 / 2"));
+    }
+
+    @Test
+    void recoveredSessionsAreSummarizedOncePerLease() throws Exception {
+        writeReportJson("report-a.json", "afterRecoveryTest",
+                "{\"leaseId\": \"lease-2\", \"source\": \"CREATED\", \"recovered\": true, \"recoveryMillis\": 2500}");
+        writeReportJson("report-b.json", "laterTest",
+                "{\"leaseId\": \"lease-2\", \"source\": \"CREATED\", \"recovered\": true, \"recoveryMillis\": 2500}");
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+
+        assertTrue(summaryJson.contains("\"recoveries\": 1"));
+        assertTrue(summaryJson.contains("\"recoveryMillis\": 2500"));
+        assertTrue(Files.readString(indexFile).contains("Recovered Sessions"));
+    }
+
+    @Test
+    void providerQuotaWaitIsSummarizedOncePerLease() throws Exception {
+        writeReportJson("report-a.json", "queuedTest",
+                "{\"leaseId\": \"lease-1\", \"source\": \"CREATED\", \"quotaWaitMillis\": 42000, \"quotaRetries\": 2}");
+        writeReportJson("report-b.json", "sameClassTest",
+                "{\"leaseId\": \"lease-1\", \"source\": \"CREATED\", \"quotaWaitMillis\": 42000, \"quotaRetries\": 2}");
+        writeReportJson("report-c.json", "admittedTest", "lease-2", false, 0);
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+
+        assertTrue(summaryJson.contains("\"quotaWaits\": 1"));
+        assertTrue(summaryJson.contains("\"quotaWaitMillis\": 42000"));
+        assertTrue(Files.readString(indexFile).contains("Quota Wait"));
+    }
+
+    @Test
+    void teardownFailuresAreSurfacedInTheSuiteSummary() throws Exception {
+        writeReportJson("report-a.json", "firstTest", "lease-1", false, 0);
+        Files.writeString(reportDir.resolve("teardown-42.json"),
+                PepeniumReportJsonRenderer.renderTeardownJson(List.of("Failed to quit grid session: timeout")),
+                StandardCharsets.UTF_8);
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String indexHtml = Files.readString(indexFile);
+
+        assertTrue(summaryJson.contains("\"failures\": 1"));
+        assertTrue(summaryJson.contains("Failed to quit grid session: timeout"));
+        assertTrue(indexHtml.contains("Teardown Failures"));
+    }
+
+    @Test
+    void deviceUtilizationIsMergedPerDeviceIntoTheSuiteSummary() throws Exception {
+        writeReportJson("report-a.json", "firstTest", "lease-1", false, 0);
+        DeviceUtilization used = DeviceUtilization.builder()
+                .profile("android-farm").device("emulator-5554").serverUrl("")
+                .leases(3).busyMillis(6000).spanMillis(10000).quarantineReason("")
+                .build();
+        Files.writeString(reportDir.resolve("devices-41.json"),
+                PepeniumReportJsonRenderer.renderDeviceUtilizationJson(List.of(used)), StandardCharsets.UTF_8);
+        Files.writeString(reportDir.resolve("devices-42.json"),
+                PepeniumReportJsonRenderer.renderDeviceUtilizationJson(List.of(used.toBuilder()
+                        .device("emulator-5556").leases(0).busyMillis(0)
+                        .quarantined(true).quarantineReason("device offline").build())),
+                StandardCharsets.UTF_8);
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String indexHtml = Files.readString(indexFile);
+
+        assertTrue(summaryJson.contains("\"devices\": ["));
+        assertTrue(summaryJson.contains("\"utilizationPercent\": 60"));
+        assertTrue(summaryJson.contains("\"quarantineReason\": \"device offline\""));
+        assertTrue(indexHtml.contains("Device Utilization"));
+        assertTrue(indexHtml.contains("emulator-5556"));
+    }
+
+    @Test
+    void profileMatrixGroupsRunsOfTheSameTestPerProfile() throws Exception {
+        writeProfileReportJson("report-a.json", "login() [local-web]", "local-web", "PASSED");
+        writeProfileReportJson("report-b.json", "login() [browserstack-web]", "browserstack-web", "FAILED");
+        writeProfileReportJson("report-c.json", "checkout()", "local-web", "PASSED");
+
+        String indexHtml = Files.readString(PepeniumReportIndexWriter.writeIndex(reportDir));
+        String matrix = indexHtml.substring(indexHtml.indexOf("<h2>Profile Matrix</h2>"),
+                indexHtml.indexOf("<h2>Reports</h2>"));
+
+        assertTrue(matrix.contains("<span>login()</span>"));
+        assertTrue(matrix.contains("class=\"badge failed\" href=\"report-b.html\">browserstack-web</a>"
+                + "<a class=\"badge passed\" href=\"report-a.html\">local-web</a>"));
+        assertFalse(matrix.contains("checkout()"));
+    }
+
+    @Test
+    void profileMatrixIsOmittedWhenEveryTestRanOnOneProfile() throws Exception {
+        writeProfileReportJson("report-a.json", "login()", "local-web", "PASSED");
+
+        assertFalse(Files.readString(PepeniumReportIndexWriter.writeIndex(reportDir)).contains("Profile Matrix"));
+    }
+
+    @Test
+    void commandLatencyHistogramsAreMergedIntoTheSuiteSummary() throws Exception {
+        System.setProperty("pepenium.report.dir", reportDir.toString());
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("findElement", TimeUnit.MILLISECONDS.toNanos(2));
+        CommandLatencyRecorder.record("findElement", TimeUnit.MILLISECONDS.toNanos(3));
+        PepeniumHtmlReportWriter.write("firstLatencyTest", null, null);
+        CommandLatencyRecorder.beginTest();
+        CommandLatencyRecorder.record("findElement", TimeUnit.MILLISECONDS.toNanos(40));
+        PepeniumHtmlReportWriter.write("secondLatencyTest", null, null);
+        PepeniumHtmlReportWriter.flushIndex();
+
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String htmlReports;
+        try (java.util.stream.Stream<Path> files = Files.list(reportDir)) {
+            htmlReports = files
+                    .filter(path -> path.getFileName().toString().startsWith("report-"))
+                    .filter(path -> path.getFileName().toString().endsWith(".html"))
+                    .map(path -> {
+                        try {
+                            return Files.readString(path);
+                        } catch (java.io.IOException error) {
+                            throw new java.io.UncheckedIOException(error);
+                        }
+                    })
+                    .reduce("", String::concat);
+        }
+
+        assertTrue(summaryJson.contains("\"command\": \"findElement\""));
+        assertTrue(summaryJson.contains("\"count\": 3"));
+        assertTrue(summaryJson.contains("\"maxMillis\": 40.0"));
+        assertTrue(summaryJson.contains("\"totalMillis\": 45.0"));
+        assertTrue(htmlReports.contains("Command Latency"));
+    }
+
+    @Test
+    void lifecyclePhasesOfReportsAndForksAreSummarizedAsFrameworkOverhead() throws Exception {
+        System.setProperty("pepenium.report.dir", reportDir.toString());
+        LifecyclePhaseRecorder.record(LifecyclePhaseRecorder.Phase.SESSION_CREATION,
+                System.nanoTime() - TimeUnit.MILLISECONDS.toNanos(1500));
+        PepeniumHtmlReportWriter.write("firstPhaseTest", null, null);
+        PepeniumHtmlReportWriter.write("secondPhaseTest", null, null);
+        Files.writeString(reportDir.resolve("lifecycle-42.json"),
+                PepeniumReportJsonRenderer.renderLifecyclePhasesJson(List.of(LifecyclePhaseRecorder.Timing.of(
+                        LifecyclePhaseRecorder.Phase.TEARDOWN, 1, 250_000, 250_000))),
+                StandardCharsets.UTF_8);
+
+        Path indexFile = PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+        String indexHtml = Files.readString(indexFile);
+        List<String> reportPhases = new ArrayList<>();
+        try (java.util.stream.Stream<Path> files = Files.list(reportDir)) {
+            files.filter(path -> path.getFileName().toString().startsWith("report-"))
+                    .filter(path -> path.getFileName().toString().endsWith(".json"))
+                    .forEach(path -> reportPhases.add(String.valueOf(
+                            PepeniumReportJsonRenderer.loadSummary(path).lifecyclePhases.size())));
+        }
+
+        assertEquals(List.of("0", "1"), reportPhases.stream().sorted().collect(java.util.stream.Collectors.toList()));
+        assertTrue(summaryJson.contains("\"frameworkOverhead\": {"));
+        assertTrue(summaryJson.contains("\"phase\": \"sessionCreation\""));
+        assertTrue(summaryJson.contains("\"phase\": \"teardown\""));
+        assertTrue(summaryJson.contains("\"totalMillis\": 250.0"));
+        assertTrue(indexHtml.contains("<h2>Framework Overhead</h2>"));
+        assertTrue(indexHtml.contains("Session Creation"));
+    }
+
+    @Test
+    void indexRebuildsAreDebouncedAndFlushedFromTheJournal() throws Exception {
+        System.setProperty("pepenium.report.dir", reportDir.toString());
+        System.setProperty("pepenium.report.index.debounce.ms", "60000");
+        PepeniumHtmlReportWriter.write("firstJournaledTest", null, null);
+        PepeniumHtmlReportWriter.write("secondJournaledTest", null, null);
+
+        String debouncedSummary = Files.readString(reportDir.resolve("summary.json"));
+        List<String> journal = Files.readAllLines(reportDir.resolve(SuiteJournal.FILE_NAME));
+        PepeniumHtmlReportWriter.flushIndex();
+
+        assertTrue(debouncedSummary.contains("\"totalReports\": 1"));
+        assertEquals(2, journal.size());
+        assertTrue(journal.get(1).contains("\"testName\":\"secondJournaledTest\""));
+        assertTrue(Files.readString(reportDir.resolve("summary.json")).contains("\"totalReports\": 2"));
+    }
+
+    @Test
+    void indexIsRenderedFromJournalRecordsWithoutRereadingReports() throws Exception {
+        writeReportJson("report-a.json", "seededTest", "lease-1", false, 0);
+        PepeniumReportIndexWriter.writeIndex(reportDir);
+        Files.delete(reportDir.resolve("report-a.json"));
+        PepeniumHtmlReportWriter.ReportSummary otherFork = PepeniumReportJsonRenderer.loadSummaryRecord(
+                "{\"testName\":\"otherForkTest\",\"outcome\":\"FAILED\",\"htmlReport\":\"report-b.html\","
+                        + "\"timing\":{\"durationMillis\":25},\"lifecyclePhases\":[{\"phase\":\"injection\","
+                        + "\"count\":1,\"totalMillis\":3.5,\"maxMillis\":3.5}]}");
+        Files.writeString(reportDir.resolve(SuiteJournal.FILE_NAME),
+                PepeniumReportJsonRenderer.renderSummaryRecord(otherFork) + "\n", StandardCharsets.UTF_8,
+                java.nio.file.StandardOpenOption.APPEND);
+
+        String indexHtml = Files.readString(PepeniumReportIndexWriter.writeIndex(reportDir));
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+
+        assertTrue(indexHtml.indexOf("otherForkTest") < indexHtml.indexOf("seededTest"));
+        assertTrue(summaryJson.contains("\"totalReports\": 2"));
+        assertTrue(summaryJson.contains("\"failed\": 1"));
+        assertTrue(summaryJson.contains("\"phase\": \"injection\""));
+    }
+
+    @Test
+    void totalsFollowAReportRewrittenUnderTheSameName() throws Exception {
+        writeReportJson("report-a.json", "flakyTest", "lease-1", true, 1500);
+        writeReportJson("report-b.json", "stableTest", "lease-2", true, 900);
+        PepeniumReportIndexWriter.writeIndex(reportDir);
+        PepeniumHtmlReportWriter.ReportSummary rerun = PepeniumReportJsonRenderer.loadSummaryRecord(
+                "{\"testName\":\"flakyTest\",\"outcome\":\"FAILED\",\"htmlReport\":\"report-a.html\","
+                        + "\"timing\":{\"durationMillis\":40}}");
+        Files.writeString(reportDir.resolve(SuiteJournal.FILE_NAME),
+                PepeniumReportJsonRenderer.renderSummaryRecord(rerun) + "\n", StandardCharsets.UTF_8,
+                java.nio.file.StandardOpenOption.APPEND);
+
+        PepeniumReportIndexWriter.writeIndex(reportDir);
+        String summaryJson = Files.readString(reportDir.resolve("summary.json"));
+
+        assertTrue(summaryJson.contains("\"totalReports\": 2"));
+        assertTrue(summaryJson.contains("\"passed\": 1"));
+        assertTrue(summaryJson.contains("\"failed\": 1"));
+        assertTrue(summaryJson.contains("\"totalDurationMillis\": 50"));
+        assertTrue(summaryJson.contains("\"reused\": 1"));
+        assertTrue(summaryJson.contains("\"startupSavedMillis\": 900"));
+    }
+
     @Test
     void concurrentReportsProduceCompleteReadableSuiteArtifacts() throws Exception {
         System.setProperty("pepenium.report.dir", reportDir.toString());
@@ -81,6 +348,7 @@ class PepeniumReportIndexWriterTest {
         } finally {
             executor.shutdownNow();
         }
+        PepeniumHtmlReportWriter.flushIndex();
 
         String summaryJson = Files.readString(reportDir.resolve("summary.json"));
         String indexHtml = Files.readString(reportDir.resolve("index.html"));
@@ -99,4 +367,33 @@ class PepeniumReportIndexWriterTest {
             assertTrue(indexHtml.contains("parallelReport" + index));
         }
     }
+
+    private void writeReportJson(String fileName, String testName, String leaseId, boolean reused, long savedMillis)
+            throws Exception {
+        writeReportJson(fileName, testName, "{\"leaseId\": \"" + leaseId + "\", \"reused\": " + reused
+                + ", \"startupSavedMillis\": " + savedMillis + "}");
+    }
+
+    private void writeProfileReportJson(String fileName, String testName, String profileId, String outcome)
+            throws Exception {
+        String json = "{\n"
+                + "  \"htmlReport\": \"" + fileName.replace(".json", ".html") + "\",\n"
+                + "  \"outcome\": \"" + outcome + "\",\n"
+                + "  \"testName\": \"" + testName + "\",\n"
+                + "  \"profileId\": \"" + profileId + "\",\n"
+                + "  \"timing\": {\"durationMillis\": 10}\n"
+                + "}\n";
+        Files.writeString(reportDir.resolve(fileName), json, StandardCharsets.UTF_8);
+    }
+
+    private void writeReportJson(String fileName, String testName, String sessionJson) throws Exception {
+        String json = "{\n"
+                + "  \"htmlReport\": \"" + fileName.replace(".json", ".html") + "\",\n"
+                + "  \"outcome\": \"PASSED\",\n"
+                + "  \"testName\": \"" + testName + "\",\n"
+                + "  \"timing\": {\"durationMillis\": 10},\n"
+                + "  \"session\": " + sessionJson + "\n"
+                + "}\n";
+        Files.writeString(reportDir.resolve(fileName), json, StandardCharsets.UTF_8);
+    }
 }
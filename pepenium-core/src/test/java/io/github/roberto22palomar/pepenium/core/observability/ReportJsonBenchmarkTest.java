@@ -0,0 +1,114 @@
+package io.github.roberto22palomar.pepenium.core.observability;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.junit.jupiter.api.io.TempDir;
+import org.yaml.snakeyaml.LoaderOptions;
+import org.yaml.snakeyaml.Yaml;
+import org.yaml.snakeyaml.constructor.SafeConstructor;
+
+import java.io.StringWriter;
+import java.lang.management.ManagementFactory;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Map;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * Compares the streaming JSON writer and pull reader with rendering to a string and reading the whole report back
+ * through SnakeYAML, on a report with a 10,000 event timeline.
+ *
+ * <p>Run with {@code mvn -pl pepenium-core test -Dtest=ReportJsonBenchmarkTest -Dpepenium.benchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "pepenium.benchmarks", matches = "true")
+class ReportJsonBenchmarkTest {
+
+    private static final int EVENTS = 10_000;
+    private static final int WARMUP = 20;
+    private static final int MEASURED = 50;
+
+    @TempDir
+    private Path reportDir;
+
+    @AfterEach
+    void tearDown() {
+        StepTracker.clear();
+    }
+
+    @Test
+    void reportsWriteAndSummaryReadCostForLargeTimelines() throws Exception {
+        for (int i = 0; i < EVENTS; i++) {
+            if (i % 100 == 0) {
+                StepTracker.record("Step " + i);
+            } else {
+                PepeniumTimeline.recordAction("Click \"checkout\" button number " + i + " in the cart");
+            }
+        }
+        PepeniumHtmlReportWriter.ReportContext report =
+                PepeniumReportCollector.collect("largeTimeline", null, null, reportDir);
+        Path jsonFile = reportDir.resolve("report-large.json");
+        Yaml yaml = new Yaml(new SafeConstructor(new LoaderOptions()));
+
+        Measurement rendered = measure(() -> {
+            StringWriter out = new StringWriter();
+            PepeniumReportJsonRenderer.writeReportJson(report, "report-large.html", out);
+            Files.writeString(jsonFile, out.toString(), StandardCharsets.UTF_8);
+        });
+        Measurement streamed = measure(() -> AtomicArtifactWriter.write(jsonFile, StandardCharsets.UTF_8,
+                out -> PepeniumReportJsonRenderer.writeReportJson(report, "report-large.html", out)));
+        Measurement yamlRead = measure(() -> {
+            Map<String, Object> data = yaml.load(Files.readString(jsonFile, StandardCharsets.UTF_8));
+            assertEquals("largeTimeline", data.get("testName"));
+        });
+        Measurement pullRead = measure(() ->
+                assertEquals("largeTimeline", PepeniumReportJsonRenderer.loadSummary(jsonFile).testName));
+
+        System.out.printf("Report with %d events (%d KiB):%n", EVENTS, Files.size(jsonFile) / 1024);
+        System.out.printf("  write: string then file %s, streamed %s%n", rendered, streamed);
+        System.out.printf("  summary read: SnakeYAML %s, pull reader %s (%.1fx)%n",
+                yamlRead, pullRead, yamlRead.nanos / (double) pullRead.nanos);
+    }
+
+    private static Measurement measure(Action action) throws Exception {
+        for (int i = 0; i < WARMUP; i++) {
+            action.run();
+        }
+        long allocatedBefore = allocatedBytes();
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            action.run();
+        }
+        return new Measurement((System.nanoTime() - started) / MEASURED, (allocatedBytes() - allocatedBefore) / MEASURED);
+    }
+
+    private static long allocatedBytes() {
+        java.lang.management.ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+        if (threads instanceof com.sun.management.ThreadMXBean) {
+            return ((com.sun.management.ThreadMXBean) threads).getThreadAllocatedBytes(Thread.currentThread().getId());
+        }
+        return 0L;
+    }
+
+    @FunctionalInterface
+    private interface Action {
+        void run() throws Exception;
+    }
+
+    private static final class Measurement {
+        private final long nanos;
+        private final long bytes;
+
+        private Measurement(long nanos, long bytes) {
+            this.nanos = nanos;
+            this.bytes = bytes;
+        }
+
+        @Override
+        public String toString() {
+            return String.format("%.2f ms/op, %d KiB allocated/op", nanos / 1_000_000d, bytes / 1024);
+        }
+    }
+}
@@ -0,0 +1,161 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.WebDriver;
+
+import java.net.URL;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class AppiumServerPoolTest {
+
+    private final AtomicInteger nextPort = new AtomicInteger(47230);
+    private final List<Process> processes = new ArrayList<>();
+
+    @AfterEach
+    void tearDown() {
+        AppiumServerPool.closeShared();
+        System.clearProperty("pepenium.appium.server.pool");
+        processes.forEach(Process::destroyForcibly);
+    }
+
+    @Test
+    void reusesAHealthyServerAcrossLeases() {
+        AppiumServerPool pool = new AppiumServerPool(2);
+
+        AppiumDriverLocalService first = pool.acquire("aws-local", this::standIn);
+        assertTrue(pool.giveBack(first));
+        AppiumDriverLocalService second = pool.acquire("aws-local", this::standIn);
+
+        assertSame(first, second);
+        assertEquals(1, processes.size());
+        assertTrue(second.isRunning());
+        pool.close();
+    }
+
+    @Test
+    void replacesAServerThatDiedWhileIdle() throws Exception {
+        AppiumServerPool pool = new AppiumServerPool(2);
+        AppiumDriverLocalService first = pool.acquire("aws-local", this::standIn);
+        pool.giveBack(first);
+
+        processes.get(0).destroyForcibly().waitFor(5, TimeUnit.SECONDS);
+        AppiumDriverLocalService second = pool.acquire("aws-local", this::standIn);
+
+        assertNotSame(first, second);
+        assertEquals(2, processes.size());
+        assertTrue(second.isRunning());
+        verify(first).stop();
+        pool.close();
+    }
+
+    @Test
+    void stopsServersBeyondTheIdleLimitAndEveryServerOnClose() {
+        AppiumServerPool pool = new AppiumServerPool(1);
+        AppiumDriverLocalService kept = pool.acquire("aws-local", this::standIn);
+        AppiumDriverLocalService surplus = pool.acquire("aws-local", this::standIn);
+        AppiumDriverLocalService leased = pool.acquire("aws-local", this::standIn);
+
+        pool.giveBack(kept);
+        pool.giveBack(surplus);
+
+        assertEquals(1, pool.idleCount("aws-local"));
+        assertTrue(kept.isRunning());
+        assertFalse(surplus.isRunning());
+
+        pool.close();
+
+        assertFalse(kept.isRunning());
+        assertFalse(leased.isRunning());
+        assertFalse(pool.giveBack(leased));
+    }
+
+    @Test
+    void closingASessionHandsItsServerBackWhenPoolingIsEnabled() {
+        System.setProperty("pepenium.appium.server.pool", "true");
+        AppiumDriverLocalService service = AppiumServerPool.lease("aws-local", this::standIn);
+        DriverSession session = new DriverSession(mock(WebDriver.class), DriverRequest.builder()
+                .driverType(DriverType.ANDROID_APPIUM)
+                .description("pooled server")
+                .ownedService(service)
+                .build());
+
+        session.close();
+
+        verify(service, never()).stop();
+        assertSame(service, AppiumServerPool.lease("aws-local", this::standIn));
+        AppiumServerPool.closeShared();
+        assertFalse(service.isRunning());
+    }
+
+    @Test
+    void startsAnUnpooledServerWhenPoolingIsDisabled() {
+        AppiumDriverLocalService service = AppiumServerPool.lease("aws-local", this::standIn);
+
+        assertTrue(service.isRunning());
+        assertFalse(AppiumServerPool.release(service));
+    }
+
+    /**
+     * An Appium service backed by a real child process that only sleeps, so the pool's process lifecycle can be
+     * exercised without Node or Appium installed.
+     */
+    private AppiumDriverLocalService standIn() {
+        AppiumDriverLocalService service = mock(AppiumDriverLocalService.class);
+        AtomicReference<Process> process = new AtomicReference<>();
+        try {
+            when(service.getUrl()).thenReturn(new URL("http://127.0.0.1:" + nextPort.incrementAndGet()));
+        } catch (java.net.MalformedURLException error) {
+            throw new IllegalArgumentException(error);
+        }
+        doAnswer(invocation -> {
+            Process started = new ProcessBuilder(
+                    Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                    "-cp", System.getProperty("java.class.path"),
+                    StandInAppiumServer.class.getName()
+            ).start();
+            processes.add(started);
+            process.set(started);
+            return null;
+        }).when(service).start();
+        when(service.isRunning()).thenAnswer(invocation -> process.get() != null && process.get().isAlive());
+        doAnswer(invocation -> {
+            Process running = process.get();
+            if (running != null) {
+                running.destroy();
+                running.waitFor(5, TimeUnit.SECONDS);
+            }
+            return null;
+        }).when(service).stop();
+        return service;
+    }
+
+    static final class StandInAppiumServer {
+
+        private StandInAppiumServer() {
+        }
+
+        public static void main(String[] args) throws InterruptedException {
+            Thread.sleep(TimeUnit.MINUTES.toMillis(2));
+        }
+    }
+}
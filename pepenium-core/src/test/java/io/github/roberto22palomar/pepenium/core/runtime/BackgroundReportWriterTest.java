@@ -0,0 +1,102 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.LifecyclePhaseRecorder;
+import io.github.roberto22palomar.pepenium.core.observability.PepeniumHtmlReportWriter;
+import io.github.roberto22palomar.pepenium.core.observability.StepTracker;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Collectors;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class BackgroundReportWriterTest {
+
+    private final List<String> writtenOn = new CopyOnWriteArrayList<>();
+    private final CountDownLatch releaseWrite = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        releaseWrite.countDown();
+        BackgroundReportWriter.closeShared();
+        System.clearProperty("pepenium.async.reports");
+        System.clearProperty("pepenium.report.dir");
+        StepTracker.clear();
+        LifecyclePhaseRecorder.clear();
+        LifecyclePhaseRecorder.takeSuitePhases();
+        PepeniumHtmlReportWriter.flushIndex();
+    }
+
+    @Test
+    void writesInTheBackgroundAndDrainsOnClose() {
+        BackgroundReportWriter writer = new BackgroundReportWriter(1, 4, Duration.ofSeconds(5), this::blockingWrite);
+
+        long startedAt = System.nanoTime();
+        writer.submit(PepeniumHtmlReportWriter.capture("checkout", null, null));
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1000);
+        releaseWrite.countDown();
+        writer.close();
+
+        assertEquals(1, writtenOn.size());
+        assertTrue(writtenOn.get(0).startsWith("pepenium-report-writer-"));
+    }
+
+    @Test
+    void writesOnTheCallingThreadOnceTheQueueIsFull() {
+        BackgroundReportWriter writer = new BackgroundReportWriter(1, 1, Duration.ofSeconds(5), this::blockingWrite);
+
+        writer.submit(PepeniumHtmlReportWriter.capture("first", null, null));
+        writer.submit(PepeniumHtmlReportWriter.capture("second", null, null));
+        writer.submit(PepeniumHtmlReportWriter.capture("third", null, null));
+
+        assertTrue(writtenOn.contains(Thread.currentThread().getName()));
+        releaseWrite.countDown();
+        writer.close();
+        assertEquals(3, writtenOn.size());
+    }
+
+    @Test
+    void asynchronousReportsRecordOnlyTheSnapshotAsOverhead(@TempDir Path reportDir) throws Exception {
+        System.setProperty("pepenium.async.reports", "true");
+        System.setProperty("pepenium.report.dir", reportDir.toString());
+        StepTracker.record("Open checkout");
+
+        BackgroundReportWriter.write("checkout", null, null);
+        StepTracker.clear();
+        BackgroundReportWriter.closeShared();
+
+        try (Stream<Path> files = Files.list(reportDir)) {
+            assertEquals(1, files.filter(path -> path.getFileName().toString().startsWith("report-"))
+                    .filter(path -> path.getFileName().toString().endsWith(".json"))
+                    .count());
+        }
+        List<LifecyclePhaseRecorder.Phase> phases = LifecyclePhaseRecorder.takeSuitePhases().stream()
+                .map(LifecyclePhaseRecorder.Timing::getPhase)
+                .collect(Collectors.toList());
+        assertEquals(List.of(LifecyclePhaseRecorder.Phase.REPORT_SNAPSHOT,
+                LifecyclePhaseRecorder.Phase.BACKGROUND_REPORTING), phases);
+    }
+
+    private void blockingWrite(PepeniumHtmlReportWriter.ReportSnapshot snapshot) {
+        writtenOn.add(Thread.currentThread().getName());
+        if (!Thread.currentThread().getName().startsWith("pepenium-report-writer-")) {
+            return;
+        }
+        try {
+            releaseWrite.await(5, TimeUnit.SECONDS);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
@@ -0,0 +1,80 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.observability.CommandLatencyRecorder;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class CommandLatencyTrackingTest {
+
+    @AfterEach
+    void tearDown() {
+        CommandLatencyRecorder.clear();
+    }
+
+    @Test
+    void namesW3cCommandsIndependentlyOfSessionAndElementIds() {
+        assertEquals("newSession", CommandLatencyTracking.commandName(HttpMethod.POST, "/session"));
+        assertEquals("quit", CommandLatencyTracking.commandName(HttpMethod.DELETE, "/session/4f2a"));
+        assertEquals("clickElement",
+                CommandLatencyTracking.commandName(HttpMethod.POST, "/session/4f2a/element/9c-1/click"));
+        assertEquals("getElementAttribute",
+                CommandLatencyTracking.commandName(HttpMethod.GET, "/session/4f2a/element/9c-1/attribute/href"));
+        assertEquals("getActiveElement",
+                CommandLatencyTracking.commandName(HttpMethod.GET, "/session/4f2a/element/active"));
+        assertEquals("findElement",
+                CommandLatencyTracking.commandName(HttpMethod.POST, "/wd/hub/session/4f2a/element"));
+        assertEquals("executeScript",
+                CommandLatencyTracking.commandName(HttpMethod.POST, "/session/4f2a/execute/sync"));
+    }
+
+    @Test
+    void keepsUnknownEndpointsReadableWithPlaceholders() {
+        assertEquals("POST /session/appium/device/lock",
+                CommandLatencyTracking.commandName(HttpMethod.POST, "/session/4f2a/appium/device/lock"));
+        assertEquals("GET /session/element/{id}/computedrole",
+                CommandLatencyTracking.commandName(HttpMethod.GET, "/session/4f2a/element/9c-1/computedrole?x=1"));
+    }
+
+    @Test
+    void filterRecordsEachCommandOfTheCurrentTest() {
+        CommandLatencyRecorder.beginTest();
+
+        CommandLatencyTracking.filter()
+                .andFinally(request -> new HttpResponse())
+                .execute(new HttpRequest(HttpMethod.POST, "/session/4f2a/element"));
+
+        List<CommandLatencyRecorder.Histogram> histograms = CommandLatencyRecorder.snapshot();
+        assertEquals(1, histograms.size());
+        assertEquals("findElement", histograms.get(0).getCommand());
+        assertEquals(1, histograms.get(0).getCount());
+    }
+
+    @Test
+    void timedFactoryRecordsCommandsSentThroughItsClients() {
+        CommandLatencyRecorder.beginTest();
+        HttpClient delegateClient = mock(HttpClient.class);
+        when(delegateClient.execute(any())).thenReturn(new HttpResponse());
+        HttpClient.Factory delegate = mock(HttpClient.Factory.class);
+        when(delegate.createClient(any(ClientConfig.class))).thenReturn(delegateClient);
+
+        HttpClient client = CommandLatencyTracking.timed(delegate).createClient(ClientConfig.defaultConfig());
+        client.execute(new HttpRequest(HttpMethod.GET, "/session/4f2a/screenshot"));
+        client.close();
+
+        assertEquals("screenshot", CommandLatencyRecorder.snapshot().get(0).getCommand());
+        verify(delegateClient).close();
+    }
+}
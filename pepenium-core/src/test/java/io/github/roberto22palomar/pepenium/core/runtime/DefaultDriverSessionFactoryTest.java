@@ -6,6 +6,7 @@ import io.appium.java_client.service.local.AppiumDriverLocalService;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
 import io.github.roberto22palomar.pepenium.core.execution.DriverType;
 import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
+import io.github.roberto22palomar.pepenium.core.observability.DeviceUtilization;
 import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
 import org.slf4j.MDC;
 import org.junit.jupiter.api.AfterEach;
@@ -13,6 +14,7 @@ import org.junit.jupiter.api.Test;
 import org.mockito.MockedConstruction;
 import org.openqa.selenium.MutableCapabilities;
 import org.openqa.selenium.chrome.ChromeDriver;
+import org.openqa.selenium.chrome.ChromeDriverService;
 import org.openqa.selenium.chrome.ChromeOptions;
 import org.openqa.selenium.edge.EdgeDriver;
 import org.openqa.selenium.edge.EdgeOptions;
@@ -21,14 +23,26 @@ import org.openqa.selenium.firefox.FirefoxOptions;
 import org.openqa.selenium.remote.RemoteWebDriver;
 import org.openqa.selenium.remote.HttpCommandExecutor;
 import org.openqa.selenium.remote.SessionId;
+import org.openqa.selenium.remote.http.ClientConfig;
 
+import java.net.ConnectException;
 import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
 import java.util.concurrent.atomic.AtomicReference;
+import java.util.function.BiConsumer;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mockConstruction;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.verify;
@@ -39,6 +53,11 @@ class DefaultDriverSessionFactoryTest {
     @AfterEach
     void tearDown() {
         LoggingContext.clearAll();
+        System.clearProperty("pepenium.max.parallel.sessions");
+        System.clearProperty("pepenium.command.metrics");
+        System.clearProperty("pepenium.circuit.breaker.threshold");
+        System.clearProperty("pepenium.circuit.breaker.cooldown");
+        System.clearProperty("pepenium.device.pool");
     }
 
     @Test
@@ -56,7 +75,7 @@ class DefaultDriverSessionFactoryTest {
         AtomicReference<ChromeOptions> constructedOptions = new AtomicReference<>();
 
         try (MockedConstruction<ChromeDriver> ignored = mockConstruction(ChromeDriver.class, (mock, context) -> {
-            constructedOptions.set((ChromeOptions) context.arguments().get(0));
+            constructedOptions.set((ChromeOptions) context.arguments().get(1));
             when(mock.getSessionId()).thenReturn(new SessionId("chrome-session-123456"));
         })) {
             DriverSession session = factory.create(request);
@@ -69,6 +88,34 @@ class DefaultDriverSessionFactoryTest {
         }
     }
 
+    @Test
+    void createLocalChromeLaunchesTheSameServiceWithAndWithoutCommandMetrics() throws Exception {
+        DefaultDriverSessionFactory factory = factoryWithoutPreflight();
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .description("local chrome")
+                .target(TestTarget.WEB_DESKTOP)
+                .capabilities(new ChromeOptions())
+                .build();
+        List<List<?>> constructorArguments = new ArrayList<>();
+
+        try (MockedConstruction<ChromeDriver> ignored = mockConstruction(ChromeDriver.class, (mock, context) -> {
+            constructorArguments.add(context.arguments());
+            when(mock.getSessionId()).thenReturn(new SessionId("chrome-session-123456"));
+        })) {
+            factory.create(request);
+            System.setProperty("pepenium.command.metrics", "true");
+            factory.create(request);
+        }
+
+        assertEquals(2, constructorArguments.size());
+        for (List<?> arguments : constructorArguments) {
+            assertEquals(3, arguments.size());
+            assertTrue(arguments.get(0) instanceof ChromeDriverService);
+            assertTrue(arguments.get(2) instanceof ClientConfig);
+        }
+    }
+
     @Test
     void createLocalFirefoxBuildsDriverSessionWithMergedOptions() throws Exception {
         DefaultDriverSessionFactory factory = factoryWithoutPreflight();
@@ -83,7 +130,7 @@ class DefaultDriverSessionFactoryTest {
         AtomicReference<FirefoxOptions> constructedOptions = new AtomicReference<>();
 
         try (MockedConstruction<FirefoxDriver> ignored = mockConstruction(FirefoxDriver.class, (mock, context) -> {
-            constructedOptions.set((FirefoxOptions) context.arguments().get(0));
+            constructedOptions.set((FirefoxOptions) context.arguments().get(1));
             when(mock.getSessionId()).thenReturn(new SessionId("firefox-session-123456"));
         })) {
             DriverSession session = factory.create(request);
@@ -110,7 +157,7 @@ class DefaultDriverSessionFactoryTest {
         AtomicReference<EdgeOptions> constructedOptions = new AtomicReference<>();
 
         try (MockedConstruction<EdgeDriver> ignored = mockConstruction(EdgeDriver.class, (mock, context) -> {
-            constructedOptions.set((EdgeOptions) context.arguments().get(0));
+            constructedOptions.set((EdgeOptions) context.arguments().get(1));
             when(mock.getSessionId()).thenReturn(new SessionId("edge-session-123456"));
         })) {
             DriverSession session = factory.create(request);
@@ -240,16 +287,128 @@ class DefaultDriverSessionFactoryTest {
                 .capabilities(new MutableCapabilities())
                 .ownedService(service)
                 .build();
-        DefaultDriverSessionFactory factory = new DefaultDriverSessionFactory((ignored, timeout) -> {
+        DefaultDriverSessionFactory factory = factory((ignored, timeout) -> {
             throw new IllegalStateException("endpoint unavailable");
-        });
+        }, new SessionConcurrencyLimiter(), new EndpointCircuitBreaker(System::nanoTime));
 
         assertThrows(IllegalStateException.class, () -> factory.create(request));
 
         verify(service).stop();
     }
 
+    @Test
+    void failedCreationReleasesTheProfileSessionSlot() throws Exception {
+        System.setProperty("pepenium.max.parallel.sessions", "1");
+        SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.REMOTE_WEB)
+                .description("limited grid")
+                .serverUrl(new URL("https://grid.example/wd/hub"))
+                .capabilities(new MutableCapabilities())
+                .executionProfileId("team-grid")
+                .build();
+        DefaultDriverSessionFactory factory = factory((ignored, timeout) -> {
+            throw new IllegalStateException("endpoint unavailable");
+        }, limiter, new EndpointCircuitBreaker(System::nanoTime));
+
+        assertThrows(IllegalStateException.class, () -> factory.create(request));
+
+        assertTrue(limiter.hasFreeSlot(request));
+    }
+
+    @Test
+    void openCircuitFailsLaterClassesBeforeTheEndpointPreflight() throws Exception {
+        System.setProperty("pepenium.circuit.breaker.threshold", "1");
+        AtomicInteger preflights = new AtomicInteger();
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.ANDROID_APPIUM)
+                .description("dead local Appium")
+                .serverUrl(new URL("http://127.0.0.1:4723/wd/hub"))
+                .capabilities(new MutableCapabilities())
+                .build();
+        DefaultDriverSessionFactory factory = factory((ignored, timeout) -> {
+            preflights.incrementAndGet();
+            throw new IllegalStateException("Cannot connect to local driver endpoint",
+                    new ConnectException("Connection refused"));
+        }, new SessionConcurrencyLimiter(), new EndpointCircuitBreaker(System::nanoTime));
+
+        assertThrows(IllegalStateException.class, () -> factory.create(request));
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> factory.create(request));
+
+        assertEquals(1, preflights.get());
+        assertTrue(error.getMessage().contains("Circuit breaker for driver endpoint http://127.0.0.1:4723 is open"));
+    }
+
+    @Test
+    void successfulTrialAfterTheCooldownClosesTheCircuit() throws Exception {
+        System.setProperty("pepenium.circuit.breaker.threshold", "1");
+        System.setProperty("pepenium.circuit.breaker.cooldown", "30s");
+        AtomicLong now = new AtomicLong();
+        AtomicBoolean endpointDown = new AtomicBoolean(true);
+        EndpointCircuitBreaker breaker = new EndpointCircuitBreaker(now::get);
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.REMOTE_WEB)
+                .description("restarting grid")
+                .serverUrl(new URL("https://grid.example/wd/hub"))
+                .capabilities(new MutableCapabilities())
+                .build();
+        DefaultDriverSessionFactory factory = factory((ignored, timeout) -> {
+            if (endpointDown.get()) {
+                throw new IllegalStateException("Cannot connect to driver endpoint",
+                        new ConnectException("Connection refused"));
+            }
+        }, new SessionConcurrencyLimiter(), breaker);
+
+        assertThrows(IllegalStateException.class, () -> factory.create(request));
+        assertTrue(breaker.circuitFor(request).isOpen());
+
+        endpointDown.set(false);
+        now.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        try (MockedConstruction<RemoteWebDriver> ignored = mockConstruction(RemoteWebDriver.class, (mock, context) ->
+                when(mock.getSessionId()).thenReturn(new SessionId("trial-session")))) {
+            factory.create(request);
+            factory.create(request);
+        }
+
+        assertFalse(breaker.circuitFor(request).isOpen());
+    }
+
+    @Test
+    void sharedEndpointFailuresDoNotQuarantineThePoolDevices() throws Exception {
+        System.setProperty("pepenium.circuit.breaker.threshold", "1");
+        System.setProperty("pepenium.device.pool", "emulator-5554, emulator-5556");
+        DevicePool devicePool = new DevicePool(utilization -> { });
+        DriverRequest request = DriverRequest.builder()
+                .driverType(DriverType.ANDROID_APPIUM)
+                .description("emulators on one Appium server")
+                .serverUrl(new URL("http://127.0.0.1:4723"))
+                .capabilities(new MutableCapabilities())
+                .build();
+        DefaultDriverSessionFactory factory = new DefaultDriverSessionFactory((ignored, timeout) -> {
+            throw new IllegalStateException("Cannot connect to local driver endpoint",
+                    new ConnectException("Connection refused"));
+        }, new SessionConcurrencyLimiter(), new ProviderQuotaController(delay -> { }, () -> 0.5),
+                new SessionCreationRetry(delay -> { }, () -> 0.5), new EndpointCircuitBreaker(System::nanoTime),
+                devicePool);
+
+        for (int attempt = 0; attempt < 5; attempt++) {
+            assertThrows(IllegalStateException.class, () -> factory.create(request));
+        }
+
+        assertEquals(2, devicePool.utilization().size());
+        assertTrue(devicePool.utilization().stream().noneMatch(DeviceUtilization::isQuarantined));
+    }
+
     private static DefaultDriverSessionFactory factoryWithoutPreflight() {
-        return new DefaultDriverSessionFactory((request, timeout) -> { });
+        return factory((request, timeout) -> { }, new SessionConcurrencyLimiter(),
+                new EndpointCircuitBreaker(System::nanoTime));
+    }
+
+    private static DefaultDriverSessionFactory factory(BiConsumer<DriverRequest, Duration> endpointPreflight,
+                                                       SessionConcurrencyLimiter limiter,
+                                                       EndpointCircuitBreaker circuitBreaker) {
+        return new DefaultDriverSessionFactory(endpointPreflight, limiter,
+                new ProviderQuotaController(delay -> { }, () -> 0.5), new SessionCreationRetry(delay -> { }, () -> 0.5),
+                circuitBreaker, new DevicePool(utilization -> { }));
     }
 }
@@ -0,0 +1,225 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.android.options.UiAutomator2Options;
+import io.appium.java_client.ios.options.XCUITestOptions;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.observability.DeviceUtilization;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.SessionNotCreatedException;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class DevicePoolTest {
+
+    @TempDir
+    private Path leaseDir;
+
+    private final List<DeviceUtilization> reported = new ArrayList<>();
+    private final DevicePool pool = new DevicePool(reported::addAll);
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.device.pool");
+        System.clearProperty("pepenium.device.lease.timeout");
+        System.clearProperty("pepenium.device.quarantine.threshold");
+    }
+
+    @Test
+    void leasesFreeDevicesConcurrentlyAndPointsRequestsAtThem() throws Exception {
+        System.setProperty("pepenium.device.pool", "emulator-5554, emulator-5556@http://localhost:4725/wd/hub");
+
+        DriverRequest first = pool.lease(request()).assign(request());
+        DevicePool.Lease secondLease = pool.lease(request());
+        DriverRequest second = secondLease.assign(request());
+
+        assertNotEquals(first.getCapabilities().getCapability("appium:udid"),
+                second.getCapabilities().getCapability("appium:udid"));
+        assertEquals("emulator-5556", second.getCapabilities().getCapability("appium:udid"));
+        assertEquals("http://localhost:4725/wd/hub", second.getServerUrl().toString());
+        assertEquals("http://localhost:4723", first.getServerUrl().toString());
+        assertTrue(second.getDescription().endsWith("on emulator-5556"));
+
+        CompletableFuture<DevicePool.Lease> third = CompletableFuture.supplyAsync(() -> pool.lease(request()));
+        Thread.sleep(200);
+        assertFalse(third.isDone());
+        secondLease.release();
+        assertEquals("emulator-5556",
+                third.get(5, TimeUnit.SECONDS).assign(request()).getCapabilities().getCapability("appium:udid"));
+    }
+
+    @Test
+    void quarantinesADeviceAfterRepeatedDeviceFailures() {
+        System.setProperty("pepenium.device.pool", "emulator-5554");
+        System.setProperty("pepenium.device.quarantine.threshold", "2");
+
+        pool.lease(request()).failed(new SessionNotCreatedException("Invalid capability: appium:app"));
+        pool.lease(request()).failed(new SessionNotCreatedException("Could not find a connected Android device"));
+        pool.lease(request()).failed(new SessionNotCreatedException("Could not find a connected Android device"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> pool.lease(request()));
+        assertTrue(error.getMessage().contains("are quarantined: emulator-5554 ("));
+        assertTrue(error.getMessage().contains("Could not find a connected Android device)"));
+    }
+
+    @Test
+    void leavesRequestsWithoutADevicePoolUnchanged() {
+        DriverRequest request = request();
+
+        assertSame(request, pool.lease(request).assign(request));
+    }
+
+    @Test
+    void rejectsDuplicateDevicesAndInvalidServerUrls() {
+        assertThrows(IllegalStateException.class, () -> DevicePool.parse("emulator-5554, emulator-5554"));
+        assertThrows(IllegalStateException.class, () -> DevicePool.parse("emulator-5554@not a url"));
+        assertEquals(2, DevicePool.parse("emulator-5554, ,emulator-5556").size());
+    }
+
+    @Test
+    void reportsLeasesAndBusyTimePerDeviceOnClose() throws Exception {
+        System.setProperty("pepenium.device.pool", "emulator-5554, emulator-5556");
+        DevicePool.Lease lease = pool.lease(request());
+        Thread.sleep(50);
+        lease.release();
+        lease.release();
+
+        pool.close();
+
+        assertEquals(2, reported.size());
+        DeviceUtilization used = reported.get(0);
+        assertEquals("android-farm", used.getProfile());
+        assertEquals("emulator-5554", used.getDevice());
+        assertEquals(1, used.getLeases());
+        assertTrue(used.getBusyMillis() >= 40, () -> "busy " + used.getBusyMillis() + " ms");
+        assertTrue(used.getSpanMillis() >= used.getBusyMillis());
+        assertEquals(0, reported.get(1).getLeases());
+    }
+
+    @Test
+    void skipsDevicesAnotherForkHoldsAndWaitsForTheirRelease() throws Exception {
+        System.setProperty("pepenium.device.pool", "emulator-5554, emulator-5556");
+        ForkLeaseRegistry otherFork = forkRegistry("101@1");
+        DevicePool pooled = new DevicePool(reported::addAll, () -> forkRegistry("202@1"));
+        ForkLeaseRegistry.Claim held = otherFork.tryClaim(List.of(DevicePool.resource("emulator-5554")));
+
+        DevicePool.Lease first = pooled.lease(request());
+        assertEquals("emulator-5556", first.assign(request()).getCapabilities().getCapability("appium:udid"));
+
+        CompletableFuture<DevicePool.Lease> second = CompletableFuture.supplyAsync(() -> pooled.lease(request()));
+        Thread.sleep(400);
+        assertFalse(second.isDone());
+        held.release();
+        assertEquals("emulator-5554",
+                second.get(5, TimeUnit.SECONDS).assign(request()).getCapabilities().getCapability("appium:udid"));
+        first.release();
+        assertEquals(java.util.Optional.empty(), otherFork.holder(DevicePool.resource("emulator-5556")));
+    }
+
+    @Test
+    void claimsTheProfileDeviceAcrossForksWithoutADevicePool() {
+        System.setProperty("pepenium.device.lease.timeout", "300ms");
+        DevicePool forkA = new DevicePool(reported::addAll, () -> forkRegistry("101@1"));
+        DevicePool forkB = new DevicePool(reported::addAll, () -> forkRegistry("202@1"));
+
+        DevicePool.Lease lease = forkA.lease(request());
+        IllegalStateException error = assertThrows(IllegalStateException.class, () -> forkB.lease(request()));
+        assertTrue(error.getMessage().contains("waiting for device emulator-5554 held by other test forks"));
+
+        lease.release();
+        forkB.lease(request()).release();
+    }
+
+    @Test
+    void givesDevicesSharingAnAppiumServerTheirOwnPortsClaimedAcrossForks() {
+        System.setProperty("pepenium.device.pool", "iphone-a, iphone-b");
+        DevicePool forkA = new DevicePool(reported::addAll, () -> forkRegistry("fork-a"));
+        ForkLeaseRegistry forkB = forkRegistry("fork-b");
+
+        DevicePool.Lease firstLease = forkA.lease(iosRequest());
+        DevicePool.Lease secondLease = forkA.lease(iosRequest());
+        DriverRequest first = firstLease.assign(iosRequest());
+        DriverRequest second = secondLease.assign(iosRequest());
+
+        Object wdaPort = first.getCapabilities().getCapability("appium:wdaLocalPort");
+        assertNotEquals(wdaPort, second.getCapabilities().getCapability("appium:wdaLocalPort"));
+        assertNotEquals(first.getCapabilities().getCapability("appium:mjpegServerPort"),
+                second.getCapabilities().getCapability("appium:mjpegServerPort"));
+        assertEquals(first.getServerUrl(), second.getServerUrl());
+        assertTrue(forkB.holder(DevicePorts.resource((Integer) wdaPort)).isPresent());
+
+        firstLease.release();
+        secondLease.release();
+
+        assertTrue(forkB.holder(DevicePorts.resource((Integer) wdaPort)).isEmpty());
+    }
+
+    @Test
+    void givesPooledAndroidDevicesTheirOwnUiAutomatorChromedriverAndStreamingPorts() {
+        System.setProperty("pepenium.device.pool", "emulator-5554, emulator-5556");
+
+        DevicePool.Lease firstLease = pool.lease(request());
+        DevicePool.Lease secondLease = pool.lease(request());
+        DriverRequest first = firstLease.assign(request());
+        DriverRequest second = secondLease.assign(request());
+
+        for (String capability : List.of("appium:systemPort", "appium:chromedriverPort", "appium:mjpegServerPort")) {
+            assertNotNull(first.getCapabilities().getCapability(capability), capability);
+            assertNotEquals(first.getCapabilities().getCapability(capability),
+                    second.getCapabilities().getCapability(capability), capability);
+        }
+        assertNull(first.getCapabilities().getCapability("appium:wdaLocalPort"));
+
+        firstLease.release();
+        secondLease.release();
+    }
+
+    private ForkLeaseRegistry forkRegistry(String owner) {
+        return new ForkLeaseRegistry(leaseDir, owner, System::currentTimeMillis, ignored -> true, Duration.ofMinutes(5));
+    }
+
+    private static DriverRequest iosRequest() {
+        try {
+            return DriverRequest.builder()
+                    .driverType(DriverType.IOS_APPIUM)
+                    .serverUrl(new URL("http://localhost:4723"))
+                    .capabilities(new XCUITestOptions().setUdid("iphone-a"))
+                    .executionProfileId("ios-farm")
+                    .description("Local iOS native app")
+                    .build();
+        } catch (java.net.MalformedURLException error) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+
+    private static DriverRequest request() {
+        try {
+            return DriverRequest.builder()
+                    .driverType(DriverType.ANDROID_APPIUM)
+                    .serverUrl(new URL("http://localhost:4723"))
+                    .capabilities(new UiAutomator2Options().setUdid("emulator-5554"))
+                    .executionProfileId("android-farm")
+                    .description("Local Android native app")
+                    .build();
+        } catch (java.net.MalformedURLException error) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+}
@@ -1,26 +1,59 @@
 package io.github.roberto22palomar.pepenium.core.runtime;
 
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpServer;
 import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
 import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
 import org.junit.jupiter.api.Test;
 
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
 import java.net.ServerSocket;
 import java.net.URL;
+import java.nio.charset.StandardCharsets;
 import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class DriverEndpointPreflightTest {
 
+    private final List<HttpServer> servers = new ArrayList<>();
+    private final DriverEndpointPreflight preflight = new DriverEndpointPreflight(() -> 0.5);
+
+    @AfterEach
+    void tearDown() {
+        servers.forEach(server -> server.stop(0));
+        System.clearProperty("pepenium.endpoint.ready.ttl");
+    }
+
     @Test
-    void acceptsReachableLocalEndpoint() throws Exception {
-        try (ServerSocket server = new ServerSocket(0)) {
-            DriverRequest request = request(new URL("http://127.0.0.1:" + server.getLocalPort()));
+    void acceptsLocalEndpointThatReportsReady() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        URL serverUrl = statusServer("", checks, 0, 0);
 
-            assertDoesNotThrow(() -> DriverEndpointPreflight.verifyLocalEndpoint(request, Duration.ofSeconds(1)));
-        }
+        assertDoesNotThrow(() -> DriverEndpointPreflight.verifyLocalEndpoint(request(serverUrl), Duration.ofSeconds(1)));
+        assertEquals(1, checks.get());
+    }
+
+    @Test
+    void pollsTheStatusEndpointUntilABootingServerIsReady() throws Exception {
+        AtomicInteger checks = new AtomicInteger();
+        URL serverUrl = statusServer("/wd/hub", checks, 3, 0);
+
+        preflight.verify(serverUrl, Duration.ofSeconds(5));
+
+        assertEquals(4, checks.get());
     }
 
     @Test
@@ -31,13 +64,62 @@ class DriverEndpointPreflightTest {
         }
         DriverRequest request = request(new URL("http://127.0.0.1:" + unusedPort));
 
+        long startedAt = System.nanoTime();
         IllegalStateException error = assertThrows(
                 IllegalStateException.class,
-                () -> DriverEndpointPreflight.verifyLocalEndpoint(request, Duration.ofMillis(200))
+                () -> DriverEndpointPreflight.verifyLocalEndpoint(request, Duration.ofSeconds(5))
         );
 
         assertTrue(error.getMessage().contains("Start Appium"));
         assertTrue(error.getMessage().contains("127.0.0.1:" + unusedPort));
+        assertTrue(System.nanoTime() - startedAt < TimeUnit.SECONDS.toNanos(2), "refused connections fail fast");
+    }
+
+    @Test
+    void failsWhenAnOpenPortNeverReportsReady() throws Exception {
+        try (ServerSocket silent = new ServerSocket(0)) {
+            URL serverUrl = new URL("http://127.0.0.1:" + silent.getLocalPort());
+
+            IllegalStateException error = assertThrows(IllegalStateException.class,
+                    () -> preflight.verify(serverUrl, Duration.ofMillis(400)));
+
+            assertTrue(error.getMessage().contains("did not report ready within PT0.4S"));
+        }
+    }
+
+    @Test
+    void cachesResultsPerEndpointForTheConfiguredTtl() throws Exception {
+        System.setProperty("pepenium.endpoint.ready.ttl", "300ms");
+        AtomicInteger checks = new AtomicInteger();
+        URL serverUrl = statusServer("", checks, 0, 0);
+
+        preflight.verify(serverUrl, Duration.ofSeconds(1));
+        preflight.verify(serverUrl, Duration.ofSeconds(1));
+        assertEquals(1, checks.get());
+
+        Thread.sleep(400);
+        preflight.verify(serverUrl, Duration.ofSeconds(1));
+        assertEquals(2, checks.get());
+    }
+
+    @Test
+    void checksEndpointsInParallelAndSharesTheResultWithLaterSessions() throws Exception {
+        AtomicInteger firstChecks = new AtomicInteger();
+        AtomicInteger secondChecks = new AtomicInteger();
+        URL first = statusServer("", firstChecks, 0, 500);
+        URL second = statusServer("", secondChecks, 0, 500);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+
+        long startedAt = System.nanoTime();
+        preflight.checkAll(List.of(first, second), Duration.ofSeconds(5), executor);
+        preflight.verify(first, Duration.ofSeconds(5));
+        preflight.verify(second, Duration.ofSeconds(5));
+        long elapsedMillis = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt);
+        executor.shutdown();
+
+        assertEquals(1, firstChecks.get());
+        assertEquals(1, secondChecks.get());
+        assertTrue(elapsedMillis < 900, () -> "checked in " + elapsedMillis + " ms");
     }
 
     @Test
@@ -47,6 +129,39 @@ class DriverEndpointPreflightTest {
         assertDoesNotThrow(() -> DriverEndpointPreflight.verifyLocalEndpoint(request, Duration.ofMillis(1)));
     }
 
+    /**
+     * An Appium-like status endpoint that reports {@code ready: false} for its first {@code bootingChecks} answers.
+     */
+    private URL statusServer(String basePath, AtomicInteger checks, int bootingChecks, long delayMillis)
+            throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.setExecutor(Executors.newCachedThreadPool());
+        server.createContext(basePath + "/status", exchange -> {
+            boolean ready = checks.incrementAndGet() > bootingChecks;
+            sleep(delayMillis);
+            respond(exchange, "{\"value\": {\"ready\": " + ready + ", \"message\": \"booting\"}}");
+        });
+        server.start();
+        servers.add(server);
+        return new URL("http://127.0.0.1:" + server.getAddress().getPort() + basePath);
+    }
+
+    private static void respond(HttpExchange exchange, String body) throws IOException {
+        byte[] bytes = body.getBytes(StandardCharsets.UTF_8);
+        exchange.sendResponseHeaders(200, bytes.length);
+        try (OutputStream output = exchange.getResponseBody()) {
+            output.write(bytes);
+        }
+    }
+
+    private static void sleep(long millis) {
+        try {
+            Thread.sleep(millis);
+        } catch (InterruptedException error) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
     private static DriverRequest request(URL url) {
         return DriverRequest.builder()
                 .driverType(DriverType.ANDROID_APPIUM)
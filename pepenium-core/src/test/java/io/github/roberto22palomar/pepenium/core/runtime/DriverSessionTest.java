@@ -6,6 +6,9 @@ import io.github.roberto22palomar.pepenium.core.execution.DriverType;
 import org.junit.jupiter.api.Test;
 import org.openqa.selenium.WebDriver;
 
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.mockito.Mockito.doThrow;
@@ -42,6 +45,20 @@ class DriverSessionTest {
         verify(service).stop();
     }
 
+    @Test
+    void runsCloseActionsOnceAfterTheDriverQuits() {
+        WebDriver driver = mock(WebDriver.class);
+        AtomicInteger released = new AtomicInteger();
+        DriverSession session = new DriverSession(driver, request(null));
+        session.onClose(released::incrementAndGet);
+
+        session.close();
+        session.close();
+
+        verify(driver).quit();
+        assertEquals(1, released.get());
+    }
+
     private DriverRequest request(AppiumDriverLocalService service) {
         return DriverRequest.builder()
                 .driverType(DriverType.ANDROID_APPIUM)
@@ -0,0 +1,188 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.BufferedReader;
+import java.io.InputStreamReader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.time.Duration;
+import java.util.List;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ForkLeaseRegistryTest {
+
+    @TempDir
+    private Path leaseDir;
+
+    private final AtomicLong clock = new AtomicLong(1_000L);
+
+    @AfterEach
+    void tearDown() {
+        ForkLeaseRegistry.closeShared();
+        System.clearProperty("pepenium.fork.leases");
+        System.clearProperty("pepenium.fork.lease.dir");
+    }
+
+    @Test
+    void aResourceClaimedByOneForkIsUnavailableToAnotherUntilReleased() {
+        ForkLeaseRegistry forkA = fork("101@1");
+        ForkLeaseRegistry forkB = fork("202@1");
+
+        ForkLeaseRegistry.Claim claim = forkA.tryClaim(List.of("device:emulator-5554"));
+
+        assertNotNull(claim);
+        assertNull(forkB.tryClaim(List.of("device:emulator-5554")));
+        assertEquals(Optional.of("101@1"), forkB.holder("device:emulator-5554"));
+        assertEquals("device:emulator-5556",
+                forkB.tryClaim(List.of("device:emulator-5554", "device:emulator-5556")).resource());
+
+        claim.release();
+        claim.release();
+
+        assertNotNull(forkB.tryClaim(List.of("device:emulator-5554")));
+    }
+
+    @Test
+    void claimsOfForksThatExitedOrOutlivedTheTtlExpire() {
+        ForkLeaseRegistry crashed = fork("101@1");
+        ForkLeaseRegistry hung = fork("202@1");
+        ForkLeaseRegistry survivor = new ForkLeaseRegistry(leaseDir, "303@1", clock::get,
+                owner -> !owner.equals("101@1"), Duration.ofMinutes(30));
+        crashed.tryClaim(List.of("device:emulator-5554"));
+        hung.tryClaim(List.of("device:emulator-5556"));
+
+        assertNotNull(survivor.tryClaim(List.of("device:emulator-5554")));
+        assertNull(survivor.tryClaim(List.of("device:emulator-5556")));
+
+        clock.addAndGet(Duration.ofMinutes(31).toMillis());
+
+        assertNotNull(survivor.tryClaim(List.of("device:emulator-5556")));
+    }
+
+    @Test
+    void aLiveForkKeepsItsClaimsWithoutATtl() {
+        ForkLeaseRegistry longRunning = new ForkLeaseRegistry(leaseDir, "101@1", clock::get, ignored -> true, null);
+        ForkLeaseRegistry other = new ForkLeaseRegistry(leaseDir, "202@1", clock::get, ignored -> true, null);
+        longRunning.tryClaim(List.of("appium-port:4723"));
+
+        clock.addAndGet(Duration.ofHours(5).toMillis());
+
+        assertNull(other.tryClaim(List.of("appium-port:4723")));
+        assertEquals(Optional.of("101@1"), other.holder("appium-port:4723"));
+    }
+
+    @Test
+    void aLateReleaseDoesNotDropAClaimTakenOverByAnotherFork() {
+        ForkLeaseRegistry slow = fork("101@1");
+        ForkLeaseRegistry.Claim expired = slow.tryClaim(List.of("appium-port:4723"));
+        clock.addAndGet(Duration.ofHours(1).toMillis());
+        ForkLeaseRegistry other = fork("202@1");
+        assertNotNull(other.tryClaim(List.of("appium-port:4723")));
+
+        expired.release();
+
+        assertEquals(Optional.of("202@1"), slow.holder("appium-port:4723"));
+    }
+
+    @Test
+    void waitingForAClaimFailsWithAnActionableErrorAfterTheTimeout() {
+        fork("101@1").tryClaim(List.of("provider:browserstack#1"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> fork("202@1").claim(List.of("provider:browserstack#1"), Duration.ofMillis(300), "a slot"));
+
+        assertTrue(error.getMessage().contains("waiting for a slot held by other test forks"));
+        assertTrue(error.getMessage().contains("forkCount"));
+    }
+
+    @Test
+    void releasingOwnedClaimsLeavesOtherForksAlone() {
+        ForkLeaseRegistry forkA = fork("101@1");
+        ForkLeaseRegistry forkB = fork("202@1");
+        forkA.tryClaim(List.of("device:emulator-5554"));
+        forkA.tryClaim(List.of("appium-port:4723"));
+        forkB.tryClaim(List.of("device:emulator-5556"));
+
+        forkA.releaseOwned();
+
+        assertEquals(Optional.empty(), forkB.holder("device:emulator-5554"));
+        assertEquals(Optional.empty(), forkB.holder("appium-port:4723"));
+        assertEquals(Optional.of("202@1"), forkA.holder("device:emulator-5556"));
+    }
+
+    @Test
+    void grantsEveryClaimWithoutWritingWhenDisabled() {
+        ForkLeaseRegistry registry = ForkLeaseRegistry.shared();
+
+        assertFalse(registry.isEnabled());
+        assertNotNull(registry.tryClaim(List.of("device:emulator-5554")));
+        assertNotNull(registry.tryClaim(List.of("device:emulator-5554")));
+    }
+
+    @Test
+    void claimsOfAKilledForkProcessExpire() throws Exception {
+        System.setProperty("pepenium.fork.leases", "true");
+        System.setProperty("pepenium.fork.lease.dir", leaseDir.toString());
+        Process fork = new ProcessBuilder(
+                Paths.get(System.getProperty("java.home"), "bin", "java").toString(),
+                "-cp", System.getProperty("java.class.path"),
+                ClaimingFork.class.getName(),
+                leaseDir.toString()
+        ).redirectErrorStream(true).start();
+        try {
+            BufferedReader output = new BufferedReader(
+                    new InputStreamReader(fork.getInputStream(), StandardCharsets.UTF_8));
+            String line;
+            do {
+                line = output.readLine();
+            } while (line != null && !line.equals("claimed"));
+            assertEquals("claimed", line);
+
+            ForkLeaseRegistry registry = ForkLeaseRegistry.shared();
+            assertNull(registry.tryClaim(List.of("device:emulator-5554")));
+
+            fork.destroyForcibly().waitFor(10, TimeUnit.SECONDS);
+
+            assertNotNull(registry.tryClaim(List.of("device:emulator-5554")));
+        } finally {
+            fork.destroyForcibly();
+        }
+    }
+
+    private ForkLeaseRegistry fork(String owner) {
+        return new ForkLeaseRegistry(leaseDir, owner, clock::get, ignored -> true, Duration.ofMinutes(30));
+    }
+
+    /**
+     * A second test fork that claims a device and then hangs until it is killed.
+     */
+    static final class ClaimingFork {
+
+        private ClaimingFork() {
+        }
+
+        public static void main(String[] args) throws InterruptedException {
+            ForkLeaseRegistry registry = new ForkLeaseRegistry(Paths.get(args[0]),
+                    ForkLeaseRegistry.currentProcessOwner(), System::currentTimeMillis,
+                    ForkLeaseRegistry::isOwnerAlive, Duration.ofMinutes(30));
+            if (registry.tryClaim(List.of("device:emulator-5554")) != null) {
+                System.out.println("claimed");
+                System.out.flush();
+            }
+            Thread.sleep(TimeUnit.MINUTES.toMillis(2));
+        }
+    }
+}
@@ -0,0 +1,112 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.assertSame;
+
+/**
+ * Compares per-test field injection through cached {@link InjectionPlan}s with the reflective walk it replaced.
+ *
+ * <p>Run with {@code mvn -pl pepenium-core test -Dtest=InjectionPlanBenchmarkTest -Dpepenium.benchmarks=true}.</p>
+ */
+@EnabledIfSystemProperty(named = "pepenium.benchmarks", matches = "true")
+class InjectionPlanBenchmarkTest {
+
+    private static final int WARMUP = 200_000;
+    private static final int MEASURED = 1_000_000;
+
+    @Test
+    void reportsInjectionCostPerTestInstance() throws Exception {
+        Object value = new Object();
+        WideFixture fixture = new WideFixture();
+
+        for (int i = 0; i < WARMUP; i++) {
+            reflective(fixture, value);
+            planned(fixture, value);
+        }
+        long reflective = time(() -> reflective(fixture, value));
+        long planned = time(() -> planned(fixture, value));
+
+        System.out.printf("Injection of %d fields: reflective walk %.1f ns/op, injection plan %.1f ns/op (%.1fx)%n",
+                InjectionPlan.of(WideFixture.class).fields().size(),
+                reflective / (double) MEASURED,
+                planned / (double) MEASURED,
+                reflective / (double) planned);
+        assertSame(value, fixture.f8);
+    }
+
+    private static long time(Runnable injection) {
+        long started = System.nanoTime();
+        for (int i = 0; i < MEASURED; i++) {
+            injection.run();
+        }
+        return System.nanoTime() - started;
+    }
+
+    private static void planned(Object target, Object value) {
+        for (InjectionPlan.FieldSlot field : InjectionPlan.of(target.getClass()).fields()) {
+            field.set(target, value);
+        }
+    }
+
+    /**
+     * The per-call field walk {@code PepeniumInjectionSupport} used before injection plans.
+     */
+    private static void reflective(Object target, Object value) {
+        Set<String> seen = new HashSet<>();
+        List<Field> fields = new ArrayList<>();
+        Class<?> current = target.getClass();
+        while (current != null && current != Object.class) {
+            for (Field field : current.getDeclaredFields()) {
+                if (seen.add(current.getName() + "#" + field.getName())) {
+                    fields.add(field);
+                }
+            }
+            current = current.getSuperclass();
+        }
+        for (Field field : fields) {
+            if (!field.isAnnotationPresent(PepeniumInject.class) || Modifier.isFinal(field.getModifiers())) {
+                continue;
+            }
+            try {
+                field.setAccessible(true);
+                field.set(target, value);
+            } catch (IllegalAccessException e) {
+                throw new IllegalStateException(e);
+            }
+        }
+    }
+
+    private static class BaseFixture {
+        @PepeniumInject
+        private Object f1;
+        @PepeniumInject
+        private Object f2;
+        @PepeniumInject
+        private Object f3;
+        @PepeniumInject
+        private Object f4;
+        private Object notInjected;
+    }
+
+    private static final class WideFixture extends BaseFixture {
+        @PepeniumInject
+        private Object f5;
+        @PepeniumInject
+        private Object f6;
+        @PepeniumInject
+        private Object f7;
+        @PepeniumInject
+        private Object f8;
+        private String label;
+        private int counter;
+    }
+}
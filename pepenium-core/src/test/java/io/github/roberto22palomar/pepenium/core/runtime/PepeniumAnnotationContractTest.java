@@ -5,7 +5,6 @@ import org.junit.jupiter.api.Test;
 import org.junit.jupiter.api.TestInstance;
 import org.junit.jupiter.api.extension.ExtendWith;
 import org.junit.jupiter.api.parallel.Execution;
-import org.junit.jupiter.api.parallel.ExecutionMode;
 
 import java.lang.annotation.ElementType;
 import java.lang.annotation.Retention;
@@ -14,6 +13,7 @@ import java.lang.annotation.Target;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 class PepeniumAnnotationContractTest {
@@ -34,8 +34,7 @@ class PepeniumAnnotationContractTest {
         assertEquals(ElementType.TYPE, target.value()[0]);
         assertNotNull(retention);
         assertEquals(RetentionPolicy.RUNTIME, retention.value());
-        assertNotNull(execution);
-        assertEquals(ExecutionMode.SAME_THREAD, execution.value());
+        assertNull(execution, "Classes must stay eligible for JUnit class-level parallel execution");
 
         PepeniumTest annotation = AnnotationContractFixture.class.getAnnotation(PepeniumTest.class);
         assertNotNull(annotation);
@@ -15,12 +15,15 @@ import java.util.Collections;
 import java.util.List;
 import java.util.Set;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
 import static org.junit.jupiter.api.Assertions.assertNotNull;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
 import static org.mockito.Mockito.when;
 
 class PepeniumInjectionSupportTest {
@@ -237,6 +240,83 @@ class PepeniumInjectionSupportTest {
         assertSame(driver, ((WebDriverOnlyHelper) helper).driver);
     }
 
+    @Test
+    void plansEachClassOnceAndRejectsFinalInjectionFields() {
+        InjectionPlan plan = InjectionPlan.of(PlugAndPlayFixture.class);
+
+        assertSame(plan, InjectionPlan.of(PlugAndPlayFixture.class));
+        assertEquals(5, plan.fields().size());
+        assertTrue(InjectionPlan.of(LoginPage.class).isPage());
+        assertSame(InjectionPlan.of(LoginFlow.class).creator(), InjectionPlan.of(LoginFlow.class).creator());
+
+        IllegalStateException error = assertThrows(
+                IllegalStateException.class,
+                () -> InjectionPlan.of(FinalFieldFixture.class)
+        );
+
+        assertTrue(error.getMessage().contains("@PepeniumInject fields must not be final"));
+    }
+
+    @Test
+    void lazyComponentsAreCreatedOnFirstUseAndAgainAfterTheSessionChanges() {
+        PepeniumRuntime runtime = mock(PepeniumRuntime.class);
+        WebDriver firstDriver = mock(WebDriver.class);
+        WebDriver secondDriver = mock(WebDriver.class);
+        when(runtime.getDriver()).thenReturn(firstDriver);
+        when(runtime.getSession()).thenReturn(mock(DriverSession.class));
+        when(runtime.getLifecycleVersion()).thenReturn(1L);
+        PepeniumInjectionSupport injector = new PepeniumInjectionSupport(
+                runtime,
+                fixtureConfig(),
+                new PepeniumInjectionSupport.CacheState()
+        );
+
+        LazyFixture fixture = new LazyFixture();
+        injector.injectInto(fixture);
+
+        verify(runtime, never()).getDriver();
+        assertNotNull(fixture.unused);
+        LoginFlow flow = fixture.flow.get();
+        assertSame(firstDriver, flow.driver);
+        assertNotNull(flow.page.loginButton);
+        assertSame(flow, fixture.flow.get());
+
+        when(runtime.getDriver()).thenReturn(secondDriver);
+        when(runtime.getLifecycleVersion()).thenReturn(2L);
+
+        assertSame(secondDriver, fixture.flow.get().driver);
+    }
+
+    @Test
+    void lazyInjectionPointsMustNameTheirComponent() {
+        IllegalStateException error = assertThrows(
+                IllegalStateException.class,
+                () -> InjectionPlan.of(RawLazyFixture.class)
+        );
+
+        assertTrue(error.getMessage().contains("such as PepeniumLazy<LoginPage>"));
+    }
+
+    @Test
+    void injectsStaticFields() {
+        PepeniumRuntime runtime = mock(PepeniumRuntime.class);
+        WebDriver driver = mock(WebDriver.class);
+        when(runtime.getDriver()).thenReturn(driver);
+        PepeniumInjectionSupport injector = new PepeniumInjectionSupport(
+                runtime,
+                fixtureConfig(),
+                new PepeniumInjectionSupport.CacheState()
+        );
+
+        try {
+            injector.injectInto(new StaticFieldFixture());
+
+            assertSame(driver, StaticFieldFixture.driver);
+        } finally {
+            StaticFieldFixture.driver = null;
+        }
+    }
+
     private PepeniumTest fixtureConfig() {
         return AnnotationDrivenFixture.class.getAnnotation(PepeniumTest.class);
     }
@@ -284,6 +364,30 @@ class PepeniumInjectionSupportTest {
     private interface CustomFlowContract {
     }
 
+    private static final class LazyFixture {
+        @PepeniumInject
+        private PepeniumLazy<LoginFlow> flow;
+
+        @PepeniumInject
+        private PepeniumLazy<LoginFlow> unused;
+    }
+
+    @SuppressWarnings("rawtypes")
+    private static final class RawLazyFixture {
+        @PepeniumInject
+        private PepeniumLazy flow;
+    }
+
+    private static final class StaticFieldFixture {
+        @PepeniumInject
+        private static WebDriver driver;
+    }
+
+    private static final class FinalFieldFixture {
+        @PepeniumInject
+        private final WebDriver driver = null;
+    }
+
     private static final class CircularA {
         private CircularA(CircularB b) {
         }
@@ -47,6 +47,7 @@ class PepeniumLifecycleExtensionTest {
         AutomaticFixture owner = new AutomaticFixture();
         attachRuntime(owner, runtime);
         PepeniumLifecycleExtension extension = new PepeniumLifecycleExtension(owner, runtime);
+        stubRootStore();
         when(runtime.getSession()).thenReturn(session, session, null);
         when(runtime.getDriver()).thenReturn(driver, driver, null);
 
@@ -70,6 +71,7 @@ class PepeniumLifecycleExtensionTest {
         ManualFixture owner = new ManualFixture();
         attachRuntime(owner, runtime);
         PepeniumLifecycleExtension extension = new PepeniumLifecycleExtension(owner, runtime);
+        stubRootStore();
         when(runtime.getSession()).thenReturn(null);
         when(runtime.getDriver()).thenReturn(null);
 
@@ -196,6 +198,12 @@ class PepeniumLifecycleExtensionTest {
         private WebDriver driver;
     }
 
+    private void stubRootStore() {
+        ExtensionContext.Store store = new SimpleStore();
+        when(context.getRoot()).thenReturn(rootContext);
+        when(rootContext.getStore(org.mockito.ArgumentMatchers.any(ExtensionContext.Namespace.class))).thenReturn(store);
+    }
+
     private static final class SimpleStore implements ExtensionContext.Store {
         private final java.util.Map<Object, Object> values = new java.util.HashMap<>();
 
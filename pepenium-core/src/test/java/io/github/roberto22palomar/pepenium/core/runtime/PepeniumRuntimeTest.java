@@ -16,9 +16,12 @@ import org.openqa.selenium.WebDriver;
 
 import java.lang.reflect.InvocationHandler;
 import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicBoolean;
 
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
 import static org.junit.jupiter.api.Assertions.assertNull;
 import static org.junit.jupiter.api.Assertions.assertSame;
 import static org.junit.jupiter.api.Assertions.assertThrows;
@@ -143,7 +146,67 @@ class PepeniumRuntimeTest {
         assertTrue(closed.get());
     }
 
-    private Capabilities capabilities() {
+    @Test
+    void ensureLiveSessionKeepsAHealthySession() throws Exception {
+        RecordingSessionFactory sessionFactory = new RecordingSessionFactory();
+        PepeniumRuntime runtime = new PepeniumRuntime(
+                sessionFactory, new ExecutionProfileResolver(), SessionHealthProbe.none());
+        runtime.initializeDriver(() -> DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(capabilities())
+                .description("healthy")
+                .build(), TestTarget.WEB_DESKTOP);
+        long version = runtime.getLifecycleVersion();
+
+        runtime.ensureLiveSession();
+
+        assertSame(sessionFactory.session, runtime.getSession());
+        assertEquals(version, runtime.getLifecycleVersion());
+        assertFalse(runtime.getSession().getProvisioning().isRecovered());
+    }
+
+    @Test
+    void ensureLiveSessionReplacesADeadSessionAndInvalidatesInjectedComponents() throws Exception {
+        List<RecordingDriverSession> created = new ArrayList<>();
+        DriverSessionFactory sessionFactory = request -> {
+            RecordingDriverSession session = new RecordingDriverSession();
+            session.setProvisioning(SessionProvisioning.created(2000L));
+            created.add(session);
+            return session;
+        };
+        SessionHealthProbe firstSessionDies = session -> {
+            if (session == created.get(0)) {
+                throw new IllegalStateException("node lost");
+            }
+        };
+        PepeniumRuntime runtime = new PepeniumRuntime(
+                sessionFactory, new ExecutionProfileResolver(), firstSessionDies);
+        runtime.initializeDriver(() -> DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(capabilities())
+                .description("recovering")
+                .build(), TestTarget.WEB_DESKTOP);
+        PepeniumInjectionSupport.CacheState cache = new PepeniumInjectionSupport.CacheState();
+        cache.align(runtime.getLifecycleVersion());
+        cache.put(WebDriver.class, runtime.getDriver());
+        PepeniumTimeline.beginTest();
+
+        runtime.ensureLiveSession();
+        cache.align(runtime.getLifecycleVersion());
+
+        assertEquals(2, created.size());
+        assertTrue(created.get(0).closed);
+        assertSame(created.get(1), runtime.getSession());
+        assertTrue(runtime.getSession().getProvisioning().isRecovered());
+        assertNull(cache.get(WebDriver.class));
+        assertTrue(PepeniumTimeline.snapshot().getEvents().stream()
+                .anyMatch(event -> event.getMessage().contains("Replaced a dead driver session")));
+
+        runtime.ensureLiveSession();
+        assertEquals(2, created.size());
+    }
+
+        private Capabilities capabilities() {
         return new MutableCapabilities();
     }
 
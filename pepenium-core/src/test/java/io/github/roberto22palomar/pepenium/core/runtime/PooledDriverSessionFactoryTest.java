@@ -0,0 +1,392 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.mockito.InOrder;
+import org.openqa.selenium.Capabilities;
+import org.openqa.selenium.JavascriptExecutor;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.bidi.BiDi;
+import org.openqa.selenium.bidi.Command;
+import org.openqa.selenium.bidi.HasBiDi;
+import org.openqa.selenium.chrome.ChromeOptions;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotSame;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.eq;
+import static org.mockito.Mockito.inOrder;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+import static org.mockito.Mockito.withSettings;
+
+class PooledDriverSessionFactoryTest {
+
+    private final AtomicLong clock = new AtomicLong();
+    private final CountingFactory delegate = new CountingFactory();
+    private final SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.session.pool");
+        System.clearProperty("pepenium.session.pool.reset");
+        System.clearProperty("pepenium.max.parallel.sessions");
+        System.clearProperty("pepenium.app.reset.deep.link");
+        PooledDriverSessionFactory.closeShared();
+        LoggingContext.clearAll();
+    }
+
+    @Test
+    void reusesTheSameDriverForIdenticalRequestsAndReportsTheSaving() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofMinutes(1), 5);
+
+        DriverSession first = pool.create(request("chrome"));
+        WebDriver driver = first.getDriver();
+        first.close();
+        DriverSession second = pool.create(request("chrome"));
+
+        assertSame(driver, second.getDriver());
+        assertEquals(1, delegate.created.size());
+        assertEquals(SessionProvisioning.Source.CREATED, first.getProvisioning().getSource());
+        assertTrue(second.getProvisioning().isReused());
+        assertEquals(2, second.getProvisioning().getUseCount());
+        assertEquals(1200L, second.getProvisioning().getSavedMillis());
+        assertNotSame(first.getProvisioning().getLeaseId(), second.getProvisioning().getLeaseId());
+        verify(driver, never()).quit();
+    }
+
+    @Test
+    void keepsDifferentFingerprintsApart() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofMinutes(1), 5);
+
+        pool.create(request("chrome")).close();
+        DriverSession other = pool.create(request("firefox"));
+
+        assertEquals(2, delegate.created.size());
+        assertFalse(other.getProvisioning().isReused());
+        assertEquals(1, pool.idleCount());
+    }
+
+    @Test
+    void evictsSessionsIdleForLongerThanTheConfiguredMaximum() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofSeconds(30), 5);
+
+        DriverSession first = pool.create(request("chrome"));
+        first.close();
+        clock.addAndGet(TimeUnit.SECONDS.toNanos(31));
+        DriverSession second = pool.create(request("chrome"));
+
+        verify(first.getDriver()).quit();
+        assertNotSame(first.getDriver(), second.getDriver());
+        assertEquals(2, delegate.created.size());
+    }
+
+    @Test
+    void retiresSessionsThatReachedTheMaximumNumberOfUses() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofMinutes(1), 2);
+
+        DriverSession first = pool.create(request("chrome"));
+        first.close();
+        pool.create(request("chrome")).close();
+
+        verify(first.getDriver()).quit();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    void discardsPooledSessionsWhoseResetFails() throws Exception {
+        List<WebDriver> resetDrivers = new ArrayList<>();
+        PooledDriverSessionFactory pool = pool(session -> {
+            resetDrivers.add(session.getDriver());
+            throw new IllegalStateException("window is gone");
+        }, Duration.ofMinutes(1), 5);
+
+        DriverSession first = pool.create(request("chrome"));
+        first.close();
+        DriverSession second = pool.create(request("chrome"));
+
+        assertEquals(List.of(first.getDriver()), resetDrivers);
+        verify(first.getDriver()).quit();
+        assertFalse(second.getProvisioning().isReused());
+        assertEquals(2, delegate.created.size());
+    }
+
+    @Test
+    void neverPoolsRequestsThatOwnTheirAppiumService() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofMinutes(1), 5);
+        AppiumDriverLocalService service = mock(AppiumDriverLocalService.class);
+        DriverRequest request = request("android").toBuilder().ownedService(service).build();
+
+        DriverSession session = pool.create(request);
+        session.close();
+
+        assertSame(delegate.created.get(0), session);
+        verify(service).stop();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    void closeQuitsIdleSessionsAndSessionsReleasedAfterwards() throws Exception {
+        PooledDriverSessionFactory pool = pool(SessionResetStep.none(), Duration.ofMinutes(1), 5);
+
+        DriverSession idle = pool.create(request("chrome"));
+        DriverSession active = pool.create(request("chrome"));
+        idle.close();
+        pool.close();
+        active.close();
+
+        verify(idle.getDriver()).quit();
+        verify(active.getDriver()).quit();
+        assertEquals(0, pool.idleCount());
+    }
+
+    @Test
+    void freesIdleSlotsOfTheSameProfileWhenTheProfileIsAtItsLimit() throws Exception {
+        System.setProperty("pepenium.max.parallel.sessions", "1");
+        PooledDriverSessionFactory pool = new PooledDriverSessionFactory(
+                new LimitedFactory(limiter), ignored -> SessionResetStep.none(), Duration.ofMinutes(1), 5, clock::get, limiter);
+
+        DriverSession chrome = pool.create(request("chrome"));
+        chrome.close();
+        DriverSession firefox = pool.create(request("firefox"));
+
+        verify(chrome.getDriver()).quit();
+        assertEquals(0, pool.idleCount());
+        firefox.close();
+    }
+
+    @Test
+    void runtimeUsesTheSharedPoolOnlyWhenEnabled() {
+        assertFalse(PooledDriverSessionFactory.isEnabled());
+
+        System.setProperty("pepenium.session.pool", "true");
+
+        assertTrue(PooledDriverSessionFactory.isEnabled());
+        assertSame(PooledDriverSessionFactory.shared(), PooledDriverSessionFactory.shared());
+    }
+
+    @Test
+    void rejectsUnknownResetModes() {
+        System.setProperty("pepenium.session.pool.reset", "sometimes");
+
+        IllegalStateException error = assertThrows(
+                IllegalStateException.class,
+                () -> SessionResetStep.configured(DriverType.LOCAL_CHROME)
+        );
+
+        assertTrue(error.getMessage().contains("auto, web, context, app or none"));
+    }
+
+    @Test
+    void contextResetMovesTheBrowserIntoAFreshUserContext() throws Exception {
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(HasBiDi.class));
+        BiDi bidi = mock(BiDi.class);
+        WebDriver.TargetLocator windows = mock(WebDriver.TargetLocator.class);
+        List<String> commands = new ArrayList<>();
+        when(((HasBiDi) driver).maybeGetBiDi()).thenReturn(Optional.of(bidi));
+        when(((HasBiDi) driver).getBiDi()).thenReturn(bidi);
+        when(driver.switchTo()).thenReturn(windows);
+        when(driver.getWindowHandles()).thenReturn(new LinkedHashSet<>(List.of("tab-1", "tab-2")));
+        when(bidi.send(any())).thenAnswer(invocation -> {
+            Command<?> command = invocation.getArgument(0);
+            commands.add(command.getMethod() + command.getParams());
+            switch (command.getMethod()) {
+                case "browser.createUserContext":
+                    return "context-2";
+                case "browsingContext.create":
+                    return "tab-2";
+                case "browser.getUserContexts":
+                    return List.of("default", "context-1", "context-2");
+                default:
+                    return null;
+            }
+        });
+
+        SessionResetStep.browserContext().reset(new DriverSession(driver, request("chrome")));
+
+        assertTrue(commands.contains("browser.removeUserContext{userContext=context-1}"), commands::toString);
+        assertFalse(commands.contains("browser.removeUserContext{userContext=context-2}"));
+        InOrder order = inOrder(windows, driver);
+        order.verify(windows).window("tab-1");
+        order.verify(driver).close();
+        order.verify(windows).window("tab-2");
+        verify(driver, never()).get(any());
+    }
+
+    @Test
+    void contextResetPoolsBiDiEnabledSessionsOfTheRequestedBrowser() throws Exception {
+        PooledDriverSessionFactory pool = new PooledDriverSessionFactory(delegate, SessionResetStep::configured,
+                Duration.ofMinutes(1), 5, clock::get, limiter);
+        System.setProperty("pepenium.session.pool.reset", "context");
+        DriverRequest request = request("chrome").toBuilder().capabilities(new ChromeOptions()).build();
+
+        pool.create(request).close();
+
+        Capabilities created = delegate.created.get(0).getRequest().getCapabilities();
+        assertTrue(created instanceof ChromeOptions);
+        assertEquals(true, created.getCapability("webSocketUrl"));
+    }
+
+    @Test
+    void contextResetLeavesRemoteBrowserRequestsUnchanged() throws Exception {
+        PooledDriverSessionFactory pool = new PooledDriverSessionFactory(delegate, SessionResetStep::configured,
+                Duration.ofMinutes(1), 5, clock::get, limiter);
+        System.setProperty("pepenium.session.pool.reset", "context");
+        DriverRequest request = request("chrome").toBuilder()
+                .driverType(DriverType.REMOTE_WEB)
+                .capabilities(new ChromeOptions())
+                .build();
+
+        pool.create(request).close();
+
+        assertNull(delegate.created.get(0).getRequest().getCapabilities().getCapability("webSocketUrl"));
+    }
+
+    @Test
+    void appResetRestartsTheAndroidAppWithClearedData() throws Exception {
+        System.setProperty("pepenium.session.pool.reset", "app");
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        MutableCapabilities capabilities = new MutableCapabilities();
+        capabilities.setCapability("appium:appPackage", "com.example.shop");
+        DriverSession session = new DriverSession(driver, request("android").toBuilder()
+                .driverType(DriverType.ANDROID_APPIUM).capabilities(capabilities).build());
+
+        SessionResetStep.configured(DriverType.ANDROID_APPIUM).reset(session);
+
+        InOrder order = inOrder(driver);
+        order.verify((JavascriptExecutor) driver).executeScript("mobile: terminateApp", Map.of("appId", "com.example.shop"));
+        order.verify((JavascriptExecutor) driver).executeScript("mobile: clearApp", Map.of("appId", "com.example.shop"));
+        order.verify((JavascriptExecutor) driver).executeScript("mobile: activateApp", Map.of("appId", "com.example.shop"));
+    }
+
+    @Test
+    void autoResetRestartsTheAppOfNativeSessions() throws Exception {
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        MutableCapabilities capabilities = new MutableCapabilities();
+        capabilities.setCapability("appium:bundleId", "com.example.Shop");
+        DriverSession session = new DriverSession(driver, request("ios").toBuilder()
+                .driverType(DriverType.IOS_APPIUM).capabilities(capabilities).build());
+
+        SessionResetStep.configured(DriverType.IOS_APPIUM).reset(session);
+
+        InOrder order = inOrder(driver);
+        order.verify((JavascriptExecutor) driver).executeScript("mobile: terminateApp", Map.of("bundleId", "com.example.Shop"));
+        order.verify((JavascriptExecutor) driver).executeScript("mobile: activateApp", Map.of("bundleId", "com.example.Shop"));
+    }
+
+    @Test
+    void appResetOpensTheConfiguredDeepLinkOnIos() throws Exception {
+        System.setProperty("pepenium.app.reset.deep.link", "shop://home");
+        WebDriver driver = mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class));
+        MutableCapabilities capabilities = new MutableCapabilities();
+        capabilities.setCapability("appium:bundleId", "com.example.Shop");
+        DriverSession session = new DriverSession(driver, request("ios").toBuilder()
+                .driverType(DriverType.IOS_APPIUM).capabilities(capabilities).build());
+
+        SessionResetStep.appState().reset(session);
+
+        verify((JavascriptExecutor) driver).executeScript("mobile: terminateApp", Map.of("bundleId", "com.example.Shop"));
+        verify((JavascriptExecutor) driver).executeScript("mobile: deepLink",
+                Map.of("url", "shop://home", "bundleId", "com.example.Shop"));
+        verify((JavascriptExecutor) driver, never()).executeScript(eq("mobile: clearApp"), any());
+        verify((JavascriptExecutor) driver, never()).executeScript(eq("mobile: activateApp"), any());
+    }
+
+    @Test
+    void appResetWithoutAnAppIdFailsSoThePoolCreatesAFreshSession() {
+        DriverSession session = new DriverSession(
+                mock(WebDriver.class, withSettings().extraInterfaces(JavascriptExecutor.class)),
+                request("android").toBuilder().driverType(DriverType.ANDROID_APPIUM).build());
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> SessionResetStep.appState().reset(session));
+
+        assertTrue(error.getMessage().contains("Set APP_PACKAGE"));
+    }
+
+    @Test
+    void recordsResetTimeAndMarksSessionsCreatedAfterAFailedReset() throws Exception {
+        AtomicInteger resets = new AtomicInteger();
+        PooledDriverSessionFactory pool = pool(session -> {
+            clock.addAndGet(TimeUnit.MILLISECONDS.toNanos(300));
+            if (resets.incrementAndGet() > 1) {
+                throw new IllegalStateException("app did not stop");
+            }
+        }, Duration.ofMinutes(1), 5);
+
+        pool.create(request("chrome")).close();
+        DriverSession reused = pool.create(request("chrome"));
+        reused.close();
+        DriverSession recreated = pool.create(request("chrome"));
+
+        assertEquals(300L, reused.getProvisioning().getResetMillis());
+        assertEquals(900L, reused.getProvisioning().getSavedMillis());
+        assertFalse(reused.getProvisioning().isResetFailed());
+        assertFalse(recreated.getProvisioning().isReused());
+        assertTrue(recreated.getProvisioning().isResetFailed());
+    }
+
+    private PooledDriverSessionFactory pool(SessionResetStep reset, Duration maxIdle, int maxUses) {
+        return new PooledDriverSessionFactory(delegate, ignored -> reset, maxIdle, maxUses, clock::get, limiter);
+    }
+
+    private static DriverRequest request(String browser) {
+        MutableCapabilities capabilities = new MutableCapabilities();
+        capabilities.setCapability("browserName", browser);
+        return DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(capabilities)
+                .description(browser)
+                .build();
+    }
+
+    private static final class LimitedFactory implements DriverSessionFactory {
+        private final SessionConcurrencyLimiter limiter;
+
+        private LimitedFactory(SessionConcurrencyLimiter limiter) {
+            this.limiter = limiter;
+        }
+
+        @Override
+        public DriverSession create(DriverRequest request) {
+            SessionConcurrencyLimiter.Permit permit = limiter.acquire(request);
+            DriverSession session = new DriverSession(mock(WebDriver.class), request);
+            session.onClose(permit::release);
+            return session;
+        }
+    }
+
+    private static final class CountingFactory implements DriverSessionFactory {
+        private final List<DriverSession> created = new ArrayList<>();
+
+        @Override
+        public DriverSession create(DriverRequest request) {
+            DriverSession session = new DriverSession(mock(WebDriver.class), request);
+            session.setProvisioning(SessionProvisioning.created(1200L));
+            created.add(session);
+            return session;
+        }
+    }
+}
@@ -0,0 +1,179 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverConfig;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfile;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
+import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
+import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.platform.engine.TestExecutionResult;
+import org.junit.platform.launcher.TestExecutionListener;
+import org.junit.platform.launcher.TestIdentifier;
+import org.junit.platform.launcher.core.LauncherDiscoveryRequestBuilder;
+import org.junit.platform.launcher.core.LauncherFactory;
+import org.junit.platform.launcher.listeners.SummaryGeneratingListener;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.platform.engine.discovery.DiscoverySelectors.selectClass;
+import static org.mockito.Mockito.mock;
+
+class ProfileMatrixTest {
+
+    private final CountingFactory factory = new CountingFactory();
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.profile");
+        LoggingContext.clearAll();
+    }
+
+    @Test
+    void listsDeclaredProfilesAndNarrowsThemToTheProfileOverride() {
+        assertEquals(List.of("local-web", "local-firefox", "remote-web"),
+                ProfileMatrix.profiles(MatrixClass.class, MatrixClass.class.getAnnotation(PepeniumTest.class)));
+
+        System.setProperty("pepenium.profile", "remote-web");
+
+        assertEquals(List.of("remote-web"),
+                ProfileMatrix.profiles(MatrixClass.class, MatrixClass.class.getAnnotation(PepeniumTest.class)));
+    }
+
+    @Test
+    void rejectsMissingAndDuplicateProfiles() {
+        IllegalStateException missing = assertThrows(IllegalStateException.class, () -> ProfileMatrix.profiles(
+                UnmarkedClass.class, UnmarkedClass.class.getAnnotation(PepeniumTest.class)));
+        IllegalStateException duplicate = assertThrows(IllegalStateException.class, () -> ProfileMatrix.profiles(
+                DuplicateClass.class, DuplicateClass.class.getAnnotation(PepeniumTest.class)));
+
+        assertTrue(missing.getMessage().contains("Add @PepeniumTest(profiles = {...})"));
+        assertTrue(duplicate.getMessage().contains("lists profile 'local-web' more than once"));
+    }
+
+    @Test
+    void opensTheNextProfilesAheadAndHandsThemToTheirRuntimes() throws Exception {
+        SessionPrewarmer prewarmer = new SessionPrewarmer(factory, new EchoProfileResolver(), 1);
+        PepeniumTest config = MatrixClass.class.getAnnotation(PepeniumTest.class);
+        ProfileMatrix matrix = new ProfileMatrix(MatrixClass.class, config, ProfileMatrix.profiles(MatrixClass.class, config),
+                1, prewarmer);
+        try {
+            matrix.openAhead("local-web");
+
+            assertTrue(prewarmer.isPending(matrix.key("local-firefox")));
+            assertFalse(prewarmer.isPending(matrix.key("remote-web")));
+
+            PepeniumRuntime runtime = new PepeniumRuntime(factory, new EchoProfileResolver());
+            runtime.bindTestClass(MatrixClass.class);
+            runtime.bindProfileMatrix(matrix.prewarmer(), matrix.key("local-firefox"));
+            runtime.initializeDriverForProfile(TestTarget.WEB_DESKTOP, "local-firefox");
+
+            assertSame(factory.created.get(0), runtime.getSession());
+            assertEquals(SessionProvisioning.Source.PREWARMED, runtime.getSession().getProvisioning().getSource());
+            assertEquals("local-firefox", runtime.getSession().getRequest().getExecutionProfileId());
+            assertEquals(1, prewarmer.hits());
+            runtime.cleanupDriver();
+        } finally {
+            matrix.close();
+        }
+    }
+
+    @Test
+    void runsTheClassOncePerProfile() {
+        List<String> invocations = Collections.synchronizedList(new ArrayList<>());
+        SummaryGeneratingListener summary = new SummaryGeneratingListener();
+        TestExecutionListener recorder = new TestExecutionListener() {
+            @Override
+            public void executionFinished(TestIdentifier identifier, TestExecutionResult result) {
+                if ("class-template-invocation".equals(
+                        identifier.getUniqueIdObject().getLastSegment().getType())) {
+                    invocations.add(identifier.getDisplayName() + " " + result.getStatus());
+                }
+            }
+        };
+
+        LauncherFactory.create().execute(LauncherDiscoveryRequestBuilder.request()
+                .selectors(selectClass(ManualMatrixFixture.class), selectClass(MissingMatrixFixture.class))
+                .build(), summary, recorder);
+
+        assertEquals(List.of("[local-web] SUCCESSFUL", "[local-firefox] SUCCESSFUL"), invocations);
+        assertEquals(2, summary.getSummary().getTestsSucceededCount());
+        assertEquals(1, summary.getSummary().getFailures().size());
+        assertTrue(summary.getSummary().getFailures().get(0).getException().getMessage()
+                .contains("requires @PepeniumProfileMatrix"));
+    }
+
+    @PepeniumProfileMatrix
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP, profiles = {"local-web", "local-firefox", "remote-web"})
+    private static final class MatrixClass {
+    }
+
+    @PepeniumProfileMatrix
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP)
+    private static final class UnmarkedClass {
+    }
+
+    @PepeniumProfileMatrix
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP, profiles = {"local-web", "local-web"})
+    private static final class DuplicateClass {
+    }
+
+    @PepeniumProfileMatrix
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP, profiles = {"local-web", "local-firefox"},
+            automaticLifecycle = false)
+    static class ManualMatrixFixture {
+        @Test
+        void runsOnEveryProfile() {
+        }
+    }
+
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP, profiles = {"local-web", "local-firefox"})
+    static class MissingMatrixFixture {
+        @Test
+        void neverRuns() {
+        }
+    }
+
+    private static final class EchoProfileResolver extends ExecutionProfileResolver {
+        @Override
+        public ExecutionProfile resolve(TestTarget target, String defaultProfileId) {
+            return new ExecutionProfile(
+                    defaultProfileId,
+                    TestTarget.WEB_DESKTOP,
+                    "Matrix profile " + defaultProfileId,
+                    () -> (DriverConfig) () -> {
+                        MutableCapabilities capabilities = new MutableCapabilities();
+                        capabilities.setCapability("browserName", defaultProfileId);
+                        return DriverRequest.builder()
+                                .driverType(DriverType.LOCAL_CHROME)
+                                .capabilities(capabilities)
+                                .description("matrix test")
+                                .build();
+                    }
+            );
+        }
+    }
+
+    private static final class CountingFactory implements DriverSessionFactory {
+        private final List<DriverSession> created = Collections.synchronizedList(new ArrayList<>());
+
+        @Override
+        public DriverSession create(DriverRequest request) {
+            DriverSession session = new DriverSession(mock(WebDriver.class), request);
+            session.setProvisioning(SessionProvisioning.created(1500L));
+            created.add(session);
+            return session;
+        }
+    }
+}
@@ -0,0 +1,197 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.SessionNotCreatedException;
+
+import java.net.URL;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class ProviderQuotaControllerTest {
+
+    private static final String QUEUE_FULL =
+            "Could not start a new session. [BROWSERSTACK_QUEUE_SIZE_EXCEEDED] All parallel tests are currently in use";
+
+    @TempDir
+    private Path leaseDir;
+
+    private final List<Duration> sleeps = new ArrayList<>();
+    private final ProviderQuotaController controller = new ProviderQuotaController(sleeps::add, () -> 0.5);
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.provider.quota");
+        System.clearProperty("pepenium.provider.quota.group");
+        System.clearProperty("pepenium.provider.queue.timeout");
+        System.clearProperty("pepenium.provider.backoff");
+        System.clearProperty("pepenium.provider.max.backoff");
+    }
+
+    @Test
+    void admitsImmediatelyAndNeverRetriesWithoutAQuota() {
+        ProviderQuotaController.Admission admission = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> admission.attempt(() -> {
+                    throw new IllegalStateException(QUEUE_FULL);
+                }));
+
+        assertEquals(QUEUE_FULL, error.getMessage());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void queuesRequestsFairlyOnceTheProviderQuotaIsInUse() throws Exception {
+        System.setProperty("pepenium.provider.quota", "1");
+        ProviderQuotaController.Admission first = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+
+        CompletableFuture<ProviderQuotaController.Admission> second = CompletableFuture.supplyAsync(
+                () -> controller.admit(request("https://hub-cloud.browserstack.com/wd/hub")));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+        first.release();
+        ProviderQuotaController.Admission admitted = second.get(5, TimeUnit.SECONDS);
+        admitted.attempt(() -> "session");
+
+        assertTrue(admitted.waitMillis() >= 150, () -> "waited " + admitted.waitMillis() + " ms");
+        admitted.release();
+    }
+
+    @Test
+    void keepsTheFirstQuotaOfAGroupAndIgnoresProfilesWithoutOne() throws Exception {
+        controller.admit(request("https://hub.browserstack.com/wd/hub")).release();
+        System.setProperty("pepenium.provider.quota", "1");
+        ProviderQuotaController.Admission first = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+        System.setProperty("pepenium.provider.quota", "2");
+
+        CompletableFuture<ProviderQuotaController.Admission> second = CompletableFuture.supplyAsync(
+                () -> controller.admit(request("https://hub-cloud.browserstack.com/wd/hub")));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+        first.release();
+        second.get(5, TimeUnit.SECONDS).release();
+    }
+
+    @Test
+    void sharesTheProviderQuotaAcrossForksWhenForkLeasesAreEnabled() throws Exception {
+        System.setProperty("pepenium.provider.quota", "1");
+        ProviderQuotaController forkA = new ProviderQuotaController(sleeps::add, () -> 0.5, () -> forkRegistry("101@1"));
+        ProviderQuotaController forkB = new ProviderQuotaController(sleeps::add, () -> 0.5, () -> forkRegistry("202@1"));
+        ProviderQuotaController.Admission first = forkA.admit(request("https://hub.browserstack.com/wd/hub"));
+
+        CompletableFuture<ProviderQuotaController.Admission> second = CompletableFuture.supplyAsync(
+                () -> forkB.admit(request("https://hub.browserstack.com/wd/hub")));
+        Thread.sleep(400);
+        assertFalse(second.isDone());
+        first.release();
+
+        second.get(5, TimeUnit.SECONDS).release();
+    }
+
+    private ForkLeaseRegistry forkRegistry(String owner) {
+        return new ForkLeaseRegistry(leaseDir, owner, System::currentTimeMillis, ignored -> true, Duration.ofMinutes(5));
+    }
+
+    @Test
+    void retriesWithJitteredExponentialBackoffWhileTheProviderQueueIsFull() throws Exception {
+        System.setProperty("pepenium.provider.quota", "2");
+        System.setProperty("pepenium.provider.backoff", "100ms");
+        System.setProperty("pepenium.provider.max.backoff", "300ms");
+        ProviderQuotaController.Admission admission = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+        AtomicInteger attempts = new AtomicInteger();
+
+        String session = admission.attempt(() -> {
+            if (attempts.incrementAndGet() <= 3) {
+                throw new SessionNotCreatedException(QUEUE_FULL);
+            }
+            return "session";
+        });
+
+        assertEquals("session", session);
+        assertEquals(3, admission.retries());
+        assertEquals(List.of(Duration.ofMillis(50), Duration.ofMillis(100), Duration.ofMillis(150)), sleeps);
+        admission.release();
+    }
+
+    @Test
+    void rethrowsFailuresThatAreNotAFullQueue() throws Exception {
+        System.setProperty("pepenium.provider.quota", "2");
+        ProviderQuotaController.Admission admission = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+        IllegalStateException invalidCapabilities = new IllegalStateException("Invalid capability: deviceName");
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> admission.attempt(() -> {
+                    throw invalidCapabilities;
+                }));
+
+        assertSame(invalidCapabilities, error);
+        assertEquals(0, admission.retries());
+        admission.release();
+    }
+
+    @Test
+    void givesUpWhenTheNextBackoffWouldPassTheQueueTimeout() throws Exception {
+        System.setProperty("pepenium.provider.quota", "2");
+        System.setProperty("pepenium.provider.queue.timeout", "1s");
+        System.setProperty("pepenium.provider.backoff", "10s");
+        ProviderQuotaController.Admission admission = controller.admit(request("https://hub.browserstack.com/wd/hub"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> admission.attempt(() -> {
+                    throw new SessionNotCreatedException(QUEUE_FULL);
+                }));
+
+        assertTrue(error.getMessage().contains("still reported a full session queue"));
+        assertTrue(error.getMessage().contains("PEPENIUM_PROVIDER_QUEUE_TIMEOUT"));
+        assertTrue(sleeps.isEmpty());
+        admission.release();
+    }
+
+    @Test
+    void groupsRequestsByProviderUnlessAGroupIsConfigured() {
+        assertEquals("browserstack", ProviderQuotaController.group(request("https://hub-cloud.browserstack.com/wd/hub")));
+        assertEquals("aws-device-farm",
+                ProviderQuotaController.group(request("https://devicefarm-interactive.us-west-2.api.aws/wd/hub")));
+        assertEquals("grid.example.test", ProviderQuotaController.group(request("https://grid.example.test/wd/hub")));
+
+        System.setProperty("pepenium.provider.quota.group", "shared-account");
+
+        assertEquals("shared-account", ProviderQuotaController.group(request("https://grid.example.test/wd/hub")));
+    }
+
+    @Test
+    void recognizesQueueFullResponsesInTheCauseChain() {
+        assertTrue(ProviderQuotaController.isQueueFull(
+                new IllegalStateException("wrapper", new SessionNotCreatedException("LimitExceededException: too many"))));
+        assertFalse(ProviderQuotaController.isQueueFull(new SessionNotCreatedException("Unable to find device")));
+    }
+
+    static DriverRequest request(String serverUrl) {
+        try {
+            return DriverRequest.builder()
+                    .driverType(DriverType.REMOTE_WEB)
+                    .serverUrl(new URL(serverUrl))
+                    .capabilities(new MutableCapabilities())
+                    .description("quota test")
+                    .build();
+        } catch (java.net.MalformedURLException error) {
+            throw new IllegalArgumentException(error);
+        }
+    }
+}
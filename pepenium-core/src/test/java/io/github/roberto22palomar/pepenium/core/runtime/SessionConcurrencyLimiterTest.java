@@ -0,0 +1,90 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionConcurrencyLimiterTest {
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.max.parallel.sessions");
+        System.clearProperty("pepenium.session.slot.timeout");
+    }
+
+    @Test
+    void admitsEveryRequestWhenNoLimitIsConfigured() throws Exception {
+        SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+
+        limiter.acquire(request("team-grid"));
+        limiter.acquire(request("team-grid"));
+
+        assertTrue(limiter.hasFreeSlot(request("team-grid")));
+    }
+
+    @Test
+    void waitsForAReleasedSlotOfTheSameProfile() throws Exception {
+        System.setProperty("pepenium.max.parallel.sessions", "1");
+        SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+        SessionConcurrencyLimiter.Permit first = limiter.acquire(request("team-grid"));
+
+        CompletableFuture<SessionConcurrencyLimiter.Permit> second =
+                CompletableFuture.supplyAsync(() -> limiter.acquire(request("team-grid")));
+
+        assertFalse(limiter.hasFreeSlot(request("team-grid")));
+        assertTrue(limiter.hasFreeSlot(request("other-grid")));
+        first.release();
+        first.release();
+        second.get(5, TimeUnit.SECONDS).release();
+        assertTrue(limiter.hasFreeSlot(request("team-grid")));
+    }
+
+    @Test
+    void failsWithAnActionableMessageWhenNoSlotFreesUpInTime() throws Exception {
+        System.setProperty("pepenium.max.parallel.sessions", "1");
+        System.setProperty("pepenium.session.slot.timeout", "50ms");
+        SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+        limiter.acquire(request("team-grid"));
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> limiter.acquire(request("team-grid")));
+
+        assertTrue(error.getMessage().contains("PEPENIUM_MAX_PARALLEL_SESSIONS=1"));
+        assertTrue(error.getMessage().contains("team-grid"));
+    }
+
+    @Test
+    void fallsBackToTheDriverTypeWhenNoProfileWasResolved() {
+        DriverRequest request = DriverRequest.builder().driverType(DriverType.LOCAL_FIREFOX).build();
+
+        assertEquals("LOCAL_FIREFOX", SessionConcurrencyLimiter.scope(request));
+        assertEquals("team-grid", SessionConcurrencyLimiter.scope(request("team-grid")));
+    }
+
+    @Test
+    void rejectsNonPositiveLimits() {
+        System.setProperty("pepenium.max.parallel.sessions", "0");
+        SessionConcurrencyLimiter limiter = new SessionConcurrencyLimiter();
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> limiter.acquire(request("team-grid")));
+
+        assertTrue(error.getMessage().contains("must be a positive integer"));
+    }
+
+    private static DriverRequest request(String profileId) {
+        return DriverRequest.builder()
+                .driverType(DriverType.REMOTE_WEB)
+                .executionProfileId(profileId)
+                .build();
+    }
+}
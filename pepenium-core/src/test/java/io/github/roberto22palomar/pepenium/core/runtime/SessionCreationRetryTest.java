@@ -0,0 +1,97 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.SessionNotCreatedException;
+import org.openqa.selenium.remote.UnreachableBrowserException;
+
+import java.net.ConnectException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+class SessionCreationRetryTest {
+
+    private final List<Duration> sleeps = new ArrayList<>();
+    private final SessionCreationRetry retry = new SessionCreationRetry(sleeps::add, () -> 0.5);
+    private final EndpointCircuitBreaker.Circuit circuit =
+            new EndpointCircuitBreaker(System::nanoTime).circuitFor(
+                    ProviderQuotaControllerTest.request("http://127.0.0.1:4723/wd/hub"));
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.session.retry.attempts");
+        System.clearProperty("pepenium.session.retry.backoff");
+        System.clearProperty("pepenium.session.retry.max.backoff");
+        System.clearProperty("pepenium.session.retry.on");
+    }
+
+    @Test
+    void makesASingleAttemptByDefault() {
+        AtomicInteger attempts = new AtomicInteger();
+        UnreachableBrowserException unreachable = new UnreachableBrowserException("Connection refused");
+
+        UnreachableBrowserException error = assertThrows(UnreachableBrowserException.class,
+                () -> retry.run(circuit, () -> {
+                    attempts.incrementAndGet();
+                    throw unreachable;
+                }));
+
+        assertSame(unreachable, error);
+        assertEquals(1, attempts.get());
+        assertTrue(sleeps.isEmpty());
+    }
+
+    @Test
+    void retriesTransientFailuresWithJitteredExponentialBackoff() throws Exception {
+        System.setProperty("pepenium.session.retry.attempts", "4");
+        System.setProperty("pepenium.session.retry.backoff", "200ms");
+        System.setProperty("pepenium.session.retry.max.backoff", "500ms");
+        AtomicInteger attempts = new AtomicInteger();
+
+        String session = retry.run(circuit, () -> {
+            if (attempts.incrementAndGet() < 4) {
+                throw new SessionNotCreatedException("Could not start a new session",
+                        new ConnectException("Connection refused"));
+            }
+            return "session";
+        });
+
+        assertEquals("session", session);
+        assertEquals(List.of(Duration.ofMillis(100), Duration.ofMillis(200), Duration.ofMillis(250)), sleeps);
+    }
+
+    @Test
+    void rethrowsInvalidCapabilitiesWithoutRetrying() {
+        System.setProperty("pepenium.session.retry.attempts", "3");
+        AtomicInteger attempts = new AtomicInteger();
+
+        assertThrows(SessionNotCreatedException.class, () -> retry.run(circuit, () -> {
+            attempts.incrementAndGet();
+            throw new SessionNotCreatedException("Invalid capability: appium:deviceName");
+        }));
+
+        assertEquals(1, attempts.get());
+    }
+
+    @Test
+    void classifiesTransientFailuresAndLeavesFullQueuesToTheQuotaController() {
+        assertTrue(SessionCreationRetry.isTransient(new SessionNotCreatedException("502 Bad Gateway")));
+        assertTrue(SessionCreationRetry.isTransient(
+                new IllegalStateException("wrapper", new java.net.SocketTimeoutException("connect timed out"))));
+        assertFalse(SessionCreationRetry.isTransient(new SessionNotCreatedException(
+                "[BROWSERSTACK_QUEUE_SIZE_EXCEEDED] All parallel tests are currently in use")));
+        assertFalse(SessionCreationRetry.isTransient(new SessionNotCreatedException("Emulator is still booting")));
+
+        System.setProperty("pepenium.session.retry.on", "still booting, InstrumentationCrashedException");
+
+        assertTrue(SessionCreationRetry.isTransient(new SessionNotCreatedException("Emulator is still booting")));
+    }
+}
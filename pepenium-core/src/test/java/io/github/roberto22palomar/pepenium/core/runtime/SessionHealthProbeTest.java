@@ -0,0 +1,77 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.NoSuchSessionException;
+import org.openqa.selenium.WebDriver;
+
+import java.time.Duration;
+
+import static org.junit.jupiter.api.Assertions.assertDoesNotThrow;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.RETURNS_DEEP_STUBS;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verifyNoInteractions;
+import static org.mockito.Mockito.when;
+
+class SessionHealthProbeTest {
+
+    @AfterEach
+    void tearDown() {
+        System.clearProperty("pepenium.session.health.check");
+    }
+
+    @Test
+    void boundedProbeFailsWhenTheSessionDoesNotAnswerInTime() {
+        SessionHealthProbe hanging = session -> Thread.sleep(5_000);
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> SessionHealthProbe.bounded(hanging, Duration.ofMillis(100)).verify(session(mock(WebDriver.class))));
+
+        assertTrue(error.getMessage().contains("did not answer"));
+    }
+
+    @Test
+    void boundedProbeReportsTheUnderlyingFailure() {
+        SessionHealthProbe dead = session -> {
+            throw new NoSuchSessionException("session deleted");
+        };
+
+        IllegalStateException error = assertThrows(IllegalStateException.class,
+                () -> SessionHealthProbe.bounded(dead, Duration.ofSeconds(1)).verify(session(mock(WebDriver.class))));
+
+        assertInstanceOf(NoSuchSessionException.class, error.getCause());
+        assertTrue(error.getMessage().contains("session deleted"));
+    }
+
+    @Test
+    void configuredProbeIsSkippedUntilEnabled() {
+        WebDriver driver = mock(WebDriver.class);
+
+        assertDoesNotThrow(() -> SessionHealthProbe.configured().verify(session(driver)));
+
+        verifyNoInteractions(driver);
+    }
+
+    @Test
+    void configuredProbeUsesALightweightSessionCommand() {
+        System.setProperty("pepenium.session.health.check", "true");
+        WebDriver driver = mock(WebDriver.class, RETURNS_DEEP_STUBS);
+        when(driver.manage().timeouts().getImplicitWaitTimeout()).thenThrow(new NoSuchSessionException("gone"));
+
+        assertThrows(IllegalStateException.class, () -> SessionHealthProbe.configured().verify(session(driver)));
+    }
+
+    private static DriverSession session(WebDriver driver) {
+        return new DriverSession(driver, DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(new MutableCapabilities())
+                .description("probe test")
+                .build());
+    }
+}
@@ -0,0 +1,209 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.appium.java_client.service.local.AppiumDriverLocalService;
+import io.github.roberto22palomar.pepenium.core.execution.DriverConfig;
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfile;
+import io.github.roberto22palomar.pepenium.core.execution.ExecutionProfileResolver;
+import io.github.roberto22palomar.pepenium.core.execution.TestTarget;
+import io.github.roberto22palomar.pepenium.core.observability.LoggingContext;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.timeout;
+import static org.mockito.Mockito.verify;
+
+class SessionPrewarmerTest {
+
+    private final CountingFactory factory = new CountingFactory();
+    private final SessionPrewarmer prewarmer = new SessionPrewarmer(factory, new FixedProfileResolver());
+
+    @AfterEach
+    void tearDown() {
+        prewarmer.close();
+        LoggingContext.clearAll();
+    }
+
+    @Test
+    void handsThePrewarmedSessionToTheClassWhenItsRequestMatches() {
+        prewarmer.prewarm(PrewarmedClass.class);
+
+        assertTrue(prewarmer.isPending(PrewarmedClass.class.getName()));
+        DriverSession session = prewarmer.claim(PrewarmedClass.class.getName(), request("chrome"));
+
+        assertSame(factory.created.get(0), session);
+        assertEquals(SessionProvisioning.Source.PREWARMED, session.getProvisioning().getSource());
+        assertTrue(session.getProvisioning().isReused());
+        assertEquals(1, prewarmer.hits());
+        assertFalse(prewarmer.isPending(PrewarmedClass.class.getName()));
+        verify(session.getDriver(), never()).quit();
+    }
+
+    @Test
+    void closesThePrewarmedSessionWhenTheRequestNoLongerMatches() {
+        prewarmer.prewarm(PrewarmedClass.class);
+
+        DriverSession session = prewarmer.claim(PrewarmedClass.class.getName(), request("firefox"));
+
+        assertNull(session);
+        assertEquals(1, prewarmer.misses());
+        verify(factory.created.get(0).getDriver()).quit();
+    }
+
+    @Test
+    void countsAFailedPrewarmAsAMiss() {
+        factory.failure = new IllegalStateException("grid unavailable");
+        prewarmer.prewarm(PrewarmedClass.class);
+
+        assertNull(prewarmer.claim(PrewarmedClass.class.getName(), request("chrome")));
+        assertEquals(1, prewarmer.misses());
+    }
+
+    @Test
+    void ignoresClassesWithoutAutomaticLifecycle() {
+        prewarmer.prewarm(ManualLifecycleClass.class);
+        prewarmer.prewarm(String.class);
+
+        assertFalse(prewarmer.isPending(ManualLifecycleClass.class.getName()));
+        assertFalse(prewarmer.isPending(String.class.getName()));
+    }
+
+    @Test
+    void closesUnclaimedSessionsOnDiscardAndOnClose() {
+        prewarmer.prewarm(PrewarmedClass.class);
+        prewarmer.prewarm(OtherPrewarmedClass.class);
+
+        prewarmer.discard(PrewarmedClass.class.getName());
+        prewarmer.close();
+
+        assertEquals(2, factory.created.size());
+        for (DriverSession session : factory.created) {
+            verify(session.getDriver(), timeout(1000)).quit();
+        }
+        assertEquals(2, prewarmer.discarded());
+        assertEquals(0, prewarmer.hits());
+    }
+
+    @Test
+    void stopsPrewarmingOnceClosed() {
+        prewarmer.close();
+
+        prewarmer.prewarm(PrewarmedClass.class);
+
+        assertFalse(prewarmer.isPending(PrewarmedClass.class.getName()));
+        assertTrue(factory.created.isEmpty());
+    }
+
+    @Test
+    void skipsProfilesThatStartTheirOwnAppiumServer() {
+        AppiumDriverLocalService service = mock(AppiumDriverLocalService.class);
+        AtomicInteger requests = new AtomicInteger();
+        SessionPrewarmer ownServicePrewarmer = new SessionPrewarmer(factory, new ExecutionProfileResolver() {
+            @Override
+            public ExecutionProfile resolve(TestTarget target, String defaultProfileId) {
+                return new ExecutionProfile("aws-local", TestTarget.ANDROID_NATIVE, "AWS local", () ->
+                        (DriverConfig) () -> {
+                            requests.incrementAndGet();
+                            return DriverRequest.builder()
+                                    .driverType(DriverType.ANDROID_APPIUM)
+                                    .capabilities(new MutableCapabilities())
+                                    .description("aws local")
+                                    .ownedService(service)
+                                    .build();
+                        });
+            }
+        });
+        try {
+            ownServicePrewarmer.prewarm(PrewarmedClass.class);
+            assertNull(ownServicePrewarmer.claim(PrewarmedClass.class.getName(), request("chrome")));
+            ownServicePrewarmer.prewarm(OtherPrewarmedClass.class);
+            assertNull(ownServicePrewarmer.claim(OtherPrewarmedClass.class.getName(), request("chrome")));
+
+            assertTrue(factory.created.isEmpty());
+            assertEquals(1, requests.get());
+            assertEquals(0, ownServicePrewarmer.misses());
+            verify(service).stop();
+        } finally {
+            ownServicePrewarmer.close();
+        }
+    }
+
+    @Test
+    void claimWithoutPendingSessionDoesNothing() {
+        assertNull(prewarmer.claim(PrewarmedClass.class.getName(), request("chrome")));
+        assertEquals(0, prewarmer.misses());
+        assertTrue(factory.created.isEmpty());
+    }
+
+    private static DriverRequest request(String browserName) {
+        MutableCapabilities capabilities = new MutableCapabilities();
+        capabilities.setCapability("browserName", browserName);
+        return DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(capabilities)
+                .description("prewarm test")
+                .target(TestTarget.WEB_DESKTOP)
+                .executionProfileId("prewarm-profile")
+                .executionProfileDescription("Prewarm profile")
+                .build();
+    }
+
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP)
+    private static final class PrewarmedClass {
+    }
+
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP)
+    private static final class OtherPrewarmedClass {
+    }
+
+    @PepeniumTest(target = TestTarget.WEB_DESKTOP, automaticLifecycle = false)
+    private static final class ManualLifecycleClass {
+    }
+
+    private static final class FixedProfileResolver extends ExecutionProfileResolver {
+        @Override
+        public ExecutionProfile resolve(TestTarget target, String defaultProfileId) {
+            return new ExecutionProfile(
+                    "prewarm-profile",
+                    TestTarget.WEB_DESKTOP,
+                    "Prewarm profile",
+                    () -> (DriverConfig) () -> DriverRequest.builder()
+                            .driverType(DriverType.LOCAL_CHROME)
+                            .capabilities(request("chrome").getCapabilities())
+                            .description("prewarm test")
+                            .build()
+            );
+        }
+    }
+
+    private static final class CountingFactory implements DriverSessionFactory {
+        private final List<DriverSession> created = Collections.synchronizedList(new ArrayList<>());
+        private volatile RuntimeException failure;
+
+        @Override
+        public DriverSession create(DriverRequest request) {
+            if (failure != null) {
+                throw failure;
+            }
+            DriverSession session = new DriverSession(mock(WebDriver.class), request);
+            session.setProvisioning(SessionProvisioning.created(1500L));
+            created.add(session);
+            return session;
+        }
+    }
+}
@@ -0,0 +1,140 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import io.github.roberto22palomar.pepenium.core.execution.DriverRequest;
+import io.github.roberto22palomar.pepenium.core.execution.DriverType;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.MutableCapabilities;
+import org.openqa.selenium.WebDriver;
+import org.openqa.selenium.WebDriverException;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.verify;
+
+class SessionTeardownTest {
+
+    private final List<List<String>> reported = new ArrayList<>();
+    private final CountDownLatch releaseQuit = new CountDownLatch(1);
+
+    @AfterEach
+    void tearDown() {
+        releaseQuit.countDown();
+        System.clearProperty("pepenium.async.teardown");
+        SessionTeardown.closeShared();
+    }
+
+    @Test
+    void quitsInTheBackgroundAndDrainsOnClose() throws Exception {
+        SessionTeardown teardown = new SessionTeardown(2, 4, Duration.ofSeconds(5), reported::add);
+        WebDriver slowDriver = blockingDriver();
+        DriverSession session = new DriverSession(slowDriver, request());
+
+        long startedAt = System.nanoTime();
+        teardown.submit(session);
+
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - startedAt) < 1000);
+        releaseQuit.countDown();
+        teardown.close();
+
+        verify(slowDriver).quit();
+        assertTrue(reported.isEmpty());
+    }
+
+    @Test
+    void reportsQuitFailuresWhenDrained() {
+        SessionTeardown teardown = new SessionTeardown(2, 4, Duration.ofSeconds(5), reported::add);
+        WebDriver failingDriver = mock(WebDriver.class);
+        doThrow(new WebDriverException("session not found")).when(failingDriver).quit();
+
+        teardown.submit(new DriverSession(failingDriver, request()));
+        teardown.close();
+
+        assertEquals(1, reported.size());
+        assertEquals(1, reported.get(0).size());
+        assertTrue(reported.get(0).get(0).contains("session not found"));
+    }
+
+    @Test
+    void reportsQuitsThatMissTheDrainDeadline() {
+        SessionTeardown teardown = new SessionTeardown(1, 4, Duration.ofMillis(200), reported::add);
+
+        teardown.submit(new DriverSession(blockingDriver(), request()));
+        teardown.close();
+
+        assertEquals(1, reported.size());
+        assertTrue(reported.get(0).get(0).contains("timed out"));
+    }
+
+    @Test
+    void quitsOnTheCallingThreadOnceTheQueueIsFull() {
+        SessionTeardown teardown = new SessionTeardown(1, 1, Duration.ofSeconds(5), reported::add);
+        WebDriver overflowDriver = mock(WebDriver.class);
+
+        teardown.submit(new DriverSession(blockingDriver(), request()));
+        teardown.submit(new DriverSession(mock(WebDriver.class), request()));
+        teardown.submit(new DriverSession(overflowDriver, request()));
+
+        verify(overflowDriver).quit();
+        releaseQuit.countDown();
+        teardown.close();
+    }
+
+    @Test
+    void quitsSynchronouslyAfterClose() {
+        SessionTeardown teardown = new SessionTeardown(1, 1, Duration.ofSeconds(5), reported::add);
+        WebDriver driver = mock(WebDriver.class);
+        teardown.close();
+
+        teardown.submit(new DriverSession(driver, request()));
+
+        verify(driver).quit();
+    }
+
+    @Test
+    void disposeClosesOnTheCallingThreadUnlessEnabled() {
+        WebDriver driver = mock(WebDriver.class);
+
+        SessionTeardown.dispose(new DriverSession(driver, request()));
+
+        verify(driver).quit();
+    }
+
+    @Test
+    void disposeHandsSessionsToTheSharedTeardownWhenEnabled() {
+        System.setProperty("pepenium.async.teardown", "true");
+        WebDriver driver = blockingDriver();
+
+        SessionTeardown.dispose(new DriverSession(driver, request()));
+        releaseQuit.countDown();
+        SessionTeardown.closeShared();
+
+        verify(driver).quit();
+    }
+
+    private WebDriver blockingDriver() {
+        WebDriver driver = mock(WebDriver.class);
+        doAnswer(invocation -> {
+            releaseQuit.await(5, TimeUnit.SECONDS);
+            return null;
+        }).when(driver).quit();
+        return driver;
+    }
+
+    private static DriverRequest request() {
+        return DriverRequest.builder()
+                .driverType(DriverType.LOCAL_CHROME)
+                .capabilities(new MutableCapabilities())
+                .description("teardown test")
+                .build();
+    }
+}
@@ -0,0 +1,150 @@
+package io.github.roberto22palomar.pepenium.core.runtime;
+
+import org.junit.jupiter.api.Test;
+import org.openqa.selenium.remote.http.ClientConfig;
+import org.openqa.selenium.remote.http.HttpClient;
+import org.openqa.selenium.remote.http.HttpMethod;
+import org.openqa.selenium.remote.http.HttpRequest;
+import org.openqa.selenium.remote.http.HttpResponse;
+
+import java.net.URL;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.never;
+import static org.mockito.Mockito.verify;
+import static org.mockito.Mockito.when;
+
+class SharedHttpTransportTest {
+
+    private final List<HttpClient> created = new ArrayList<>();
+    private final HttpClient.Factory delegate = config -> {
+        HttpClient client = mock(HttpClient.class);
+        when(client.execute(any())).thenReturn(new HttpResponse());
+        created.add(client);
+        return client;
+    };
+
+    @Test
+    void sessionsAgainstTheSameServerShareOneClient() throws Exception {
+        SharedHttpTransport transport = new SharedHttpTransport(delegate, Integer.MAX_VALUE);
+
+        HttpClient first = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+        first.execute(new HttpRequest(HttpMethod.GET, "/status"));
+        first.close();
+        HttpClient second = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+        second.execute(new HttpRequest(HttpMethod.GET, "/status"));
+
+        assertEquals(1, created.size());
+        assertEquals(1, transport.clientsCreated());
+        assertEquals(1, transport.sharedClientHandouts());
+        assertEquals(2, transport.requests());
+        verify(created.get(0), never()).close();
+
+        transport.close();
+
+        verify(created.get(0)).close();
+    }
+
+    @Test
+    void keepsDifferentServersAndTimeoutsApart() throws Exception {
+        SharedHttpTransport transport = new SharedHttpTransport(delegate, Integer.MAX_VALUE);
+
+        transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+        transport.createClient(config("http://appium:4723", Duration.ofMinutes(3)));
+        transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(1)));
+
+        assertEquals(3, transport.clientsCreated());
+        assertEquals(0, transport.sharedClientHandouts());
+        transport.close();
+    }
+
+    @Test
+    void capsCommandsInFlightPerHost() throws Exception {
+        CountDownLatch release = new CountDownLatch(1);
+        AtomicInteger inFlight = new AtomicInteger();
+        AtomicInteger maxInFlight = new AtomicInteger();
+        HttpClient.Factory blocking = config -> {
+            HttpClient client = mock(HttpClient.class);
+            when(client.execute(any())).thenAnswer(invocation -> {
+                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                release.await(5, TimeUnit.SECONDS);
+                inFlight.decrementAndGet();
+                return new HttpResponse();
+            });
+            return client;
+        };
+        SharedHttpTransport transport = new SharedHttpTransport(blocking, 1);
+        HttpClient web = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+        HttpClient slowerWeb = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(5)));
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            Future<?> first = executor.submit(() -> web.execute(new HttpRequest(HttpMethod.GET, "/status")));
+            Future<?> second = executor.submit(() -> slowerWeb.execute(new HttpRequest(HttpMethod.GET, "/status")));
+            Thread.sleep(200);
+            assertFalse(first.isDone() && second.isDone());
+            release.countDown();
+            first.get(5, TimeUnit.SECONDS);
+            second.get(5, TimeUnit.SECONDS);
+        } finally {
+            executor.shutdownNow();
+            transport.close();
+        }
+
+        assertEquals(1, maxInFlight.get());
+    }
+
+    @Test
+    void sendsAsyncCommandsThroughTheSharedClientAndHoldsTheHostSlotUntilTheyComplete() throws Exception {
+        CompletableFuture<HttpResponse> pending = new CompletableFuture<>();
+        HttpClient shared = mock(HttpClient.class);
+        when(shared.executeAsync(any())).thenReturn(pending, CompletableFuture.completedFuture(new HttpResponse()));
+        SharedHttpTransport transport = new SharedHttpTransport(config -> shared, 1);
+        HttpClient client = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+
+        CompletableFuture<HttpResponse> first = client.executeAsync(new HttpRequest(HttpMethod.GET, "/status"));
+        Future<CompletableFuture<HttpResponse>> second = CompletableFuture.supplyAsync(
+                () -> client.executeAsync(new HttpRequest(HttpMethod.GET, "/status")));
+        Thread.sleep(200);
+        assertFalse(second.isDone());
+
+        pending.complete(new HttpResponse());
+
+        assertTrue(first.isDone());
+        assertTrue(second.get(5, TimeUnit.SECONDS).isDone());
+        verify(shared, never()).execute(any());
+        assertEquals(2, transport.requests());
+        transport.close();
+    }
+
+    @Test
+    void handsOutPlainClientsOnceClosed() throws Exception {
+        SharedHttpTransport transport = new SharedHttpTransport(delegate, Integer.MAX_VALUE);
+        transport.close();
+
+        HttpClient client = transport.createClient(config("http://grid:4444/wd/hub", Duration.ofMinutes(3)));
+
+        assertTrue(created.contains(client));
+        assertEquals(0, transport.clientsCreated());
+    }
+
+    private static ClientConfig config(String url, Duration readTimeout) throws Exception {
+        return ClientConfig.defaultConfig()
+                .baseUrl(new URL(url))
+                .connectionTimeout(Duration.ofSeconds(10))
+                .readTimeout(readTimeout);
+    }
+}